@@ -2,8 +2,10 @@ package org.fabiano.tfg.engine;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EngineApplication {
 
     public static void main(String[] args) {
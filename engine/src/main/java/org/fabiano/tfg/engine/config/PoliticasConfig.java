@@ -0,0 +1,29 @@
+package org.fabiano.tfg.engine.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.service.ia.TablaPoliticas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Slf4j
+@Configuration
+public class PoliticasConfig {
+
+    /**
+     * Mapea la tabla de políticas al arrancar. Sólo se registra si se configuró
+     * {@code truco.ia.politicas.archivo}.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "truco.ia.politicas", name = "archivo")
+    public TablaPoliticas tablaPoliticas(@Value("${truco.ia.politicas.archivo}") Path archivo) throws IOException {
+        TablaPoliticas tabla = TablaPoliticas.abrir(archivo);
+        log.info("Tabla de políticas mapeada desde {} (puntaje máximo {}, {} buckets de mano)",
+                archivo, tabla.getPuntajeMaximo(), tabla.getBucketsMano());
+        return tabla;
+    }
+}
@@ -0,0 +1,61 @@
+package org.fabiano.tfg.engine.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.service.replica.DataSourceRuteado;
+import org.fabiano.tfg.engine.service.replica.GuardiaReplica;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Con {@code truco.replica.url} configurada, las lecturas de listados y del
+ * archivo van a un pool propio contra la réplica; lo demás sigue yendo a la
+ * primaria de {@code spring.datasource}. Sin esa propiedad no se registra y
+ * Spring Boot arma el pool de siempre.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "truco.replica", name = "url")
+public class ReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primariaDataSource(DataSourceProperties propiedades) {
+        return propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("truco.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${truco.replica.url}") String url,
+                                              @Value("${truco.replica.username:${spring.datasource.username:}}") String usuario,
+                                              @Value("${truco.replica.password:${spring.datasource.password:}}") String clave) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(usuario)
+                .password(clave)
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        log.info("Lecturas de listados y archivo ruteadas a la réplica {}", url);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primariaDataSource") DataSource primaria,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 GuardiaReplica guardia) {
+        return new LazyConnectionDataSourceProxy(new DataSourceRuteado(primaria, replica, guardia));
+    }
+}
@@ -0,0 +1,23 @@
+package org.fabiano.tfg.engine.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.fabiano.tfg.engine.dto.EstadisticaCache;
+import org.fabiano.tfg.engine.service.EstadisticasCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheController {
+    private final EstadisticasCache estadisticasCache;
+
+    @GetMapping
+    public ResponseEntity<List<EstadisticaCache>> estadisticas() {
+        return ResponseEntity.ok(estadisticasCache.regiones());
+    }
+}
@@ -0,0 +1,63 @@
+package org.fabiano.tfg.engine.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.fabiano.tfg.engine.dto.PosicionCalificacion;
+import org.fabiano.tfg.engine.model.FilaClasificacion.Tipo;
+import org.fabiano.tfg.engine.service.clasificacion.CalificacionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/calificaciones")
+@RequiredArgsConstructor
+public class CalificacionController {
+    private static final int MAXIMO_POR_PAGINA = 100;
+
+    private final CalificacionService calificacionService;
+
+    @GetMapping("/jugadores")
+    public ResponseEntity<List<PosicionCalificacion>> jugadores(
+            @RequestParam(defaultValue = "0") int desde,
+            @RequestParam(defaultValue = "10") int cantidad,
+            @RequestParam(required = false) Double minimo,
+            @RequestParam(required = false) Double maximo) {
+        return ResponseEntity.ok(listar(Tipo.JUGADOR, desde, cantidad, minimo, maximo));
+    }
+
+    @GetMapping("/jugadores/{nombre}")
+    public ResponseEntity<PosicionCalificacion> jugador(@PathVariable String nombre) {
+        return ResponseEntity.of(calificacionService.buscar(Tipo.JUGADOR, nombre));
+    }
+
+    @GetMapping("/equipos")
+    public ResponseEntity<List<PosicionCalificacion>> equipos(
+            @RequestParam(defaultValue = "0") int desde,
+            @RequestParam(defaultValue = "10") int cantidad,
+            @RequestParam(required = false) Double minimo,
+            @RequestParam(required = false) Double maximo) {
+        return ResponseEntity.ok(listar(Tipo.EQUIPO, desde, cantidad, minimo, maximo));
+    }
+
+    @GetMapping("/equipos/{nombre}")
+    public ResponseEntity<PosicionCalificacion> equipo(@PathVariable String nombre) {
+        return ResponseEntity.of(calificacionService.buscar(Tipo.EQUIPO, nombre));
+    }
+
+    @PostMapping("/recalcular")
+    public ResponseEntity<Integer> recalcular() {
+        return ResponseEntity.ok(calificacionService.recalcular());
+    }
+
+    private List<PosicionCalificacion> listar(Tipo tipo, int desde, int cantidad, Double minimo, Double maximo) {
+        int limite = Math.min(cantidad, MAXIMO_POR_PAGINA);
+        if (minimo == null && maximo == null) {
+            return calificacionService.top(tipo, desde, limite);
+        }
+        return calificacionService.entre(tipo,
+                minimo != null ? minimo : Double.NEGATIVE_INFINITY,
+                maximo != null ? maximo : Double.POSITIVE_INFINITY,
+                limite);
+    }
+}
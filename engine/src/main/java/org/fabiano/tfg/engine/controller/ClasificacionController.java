@@ -0,0 +1,43 @@
+package org.fabiano.tfg.engine.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.fabiano.tfg.engine.dto.PosicionClasificacion;
+import org.fabiano.tfg.engine.model.FilaClasificacion.Tipo;
+import org.fabiano.tfg.engine.service.clasificacion.ClasificacionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/clasificacion")
+@RequiredArgsConstructor
+public class ClasificacionController {
+    private static final int MAXIMO_POR_PAGINA = 100;
+
+    private final ClasificacionService clasificacionService;
+
+    @GetMapping("/jugadores")
+    public ResponseEntity<List<PosicionClasificacion>> jugadores(
+            @RequestParam(defaultValue = "0") int desde,
+            @RequestParam(defaultValue = "10") int cantidad) {
+        return ResponseEntity.ok(clasificacionService.top(Tipo.JUGADOR, desde, Math.min(cantidad, MAXIMO_POR_PAGINA)));
+    }
+
+    @GetMapping("/jugadores/{nombre}")
+    public ResponseEntity<PosicionClasificacion> jugador(@PathVariable String nombre) {
+        return ResponseEntity.of(clasificacionService.buscar(Tipo.JUGADOR, nombre));
+    }
+
+    @GetMapping("/equipos")
+    public ResponseEntity<List<PosicionClasificacion>> equipos(
+            @RequestParam(defaultValue = "0") int desde,
+            @RequestParam(defaultValue = "10") int cantidad) {
+        return ResponseEntity.ok(clasificacionService.top(Tipo.EQUIPO, desde, Math.min(cantidad, MAXIMO_POR_PAGINA)));
+    }
+
+    @GetMapping("/equipos/{nombre}")
+    public ResponseEntity<PosicionClasificacion> equipo(@PathVariable String nombre) {
+        return ResponseEntity.of(clasificacionService.buscar(Tipo.EQUIPO, nombre));
+    }
+}
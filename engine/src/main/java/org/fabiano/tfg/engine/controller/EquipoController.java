@@ -12,14 +12,16 @@ import org.fabiano.tfg.engine.model.team.Equipo;
 import org.fabiano.tfg.engine.model.team.Jugador;
 import org.fabiano.tfg.engine.repository.EquipoRepository;
 import org.fabiano.tfg.engine.repository.JugadorRepository;
+import org.fabiano.tfg.engine.service.Listados;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -29,6 +31,7 @@ public class EquipoController {
 
     private final EquipoRepository equipoRepository;
     private final JugadorRepository jugadorRepository;
+    private final Listados listados;
 
     @PostMapping
     public ResponseEntity<EquipoResponse> crearEquipo(@RequestBody CrearEquipoRequest request) {
@@ -44,24 +47,32 @@ public class EquipoController {
 
     @GetMapping("/{id}")
     public ResponseEntity<EquipoResponse> obtenerEquipo(@PathVariable UUID id) {
-        return equipoRepository.findById(id)
+        return equipoRepository.buscarConJugadores(id)
                 .map(equipo -> ResponseEntity.ok(new EquipoResponse(equipo)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Una página ordenada por id; la cabecera {@code X-Siguiente} trae el
+     * valor de {@code despues} para la próxima.
+     */
     @GetMapping
-    public ResponseEntity<List<EquipoResponse>> listarEquipos() {
-        List<EquipoResponse> equipos = equipoRepository.findAll().stream()
-                .map(EquipoResponse::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(equipos);
+    public ResponseEntity<List<EquipoResponse>> listarEquipos(
+            @RequestParam(required = false) UUID despues,
+            @RequestParam(defaultValue = "100") int limite) {
+        return Paginas.respuesta(listados.equipos(despues, limite));
+    }
+
+    @GetMapping(value = "/todos", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> recorrerEquipos() {
+        return ResponseEntity.ok(listados::escribirEquipos);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<EquipoResponse> actualizarEquipo(
             @PathVariable UUID id,
             @RequestBody CrearEquipoRequest request) {
-        return equipoRepository.findById(id)
+        return equipoRepository.buscarConJugadores(id)
                 .map(equipo -> {
                     equipo.setNombre(request.getNombre());
                     equipo = equipoRepository.save(equipo);
@@ -73,7 +84,7 @@ public class EquipoController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminarEquipo(@PathVariable UUID id) {
-        return equipoRepository.findById(id)
+        return equipoRepository.buscarConJugadores(id)
                 .map(equipo -> {
                     equipoRepository.delete(equipo);
                     log.info("Equipo eliminado: {}", equipo.getNombre());
@@ -94,7 +105,7 @@ public class EquipoController {
             @PathVariable UUID equipoId,
             @Parameter(description = "ID del jugador", example = "123e4567-e89b-12d3-a456-426614174000")
             @PathVariable UUID jugadorId) {
-        Optional<Equipo> equipoOpt = equipoRepository.findById(equipoId);
+        Optional<Equipo> equipoOpt = equipoRepository.buscarConJugadores(equipoId);
         Optional<Jugador> jugadorOpt = jugadorRepository.findById(jugadorId);
 
         if (equipoOpt.isEmpty() || jugadorOpt.isEmpty()) {
@@ -122,7 +133,7 @@ public class EquipoController {
     public ResponseEntity<EquipoResponse> removerJugadorDeEquipo(
             @PathVariable UUID equipoId,
             @PathVariable UUID jugadorId) {
-        Optional<Equipo> equipoOpt = equipoRepository.findById(equipoId);
+        Optional<Equipo> equipoOpt = equipoRepository.buscarConJugadores(equipoId);
         if (equipoOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
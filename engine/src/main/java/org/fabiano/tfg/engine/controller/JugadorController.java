@@ -6,13 +6,15 @@ import org.fabiano.tfg.engine.dto.CrearJugadorRequest;
 import org.fabiano.tfg.engine.dto.JugadorResponse;
 import org.fabiano.tfg.engine.model.team.Jugador;
 import org.fabiano.tfg.engine.repository.JugadorRepository;
+import org.fabiano.tfg.engine.service.Listados;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -20,6 +22,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class JugadorController {
     private final JugadorRepository jugadorRepository;
+    private final Listados listados;
 
     @PostMapping
     public ResponseEntity<JugadorResponse> crearJugador(@RequestBody CrearJugadorRequest request) {
@@ -41,12 +44,20 @@ public class JugadorController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Una página ordenada por id; la cabecera {@code X-Siguiente} trae el
+     * valor de {@code despues} para la próxima.
+     */
     @GetMapping
-    public ResponseEntity<List<JugadorResponse>> listarJugadores() {
-        List<JugadorResponse> jugadores = jugadorRepository.findAll().stream()
-                .map(JugadorResponse::new)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(jugadores);
+    public ResponseEntity<List<JugadorResponse>> listarJugadores(
+            @RequestParam(required = false) UUID despues,
+            @RequestParam(defaultValue = "100") int limite) {
+        return Paginas.respuesta(listados.jugadores(despues, limite));
+    }
+
+    @GetMapping(value = "/todos", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> recorrerJugadores() {
+        return ResponseEntity.ok(listados::escribirJugadores);
     }
 
     @PutMapping("/{id}")
@@ -0,0 +1,21 @@
+package org.fabiano.tfg.engine.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.fabiano.tfg.engine.dto.EstadisticasLimpieza;
+import org.fabiano.tfg.engine.service.archivo.LimpiezaPartidas;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/limpieza")
+@RequiredArgsConstructor
+public class LimpiezaController {
+    private final LimpiezaPartidas limpieza;
+
+    @GetMapping
+    public ResponseEntity<EstadisticasLimpieza> estadisticas() {
+        return ResponseEntity.ok(limpieza.estadisticas());
+    }
+}
@@ -0,0 +1,26 @@
+package org.fabiano.tfg.engine.controller;
+
+import org.fabiano.tfg.engine.dto.Pagina;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Respuesta común de los listados por páginas: el cuerpo sigue siendo la
+ * lista y la clave para continuar va en una cabecera.
+ */
+final class Paginas {
+
+    static final String SIGUIENTE = "X-Siguiente";
+
+    private Paginas() {
+    }
+
+    static <T> ResponseEntity<List<T>> respuesta(Pagina<T> pagina) {
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.siguiente() != null) {
+            respuesta.header(SIGUIENTE, pagina.siguiente().toString());
+        }
+        return respuesta.body(pagina.elementos());
+    }
+}
@@ -1,21 +1,34 @@
 package org.fabiano.tfg.engine.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.dto.PartidaResumen;
 import org.fabiano.tfg.engine.model.Carta;
 import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.TipoCanto;
 import org.fabiano.tfg.engine.model.team.Jugador;
-import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.service.ComandosPartida;
+import org.fabiano.tfg.engine.service.Listados;
+import org.fabiano.tfg.engine.service.MembresiasPartida;
 import org.fabiano.tfg.engine.service.PartidaService;
+import org.fabiano.tfg.engine.service.RegistroPartidas;
 import org.fabiano.tfg.engine.service.YamlRuleLoader;
+import org.fabiano.tfg.engine.service.archivo.ArchivoPartidas;
+import org.fabiano.tfg.engine.service.replica.GuardiaReplica;
 import org.fabiano.tfg.engine.websocket.GameWebSocketHandler;
 import org.fabiano.tfg.engine.websocket.WebSocketMessage;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -26,25 +39,23 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class PartidaController {
 
-    private static final String UUID_REGEX = 
-        "^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$";
-
     private final PartidaService partidaService;
     private final YamlRuleLoader yamlRuleLoader;
-    private final PartidaRepository partidaRepository;
+    private final RegistroPartidas registroPartidas;
+    private final ComandosPartida comandosPartida;
+    private final ArchivoPartidas archivoPartidas;
+    private final Listados listados;
+    private final MembresiasPartida membresias;
+    private final GuardiaReplica replica;
     private final GameWebSocketHandler webSocketHandler;
+    private final ObjectMapper objectMapper;
 
     /**
      * Helper method to find a partida by ID (UUID) or name.
-     * First checks if identifier matches UUID format, then falls back to name lookup.
+     * Live partidas are served from memory; others are loaded from the database.
      */
     private Optional<Partida> findPartidaByIdOrNombre(String identifier) {
-        if (identifier != null && identifier.matches(UUID_REGEX)) {
-            UUID uuid = UUID.fromString(identifier);
-            return partidaRepository.findById(uuid);
-        }
-        // Not a valid UUID format, try to find by name
-        return partidaRepository.findByNombre(identifier);
+        return registroPartidas.buscar(identifier);
     }
 
     @PostMapping
@@ -54,6 +65,8 @@ public class PartidaController {
         }
         try {
             Partida partida = partidaService.crearPartida(request);
+            partida.getEquipos().forEach(equipo ->
+                    equipo.getJugadores().forEach(jugador -> replica.registrarAccion(jugador.getNombre())));
             if (partida.getId() == null) {
                 log.error("Partida created but ID was not generated");
                 return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -67,80 +80,123 @@ public class PartidaController {
         }
     }
 
+    /**
+     * Listado liviano: las partidas en curso de a una página, ordenadas por
+     * id y con la cabecera {@code X-Siguiente} para continuar, o todas las de
+     * un jugador, de la más reciente a la más vieja. Sin cargar equipos ni
+     * cartas.
+     */
+    @GetMapping
+    public ResponseEntity<List<PartidaResumen>> listarPartidas(
+            @RequestParam(required = false) String jugador,
+            @RequestParam(required = false) UUID despues,
+            @RequestParam(defaultValue = "100") int limite) {
+        if (jugador != null) {
+            return ResponseEntity.ok(listados.partidasDe(jugador));
+        }
+        return Paginas.respuesta(listados.partidasEnCurso(despues, limite));
+    }
+
+    @GetMapping(value = "/en-curso", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> recorrerPartidasEnCurso() {
+        return ResponseEntity.ok(listados::escribirPartidasEnCurso);
+    }
+
+    /**
+     * La partida viva se pasa a JSON dentro de la lectura: Jackson no puede
+     * recorrerla después de soltar el bloqueo, con otra jugada en curso.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Partida> obtenerPartida(@PathVariable String id) {
+    public ResponseEntity<JsonNode> obtenerPartida(@PathVariable String id) {
         Optional<Partida> partidaOpt = findPartidaByIdOrNombre(id);
         if (partidaOpt.isEmpty()) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            // Las partidas terminadas hace tiempo se leen del archivo
+            return replica.leer(() -> archivoPartidas.buscar(id))
+                    .<JsonNode>map(objectMapper::valueToTree)
+                    .map(archivada -> new ResponseEntity<>(archivada, HttpStatus.OK))
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
         }
         Partida partida = partidaOpt.get();
-        // Reconstruir el orden de turno si es necesario
-        partidaService.reconstruirOrdenDeTurno(partida);
-        return new ResponseEntity<>(partida, HttpStatus.OK);
+        JsonNode copia = registroPartidas.leer(partida, () -> {
+            // Reconstruir el orden de turno si es necesario
+            partidaService.reconstruirOrdenDeTurno(partida);
+            return objectMapper.valueToTree(partida);
+        });
+        return new ResponseEntity<>(copia, HttpStatus.OK);
+    }
+
+    /**
+     * 204 si el jugador juega en la partida, 404 si no. No carga la partida.
+     */
+    @GetMapping("/{id}/jugadores/{jugadorNombre}")
+    public ResponseEntity<Void> verificarJugador(@PathVariable UUID id, @PathVariable String jugadorNombre) {
+        return membresias.esMiembro(id, jugadorNombre)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 
     @PostMapping("/{id}/cantar/truco")
     public ResponseEntity<String> cantarTruco(@PathVariable String id, @RequestParam String jugadorNombre) {
+        replica.registrarAccion(jugadorNombre);
         Optional<Partida> partidaOpt = findPartidaByIdOrNombre(id);
         if (partidaOpt.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
         Partida partida = partidaOpt.get();
-        partidaService.reconstruirOrdenDeTurno(partida);
-        
-        Jugador jugador = encontrarJugador(partida, jugadorNombre);
-        if (jugador == null) {
-            return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
-        }
+        return comandosPartida.ejecutar(partida, () -> {
+            partidaService.reconstruirOrdenDeTurno(partida);
 
-        yamlRuleLoader.ejecutarTodas(jugador, partida);
-        if (!jugador.isPuedeCantarTruco()) {
-            return new ResponseEntity<>("No puede cantar truco en este momento", HttpStatus.BAD_REQUEST);
-        }
+            Jugador jugador = encontrarJugador(partida, jugadorNombre);
+            if (jugador == null) {
+                return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
+            }
 
-        partida.setTrucoCantado(true);
-        partida.setValorTruco(2);
-        partidaService.avanzarTurno(partida);
-        partidaRepository.save(partida);
-        log.info("Jugador {} cantó truco en partida {}", jugador.getNombre(), partida.getId());
-        
-        // Broadcast WebSocket update
-        broadcastGameUpdate(partida, WebSocketMessage.MessageType.TRUCO_CANTADO, jugador.getNombre());
-        
-        return new ResponseEntity<>(jugador.getNombre() + " cantó truco", HttpStatus.OK);
+            yamlRuleLoader.ejecutarTodas(jugador, partida);
+            if (!jugador.isPuedeCantarTruco()) {
+                return new ResponseEntity<>("No puede cantar truco en este momento", HttpStatus.BAD_REQUEST);
+            }
+
+            partidaService.aplicarCanto(partida, jugador, TipoCanto.TRUCO);
+            log.info("Jugador {} cantó truco en partida {}", jugador.getNombre(), partida.getId());
+
+            // Broadcast WebSocket update
+            broadcastGameUpdate(partida, WebSocketMessage.MessageType.TRUCO_CANTADO, jugador.getNombre());
+
+            return new ResponseEntity<>(jugador.getNombre() + " cantó truco", HttpStatus.OK);
+        });
     }
 
     @PostMapping("/{id}/cantar/envido")
     public ResponseEntity<String> cantarEnvido(@PathVariable String id, @RequestParam String jugadorNombre) {
+        replica.registrarAccion(jugadorNombre);
         Optional<Partida> partidaOpt = findPartidaByIdOrNombre(id);
         if (partidaOpt.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
         Partida partida = partidaOpt.get();
-        partidaService.reconstruirOrdenDeTurno(partida);
-        
-        Jugador jugador = encontrarJugador(partida, jugadorNombre);
-        if (jugador == null) {
-            return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
-        }
+        return comandosPartida.ejecutar(partida, () -> {
+            partidaService.reconstruirOrdenDeTurno(partida);
 
-        yamlRuleLoader.ejecutarTodas(jugador, partida);
-        if (!jugador.isPuedeCantarEnvido()) {
-            return new ResponseEntity<>("No puede cantar envido en este momento", HttpStatus.BAD_REQUEST);
-        }
+            Jugador jugador = encontrarJugador(partida, jugadorNombre);
+            if (jugador == null) {
+                return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
+            }
 
-        partida.setEnvidoCantado(true);
-        partida.setValorEnvido(2);
-        partidaService.avanzarTurno(partida);
-        partidaRepository.save(partida);
-        log.info("Jugador {} cantó envido en partida {}", jugador.getNombre(), partida.getId());
-        
-        // Broadcast WebSocket update
-        broadcastGameUpdate(partida, WebSocketMessage.MessageType.ENVIDO_CANTADO, jugador.getNombre());
-        
-        return new ResponseEntity<>(jugador.getNombre() + " cantó envido", HttpStatus.OK);
+            yamlRuleLoader.ejecutarTodas(jugador, partida);
+            if (!jugador.isPuedeCantarEnvido()) {
+                return new ResponseEntity<>("No puede cantar envido en este momento", HttpStatus.BAD_REQUEST);
+            }
+
+            partidaService.aplicarCanto(partida, jugador, TipoCanto.ENVIDO);
+            log.info("Jugador {} cantó envido en partida {}", jugador.getNombre(), partida.getId());
+
+            // Broadcast WebSocket update
+            broadcastGameUpdate(partida, WebSocketMessage.MessageType.ENVIDO_CANTADO, jugador.getNombre());
+
+            return new ResponseEntity<>(jugador.getNombre() + " cantó envido", HttpStatus.OK);
+        });
     }
 
     @PostMapping("/{id}/jugar")
@@ -148,138 +204,143 @@ public class PartidaController {
             @PathVariable String id,
             @RequestParam String jugadorNombre,
             @RequestParam int indiceCarta) {
+        replica.registrarAccion(jugadorNombre);
         Optional<Partida> partidaOpt = findPartidaByIdOrNombre(id);
         if (partidaOpt.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
         Partida partida = partidaOpt.get();
-        // Reconstruir el orden de turno si es necesario
-        partidaService.reconstruirOrdenDeTurno(partida);
+        return comandosPartida.ejecutar(partida, () -> {
+            // Reconstruir el orden de turno si es necesario
+            partidaService.reconstruirOrdenDeTurno(partida);
 
-        Jugador jugador = encontrarJugador(partida, jugadorNombre);
-        if (jugador == null || indiceCarta < 0 || indiceCarta >= jugador.getMano().size()) {
-            return new ResponseEntity<>("Jugador o carta inválida", HttpStatus.BAD_REQUEST);
-        }
+            Jugador jugador = encontrarJugador(partida, jugadorNombre);
+            if (jugador == null || indiceCarta < 0 || indiceCarta >= jugador.getMano().size()) {
+                return new ResponseEntity<>("Jugador o carta inválida", HttpStatus.BAD_REQUEST);
+            }
 
-        // Validar que es el turno del jugador
-        if (!partida.esTurnoDeJugador(jugador)) {
-            return new ResponseEntity<>("No es tu turno. Turno actual: " + 
-                    partida.getJugadorActual().getNombre(), HttpStatus.BAD_REQUEST);
-        }
+            // Validar que es el turno del jugador
+            if (!partida.esTurnoDeJugador(jugador)) {
+                return new ResponseEntity<>("No es tu turno. Turno actual: " + 
+                        partida.getJugadorActual().getNombre(), HttpStatus.BAD_REQUEST);
+            }
 
-        try {
-            yamlRuleLoader.ejecutarTodas(jugador, partida);
-            Carta carta = jugador.getMano().get(indiceCarta);
-            partidaService.registrarJugada(partida, jugador, carta);
-            partidaRepository.save(partida);
-            log.info("Jugador {} jugó carta {} en partida {}",
-                    jugador.getNombre(), carta, partida.getId());
-            
-            // Broadcast WebSocket update
-            Map<String, Object> cartaJugadaInfo = new HashMap<>();
-            cartaJugadaInfo.put("jugador", jugador.getNombre());
-            cartaJugadaInfo.put("carta", carta);
-            broadcastGameUpdate(partida, WebSocketMessage.MessageType.CARTA_JUGADA, cartaJugadaInfo);
-            
-            return new ResponseEntity<>(jugador.getNombre() + " jugó: " + carta, HttpStatus.OK);
-        } catch (IllegalStateException e) {
-            log.warn("Error al jugar carta: {}", e.getMessage());
-            return new ResponseEntity<>("No se puede realizar esta acción en este momento", HttpStatus.BAD_REQUEST);
-        }
+            try {
+                yamlRuleLoader.ejecutarTodas(jugador, partida);
+                Carta carta = jugador.getMano().get(indiceCarta);
+                partidaService.registrarJugada(partida, jugador, carta);
+                    log.info("Jugador {} jugó carta {} en partida {}",
+                        jugador.getNombre(), carta, partida.getId());
+
+                // Broadcast WebSocket update
+                Map<String, Object> cartaJugadaInfo = new HashMap<>();
+                cartaJugadaInfo.put("jugador", jugador.getNombre());
+                cartaJugadaInfo.put("carta", carta);
+                broadcastGameUpdate(partida, WebSocketMessage.MessageType.CARTA_JUGADA, cartaJugadaInfo);
+
+                return new ResponseEntity<>(jugador.getNombre() + " jugó: " + carta, HttpStatus.OK);
+            } catch (IllegalStateException e) {
+                log.warn("Error al jugar carta: {}", e.getMessage());
+                return new ResponseEntity<>("No se puede realizar esta acción en este momento", HttpStatus.BAD_REQUEST);
+            }
+        });
     }
 
     @PostMapping("/{id}/querer")
     public ResponseEntity<String> querer(@PathVariable String id, @RequestParam String jugadorNombre) {
+        replica.registrarAccion(jugadorNombre);
         Optional<Partida> partidaOpt = findPartidaByIdOrNombre(id);
         if (partidaOpt.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
         Partida partida = partidaOpt.get();
-        partidaService.reconstruirOrdenDeTurno(partida);
-        
-        Jugador jugador = encontrarJugador(partida, jugadorNombre);
-        if (jugador == null) {
-            return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
-        }
+        return comandosPartida.ejecutar(partida, () -> {
+            partidaService.reconstruirOrdenDeTurno(partida);
 
-        yamlRuleLoader.ejecutarTodas(jugador, partida);
-        if (!jugador.isPuedeQuerer()) {
-            return new ResponseEntity<>("No puede querer en este momento", HttpStatus.BAD_REQUEST);
-        }
+            Jugador jugador = encontrarJugador(partida, jugadorNombre);
+            if (jugador == null) {
+                return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
+            }
 
-        partida.setQuiso(true);
-        partidaService.avanzarTurno(partida);
-        partidaRepository.save(partida);
-        log.info("Jugador {} quiso en partida {}", jugador.getNombre(), partida.getId());
-        
-        // Broadcast WebSocket update
-        broadcastGameUpdate(partida, WebSocketMessage.MessageType.QUISO, jugador.getNombre());
-        
-        return new ResponseEntity<>(jugador.getNombre() + " quiso", HttpStatus.OK);
+            yamlRuleLoader.ejecutarTodas(jugador, partida);
+            if (!jugador.isPuedeQuerer()) {
+                return new ResponseEntity<>("No puede querer en este momento", HttpStatus.BAD_REQUEST);
+            }
+
+            partidaService.aplicarCanto(partida, jugador, TipoCanto.QUIERO);
+            log.info("Jugador {} quiso en partida {}", jugador.getNombre(), partida.getId());
+
+            // Broadcast WebSocket update
+            broadcastGameUpdate(partida, WebSocketMessage.MessageType.QUISO, jugador.getNombre());
+
+            return new ResponseEntity<>(jugador.getNombre() + " quiso", HttpStatus.OK);
+        });
     }
 
     @PostMapping("/{id}/no-querer")
     public ResponseEntity<String> noQuerer(@PathVariable String id, @RequestParam String jugadorNombre) {
+        replica.registrarAccion(jugadorNombre);
         Optional<Partida> partidaOpt = findPartidaByIdOrNombre(id);
         if (partidaOpt.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
         Partida partida = partidaOpt.get();
-        partidaService.reconstruirOrdenDeTurno(partida);
-        
-        Jugador jugador = encontrarJugador(partida, jugadorNombre);
-        if (jugador == null) {
-            return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
-        }
+        return comandosPartida.ejecutar(partida, () -> {
+            partidaService.reconstruirOrdenDeTurno(partida);
 
-        yamlRuleLoader.ejecutarTodas(jugador, partida);
-        if (!jugador.isPuedeNoQuerer()) {
-            return new ResponseEntity<>("No puede no querer en este momento", HttpStatus.BAD_REQUEST);
-        }
+            Jugador jugador = encontrarJugador(partida, jugadorNombre);
+            if (jugador == null) {
+                return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
+            }
 
-        partida.setNoQuiso(true);
-        partidaService.finalizarMano(partida);
-        partidaRepository.save(partida);
-        log.info("Jugador {} no quiso en partida {}", jugador.getNombre(), partida.getId());
-        
-        // Broadcast WebSocket update
-        broadcastGameUpdate(partida, WebSocketMessage.MessageType.NO_QUISO, jugador.getNombre());
-        
-        return new ResponseEntity<>(jugador.getNombre() + " no quiso", HttpStatus.OK);
+            yamlRuleLoader.ejecutarTodas(jugador, partida);
+            if (!jugador.isPuedeNoQuerer()) {
+                return new ResponseEntity<>("No puede no querer en este momento", HttpStatus.BAD_REQUEST);
+            }
+
+            partidaService.aplicarCanto(partida, jugador, TipoCanto.NO_QUIERO);
+            log.info("Jugador {} no quiso en partida {}", jugador.getNombre(), partida.getId());
+
+            // Broadcast WebSocket update
+            broadcastGameUpdate(partida, WebSocketMessage.MessageType.NO_QUISO, jugador.getNombre());
+
+            return new ResponseEntity<>(jugador.getNombre() + " no quiso", HttpStatus.OK);
+        });
     }
 
     @PostMapping("/{id}/mazo")
     public ResponseEntity<String> irseAlMazo(@PathVariable String id, @RequestParam String jugadorNombre) {
+        replica.registrarAccion(jugadorNombre);
         Optional<Partida> partidaOpt = findPartidaByIdOrNombre(id);
         if (partidaOpt.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
         Partida partida = partidaOpt.get();
-        partidaService.reconstruirOrdenDeTurno(partida);
-        
-        Jugador jugador = encontrarJugador(partida, jugadorNombre);
-        if (jugador == null) {
-            return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
-        }
+        return comandosPartida.ejecutar(partida, () -> {
+            partidaService.reconstruirOrdenDeTurno(partida);
 
-        yamlRuleLoader.ejecutarTodas(jugador, partida);
-        if (!jugador.isSeVaAlMazo()) {
-            return new ResponseEntity<>("No puede irse al mazo en este momento", HttpStatus.BAD_REQUEST);
-        }
+            Jugador jugador = encontrarJugador(partida, jugadorNombre);
+            if (jugador == null) {
+                return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
+            }
 
-        partida.setAlMazo(true);
-        partidaService.finalizarMano(partida);
-        partidaRepository.save(partida);
-        log.info("Jugador {} se fue al mazo en partida {}", jugador.getNombre(), partida.getId());
-        
-        // Broadcast WebSocket update
-        broadcastGameUpdate(partida, WebSocketMessage.MessageType.AL_MAZO, jugador.getNombre());
-        
-        return new ResponseEntity<>(jugador.getNombre() + " se fue al mazo", HttpStatus.OK);
+            yamlRuleLoader.ejecutarTodas(jugador, partida);
+            if (!jugador.isSeVaAlMazo()) {
+                return new ResponseEntity<>("No puede irse al mazo en este momento", HttpStatus.BAD_REQUEST);
+            }
+
+            partidaService.aplicarCanto(partida, jugador, TipoCanto.AL_MAZO);
+            log.info("Jugador {} se fue al mazo en partida {}", jugador.getNombre(), partida.getId());
+
+            // Broadcast WebSocket update
+            broadcastGameUpdate(partida, WebSocketMessage.MessageType.AL_MAZO, jugador.getNombre());
+
+            return new ResponseEntity<>(jugador.getNombre() + " se fue al mazo", HttpStatus.OK);
+        });
     }
 
     @GetMapping("/{id}/mano")
@@ -292,26 +353,28 @@ public class PartidaController {
         }
 
         Partida partida = partidaOpt.get();
-        partidaService.reconstruirOrdenDeTurno(partida);
-        
-        Jugador jugador = encontrarJugador(partida, jugadorNombre);
-        if (jugador == null) {
-            return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
-        }
+        return registroPartidas.leer(partida, () -> {
+            partidaService.reconstruirOrdenDeTurno(partida);
+
+            Jugador jugador = encontrarJugador(partida, jugadorNombre);
+            if (jugador == null) {
+                return new ResponseEntity<>("Jugador no encontrado", HttpStatus.BAD_REQUEST);
+            }
 
-        // Creamos un DTO con solo la información necesaria
-        Map<String, Object> response = new HashMap<>();
-        response.put("jugador", jugador.getNombre());
-        response.put("cartas", jugador.getMano());
-        Jugador jugadorActual = partida.getJugadorActual();
-        response.put("turnoActual", jugadorActual != null ? jugadorActual.getNombre() : null);
-        response.put("esMiTurno", partida.esTurnoDeJugador(jugador));
-        response.put("estadoRonda", partida.getEstadoRonda());
-        response.put("cartasJugadas", partida.getCartasJugadas());
-        response.put("puntosEquipo1", partida.getEquipos().get(0).getPuntaje());
-        response.put("puntosEquipo2", partida.getEquipos().get(1).getPuntaje());
-
-        return new ResponseEntity<>(response, HttpStatus.OK);
+            // Creamos un DTO con solo la información necesaria
+            Map<String, Object> response = new HashMap<>();
+            response.put("jugador", jugador.getNombre());
+            response.put("cartas", new ArrayList<>(jugador.getMano()));
+            Jugador jugadorActual = partida.getJugadorActual();
+            response.put("turnoActual", jugadorActual != null ? jugadorActual.getNombre() : null);
+            response.put("esMiTurno", partida.esTurnoDeJugador(jugador));
+            response.put("estadoRonda", partida.getEstadoRonda());
+            response.put("cartasJugadas", new ArrayList<>(partida.getCartasJugadas()));
+            response.put("puntosEquipo1", partida.getEquipos().get(0).getPuntaje());
+            response.put("puntosEquipo2", partida.getEquipos().get(1).getPuntaje());
+
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        });
     }
 
     private Jugador encontrarJugador(Partida partida, String nombre) {
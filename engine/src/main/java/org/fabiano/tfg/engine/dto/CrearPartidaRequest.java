@@ -21,6 +21,8 @@ public class CrearPartidaRequest {
 
     private List<EquipoDTO> equipos; // Si equiposAleatorios == false
 
+    private List<String> bots; // Jugadores que maneja la IA; opcional
+
     @Data
     @AllArgsConstructor
     @NoArgsConstructor
@@ -25,6 +25,13 @@ public class EquipoResponse {
                 .collect(Collectors.toList());
     }
 
+    public EquipoResponse(UUID id, String nombre, int puntaje, List<JugadorDTO> jugadores) {
+        this.id = id;
+        this.nombre = nombre;
+        this.puntaje = puntaje;
+        this.jugadores = jugadores;
+    }
+
     @Data
     public static class JugadorDTO {
         private String nombre;
@@ -34,5 +41,10 @@ public class EquipoResponse {
             this.nombre = jugador.getNombre();
             this.puntosEnvido = jugador.getPuntosEnvido();
         }
+
+        public JugadorDTO(String nombre, int puntosEnvido) {
+            this.nombre = nombre;
+            this.puntosEnvido = puntosEnvido;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package org.fabiano.tfg.engine.dto;
+
+/**
+ * Contadores de una región de la caché de segundo nivel desde que arrancó el
+ * proceso.
+ */
+public record EstadisticaCache(String region,
+                               long aciertos,
+                               long fallos,
+                               double tasaAciertos,
+                               long desalojos,
+                               long tamano) {
+}
@@ -0,0 +1,18 @@
+package org.fabiano.tfg.engine.dto;
+
+import java.time.Instant;
+
+/**
+ * Totales de la limpieza de partidas abandonadas desde que arrancó el
+ * servidor: filas recuperadas por tabla y partidas sacadas de memoria.
+ */
+public record EstadisticasLimpieza(long pasadas,
+                                   Instant ultimaPasada,
+                                   long liberadasDeMemoria,
+                                   long partidas,
+                                   long jugadas,
+                                   long jugadores,
+                                   long cartas,
+                                   long eventos,
+                                   long snapshots) {
+}
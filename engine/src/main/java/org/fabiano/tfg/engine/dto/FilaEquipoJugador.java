@@ -0,0 +1,14 @@
+package org.fabiano.tfg.engine.dto;
+
+import java.util.UUID;
+
+/**
+ * Un equipo con uno de sus jugadores, tal como sale del JOIN del listado en
+ * streaming. Un equipo sin jugadores viene con {@code jugador} en null.
+ */
+public record FilaEquipoJugador(UUID id,
+                                String nombre,
+                                int puntaje,
+                                String jugador,
+                                Integer puntosEnvido) {
+}
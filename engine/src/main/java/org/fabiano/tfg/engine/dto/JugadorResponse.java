@@ -15,4 +15,9 @@ public class JugadorResponse {
         this.id = jugador.getId();
         this.nombre = jugador.getNombre();
     }
+
+    public JugadorResponse(UUID id, String nombre) {
+        this.id = id;
+        this.nombre = nombre;
+    }
 }
\ No newline at end of file
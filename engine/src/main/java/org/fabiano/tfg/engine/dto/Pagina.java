@@ -0,0 +1,11 @@
+package org.fabiano.tfg.engine.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Una página de un listado por clave. {@code siguiente} es el id a pasar como
+ * {@code despues} para pedir la próxima, o null si no hay más.
+ */
+public record Pagina<T>(List<T> elementos, UUID siguiente) {
+}
@@ -0,0 +1,18 @@
+package org.fabiano.tfg.engine.dto;
+
+import org.fabiano.tfg.engine.model.EstadoRonda;
+
+import java.util.UUID;
+
+/**
+ * Fila de los listados de partidas. Se arma directamente en la consulta,
+ * sin cargar equipos, jugadores ni cartas.
+ */
+public record PartidaResumen(
+        UUID id,
+        String nombre,
+        EstadoRonda estadoRonda,
+        int manoActual,
+        int puntajeLimite
+) {
+}
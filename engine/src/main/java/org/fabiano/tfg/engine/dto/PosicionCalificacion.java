@@ -0,0 +1,11 @@
+package org.fabiano.tfg.engine.dto;
+
+/**
+ * Rating de un jugador o equipo y su posición (desde 1) en el índice.
+ */
+public record PosicionCalificacion(int posicion,
+                                   String nombre,
+                                   double rating,
+                                   double desviacion,
+                                   int partidas) {
+}
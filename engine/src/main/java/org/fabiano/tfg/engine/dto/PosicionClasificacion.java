@@ -0,0 +1,11 @@
+package org.fabiano.tfg.engine.dto;
+
+/**
+ * Una línea de la tabla de posiciones; {@code posicion} empieza en 1.
+ */
+public record PosicionClasificacion(int posicion,
+                                    String nombre,
+                                    int partidasJugadas,
+                                    int ganadas,
+                                    long puntos) {
+}
@@ -0,0 +1,25 @@
+package org.fabiano.tfg.engine.event;
+
+import org.fabiano.tfg.engine.model.TipoCanto;
+
+import java.util.UUID;
+
+/**
+ * Publicado cuando un jugador canta, responde a un canto o se va al mazo.
+ * Las manos van codificadas con {@link org.fabiano.tfg.engine.model.CodigoCarta}.
+ *
+ * @param manoOriginal     las tres cartas que recibió el jugador en esta mano
+ * @param manoRestante     las cartas que todavía no jugó
+ * @param respuestaA       para QUIERO / NO_QUIERO, el canto que se responde
+ * @param puntosDeclarados puntos anunciados ("son 33"), o {@code null} si el
+ *                         canto no declara puntos
+ */
+public record CantoRealizadoEvent(UUID partidaId,
+                                  int numeroMano,
+                                  String jugador,
+                                  TipoCanto tipo,
+                                  long manoOriginal,
+                                  long manoRestante,
+                                  TipoCanto respuestaA,
+                                  Integer puntosDeclarados) {
+}
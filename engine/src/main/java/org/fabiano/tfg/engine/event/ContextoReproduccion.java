@@ -0,0 +1,28 @@
+package org.fabiano.tfg.engine.event;
+
+/**
+ * Marca el hilo que está reconstruyendo una partida a partir de su bitácora.
+ * Mientras dura la reproducción no se publican eventos ni se escriben
+ * snapshots: las acciones ya están registradas.
+ */
+public final class ContextoReproduccion {
+
+    private static final ThreadLocal<Boolean> ACTIVO = ThreadLocal.withInitial(() -> false);
+
+    private ContextoReproduccion() {
+    }
+
+    public static boolean activo() {
+        return ACTIVO.get();
+    }
+
+    public static void ejecutar(Runnable reproduccion) {
+        boolean anterior = ACTIVO.get();
+        ACTIVO.set(true);
+        try {
+            reproduccion.run();
+        } finally {
+            ACTIVO.set(anterior);
+        }
+    }
+}
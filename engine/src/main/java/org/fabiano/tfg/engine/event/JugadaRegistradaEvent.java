@@ -0,0 +1,15 @@
+package org.fabiano.tfg.engine.event;
+
+import org.fabiano.tfg.engine.model.Carta;
+
+import java.util.UUID;
+
+/**
+ * Publicado cada vez que un jugador tira una carta en una partida.
+ */
+public record JugadaRegistradaEvent(UUID partidaId,
+                                    int numeroMano,
+                                    String jugador,
+                                    Carta carta,
+                                    int numeroVuelta) {
+}
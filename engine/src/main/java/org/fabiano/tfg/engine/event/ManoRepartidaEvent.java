@@ -0,0 +1,18 @@
+package org.fabiano.tfg.engine.event;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Publicado al repartir una mano nueva.
+ *
+ * @param semilla semilla con la que se mezcló el mazo
+ * @param manos   cartas de cada jugador codificadas como máscara de bits
+ * @param equipos índice del equipo de cada jugador
+ */
+public record ManoRepartidaEvent(UUID partidaId,
+                                 int numeroMano,
+                                 long semilla,
+                                 Map<String, Long> manos,
+                                 Map<String, Integer> equipos) {
+}
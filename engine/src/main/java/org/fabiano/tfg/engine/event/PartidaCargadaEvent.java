@@ -0,0 +1,10 @@
+package org.fabiano.tfg.engine.event;
+
+import org.fabiano.tfg.engine.model.Partida;
+
+/**
+ * Publicado cuando una partida se carga de la base, antes de quedar
+ * registrada en memoria. Los oyentes pueden completar su estado.
+ */
+public record PartidaCargadaEvent(Partida partida) {
+}
@@ -0,0 +1,12 @@
+package org.fabiano.tfg.engine.event;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Publicado al crear una partida, antes del reparto de la primera mano.
+ *
+ * @param bots jugadores que maneja la IA
+ */
+public record PartidaCreadaEvent(UUID partidaId, List<String> bots) {
+}
@@ -0,0 +1,30 @@
+package org.fabiano.tfg.engine.event;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Publicado una sola vez, cuando una partida termina. Lleva el resultado ya
+ * resumido para que los modelos de lectura no consulten las tablas de juego.
+ */
+public record PartidaFinalizadaEvent(UUID partidaId,
+                                     String nombre,
+                                     Instant finalizadaEn,
+                                     List<ResultadoEquipo> equipos) {
+
+    public record ResultadoEquipo(String nombre,
+                                  List<String> jugadores,
+                                  int puntaje,
+                                  boolean ganador) {
+
+        /**
+         * Identidad del equipo entre partidas: sus jugadores, ordenados. El
+         * nombre no sirve, porque cada partida lo elige (los aleatorios son
+         * todos "Equipo-1" y "Equipo-2").
+         */
+        public String identidad() {
+            return String.join(" + ", jugadores.stream().sorted().toList());
+        }
+    }
+}
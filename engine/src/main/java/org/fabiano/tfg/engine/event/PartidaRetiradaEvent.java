@@ -0,0 +1,11 @@
+package org.fabiano.tfg.engine.event;
+
+import java.util.UUID;
+
+/**
+ * Publicado cuando una partida sin terminar sale de memoria, por inactiva o
+ * para borrarla. Quien guarda estado por partida en juego lo descarta como
+ * al terminar; si se vuelve a cargar, empieza de cero.
+ */
+public record PartidaRetiradaEvent(UUID partidaId) {
+}
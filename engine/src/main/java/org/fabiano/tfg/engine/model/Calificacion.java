@@ -0,0 +1,35 @@
+package org.fabiano.tfg.engine.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Rating Glicko persistido de un jugador o un equipo. Es la copia del índice
+ * en memoria; se reconstruye por completo desde {@link ResultadoPartida}.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "tipo"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Calificacion {
+    @Id
+    private String clave;
+
+    @Enumerated(EnumType.STRING)
+    private FilaClasificacion.Tipo tipo;
+
+    private String nombre;
+
+    private double rating;
+
+    private double desviacion;
+
+    private int partidas;
+
+    private Instant actualizada;
+}
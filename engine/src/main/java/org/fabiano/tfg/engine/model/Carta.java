@@ -3,15 +3,20 @@ package org.fabiano.tfg.engine.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
+import java.util.UUID;
+
 @Entity
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Carta {
+    // Ids por bloques: un reparto de 40 cartas pide a la secuencia una sola vez
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carta_seq")
+    @SequenceGenerator(name = "carta_seq", sequenceName = "carta_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -20,6 +25,10 @@ public class Carta {
     @Column(name = "valor")
     private int valor;
 
+    // Partida en la que se repartió; con ella se borran todas sus cartas
+    @EqualsAndHashCode.Exclude
+    private UUID partidaId;
+
     // Constructor para crear cartas sin ID (para uso en el juego)
     public Carta(Palo palo, int valor) {
         this.palo = palo;
@@ -0,0 +1,134 @@
+package org.fabiano.tfg.engine.model;
+
+/**
+ * Codificación compacta de las 40 cartas de la baraja española.
+ * Cada carta ocupa un índice entre 0 y 39 (palo * 10 + posición del valor),
+ * de modo que una mano o un conjunto de cartas vistas entra en un {@code long}.
+ */
+public final class CodigoCarta {
+
+    public static final int TOTAL_CARTAS = 40;
+    public static final long MAZO_COMPLETO = (1L << TOTAL_CARTAS) - 1;
+
+    private static final int[] VALORES = {1, 2, 3, 4, 5, 6, 7, 10, 11, 12};
+
+    // Envido de cada subconjunto de cartas de un mismo palo (10 bits -> puntos)
+    private static final int[] ENVIDO_POR_PALO = new int[1 << 10];
+
+    // Valor jerárquico por defecto de cada carta según JerarquiaCarta
+    private static final int[] JERARQUIA = new int[TOTAL_CARTAS];
+
+    static {
+        for (JerarquiaCarta jerarquiaCarta : JerarquiaCarta.values()) {
+            for (Palo palo : Palo.values()) {
+                if (jerarquiaCarta.getPalo() == null || jerarquiaCarta.getPalo() == palo) {
+                    int indice = indice(palo, jerarquiaCarta.getNumero());
+                    if (JERARQUIA[indice] == 0) {
+                        JERARQUIA[indice] = jerarquiaCarta.getValorJerarquico();
+                    }
+                }
+            }
+        }
+
+        for (int bits = 0; bits < ENVIDO_POR_PALO.length; bits++) {
+            int primero = -1;
+            int segundo = -1;
+            for (int pos = 0; pos < VALORES.length; pos++) {
+                if ((bits & (1 << pos)) != 0) {
+                    int puntos = valorEnvido(VALORES[pos]);
+                    if (puntos > primero) {
+                        segundo = primero;
+                        primero = puntos;
+                    } else if (puntos > segundo) {
+                        segundo = puntos;
+                    }
+                }
+            }
+            if (segundo >= 0) {
+                ENVIDO_POR_PALO[bits] = 20 + primero + segundo;
+            } else {
+                ENVIDO_POR_PALO[bits] = Math.max(primero, 0);
+            }
+        }
+    }
+
+    private CodigoCarta() {
+    }
+
+    public static int indice(Palo palo, int valor) {
+        int posicion = valor <= 7 ? valor - 1 : valor - 3;
+        return palo.ordinal() * 10 + posicion;
+    }
+
+    public static int indice(Carta carta) {
+        return indice(carta.getPalo(), carta.getValor());
+    }
+
+    public static Palo palo(int indice) {
+        return Palo.values()[indice / 10];
+    }
+
+    public static int valor(int indice) {
+        return VALORES[indice % 10];
+    }
+
+    public static Carta carta(int indice) {
+        return new Carta(palo(indice), valor(indice));
+    }
+
+    public static long mascara(Carta carta) {
+        return 1L << indice(carta);
+    }
+
+    public static long mascara(Iterable<Carta> cartas) {
+        long mascara = 0L;
+        if (cartas != null) {
+            for (Carta carta : cartas) {
+                mascara |= mascara(carta);
+            }
+        }
+        return mascara;
+    }
+
+    public static int valorJerarquico(int indice) {
+        return JERARQUIA[indice];
+    }
+
+    /**
+     * Puntos de envido de un conjunto de cartas: 20 más las dos mejores del
+     * mismo palo, o la carta más alta si no hay dos del mismo palo.
+     * Las figuras valen cero.
+     */
+    public static int envido(long mascara) {
+        int mejor = 0;
+        for (int palo = 0; palo < 4; palo++) {
+            int bits = (int) ((mascara >>> (palo * 10)) & 0x3FF);
+            mejor = Math.max(mejor, ENVIDO_POR_PALO[bits]);
+        }
+        return mejor;
+    }
+
+    /**
+     * Puntos de flor de una mano: 20 más las tres cartas si son del mismo
+     * palo, o 0 si no hay flor.
+     */
+    public static int flor(long mascara) {
+        for (int palo = 0; palo < 4; palo++) {
+            int bits = (int) ((mascara >>> (palo * 10)) & 0x3FF);
+            if (Integer.bitCount(bits) == 3 && Long.bitCount(mascara) == 3) {
+                int puntos = 20;
+                for (int pos = 0; pos < VALORES.length; pos++) {
+                    if ((bits & (1 << pos)) != 0) {
+                        puntos += valorEnvido(VALORES[pos]);
+                    }
+                }
+                return puntos;
+            }
+        }
+        return 0;
+    }
+
+    private static int valorEnvido(int valor) {
+        return valor >= 10 ? 0 : valor;
+    }
+}
@@ -0,0 +1,56 @@
+package org.fabiano.tfg.engine.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Entrada de la bitácora de una partida. Sólo se insertan, nunca se
+ * modifican; la secuencia ordena las acciones dentro de la partida.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"partidaId", "secuencia"}),
+        indexes = @Index(columnList = "partidaId, instante"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventoPartida {
+
+    public enum Tipo {
+        MANO_REPARTIDA,
+        CARTA_JUGADA,
+        CANTO
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "evento_partida_seq")
+    @SequenceGenerator(name = "evento_partida_seq", sequenceName = "evento_partida_seq", allocationSize = 50)
+    private Long id;
+
+    private UUID partidaId;
+
+    private long secuencia;
+
+    @Enumerated(EnumType.STRING)
+    private Tipo tipo;
+
+    private int numeroMano;
+
+    private String jugador;
+
+    // Código de la carta (CodigoCarta) o del canto (ordinal de TipoCanto)
+    private int dato;
+
+    // Sólo para MANO_REPARTIDA
+    private Long semilla;
+
+    private Instant instante;
+
+    public TipoCanto getCanto() {
+        return tipo == Tipo.CANTO ? TipoCanto.values()[dato] : null;
+    }
+}
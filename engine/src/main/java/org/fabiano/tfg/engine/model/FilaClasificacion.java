@@ -0,0 +1,44 @@
+package org.fabiano.tfg.engine.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Totales acumulados de un jugador o un equipo en partidas terminadas. Es la
+ * copia persistida de la clasificación en memoria; nunca se consulta desde
+ * las tablas de juego.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "tipo"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FilaClasificacion {
+    @Id
+    private String clave;
+
+    @Enumerated(EnumType.STRING)
+    private Tipo tipo;
+
+    private String nombre;
+
+    private int partidasJugadas;
+
+    private int ganadas;
+
+    private long puntos;
+
+    private Instant actualizada;
+
+    public enum Tipo {
+        JUGADOR, EQUIPO
+    }
+
+    public static String clave(Tipo tipo, String nombre) {
+        return tipo + ":" + nombre;
+    }
+}
@@ -18,7 +18,7 @@ public class Jugada {
 
     private String jugadorNombre;
 
-    @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private Carta carta;
 
     private int numeroVuelta;
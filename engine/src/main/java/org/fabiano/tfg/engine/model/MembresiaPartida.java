@@ -0,0 +1,47 @@
+package org.fabiano.tfg.engine.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Índice desnormalizado de quién juega en qué partida. Los jugadores se crean
+ * por partida, así que la identidad entre partidas es el nombre; se guarda
+ * también el id del jugador de esa partida. Evita cruzar
+ * partida, equipos y jugadores para "mis partidas" y para saber si alguien
+ * juega en una partida.
+ */
+@Entity
+@IdClass(MembresiaPartida.Clave.class)
+@Table(indexes = @Index(columnList = "jugadorNombre, ultimaActividad"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MembresiaPartida {
+
+    @Id
+    private UUID partidaId;
+
+    @Id
+    private String jugadorNombre;
+
+    private UUID jugadorId;
+
+    @Enumerated(EnumType.STRING)
+    private EstadoRonda estado;
+
+    private Instant ultimaActividad;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Clave implements Serializable {
+        private UUID partidaId;
+        private String jugadorNombre;
+    }
+}
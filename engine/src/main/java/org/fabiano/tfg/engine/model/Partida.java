@@ -1,16 +1,21 @@
 package org.fabiano.tfg.engine.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.fabiano.tfg.engine.model.team.Equipo;
 import org.fabiano.tfg.engine.model.team.Jugador;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Entity
+@Table(indexes = @Index(columnList = "actualizadaEn"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -23,7 +28,9 @@ public class Partida {
     @Column(unique = true)
     private String nombre;
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // Todas las asociaciones son LAZY: cada caso de uso declara qué carga
+    // (ver PartidaRepository y CargaPartidas)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Equipo> equipos;
 
     @Transient
@@ -61,21 +68,40 @@ public class Partida {
     private boolean quiso;
     private boolean noQuiso;
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "partida_id")
     private List<Jugada> cartasJugadas = new ArrayList<>();
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     private Map<Integer, UUID> ganadoresPorMano = new HashMap<>();
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     private Equipo ganadorDeRonda;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     private Map<UUID, Integer> puntosPorEquipo = new HashMap<>();
 
     private int puntosEnJuego = 1;
 
+    // Semilla base para mezclar: con ella cada mano se puede volver a repartir igual
+    private Long semilla;
+
+    // Cuándo terminó; pasado un tiempo el archivador la saca de las tablas de juego
+    private Instant finalizadaEn;
+
+    private Instant actualizadaEn;
+
+    // Con truco.partidas.almacenamiento=documento, la partida entera en formato
+    // ArchivoCodec; las tablas de equipos, jugadores y jugadas quedan como al crearla
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Column(length = 65536)
+    private byte[] documento;
+
+    // Versión de ArchivoCodec con que se escribió el documento
+    private Short versionDocumento;
+
     @Version
     private Long version;
 
@@ -0,0 +1,33 @@
+package org.fabiano.tfg.engine.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Partida terminada fuera de las tablas de juego: una fila por partida con
+ * todo su contenido comprimido. Se indexa por id y por nombre para las
+ * vistas de historial.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "nombre"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PartidaArchivada {
+    @Id
+    private UUID id;
+
+    private String nombre;
+
+    private Instant finalizadaEn;
+
+    private Instant archivadaEn;
+
+    @Column(length = 65536)
+    private byte[] datos;
+}
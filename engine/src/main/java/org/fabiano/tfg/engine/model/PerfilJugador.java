@@ -0,0 +1,41 @@
+package org.fabiano.tfg.engine.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Estadísticas persistidas del comportamiento de apuestas de un jugador.
+ * Los contadores siguen el orden de {@link org.fabiano.tfg.engine.service.ia.PerfilOponente}.
+ * El id lo pone quien lo crea, así que {@link #isNew()} lo dice quien sabe si
+ * ya tiene fila: un perfil nuevo se inserta sin consultar antes.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PerfilJugador implements Persistable<String> {
+    @Id
+    private String nombreJugador;
+
+    private long[] contadores;
+
+    private Instant actualizado;
+
+    @Transient
+    private boolean nuevo;
+
+    @Override
+    public String getId() {
+        return nombreJugador;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nuevo;
+    }
+}
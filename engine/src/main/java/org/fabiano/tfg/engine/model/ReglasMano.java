@@ -0,0 +1,132 @@
+package org.fabiano.tfg.engine.model;
+
+/**
+ * Reglas de puntuación de una mano, comunes al motor de partidas y al
+ * simulador de torneos: quién gana la mano según las vueltas (con pardas),
+ * quién gana el envido o la flor y cuánto vale cada canto.
+ *
+ * <p>Los lados se numeran desde el que es mano: 0 es el equipo mano y 1 el
+ * de pie. El resultado de una vuelta es {@link #GANA_MANO},
+ * {@link #GANA_PIE}, {@link #PARDA} o 0 si todavía no se jugó; los de las
+ * tres vueltas van empaquetados en un entero, dos bits por vuelta, como en
+ * la arena del simulador.</p>
+ */
+public final class ReglasMano {
+
+    public static final int GANA_MANO = 1;
+    public static final int GANA_PIE = 2;
+    public static final int PARDA = 3;
+
+    public static final int PUNTOS_ENVIDO = 2;
+    public static final int PUNTOS_REAL_ENVIDO = 3;
+    public static final int PUNTOS_FLOR = 3;
+    public static final int PUNTOS_FLOR_ACHICADA = 4;
+    public static final int PUNTOS_CONTRAFLOR = 6;
+
+    public static final int NIVEL_MAXIMO_TRUCO = 3;
+
+    private ReglasMano() {
+    }
+
+    /**
+     * Resultado de una vuelta entre la mejor carta de cada lado, por su
+     * valor jerárquico: si valen lo mismo es parda.
+     */
+    public static int resultadoVuelta(int jerarquiaMano, int jerarquiaPie) {
+        if (jerarquiaMano == jerarquiaPie) {
+            return PARDA;
+        }
+        return jerarquiaMano > jerarquiaPie ? GANA_MANO : GANA_PIE;
+    }
+
+    public static int conResultado(int resultados, int vuelta, int resultado) {
+        int desplazamiento = vuelta * 2;
+        return (resultados & ~(0b11 << desplazamiento)) | ((resultado & 0b11) << desplazamiento);
+    }
+
+    public static int resultado(int resultados, int vuelta) {
+        return (resultados >>> (vuelta * 2)) & 0b11;
+    }
+
+    /**
+     * Lado que gana la mano tras resolver la vuelta {@code ultimaVuelta}
+     * (desde 0), o -1 si sigue. Gana quien se lleva dos vueltas; con pardas
+     * define la primera vuelta ganada y, si todas fueron pardas, el que es mano.
+     */
+    public static int ganadorMano(int resultados, int ultimaVuelta) {
+        int victoriasMano = 0;
+        int victoriasPie = 0;
+        int primeraGanada = -1;
+        boolean hayParda = false;
+        for (int vuelta = 0; vuelta <= ultimaVuelta; vuelta++) {
+            int resultado = resultado(resultados, vuelta);
+            if (resultado == PARDA) {
+                hayParda = true;
+                continue;
+            }
+            if (resultado == GANA_MANO) {
+                victoriasMano++;
+            } else {
+                victoriasPie++;
+            }
+            if (primeraGanada < 0) {
+                primeraGanada = resultado - 1;
+            }
+        }
+        if (victoriasMano >= 2 || victoriasPie >= 2) {
+            return victoriasMano >= 2 ? 0 : 1;
+        }
+        if (ultimaVuelta >= 1 && hayParda && victoriasMano != victoriasPie) {
+            return victoriasMano > victoriasPie ? 0 : 1;
+        }
+        if (ultimaVuelta == 2) {
+            return Math.max(primeraGanada, 0);
+        }
+        return -1;
+    }
+
+    /**
+     * Lo que vale la mano con {@code nivelesQueridos} cantos del truco
+     * queridos. No querido vale lo último querido.
+     */
+    public static int puntosTruco(int nivelesQueridos) {
+        return nivelesQueridos + 1;
+    }
+
+    /**
+     * Envido no querido: lo querido antes del último canto, o uno si fue el
+     * primero.
+     */
+    public static int envidoNoQuerido(int queridoAntes) {
+        return Math.max(queridoAntes, 1);
+    }
+
+    /**
+     * Lado que gana el envido o la flor; con los mismos puntos gana el mano.
+     */
+    public static int ganadorTanto(int tantoMano, int tantoPie) {
+        return tantoPie > tantoMano ? 1 : 0;
+    }
+
+    /**
+     * Flor con flor no querida: cuatro, o seis si ya se había cantado
+     * contraflor y se contestó con la del resto.
+     */
+    public static int florNoQuerida(boolean contraflor, boolean alResto) {
+        return contraflor && alResto ? PUNTOS_CONTRAFLOR : PUNTOS_FLOR_ACHICADA;
+    }
+
+    /**
+     * Contraflor querida; la del resto vale la falta.
+     */
+    public static int florQuerida(boolean alResto, int puntosFalta) {
+        return alResto ? puntosFalta : PUNTOS_CONTRAFLOR;
+    }
+
+    /**
+     * La falta: lo que le falta al que va ganando para llegar al límite.
+     */
+    public static int puntosFalta(int puntajeLimite, int puntajeMayor) {
+        return puntajeLimite - puntajeMayor;
+    }
+}
@@ -0,0 +1,29 @@
+package org.fabiano.tfg.engine.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Resultado de una partida terminada, en el formato de
+ * {@link org.fabiano.tfg.engine.service.clasificacion.ResultadoCodec}. Es el
+ * historial del que se recalculan los ratings; sobrevive al archivado.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "finalizadaEn"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoPartida {
+    @Id
+    private UUID partidaId;
+
+    private Instant finalizadaEn;
+
+    @Column(length = 4096)
+    private byte[] datos;
+}
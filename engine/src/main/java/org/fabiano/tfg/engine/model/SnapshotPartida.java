@@ -0,0 +1,37 @@
+package org.fabiano.tfg.engine.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Estado compacto de una partida después del evento {@code secuencia} de su
+ * bitácora. Para cargarla alcanza con el último snapshot y los eventos
+ * posteriores.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "partidaId, secuencia"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SnapshotPartida {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "snapshot_partida_seq")
+    @SequenceGenerator(name = "snapshot_partida_seq", sequenceName = "snapshot_partida_seq", allocationSize = 50)
+    private Long id;
+
+    private UUID partidaId;
+
+    private long secuencia;
+
+    private int numeroMano;
+
+    @Column(length = 16384)
+    private byte[] datos;
+
+    private Instant instante;
+}
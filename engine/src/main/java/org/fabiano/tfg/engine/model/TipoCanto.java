@@ -0,0 +1,27 @@
+package org.fabiano.tfg.engine.model;
+
+/**
+ * Acciones de canto y respuesta que un jugador puede realizar durante una mano.
+ */
+public enum TipoCanto {
+    ENVIDO,
+    REAL_ENVIDO,
+    FALTA_ENVIDO,
+    FLOR,
+    CONTRAFLOR,
+    CONTRAFLOR_AL_RESTO,
+    TRUCO,
+    RETRUCO,
+    VALE_CUATRO,
+    QUIERO,
+    NO_QUIERO,
+    AL_MAZO;
+
+    public boolean esEnvido() {
+        return this == ENVIDO || this == REAL_ENVIDO || this == FALTA_ENVIDO;
+    }
+
+    public boolean esTruco() {
+        return this == TRUCO || this == RETRUCO || this == VALE_CUATRO;
+    }
+}
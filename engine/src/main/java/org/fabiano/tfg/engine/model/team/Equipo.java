@@ -4,11 +4,15 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "equipo")
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -19,7 +23,9 @@ public class Equipo {
 
     private String nombre;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Los jugadores nuevos se insertan junto con el equipo
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "equipo-jugadores")
+    @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(
             name = "equipo_jugadores",
             joinColumns = @JoinColumn(name = "equipo_id"),
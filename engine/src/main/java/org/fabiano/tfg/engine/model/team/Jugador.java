@@ -5,11 +5,15 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.fabiano.tfg.engine.model.Carta;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "jugador")
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -42,7 +46,7 @@ public class Jugador {
 
     private int puntosEnvido;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     private List<Carta> mano;
 
     // Constructor para crear jugador con nombre y estados iniciales
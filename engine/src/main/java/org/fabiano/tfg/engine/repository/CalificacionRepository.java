@@ -0,0 +1,9 @@
+package org.fabiano.tfg.engine.repository;
+
+import org.fabiano.tfg.engine.model.Calificacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CalificacionRepository extends JpaRepository<Calificacion, String> {
+}
@@ -2,8 +2,18 @@ package org.fabiano.tfg.engine.repository;
 
 import org.fabiano.tfg.engine.model.Carta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.UUID;
+
 @Repository
 public interface CartaRepository extends JpaRepository<Carta, Long> {
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Carta c WHERE c.partidaId IN :partidaIds")
+    int borrarDePartidas(@Param("partidaIds") Collection<UUID> partidaIds);
 }
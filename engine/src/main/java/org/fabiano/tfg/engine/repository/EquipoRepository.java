@@ -1,12 +1,58 @@
 package org.fabiano.tfg.engine.repository;
 
 
+import org.fabiano.tfg.engine.dto.FilaEquipoJugador;
 import org.fabiano.tfg.engine.model.team.Equipo;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface EquipoRepository extends JpaRepository<Equipo, UUID> {
-}
\ No newline at end of file
+
+    // Los endpoints de equipos siempre devuelven los jugadores
+    @Override
+    @EntityGraph(attributePaths = "jugadores")
+    Optional<Equipo> findById(UUID id);
+
+    @Override
+    @EntityGraph(attributePaths = "jugadores")
+    List<Equipo> findAll();
+
+    // Si el equipo sale de la caché de segundo nivel Hibernate no aplica el
+    // grafo de findById: los jugadores se inicializan acá, desde la caché de
+    // la colección, antes de cerrar la sesión
+    @Transactional(readOnly = true)
+    default Optional<Equipo> buscarConJugadores(UUID id) {
+        Optional<Equipo> equipo = findById(id);
+        equipo.ifPresent(e -> Hibernate.initialize(e.getJugadores()));
+        return equipo;
+    }
+
+    // Listados por clave: primero los ids de la página y después los equipos
+    // con sus jugadores, para no paginar sobre un JOIN con la colección
+    @Query("SELECT e.id FROM Equipo e ORDER BY e.id")
+    List<UUID> listarIdsPrimeros(Limit limite);
+
+    @Query("SELECT e.id FROM Equipo e WHERE e.id > :despues ORDER BY e.id")
+    List<UUID> listarIdsDesde(@Param("despues") UUID despues, Limit limite);
+
+    @EntityGraph(attributePaths = "jugadores")
+    List<Equipo> findByIdInOrderByIdAsc(Collection<UUID> ids);
+
+    // Cursor JDBC ordenado por equipo: las filas de un mismo equipo llegan juntas
+    @Query("SELECT new org.fabiano.tfg.engine.dto.FilaEquipoJugador(e.id, e.nombre, e.puntaje, j.nombre, j.puntosEnvido) " +
+            "FROM Equipo e LEFT JOIN e.jugadores j ORDER BY e.id")
+    Stream<FilaEquipoJugador> recorrerConJugadores();
+}
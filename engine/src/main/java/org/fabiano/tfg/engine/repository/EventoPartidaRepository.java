@@ -0,0 +1,30 @@
+package org.fabiano.tfg.engine.repository;
+
+import org.fabiano.tfg.engine.model.EventoPartida;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EventoPartidaRepository extends JpaRepository<EventoPartida, Long> {
+
+    List<EventoPartida> findByPartidaIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(UUID partidaId, long secuencia);
+
+    @Query("SELECT COALESCE(MAX(e.secuencia), 0) FROM EventoPartida e WHERE e.partidaId = :partidaId")
+    long ultimaSecuencia(@Param("partidaId") UUID partidaId);
+
+    @Query("SELECT DISTINCT e.partidaId FROM EventoPartida e " +
+            "WHERE e.partidaId IN :partidaIds AND e.instante >= :limite")
+    List<UUID> conActividadDesde(@Param("partidaIds") Collection<UUID> partidaIds, @Param("limite") Instant limite);
+
+    @Modifying
+    @Query("DELETE FROM EventoPartida e WHERE e.partidaId IN :partidaIds")
+    int borrarDePartidas(@Param("partidaIds") Collection<UUID> partidaIds);
+}
@@ -0,0 +1,20 @@
+package org.fabiano.tfg.engine.repository;
+
+import org.fabiano.tfg.engine.model.Jugada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface JugadaRepository extends JpaRepository<Jugada, UUID> {
+
+    // Las jugadas de manos anteriores ya no apuntan a la partida: se llega por sus cartas
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Jugada j WHERE j.carta.id IN (SELECT c.id FROM Carta c WHERE c.partidaId IN :partidaIds)")
+    int borrarDePartidas(@Param("partidaIds") Collection<UUID> partidaIds);
+}
@@ -1,12 +1,31 @@
 package org.fabiano.tfg.engine.repository;
 
 
+import org.fabiano.tfg.engine.dto.JugadorResponse;
 import org.fabiano.tfg.engine.model.team.Jugador;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface JugadorRepository extends JpaRepository<Jugador, UUID> {
-}
\ No newline at end of file
+
+    // Listados por clave: el orden por id es estable y cada página es una
+    // búsqueda en el índice de la clave primaria, sin OFFSET
+    @Query("SELECT new org.fabiano.tfg.engine.dto.JugadorResponse(j.id, j.nombre) FROM Jugador j ORDER BY j.id")
+    List<JugadorResponse> listarPrimeros(Limit limite);
+
+    @Query("SELECT new org.fabiano.tfg.engine.dto.JugadorResponse(j.id, j.nombre) FROM Jugador j " +
+            "WHERE j.id > :despues ORDER BY j.id")
+    List<JugadorResponse> listarDesde(@Param("despues") UUID despues, Limit limite);
+
+    // Cursor JDBC: las filas llegan de a hibernate.jdbc.fetch_size y no quedan en la sesión
+    @Query("SELECT new org.fabiano.tfg.engine.dto.JugadorResponse(j.id, j.nombre) FROM Jugador j ORDER BY j.id")
+    Stream<JugadorResponse> recorrerTodos();
+}
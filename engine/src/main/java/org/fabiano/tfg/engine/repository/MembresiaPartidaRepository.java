@@ -0,0 +1,58 @@
+package org.fabiano.tfg.engine.repository;
+
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.MembresiaPartida;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MembresiaPartidaRepository extends JpaRepository<MembresiaPartida, MembresiaPartida.Clave> {
+
+    boolean existsByPartidaIdAndJugadorNombre(UUID partidaId, String jugadorNombre);
+
+    boolean existsByPartidaId(UUID partidaId);
+
+    @Query("SELECT m.jugadorNombre FROM MembresiaPartida m WHERE m.partidaId = :partidaId")
+    List<String> nombresEnPartida(@Param("partidaId") UUID partidaId);
+
+    // Una sola sentencia por partida nueva; el cruce con equipos y jugadores se paga sólo acá
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO MembresiaPartida (partidaId, jugadorNombre, jugadorId, estado, ultimaActividad) " +
+            "SELECT p.id, j.nombre, j.id, p.estadoRonda, :ahora " +
+            "FROM Partida p JOIN p.equipos e JOIN e.jugadores j WHERE p.id = :partidaId")
+    int registrar(@Param("partidaId") UUID partidaId, @Param("ahora") Instant ahora);
+
+    // Para partidas anteriores al índice
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO MembresiaPartida (partidaId, jugadorNombre, jugadorId, estado, ultimaActividad) " +
+            "SELECT p.id, j.nombre, j.id, p.estadoRonda, COALESCE(p.finalizadaEn, :ahora) " +
+            "FROM Partida p JOIN p.equipos e JOIN e.jugadores j")
+    int registrarTodas(@Param("ahora") Instant ahora);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE MembresiaPartida m SET m.ultimaActividad = :instante WHERE m.partidaId = :partidaId")
+    int tocar(@Param("partidaId") UUID partidaId, @Param("instante") Instant instante);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE MembresiaPartida m SET m.estado = :estado, m.ultimaActividad = :instante " +
+            "WHERE m.partidaId = :partidaId")
+    int cambiarEstado(@Param("partidaId") UUID partidaId, @Param("estado") EstadoRonda estado,
+                      @Param("instante") Instant instante);
+
+    @Modifying
+    @Query("DELETE FROM MembresiaPartida m WHERE m.partidaId IN :partidaIds")
+    int borrarDePartidas(@Param("partidaIds") Collection<UUID> partidaIds);
+}
@@ -0,0 +1,14 @@
+package org.fabiano.tfg.engine.repository;
+
+import org.fabiano.tfg.engine.model.PartidaArchivada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PartidaArchivadaRepository extends JpaRepository<PartidaArchivada, UUID> {
+
+    Optional<PartidaArchivada> findByNombre(String nombre);
+}
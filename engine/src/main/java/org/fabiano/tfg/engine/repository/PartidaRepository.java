@@ -1,15 +1,24 @@
 package org.fabiano.tfg.engine.repository;
 
 
+import org.fabiano.tfg.engine.dto.PartidaResumen;
+import org.fabiano.tfg.engine.model.EstadoRonda;
 import org.fabiano.tfg.engine.model.Partida;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface PartidaRepository extends JpaRepository<Partida, UUID> {
@@ -20,17 +29,33 @@ public interface PartidaRepository extends JpaRepository<Partida, UUID> {
     @Query("SELECT p FROM Partida p WHERE p.estadoRonda = 'EN_CURSO'")
     List<Partida> findPartidasEnCurso();
 
-    @Query("SELECT p FROM Partida p " +
-            "LEFT JOIN p.equipos e " +
-            "LEFT JOIN e.jugadores j " +
-            "WHERE j.nombre = :nombreJugador")
-    List<Partida> findPartidasByJugador(@Param("nombreJugador") String nombreJugador);
+    // Plan para jugar: la partida con sus jugadas y cartas en una sola consulta.
+    // Equipos, jugadores y manos los completa CargaPartidas por lotes, para no
+    // cruzar dos colecciones en el mismo JOIN.
+    @EntityGraph(attributePaths = {"cartasJugadas", "cartasJugadas.carta", "ganadorDeRonda"})
+    Optional<Partida> findParaJugarById(UUID id);
 
-    @Query("SELECT COUNT(p) > 0 FROM Partida p " +
-            "LEFT JOIN p.equipos e " +
-            "LEFT JOIN e.jugadores j " +
-            "WHERE p.id = :id AND j.nombre = :nombreJugador")
-    boolean existsJugadorEnPartida(@Param("id") UUID id, @Param("nombreJugador") String nombreJugador);
+    @EntityGraph(attributePaths = {"cartasJugadas", "cartasJugadas.carta", "ganadorDeRonda"})
+    Optional<Partida> findParaJugarByNombre(String nombre);
+
+    @Query("SELECT new org.fabiano.tfg.engine.dto.PartidaResumen(p.id, p.nombre, p.estadoRonda, p.manoActual, p.puntajeLimite) " +
+            "FROM Partida p WHERE p.estadoRonda = 'EN_CURSO' ORDER BY p.id")
+    List<PartidaResumen> listarEnCursoPrimeras(Limit limite);
+
+    @Query("SELECT new org.fabiano.tfg.engine.dto.PartidaResumen(p.id, p.nombre, p.estadoRonda, p.manoActual, p.puntajeLimite) " +
+            "FROM Partida p WHERE p.estadoRonda = 'EN_CURSO' AND p.id > :despues ORDER BY p.id")
+    List<PartidaResumen> listarEnCursoDesde(@Param("despues") UUID despues, Limit limite);
+
+    @Query("SELECT new org.fabiano.tfg.engine.dto.PartidaResumen(p.id, p.nombre, p.estadoRonda, p.manoActual, p.puntajeLimite) " +
+            "FROM Partida p WHERE p.estadoRonda = 'EN_CURSO' ORDER BY p.id")
+    Stream<PartidaResumen> recorrerEnCurso();
+
+    // Por el índice de membresías, las de actividad más reciente primero
+    @Query("SELECT new org.fabiano.tfg.engine.dto.PartidaResumen(p.id, p.nombre, p.estadoRonda, p.manoActual, p.puntajeLimite) " +
+            "FROM MembresiaPartida m JOIN Partida p ON p.id = m.partidaId " +
+            "WHERE m.jugadorNombre = :nombreJugador " +
+            "ORDER BY m.ultimaActividad DESC")
+    List<PartidaResumen> listarPorJugador(@Param("nombreJugador") String nombreJugador);
 
     @Query("SELECT p FROM Partida p " +
             "WHERE p.manoActual > 0 " +
@@ -42,14 +67,36 @@ public interface PartidaRepository extends JpaRepository<Partida, UUID> {
             "WHERE e.puntaje >= :puntajeMinimo")
     List<Partida> findPartidasConPuntajeMinimo(@Param("puntajeMinimo") int puntajeMinimo);
 
-    @Query(value = "SELECT * FROM partida p " +
-            "WHERE p.version = (SELECT MAX(version) FROM partida WHERE id = p.id)",
-            nativeQuery = true)
-    List<Partida> findUltimasVersiones();
+    // Terminadas antes del límite; las que no tienen fecha son anteriores al archivador
+    @Query("SELECT p.id FROM Partida p " +
+            "WHERE p.estadoRonda = 'FINALIZADA' " +
+            "AND (p.finalizadaEn IS NULL OR p.finalizadaEn < :limite)")
+    List<UUID> findIdsParaArchivar(@Param("limite") Instant limite, Pageable pagina);
+
+    // Sin terminar, en orden de id para recorrerlas por tramos
+    @Query("SELECT p.id FROM Partida p " +
+            "WHERE p.id > :despues " +
+            "AND (p.estadoRonda IS NULL OR p.estadoRonda <> 'FINALIZADA') " +
+            "ORDER BY p.id")
+    List<UUID> findIdsSinTerminar(@Param("despues") UUID despues, Limit limite);
+
+    // Guardado por documento: una fila, sólo si nadie la escribió desde la versión leída
+    @Transactional
+    @Modifying
+    @Query("UPDATE Partida p SET p.documento = :documento, p.versionDocumento = :versionDocumento, " +
+            "p.estadoRonda = :estadoRonda, p.manoActual = :manoActual, p.finalizadaEn = :finalizadaEn, " +
+            "p.actualizadaEn = :actualizadaEn, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.version = :version")
+    int guardarDocumento(@Param("id") UUID id, @Param("version") long version,
+                         @Param("documento") byte[] documento, @Param("versionDocumento") short versionDocumento,
+                         @Param("estadoRonda") EstadoRonda estadoRonda, @Param("manoActual") int manoActual,
+                         @Param("finalizadaEn") Instant finalizadaEn, @Param("actualizadaEn") Instant actualizadaEn);
+
+    @Query("SELECT p.documento FROM Partida p WHERE p.id = :id")
+    Optional<byte[]> documento(@Param("id") UUID id);
 
-    // Método para limpiar partidas antiguas o abandonadas
-    @Query("DELETE FROM Partida p WHERE p.version < :versionLimite")
-    void limpiarPartidasAntiguas(@Param("versionLimite") Long versionLimite);
+    @Query("SELECT p.documento FROM Partida p WHERE p.nombre = :nombre")
+    Optional<byte[]> documentoPorNombre(@Param("nombre") String nombre);
 
     // Find by human-readable name
     Optional<Partida> findByNombre(String nombre);
@@ -0,0 +1,14 @@
+package org.fabiano.tfg.engine.repository;
+
+import org.fabiano.tfg.engine.model.ResultadoPartida;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ResultadoPartidaRepository extends JpaRepository<ResultadoPartida, UUID> {
+
+    List<ResultadoPartida> findAllByOrderByFinalizadaEnAscPartidaIdAsc();
+}
@@ -0,0 +1,26 @@
+package org.fabiano.tfg.engine.repository;
+
+import org.fabiano.tfg.engine.model.SnapshotPartida;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SnapshotPartidaRepository extends JpaRepository<SnapshotPartida, Long> {
+
+    Optional<SnapshotPartida> findFirstByPartidaIdOrderBySecuenciaDesc(UUID partidaId);
+
+    @Modifying
+    @Query("DELETE FROM SnapshotPartida s WHERE s.partidaId = :partidaId")
+    int borrarDePartida(@Param("partidaId") UUID partidaId);
+
+    @Modifying
+    @Query("DELETE FROM SnapshotPartida s WHERE s.partidaId IN :partidaIds")
+    int borrarDePartidas(@Param("partidaIds") Collection<UUID> partidaIds);
+}
@@ -0,0 +1,32 @@
+package org.fabiano.tfg.engine.service;
+
+import org.fabiano.tfg.engine.model.Partida;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Dónde se escriben y de dónde se cargan las partidas en juego. Por defecto
+ * en las tablas normalizadas ({@link AlmacenPartidasJpa}); con
+ * {@code truco.partidas.almacenamiento=documento}, como un documento por fila
+ * ({@link DocumentosPartida}). Las partidas nuevas se insertan siempre en las
+ * tablas, que dan los ids de equipos y jugadores.
+ */
+public interface AlmacenPartidas {
+
+    /**
+     * Escribe la partida y deja en la instancia la versión y los ids nuevos.
+     */
+    void guardar(Partida partida);
+
+    /**
+     * Escribe varias partidas en una transacción: si una falla, no se
+     * escribe ninguna.
+     */
+    void guardarTodas(List<Partida> partidas);
+
+    Optional<Partida> cargar(UUID id);
+
+    Optional<Partida> cargar(String nombre);
+}
@@ -0,0 +1,188 @@
+package org.fabiano.tfg.engine.service;
+
+import lombok.RequiredArgsConstructor;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.Jugada;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.CartaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Partidas en las tablas normalizadas: cada escritura es un merge de la
+ * partida con equipos, jugadores, manos, jugadas y los dos mapas. Antes se
+ * insertan las cartas repartidas desde la última escritura, marcadas con la
+ * partida. La versión y los ids nuevos pasan a la instancia en memoria
+ * cuando confirma la transacción, que puede abarcar varias partidas.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "truco.partidas", name = "almacenamiento", havingValue = "normalizado",
+        matchIfMissing = true)
+public class AlmacenPartidasJpa implements AlmacenPartidas {
+
+    private final PartidaRepository partidaRepository;
+    private final CartaRepository cartaRepository;
+    private final CargaPartidas cargaPartidas;
+
+    @Override
+    @Transactional
+    public void guardar(Partida partida) {
+        guardarTodas(List.of(partida));
+    }
+
+    @Override
+    @Transactional
+    public void guardarTodas(List<Partida> partidas) {
+        List<Partida> existentes = new ArrayList<>(partidas.size());
+        for (Partida partida : partidas) {
+            if (partida.getId() == null) {
+                insertar(partida);
+            } else {
+                existentes.add(partida);
+            }
+        }
+        if (existentes.isEmpty()) {
+            return;
+        }
+        // El merge sólo acepta cartas que ya están en la base
+        guardarCartasNuevas(existentes);
+        List<Partida> guardadas = partidaRepository.saveAll(existentes.stream().map(AlmacenPartidasJpa::preparar).toList());
+        alConfirmar(() -> {
+            for (int i = 0; i < existentes.size(); i++) {
+                copiarEstadoPersistido(guardadas.get(i), existentes.get(i));
+            }
+        });
+    }
+
+    /**
+     * La versión sube recién al hacer flush y la escritura puede volver atrás:
+     * lo que se copia a memoria espera a que confirme la transacción en curso.
+     */
+    static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    private static void alVolverAtras(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                if (estado == STATUS_ROLLED_BACK) {
+                    accion.run();
+                }
+            }
+        });
+    }
+
+    @Override
+    public Optional<Partida> cargar(UUID id) {
+        return cargaPartidas.paraJugar(id);
+    }
+
+    @Override
+    public Optional<Partida> cargar(String nombre) {
+        return cargaPartidas.paraJugar(nombre);
+    }
+
+    // Recibe el id al insertarse; sus cartas van después
+    private void insertar(Partida partida) {
+        partidaRepository.save(preparar(partida));
+        guardarCartasNuevas(List.of(partida));
+    }
+
+    private void guardarCartasNuevas(List<Partida> partidas) {
+        List<Carta> nuevas = new ArrayList<>();
+        for (Partida partida : partidas) {
+            for (Carta carta : cartas(partida)) {
+                if (carta.getId() == null) {
+                    carta.setPartidaId(partida.getId());
+                    nuevas.add(carta);
+                }
+            }
+        }
+        if (!nuevas.isEmpty()) {
+            cartaRepository.saveAll(nuevas);
+            // Si vuelve atrás, la próxima escritura las tiene que insertar de nuevo
+            alVolverAtras(() -> nuevas.forEach(carta -> carta.setId(null)));
+        }
+    }
+
+    private static List<Carta> cartas(Partida partida) {
+        List<Carta> cartas = new ArrayList<>();
+        List<Equipo> equipos = partida.getEquipos() != null ? partida.getEquipos() : List.of();
+        for (Equipo equipo : equipos) {
+            for (Jugador jugador : equipo.getJugadores()) {
+                if (jugador.getMano() != null) {
+                    cartas.addAll(jugador.getMano());
+                }
+            }
+        }
+        if (partida.getCartasJugadas() != null) {
+            partida.getCartasJugadas().stream().map(Jugada::getCarta).filter(c -> c != null).forEach(cartas::add);
+        }
+        return cartas;
+    }
+
+    // Un documento de una época con almacenamiento por documento ya no vale
+    private static Partida preparar(Partida partida) {
+        partida.setActualizadaEn(Instant.now());
+        partida.setDocumento(null);
+        partida.setVersionDocumento(null);
+        return partida;
+    }
+
+    /**
+     * {@code save} sobre una instancia con id hace merge y devuelve otra
+     * instancia: se copian la versión y los ids generados para que la
+     * próxima escritura no choque ni duplique jugadas.
+     */
+    private static void copiarEstadoPersistido(Partida guardada, Partida enMemoria) {
+        if (guardada == enMemoria) {
+            return;
+        }
+        enMemoria.setVersion(guardada.getVersion());
+        List<Jugada> jugadas = enMemoria.getCartasJugadas();
+        List<Jugada> jugadasGuardadas = guardada.getCartasJugadas();
+        if (jugadas == null || jugadasGuardadas == null) {
+            return;
+        }
+        for (int i = 0; i < Math.min(jugadas.size(), jugadasGuardadas.size()); i++) {
+            Jugada jugada = jugadas.get(i);
+            Jugada jugadaGuardada = jugadasGuardadas.get(i);
+            // Si entretanto empezó otra mano las listas ya no se corresponden
+            if (jugada.getId() == null && mismaCarta(jugada, jugadaGuardada)) {
+                jugada.setId(jugadaGuardada.getId());
+            }
+        }
+    }
+
+    private static boolean mismaCarta(Jugada jugada, Jugada jugadaGuardada) {
+        return jugada.getCarta() != null && jugadaGuardada.getCarta() != null
+                && jugada.getCarta().getId() != null
+                && jugada.getCarta().getId().equals(jugadaGuardada.getCarta().getId());
+    }
+}
@@ -0,0 +1,56 @@
+package org.fabiano.tfg.engine.service;
+
+import lombok.RequiredArgsConstructor;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Plan de carga de una partida para jugarla. La partida queda en memoria
+ * fuera de toda sesión, así que se carga completa y con una cantidad fija
+ * de consultas: la partida con sus jugadas, y luego una por nivel (equipos,
+ * jugadores, manos y los dos mapas), gracias a la carga por lotes de Hibernate.
+ */
+@Service
+@RequiredArgsConstructor
+public class CargaPartidas {
+
+    private final PartidaRepository partidaRepository;
+
+    @Transactional(readOnly = true)
+    public Optional<Partida> paraJugar(UUID id) {
+        return partidaRepository.findParaJugarById(id).map(CargaPartidas::completar);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Partida> paraJugar(String nombre) {
+        return partidaRepository.findParaJugarByNombre(nombre).map(CargaPartidas::completar);
+    }
+
+    private static Partida completar(Partida partida) {
+        Hibernate.initialize(partida.getEquipos());
+        if (partida.getEquipos() != null) {
+            // Inicializar la primera colección de un nivel trae las de los demás en el mismo lote
+            for (Equipo equipo : partida.getEquipos()) {
+                Hibernate.initialize(equipo.getJugadores());
+            }
+            for (Equipo equipo : partida.getEquipos()) {
+                if (equipo.getJugadores() != null) {
+                    for (Jugador jugador : equipo.getJugadores()) {
+                        Hibernate.initialize(jugador.getMano());
+                    }
+                }
+            }
+        }
+        Hibernate.initialize(partida.getGanadoresPorMano());
+        Hibernate.initialize(partida.getPuntosPorEquipo());
+        return partida;
+    }
+}
@@ -0,0 +1,167 @@
+package org.fabiano.tfg.engine.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.Partida;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Buzón de comandos por partida. Cada partida se asigna siempre al mismo
+ * carril, un hilo único, así que sus comandos se ejecutan de a uno y en orden
+ * de llegada, sin reintentos por conflictos de versión. Partidas de carriles
+ * distintos avanzan en paralelo sin compartir ningún bloqueo.
+ *
+ * <p>Un comando que cierra una mano, y con {@code confirmar-escritura}
+ * cualquier comando, entrega su resultado recién cuando sus cambios están en
+ * la base. El primer comando que espera abre una ventana de
+ * {@code ventana-escritura-ms}; al cerrarse se escriben juntas todas las
+ * partidas modificadas en ese lapso, en una transacción.</p>
+ */
+@Slf4j
+@Service
+public class ComandosPartida {
+
+    private final RegistroPartidas registroPartidas;
+    private final ExecutorService[] carriles;
+    private final boolean confirmarEscritura;
+    private final long ventanaEscrituraMs;
+    private final ScheduledExecutorService escritor;
+    private final AtomicBoolean ventanaAbierta = new AtomicBoolean();
+
+    // Carril del hilo actual, o null si no es un hilo de comandos
+    private final ThreadLocal<Integer> carrilActual = new ThreadLocal<>();
+
+    public ComandosPartida(RegistroPartidas registroPartidas,
+                           @Value("${truco.partidas.carriles:0}") int cantidadCarriles,
+                           @Value("${truco.partidas.confirmar-escritura:false}") boolean confirmarEscritura,
+                           @Value("${truco.partidas.ventana-escritura-ms:5}") long ventanaEscrituraMs) {
+        this.registroPartidas = registroPartidas;
+        this.confirmarEscritura = confirmarEscritura;
+        this.ventanaEscrituraMs = ventanaEscrituraMs;
+        this.escritor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "partida-escritura");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        int cantidad = cantidadCarriles > 0 ? cantidadCarriles : Runtime.getRuntime().availableProcessors();
+        this.carriles = new ExecutorService[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            int carril = i;
+            carriles[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread hilo = new Thread(() -> {
+                    carrilActual.set(carril);
+                    r.run();
+                }, "partida-comandos-" + carril);
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+
+    /**
+     * Encola el comando en el carril de la partida y devuelve su resultado
+     * cuando termina. Las jugadas y cantos del comando ya están en la
+     * bitácora al terminar; si además cerró la mano, o con
+     * {@code confirmar-escritura}, el resultado espera a que la partida se
+     * escriba.
+     */
+    public <T> CompletableFuture<T> enviar(Partida partida, Supplier<T> comando) {
+        int carril = carril(partida.getId());
+        Supplier<T> conRegistro = () -> registroPartidas.modificar(partida, comando);
+        Integer actual = carrilActual.get();
+        if (actual != null && actual == carril) {
+            // Un comando que encola otro de su mismo carril lo ejecuta en el acto.
+            // No espera la escritura: la partida puede seguir bloqueada por el de afuera
+            try {
+                return CompletableFuture.completedFuture(conRegistro.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            int mano = partida.getManoActual();
+            EstadoRonda estado = partida.getEstadoRonda();
+            T valor = conRegistro.get();
+            boolean finDeMano = mano != partida.getManoActual() || estado != partida.getEstadoRonda();
+            return new Ejecutado<>(valor, confirmarEscritura || finDeMano);
+        }, carriles[carril]).thenCompose(ejecutado -> {
+            if (!ejecutado.esperarEscritura()) {
+                return CompletableFuture.completedFuture(ejecutado.valor());
+            }
+            CompletableFuture<Void> escrita = registroPartidas.escrita(partida);
+            if (!escrita.isDone()) {
+                abrirVentana();
+            }
+            return escrita.thenApply(nada -> ejecutado.valor());
+        });
+    }
+
+    private record Ejecutado<T>(T valor, boolean esperarEscritura) {
+    }
+
+    /**
+     * Como {@link #enviar}, pero espera el resultado. Las excepciones del
+     * comando se relanzan tal cual.
+     */
+    public <T> T ejecutar(Partida partida, Supplier<T> comando) {
+        try {
+            return enviar(partida, comando).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void abrirVentana() {
+        if (ventanaAbierta.compareAndSet(false, true)) {
+            escritor.schedule(this::escribirVentana, ventanaEscrituraMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void escribirVentana() {
+        // Lo que llegue mientras se escribe abre la ventana siguiente
+        ventanaAbierta.set(false);
+        try {
+            registroPartidas.vaciar();
+        } catch (RuntimeException e) {
+            log.error("Falló la escritura agrupada de partidas", e);
+        }
+        // Las que estaban ocupadas en esta pasada van en la siguiente
+        if (registroPartidas.cantidadPendientes() > 0) {
+            abrirVentana();
+        }
+    }
+
+    int carril(UUID partidaId) {
+        return Math.floorMod(partidaId.hashCode(), carriles.length);
+    }
+
+    int cantidadCarriles() {
+        return carriles.length;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        for (ExecutorService carril : carriles) {
+            carril.shutdown();
+        }
+        escritor.shutdown();
+    }
+}
@@ -0,0 +1,95 @@
+package org.fabiano.tfg.engine.service;
+
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.repository.CartaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.service.archivo.ArchivoCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+/**
+ * Partidas guardadas como documento: la partida entera en formato
+ * {@link ArchivoCodec} en una columna de su fila, junto con las columnas que
+ * se consultan (nombre, estado, mano, fin y última escritura). Guardar es un
+ * solo UPDATE, controlado por la versión. Las partidas sin documento (recién
+ * creadas o de antes de activarlo) se leen de las tablas.
+ */
+@Component
+@ConditionalOnProperty(prefix = "truco.partidas", name = "almacenamiento", havingValue = "documento")
+public class DocumentosPartida implements AlmacenPartidas {
+
+    private final PartidaRepository partidaRepository;
+    private final AlmacenPartidasJpa tablas;
+    private final TransactionTemplate transaccion;
+
+    public DocumentosPartida(PartidaRepository partidaRepository, CartaRepository cartaRepository,
+                             CargaPartidas cargaPartidas, PlatformTransactionManager transacciones) {
+        this.partidaRepository = partidaRepository;
+        this.tablas = new AlmacenPartidasJpa(partidaRepository, cartaRepository, cargaPartidas);
+        this.transaccion = new TransactionTemplate(transacciones);
+    }
+
+    @Override
+    public void guardar(Partida partida) {
+        guardarTodas(List.of(partida));
+    }
+
+    @Override
+    public void guardarTodas(List<Partida> partidas) {
+        // Las nuevas quedan en las tablas, todavía manejadas por la sesión que
+        // las crea; el documento se escribe en la próxima escritura
+        List<Partida> nuevas = partidas.stream().filter(p -> p.getId() == null).toList();
+        List<Partida> existentes = partidas.stream().filter(p -> p.getId() != null).toList();
+        if (!nuevas.isEmpty()) {
+            tablas.guardarTodas(nuevas);
+        }
+        if (existentes.isEmpty()) {
+            return;
+        }
+        Instant ahora = Instant.now();
+        transaccion.executeWithoutResult(estado -> {
+            existentes.forEach(partida -> escribir(partida, ahora));
+            // Al confirmar, por si la transacción vuelve atrás
+            AlmacenPartidasJpa.alConfirmar(() -> existentes.forEach(p -> p.setVersion(p.getVersion() + 1)));
+        });
+    }
+
+    @Override
+    public Optional<Partida> cargar(UUID id) {
+        Optional<byte[]> documento = partidaRepository.documento(id);
+        return documento.isPresent() ? documento.map(ArchivoCodec::restaurar) : tablas.cargar(id);
+    }
+
+    @Override
+    public Optional<Partida> cargar(String nombre) {
+        Optional<byte[]> documento = partidaRepository.documentoPorNombre(nombre);
+        return documento.isPresent() ? documento.map(ArchivoCodec::restaurar) : tablas.cargar(nombre);
+    }
+
+    private void escribir(Partida partida, Instant ahora) {
+        long version = partida.getVersion();
+        // El documento lleva la versión que va a quedar en la fila
+        partida.setVersion(version + 1);
+        byte[] documento;
+        try {
+            documento = ArchivoCodec.codificar(partida, Deflater.BEST_SPEED);
+        } finally {
+            partida.setVersion(version);
+        }
+        int filas = partidaRepository.guardarDocumento(partida.getId(), version, documento, ArchivoCodec.VERSION,
+                partida.getEstadoRonda(), partida.getManoActual(), partida.getFinalizadaEn(), ahora);
+        if (filas == 0) {
+            throw new OptimisticLockingFailureException(
+                    "La partida " + partida.getId() + " cambió en la base desde la versión " + version);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.fabiano.tfg.engine.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.fabiano.tfg.engine.dto.EstadisticaCache;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Service;
+
+import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lee los contadores de Caffeine de cada región de la caché de segundo nivel
+ * de Hibernate. Las mismas cifras quedan publicadas por JMX.
+ */
+@Service
+public class EstadisticasCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public EstadisticasCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public List<EstadisticaCache> regiones() {
+        RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getCache().getRegionFactory();
+        if (!(regionFactory instanceof JCacheRegionFactory jcache)) {
+            return List.of();
+        }
+        CacheManager cacheManager = jcache.getCacheManager();
+        List<EstadisticaCache> regiones = new ArrayList<>();
+        for (String nombre : StreamSupport.stream(cacheManager.getCacheNames().spliterator(), false).sorted().toList()) {
+            javax.cache.Cache<Object, Object> cache = cacheManager.getCache(nombre);
+            if (cache == null) {
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> caffeine =
+                    cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+            CacheStats stats = caffeine.stats();
+            regiones.add(new EstadisticaCache(nombre, stats.hitCount(), stats.missCount(), stats.hitRate(),
+                    stats.evictionCount(), caffeine.estimatedSize()));
+        }
+        return regiones;
+    }
+}
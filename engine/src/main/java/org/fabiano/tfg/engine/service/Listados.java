@@ -0,0 +1,186 @@
+package org.fabiano.tfg.engine.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.fabiano.tfg.engine.dto.EquipoResponse;
+import org.fabiano.tfg.engine.dto.FilaEquipoJugador;
+import org.fabiano.tfg.engine.dto.JugadorResponse;
+import org.fabiano.tfg.engine.dto.Pagina;
+import org.fabiano.tfg.engine.dto.PartidaResumen;
+import org.fabiano.tfg.engine.repository.EquipoRepository;
+import org.fabiano.tfg.engine.repository.JugadorRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.service.replica.GuardiaReplica;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Listados de jugadores, equipos y partidas que no dependen del tamaño de la
+ * tabla: por páginas, buscando desde la última clave vista, o completos
+ * escribiendo el JSON a medida que avanza un cursor de la base. Si hay una
+ * réplica al día, se leen de ahí.
+ */
+@Service
+@RequiredArgsConstructor
+public class Listados {
+
+    public static final int LIMITE_MAXIMO = 500;
+
+    // Cada cuántos elementos se empuja lo escrito al cliente
+    private static final int ELEMENTOS_POR_VOLCADO = 256;
+
+    private final JugadorRepository jugadorRepository;
+    private final EquipoRepository equipoRepository;
+    private final PartidaRepository partidaRepository;
+    private final ObjectMapper objectMapper;
+    private final GuardiaReplica replica;
+
+    @Transactional(readOnly = true)
+    public Pagina<JugadorResponse> jugadores(UUID despues, int limite) {
+        Limit uno = limiteConSiguiente(limite);
+        List<JugadorResponse> filas = replica.leer(() -> despues == null
+                ? jugadorRepository.listarPrimeros(uno)
+                : jugadorRepository.listarDesde(despues, uno));
+        return pagina(filas, uno, JugadorResponse::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public Pagina<EquipoResponse> equipos(UUID despues, int limite) {
+        Limit uno = limiteConSiguiente(limite);
+        return replica.leer(() -> {
+            List<UUID> ids = despues == null
+                    ? equipoRepository.listarIdsPrimeros(uno)
+                    : equipoRepository.listarIdsDesde(despues, uno);
+            Pagina<UUID> pagina = pagina(ids, uno, Function.identity());
+            List<EquipoResponse> equipos = pagina.elementos().isEmpty()
+                    ? List.of()
+                    : equipoRepository.findByIdInOrderByIdAsc(pagina.elementos()).stream()
+                    .map(EquipoResponse::new)
+                    .toList();
+            return new Pagina<>(equipos, pagina.siguiente());
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public Pagina<PartidaResumen> partidasEnCurso(UUID despues, int limite) {
+        Limit uno = limiteConSiguiente(limite);
+        List<PartidaResumen> filas = replica.leer(() -> despues == null
+                ? partidaRepository.listarEnCursoPrimeras(uno)
+                : partidaRepository.listarEnCursoDesde(despues, uno));
+        return pagina(filas, uno, PartidaResumen::id);
+    }
+
+    /**
+     * Las partidas del jugador, de la más reciente a la más vieja. Justo
+     * después de una acción suya se leen de la primaria.
+     */
+    @Transactional(readOnly = true)
+    public List<PartidaResumen> partidasDe(String jugador) {
+        return replica.leer(jugador, () -> partidaRepository.listarPorJugador(jugador));
+    }
+
+    @Transactional(readOnly = true)
+    public void escribirJugadores(OutputStream salida) throws IOException {
+        replica.leer(() -> {
+            try (Stream<JugadorResponse> filas = jugadorRepository.recorrerTodos()) {
+                escribir(salida, filas.iterator());
+            }
+            return null;
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public void escribirEquipos(OutputStream salida) throws IOException {
+        replica.leer(() -> {
+            try (Stream<FilaEquipoJugador> filas = equipoRepository.recorrerConJugadores()) {
+                escribir(salida, new EquiposAgrupados(filas.iterator()));
+            }
+            return null;
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public void escribirPartidasEnCurso(OutputStream salida) throws IOException {
+        replica.leer(() -> {
+            try (Stream<PartidaResumen> filas = partidaRepository.recorrerEnCurso()) {
+                escribir(salida, filas.iterator());
+            }
+            return null;
+        });
+    }
+
+    private void escribir(OutputStream salida, Iterator<?> elementos) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(salida)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartArray();
+            int escritos = 0;
+            while (elementos.hasNext()) {
+                json.writeObject(elementos.next());
+                if (++escritos % ELEMENTOS_POR_VOLCADO == 0) {
+                    json.flush();
+                }
+            }
+            json.writeEndArray();
+        }
+    }
+
+    // Se pide uno más de la cuenta para saber si hay otra página
+    private static Limit limiteConSiguiente(int limite) {
+        return Limit.of(Math.max(1, Math.min(limite, LIMITE_MAXIMO)) + 1);
+    }
+
+    private static <T> Pagina<T> pagina(List<T> filas, Limit pedido, Function<T, UUID> clave) {
+        int limite = pedido.max() - 1;
+        if (filas.size() <= limite) {
+            return new Pagina<>(filas, null);
+        }
+        List<T> elementos = filas.subList(0, limite);
+        return new Pagina<>(elementos, clave.apply(elementos.get(limite - 1)));
+    }
+
+    /**
+     * Junta las filas consecutivas de un mismo equipo; sólo retiene el equipo
+     * que se está armando.
+     */
+    private static final class EquiposAgrupados implements Iterator<EquipoResponse> {
+        private final Iterator<FilaEquipoJugador> filas;
+        private FilaEquipoJugador pendiente;
+
+        EquiposAgrupados(Iterator<FilaEquipoJugador> filas) {
+            this.filas = filas;
+            this.pendiente = filas.hasNext() ? filas.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pendiente != null;
+        }
+
+        @Override
+        public EquipoResponse next() {
+            FilaEquipoJugador primera = pendiente;
+            List<EquipoResponse.JugadorDTO> jugadores = new ArrayList<>();
+            FilaEquipoJugador fila = primera;
+            while (fila != null && fila.id().equals(primera.id())) {
+                if (fila.jugador() != null) {
+                    jugadores.add(new EquipoResponse.JugadorDTO(fila.jugador(),
+                            fila.puntosEnvido() != null ? fila.puntosEnvido() : 0));
+                }
+                fila = filas.hasNext() ? filas.next() : null;
+            }
+            pendiente = fila;
+            return new EquipoResponse(primera.id(), primera.nombre(), primera.puntaje(), jugadores);
+        }
+    }
+}
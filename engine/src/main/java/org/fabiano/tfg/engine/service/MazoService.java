@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 @Service
 @RequiredArgsConstructor
@@ -29,7 +30,15 @@ public class MazoService {
     }
 
     public void mezclarYRepartirCartas(Partida partida, List<Carta> mazo) {  // Agregar este método
-        Collections.shuffle(mazo);
+        mezclarYRepartirCartas(partida, mazo, new Random());
+    }
+
+    /**
+     * Mezcla con el generador indicado: con la misma semilla y el mismo mazo
+     * el reparto es idéntico.
+     */
+    public void mezclarYRepartirCartas(Partida partida, List<Carta> mazo, Random random) {
+        Collections.shuffle(mazo, random);
         int cartasPorJugador = 3;
         int cartaActual = 0;
 
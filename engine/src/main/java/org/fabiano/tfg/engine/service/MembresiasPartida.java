@@ -0,0 +1,85 @@
+package org.fabiano.tfg.engine.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.event.ManoRepartidaEvent;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.repository.MembresiaPartidaRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantiene el índice de membresías a partir de los eventos de la partida:
+ * se escribe en el primer reparto, se toca en cada mano y se cierra al
+ * terminar. Los jugadores de las partidas en curso se guardan también en
+ * memoria, así que la consulta de membresía de una partida activa no va a
+ * la base.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MembresiasPartida {
+
+    private final MembresiaPartidaRepository membresiaRepository;
+
+    private final Map<UUID, Set<String>> activas = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onManoRepartida(ManoRepartidaEvent event) {
+        UUID partidaId = event.partidaId();
+        Instant ahora = Instant.now();
+        if (!activas.containsKey(partidaId) && !membresiaRepository.existsByPartidaId(partidaId)) {
+            membresiaRepository.registrar(partidaId, ahora);
+        } else {
+            membresiaRepository.tocar(partidaId, ahora);
+        }
+        activas.put(partidaId, Set.copyOf(event.manos().keySet()));
+    }
+
+    @EventListener
+    public void onPartidaFinalizada(PartidaFinalizadaEvent event) {
+        Instant finalizadaEn = event.finalizadaEn() != null ? event.finalizadaEn() : Instant.now();
+        membresiaRepository.cambiarEstado(event.partidaId(), EstadoRonda.FINALIZADA, finalizadaEn);
+        activas.remove(event.partidaId());
+    }
+
+    // Completa el índice con las partidas que ya estaban en la base antes de que existiera
+    @EventListener(ApplicationReadyEvent.class)
+    public void completarIndice() {
+        if (membresiaRepository.count() == 0) {
+            int filas = membresiaRepository.registrarTodas(Instant.now());
+            if (filas > 0) {
+                log.info("Índice de membresías completado con {} filas", filas);
+            }
+        }
+    }
+
+    public boolean esMiembro(UUID partidaId, String jugadorNombre) {
+        Set<String> jugadores = activas.get(partidaId);
+        if (jugadores != null) {
+            return jugadores.contains(jugadorNombre);
+        }
+        return membresiaRepository.existsByPartidaIdAndJugadorNombre(partidaId, jugadorNombre);
+    }
+
+    /**
+     * Quita de memoria las partidas que salieron de las tablas de juego. Las
+     * filas las borra quien borra la partida, en su misma transacción.
+     */
+    public void olvidar(Collection<UUID> partidaIds) {
+        partidaIds.forEach(activas::remove);
+    }
+
+    public int cantidadActivas() {
+        return activas.size();
+    }
+}
@@ -3,18 +3,29 @@ package org.fabiano.tfg.engine.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.event.CantoRealizadoEvent;
+import org.fabiano.tfg.engine.event.ContextoReproduccion;
+import org.fabiano.tfg.engine.event.JugadaRegistradaEvent;
+import org.fabiano.tfg.engine.event.ManoRepartidaEvent;
+import org.fabiano.tfg.engine.event.PartidaCreadaEvent;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
 import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.CodigoCarta;
 import org.fabiano.tfg.engine.model.EstadoRonda;
 import org.fabiano.tfg.engine.model.Jugada;
 import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.ReglasMano;
+import org.fabiano.tfg.engine.model.TipoCanto;
 import org.fabiano.tfg.engine.model.team.Equipo;
 import org.fabiano.tfg.engine.model.team.Jugador;
-import org.fabiano.tfg.engine.repository.CartaRepository;
-import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Slf4j
 @Service
@@ -23,13 +34,23 @@ public class PartidaService {
 
     private final MazoService mazoService;
     private final YamlRuleLoader ruleLoader;
-    private final PartidaRepository partidaRepository;
-    private final CartaRepository cartaRepository;
+    private final RegistroPartidas registroPartidas;
     private final JerarquiaLoader jerarquiaLoader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BitacoraPartidaService bitacora;
 
     @Transactional
     public Partida crearPartida(CrearPartidaRequest request) {
         List<Equipo> equipos = crearEquipos(request);
+        List<String> bots = request.getBots() != null ? List.copyOf(request.getBots()) : List.of();
+        for (String bot : bots) {
+            boolean juega = equipos.stream()
+                    .flatMap(e -> e.getJugadores().stream())
+                    .anyMatch(j -> j.getNombre().equals(bot));
+            if (!juega) {
+                throw new IllegalArgumentException("El bot no juega en la partida: " + bot);
+            }
+        }
         Partida partida = new Partida();
         // ID will be auto-generated by Hibernate using UUID strategy
         // Set the human-readable name from the request
@@ -40,9 +61,11 @@ public class PartidaService {
         partida.setGanadoresPorMano(new HashMap<>());
         partida.setPuntosPorEquipo(new HashMap<>());
         partida.setEstadoRonda(EstadoRonda.EN_CURSO);
+        partida.setSemilla(ThreadLocalRandom.current().nextLong());
 
-        iniciarNuevaMano(partida);
-        return partidaRepository.save(partida);
+        // La primera mano persiste la partida y le asigna el id
+        iniciarNuevaMano(partida, bots);
+        return registroPartidas.registrar(partida);
     }
 
     private List<Equipo> crearEquipos(CrearPartidaRequest request) {
@@ -76,29 +99,62 @@ public class PartidaService {
                 .toList();
     }
 
-    @Transactional(readOnly = true)
     public Optional<Partida> obtenerPartida(UUID id) {
-        return partidaRepository.findById(id);
+        return registroPartidas.buscar(id);
     }
 
-    @Transactional
     public void iniciarNuevaMano(Partida partida) {
+        iniciarNuevaMano(partida, List.of());
+    }
+
+    /**
+     * Los bots de una partida nueva se anuncian entre la primera escritura,
+     * que le da el id, y el reparto: quien los siga ya ve la primera mano.
+     */
+    private void iniciarNuevaMano(Partida partida, List<String> botsNuevos) {
         log.info("Iniciando nueva mano...");
         reiniciarEstadosMano(partida);
 
-        // Guardar las cartas del mazo antes de repartir
-        List<Carta> mazoNuevo = mazoService.crearMazo().stream()
-                .map(cartaRepository::save)
-                .toList();
+        // Sólo las repartidas llegan a la base, con la próxima escritura de la partida
+        List<Carta> mazoNuevo = mazoService.crearMazo();
 
-        mazoService.mezclarYRepartirCartas(partida, mazoNuevo);
+        long semilla = semillaDeMano(partida);
+        mazoService.mezclarYRepartirCartas(partida, mazoNuevo, new Random(semilla));
         ordenarTurno(partida);
 
         for (Jugador jugador : obtenerTodosLosJugadores(partida)) {
             ruleLoader.ejecutarTodas(jugador, partida);
         }
 
-        partidaRepository.save(partida);
+        registroPartidas.persistir(partida);
+        if (!botsNuevos.isEmpty()) {
+            publicar(new PartidaCreadaEvent(partida.getId(), botsNuevos));
+        }
+        publicarManoRepartida(partida, semilla);
+        bitacora.tomarSnapshot(partida);
+    }
+
+    /**
+     * Semilla del reparto de la mano actual, derivada de la semilla de la
+     * partida para poder repetirlo al reconstruirla.
+     */
+    private long semillaDeMano(Partida partida) {
+        if (partida.getSemilla() == null) {
+            partida.setSemilla(ThreadLocalRandom.current().nextLong());
+        }
+        return new SplittableRandom(partida.getSemilla() + partida.getManoActual()).nextLong();
+    }
+
+    private void publicarManoRepartida(Partida partida, long semilla) {
+        Map<String, Long> manos = new HashMap<>();
+        Map<String, Integer> equipos = new HashMap<>();
+        for (int i = 0; i < partida.getEquipos().size(); i++) {
+            for (Jugador jugador : partida.getEquipos().get(i).getJugadores()) {
+                manos.put(jugador.getNombre(), CodigoCarta.mascara(jugador.getMano()));
+                equipos.put(jugador.getNombre(), i);
+            }
+        }
+        publicar(new ManoRepartidaEvent(partida.getId(), partida.getManoActual(), semilla, manos, equipos));
     }
 
     private void reiniciarEstadosMano(Partida partida) {
@@ -128,16 +184,12 @@ public class PartidaService {
         partida.setValorEnvido(0);
     }
 
-    @Transactional
     public void registrarJugada(Partida partida, Jugador jugador, Carta carta) {
         // Validar que es el turno del jugador
         if (!partida.esTurnoDeJugador(jugador)) {
             throw new IllegalStateException("No es el turno del jugador: " + jugador.getNombre());
         }
 
-        // Guardar la carta primero
-        carta = cartaRepository.save(carta);
-
         Jugada jugada = new Jugada(
                 jugador.getNombre(),
                 carta,
@@ -148,6 +200,8 @@ public class PartidaService {
         partida.getCartasJugadas().add(jugada);
         jugador.getMano().remove(carta);
         log.info("{} jugó {} de {}", jugador.getNombre(), carta.getValor(), carta.getPalo());
+        publicar(new JugadaRegistradaEvent(
+                partida.getId(), partida.getManoActual(), jugador.getNombre(), carta, jugada.getNumeroVuelta()));
 
         ruleLoader.ejecutarTodas(jugador, partida);
 
@@ -160,11 +214,216 @@ public class PartidaService {
         if (jugadasRondaActual.size() == totalJugadores) {
             resolverRonda(partida);
         }
+    }
 
-        partidaRepository.save(partida);
+    /**
+     * Notifica un canto, una respuesta o un abandono al mazo a los interesados
+     * (bots, estadísticas). El estado de la partida lo actualiza quien canta.
+     */
+    public void registrarCanto(Partida partida, Jugador jugador, TipoCanto tipo) {
+        long manoRestante = CodigoCarta.mascara(jugador.getMano());
+        long manoOriginal = manoOriginal(partida, jugador);
+        TipoCanto respuestaA = tipo == TipoCanto.QUIERO || tipo == TipoCanto.NO_QUIERO
+                ? cantoPendiente(partida)
+                : null;
+        // Querer el envido es mostrar los puntos: "son 33"
+        Integer puntosDeclarados = tipo == TipoCanto.QUIERO && respuestaA != null && respuestaA.esEnvido()
+                ? CodigoCarta.envido(manoOriginal)
+                : null;
+
+        publicar(new CantoRealizadoEvent(
+                partida.getId(),
+                partida.getManoActual(),
+                jugador.getNombre(),
+                tipo,
+                manoOriginal,
+                manoRestante,
+                respuestaA,
+                puntosDeclarados));
+    }
+
+    /**
+     * Aplica un canto, una respuesta o el abandono al mazo sobre la partida:
+     * lo notifica, actualiza el estado y pasa el turno o cierra la mano. Los
+     * puntos salen de {@link ReglasMano}, las mismas reglas del simulador.
+     *
+     * <p>El truco sin responder es {@code valorTruco > puntosEnJuego}: subirlo
+     * es querer lo anterior, y lo querido recién se fija al responder. El
+     * envido o la flor sin responder dejan en {@code valorEnvido} lo que vale
+     * la cadena (el envido querido, la flor no querida); al resolverse vuelve
+     * a cero y las banderas quedan para saber que ya se cantó.</p>
+     */
+    public void aplicarCanto(Partida partida, Jugador jugador, TipoCanto tipo) {
+        registrarCanto(partida, jugador, tipo);
+        switch (tipo) {
+            case TRUCO, RETRUCO, VALE_CUATRO -> cantarTruco(partida, jugador, tipo);
+            case ENVIDO, REAL_ENVIDO, FALTA_ENVIDO -> cantarEnvido(partida, jugador, tipo);
+            case FLOR -> cantarFlor(partida, jugador);
+            case CONTRAFLOR, CONTRAFLOR_AL_RESTO -> subirFlor(partida, jugador, tipo);
+            case QUIERO -> {
+                partida.setQuiso(true);
+                responder(partida, jugador, true);
+            }
+            case NO_QUIERO -> {
+                partida.setNoQuiso(true);
+                responder(partida, jugador, false);
+            }
+            case AL_MAZO -> {
+                partida.setAlMazo(true);
+                // Con un truco sin responder es como no quererlo
+                int puntos = trucoPendiente(partida)
+                        ? ReglasMano.puntosTruco(partida.getValorTruco() - 2)
+                        : partida.getPuntosEnJuego();
+                cerrarMano(partida, equipoRival(partida, jugador), puntos);
+            }
+        }
+    }
+
+    private void cantarTruco(Partida partida, Jugador jugador, TipoCanto tipo) {
+        switch (tipo) {
+            case TRUCO -> {
+                partida.setTrucoCantado(true);
+                partida.setValorTruco(2);
+            }
+            case RETRUCO -> {
+                partida.setRetrucoCantado(true);
+                partida.setValorTruco(3);
+            }
+            default -> {
+                partida.setValeCuatroCantado(true);
+                partida.setValorTruco(4);
+            }
+        }
+        darTurno(partida, siguienteRival(partida, jugador));
+    }
+
+    private void cantarEnvido(Partida partida, Jugador jugador, TipoCanto tipo) {
+        int querido = partida.getValorEnvido();
+        switch (tipo) {
+            case ENVIDO -> {
+                partida.setEnvidoCantado(true);
+                querido += ReglasMano.PUNTOS_ENVIDO;
+            }
+            case REAL_ENVIDO -> {
+                partida.setRealEnvidoCantado(true);
+                querido += ReglasMano.PUNTOS_REAL_ENVIDO;
+            }
+            default -> {
+                // Querida vale la falta; se guarda lo que vale no querida
+                partida.setFaltaEnvidoCantado(true);
+                querido = ReglasMano.envidoNoQuerido(querido);
+            }
+        }
+        partida.setValorEnvido(querido);
+        darTurno(partida, siguienteRival(partida, jugador));
+    }
+
+    private void cantarFlor(Partida partida, Jugador jugador) {
+        if (partida.getValorEnvido() > 0) {
+            // La flor mata el envido: lo cantado no vale nada
+            partida.setEnvidoCantado(false);
+            partida.setRealEnvidoCantado(false);
+            partida.setFaltaEnvidoCantado(false);
+        }
+        partida.setFlorCantada(true);
+        int lado = lado(partida, jugador);
+        if (tanto(partida, 1 - lado, true) == 0) {
+            sumarPuntos(partida, partida.getEquipos().get(lado), ReglasMano.PUNTOS_FLOR);
+            resolverTanto(partida);
+            return;
+        }
+        partida.setValorEnvido(ReglasMano.florNoQuerida(false, false));
+        darTurno(partida, siguienteRival(partida, jugador));
+    }
+
+    private void subirFlor(Partida partida, Jugador jugador, TipoCanto tipo) {
+        if (tipo == TipoCanto.CONTRAFLOR) {
+            partida.setContraflorCantada(true);
+        } else {
+            partida.setContraflorAlRestoCantada(true);
+        }
+        partida.setValorEnvido(ReglasMano.florNoQuerida(
+                partida.isContraflorCantada(), partida.isContraflorAlRestoCantada()));
+        darTurno(partida, siguienteRival(partida, jugador));
+    }
+
+    private void responder(Partida partida, Jugador jugador, boolean quiere) {
+        int lado = lado(partida, jugador);
+        Equipo quienCanto = partida.getEquipos().get(1 - lado);
+        if (partida.getValorEnvido() > 0) {
+            boolean flor = partida.isFlorCantada();
+            if (!quiere) {
+                sumarPuntos(partida, quienCanto, flor ? partida.getValorEnvido() : envidoNoQuerido(partida));
+            } else {
+                int ganador = ReglasMano.ganadorTanto(tanto(partida, 0, flor), tanto(partida, 1, flor));
+                int falta = ReglasMano.puntosFalta(partida.getPuntajeLimite(),
+                        partida.getEquipos().stream().mapToInt(Equipo::getPuntaje).max().orElse(0));
+                int puntos = flor
+                        ? ReglasMano.florQuerida(partida.isContraflorAlRestoCantada(), falta)
+                        : partida.isFaltaEnvidoCantado() ? falta : partida.getValorEnvido();
+                sumarPuntos(partida, partida.getEquipos().get(ganador), puntos);
+            }
+            resolverTanto(partida);
+            return;
+        }
+        if (!trucoPendiente(partida)) {
+            throw new IllegalStateException("No hay ningún canto que responder");
+        }
+        if (!quiere) {
+            cerrarMano(partida, quienCanto, ReglasMano.puntosTruco(partida.getValorTruco() - 2));
+            return;
+        }
+        partida.setPuntosEnJuego(partida.getValorTruco());
+        darTurno(partida, jugadorDeCarta(partida));
+    }
+
+    // Lo querido antes del último canto de la cadena, o uno
+    private static int envidoNoQuerido(Partida partida) {
+        if (partida.isFaltaEnvidoCantado()) {
+            return partida.getValorEnvido();
+        }
+        int ultimo = partida.isRealEnvidoCantado() ? ReglasMano.PUNTOS_REAL_ENVIDO : ReglasMano.PUNTOS_ENVIDO;
+        return ReglasMano.envidoNoQuerido(partida.getValorEnvido() - ultimo);
+    }
+
+    private void resolverTanto(Partida partida) {
+        partida.setValorEnvido(0);
+        darTurno(partida, turnoTrasCanto(partida));
+    }
+
+    private void cerrarMano(Partida partida, Equipo ganador, int puntos) {
+        partida.setGanadorDeRonda(ganador);
+        partida.setPuntosEnJuego(puntos);
+        finalizarMano(partida);
+    }
+
+    private static boolean trucoPendiente(Partida partida) {
+        return partida.getValorTruco() > partida.getPuntosEnJuego();
+    }
+
+    /**
+     * El último canto que subió la apuesta, que es el que se está respondiendo.
+     * El envido va primero: puede estar pendiente sobre un truco sin responder.
+     */
+    private TipoCanto cantoPendiente(Partida partida) {
+        if (partida.getValorEnvido() > 0) {
+            if (partida.isFlorCantada()) {
+                return partida.isContraflorAlRestoCantada() ? TipoCanto.CONTRAFLOR_AL_RESTO
+                        : partida.isContraflorCantada() ? TipoCanto.CONTRAFLOR : TipoCanto.FLOR;
+            }
+            return partida.isFaltaEnvidoCantado() ? TipoCanto.FALTA_ENVIDO
+                    : partida.isRealEnvidoCantado() ? TipoCanto.REAL_ENVIDO : TipoCanto.ENVIDO;
+        }
+        if (trucoPendiente(partida)) {
+            return switch (partida.getValorTruco()) {
+                case 4 -> TipoCanto.VALE_CUATRO;
+                case 3 -> TipoCanto.RETRUCO;
+                default -> TipoCanto.TRUCO;
+            };
+        }
+        return null;
     }
 
-    @Transactional
     public void avanzarTurno(Partida partida) {
         if (partida.getOrdenDeTurno() == null || partida.getOrdenDeTurno().isEmpty()) {
             return;
@@ -181,119 +440,195 @@ public class PartidaService {
         if (siguienteJugador != null) {
             ruleLoader.ejecutarTodas(siguienteJugador, partida);
         }
-
-        partidaRepository.save(partida);
     }
 
     private void resolverRonda(Partida partida) {
-        List<Jugada> jugadasRonda = partida.getCartasJugadasEnVueltaActual();
-        if (jugadasRonda.isEmpty()) return;
-
-        Jugada jugadaGanadora = jugadasRonda.stream()
-                .max(Comparator.comparingInt(j -> jerarquiaLoader.obtenerValor(j.getCarta())))
-                .orElse(null);
-
-        if (jugadaGanadora != null) {
-            String nombreJugador = jugadaGanadora.getJugador();
-            Jugador jugador = obtenerTodosLosJugadores(partida).stream()
-                    .filter(j -> j.getNombre().equals(nombreJugador))
-                    .findFirst()
-                    .orElse(null);
-
-            if (jugador != null) {
-                Equipo equipoGanador = encontrarEquipoDeJugador(partida, jugador);
-                partida.setGanadorDeRonda(equipoGanador);
-                partida.getGanadoresPorMano().put(partida.getVuelta(), equipoGanador.getId());
-                log.info("Ganador de la vuelta {}: {} con {}",
-                        partida.getVuelta(),
-                        nombreJugador,
-                        jugadaGanadora.getCarta());
-            }
+        int vuelta = partida.getVuelta();
+        partida.setVuelta(vuelta + 1);
+        Vueltas vueltas = vueltas(partida);
+        int resultado = ReglasMano.resultado(vueltas.resultados(), vuelta - 1);
+        if (resultado == ReglasMano.PARDA) {
+            partida.setGanadorDeRonda(null);
+            log.info("La vuelta {} fue parda", vuelta);
+        } else {
+            Equipo equipoGanador = partida.getEquipos().get(resultado - 1);
+            partida.setGanadorDeRonda(equipoGanador);
+            partida.getGanadoresPorMano().put(vuelta, equipoGanador.getId());
+            log.info("Ganador de la vuelta {}: {}", vuelta, vueltas.abre().getNombre());
         }
 
-        // Avanzar a la siguiente vuelta
-        partida.setVuelta(partida.getVuelta() + 1);
-
         for (Jugador jugador : obtenerTodosLosJugadores(partida)) {
             ruleLoader.ejecutarTodas(jugador, partida);
         }
 
-        // Verificar si terminó la mano (3 vueltas o un equipo ganó 2)
-        if (debeFinalizarMano(partida)) {
-            asignarPuntosMano(partida);
+        int ganadorMano = ReglasMano.ganadorMano(vueltas.resultados(), vuelta - 1);
+        if (ganadorMano >= 0) {
+            asignarPuntosMano(partida, partida.getEquipos().get(ganadorMano));
+        } else {
+            darTurno(partida, vueltas.abre());
         }
     }
 
     /**
-     * Determina si la mano debe finalizar (un equipo ganó 2 vueltas o se jugaron 3).
+     * Resultados de las vueltas ya completas, empaquetados como en
+     * {@link ReglasMano}, y quién abre la vuelta en curso: el que ganó la
+     * anterior o, si fue parda, el que la abrió. El primer equipo es el mano.
      */
-    private boolean debeFinalizarMano(Partida partida) {
-        Map<UUID, Integer> victoriasPorEquipo = new HashMap<>();
-
-        for (UUID equipoId : partida.getGanadoresPorMano().values()) {
-            victoriasPorEquipo.merge(equipoId, 1, Integer::sum);
+    private Vueltas vueltas(Partida partida) {
+        List<Jugador> orden = ordenDeMano(partida);
+        Jugador abre = orden.get(0);
+        int resultados = 0;
+        for (int vuelta = 1; vuelta < partida.getVuelta(); vuelta++) {
+            Jugada[] mejores = new Jugada[2];
+            for (Jugada jugada : partida.getCartasJugadas()) {
+                if (jugada.getNumeroVuelta() != vuelta || jugada.getNumeroRonda() != partida.getRonda()) {
+                    continue;
+                }
+                int lado = lado(partida, jugador(partida, jugada.getJugador()));
+                if (mejores[lado] == null || valor(jugada) > valor(mejores[lado])) {
+                    mejores[lado] = jugada;
+                }
+            }
+            int resultado = ReglasMano.resultadoVuelta(valor(mejores[0]), valor(mejores[1]));
+            resultados = ReglasMano.conResultado(resultados, vuelta - 1, resultado);
+            if (resultado != ReglasMano.PARDA) {
+                abre = jugador(partida, mejores[resultado - 1].getJugador());
+            }
         }
+        return new Vueltas(resultados, abre);
+    }
 
-        // Si algún equipo tiene 2 victorias, termina la mano
-        boolean algunEquipoGanoDos = victoriasPorEquipo.values().stream()
-                .anyMatch(v -> v >= 2);
+    private record Vueltas(int resultados, Jugador abre) {
+    }
 
-        // O si ya se jugaron 3 vueltas
-        boolean seJugaronTresVueltas = partida.getVuelta() > 3;
+    private int valor(Jugada jugada) {
+        return jugada != null ? jerarquiaLoader.obtenerValor(jugada.getCarta()) : -1;
+    }
 
-        return algunEquipoGanoDos || seJugaronTresVueltas;
+    // Quién juega la próxima carta de la vuelta en curso
+    private Jugador jugadorDeCarta(Partida partida) {
+        List<Jugador> orden = ordenDeMano(partida);
+        int abre = orden.indexOf(vueltas(partida).abre());
+        return orden.get((abre + partida.getCartasJugadasEnVueltaActual().size()) % orden.size());
     }
 
     /**
-     * Asigna los puntos al equipo que ganó la mano.
+     * A quién le toca cuando se resuelve el envido o la flor: a quien tiene
+     * que responder el truco si quedó uno pendiente, y si no al que juega.
+     * Los cantos del truco sin responder se alternan empezando por el que
+     * juega, así que su cantidad dice quién cantó el último.
      */
-    private void asignarPuntosMano(Partida partida) {
-        // Contar victorias por equipo
-        Map<UUID, Integer> victoriasPorEquipo = new HashMap<>();
-        for (UUID equipoId : partida.getGanadoresPorMano().values()) {
-            victoriasPorEquipo.merge(equipoId, 1, Integer::sum);
+    private Jugador turnoTrasCanto(Partida partida) {
+        Jugador deCarta = jugadorDeCarta(partida);
+        if (!trucoPendiente(partida)) {
+            return deCarta;
         }
+        int cantos = partida.getValorTruco() - partida.getPuntosEnJuego();
+        Jugador ultimo = cantos % 2 == 1 ? deCarta : siguienteRival(partida, deCarta);
+        return siguienteRival(partida, ultimo);
+    }
 
-        // Encontrar el equipo con más victorias
-        UUID equipoGanadorId = victoriasPorEquipo.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(null);
+    // El próximo en el orden de la mano que es del otro equipo
+    private Jugador siguienteRival(Partida partida, Jugador jugador) {
+        List<Jugador> orden = ordenDeMano(partida);
+        int lado = lado(partida, jugador);
+        int desde = orden.indexOf(jugador);
+        for (int i = 1; i <= orden.size(); i++) {
+            Jugador siguiente = orden.get((desde + i) % orden.size());
+            if (lado(partida, siguiente) != lado) {
+                return siguiente;
+            }
+        }
+        throw new IllegalStateException("La partida no tiene rivales para " + jugador.getNombre());
+    }
 
-        if (equipoGanadorId != null) {
-            Equipo equipoGanador = partida.getEquipos().stream()
-                    .filter(e -> e.getId().equals(equipoGanadorId))
-                    .findFirst()
-                    .orElse(null);
-
-            if (equipoGanador != null) {
-                partida.setGanadorDeRonda(equipoGanador);
-                asignarPuntos(partida);
-
-                if (verificarFinPartida(partida)) {
-                    partida.setEstadoRonda(EstadoRonda.FINALIZADA);
-                    log.info("¡Partida finalizada! Ganador: {}", equipoGanador.getNombre());
-                } else {
-                    iniciarNuevaMano(partida);
-                }
+    private void darTurno(Partida partida, Jugador jugador) {
+        Queue<Jugador> cola = partida.getOrdenDeTurno();
+        if (cola == null || cola.isEmpty() || jugador.equals(cola.peek())) {
+            return;
+        }
+        for (int i = 0; i < cola.size() && !jugador.equals(cola.peek()); i++) {
+            cola.offer(cola.poll());
+        }
+        partida.setIndiceTurnoActual(ordenDeMano(partida).indexOf(jugador));
+        ruleLoader.ejecutarTodas(jugador, partida);
+    }
+
+    // Envido o flor del equipo: el mejor de sus jugadores
+    private int tanto(Partida partida, int lado, boolean flor) {
+        int mejor = 0;
+        for (Jugador jugador : partida.getEquipos().get(lado).getJugadores()) {
+            long mano = manoOriginal(partida, jugador);
+            mejor = Math.max(mejor, flor ? CodigoCarta.flor(mano) : CodigoCarta.envido(mano));
+        }
+        return mejor;
+    }
+
+    // cartasJugadas sólo guarda las de la mano en curso
+    private static long manoOriginal(Partida partida, Jugador jugador) {
+        long mano = CodigoCarta.mascara(jugador.getMano());
+        for (Jugada jugada : partida.getCartasJugadas()) {
+            if (jugador.getNombre().equals(jugada.getJugador())) {
+                mano |= CodigoCarta.mascara(jugada.getCarta());
             }
         }
+        return mano;
+    }
+
+    private int lado(Partida partida, Jugador jugador) {
+        return partida.getEquipos().indexOf(encontrarEquipoDeJugador(partida, jugador));
+    }
+
+    private Equipo equipoRival(Partida partida, Jugador jugador) {
+        return partida.getEquipos().get(1 - lado(partida, jugador));
+    }
+
+    private Jugador jugador(Partida partida, String nombre) {
+        return obtenerTodosLosJugadores(partida).stream()
+                .filter(j -> j.getNombre().equals(nombre))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Jugador desconocido: " + nombre));
+    }
+
+    /**
+     * Asigna los puntos al equipo que ganó la mano.
+     */
+    private void asignarPuntosMano(Partida partida, Equipo equipoGanador) {
+        partida.setGanadorDeRonda(equipoGanador);
+        asignarPuntos(partida);
+
+        if (verificarFinPartida(partida)) {
+            log.info("¡Partida finalizada! Ganador: {}", equipoGanador.getNombre());
+            finalizarPartida(partida);
+        } else {
+            iniciarNuevaMano(partida);
+        }
     }
 
     private void asignarPuntos(Partida partida) {
-        Equipo equipoGanador = partida.getGanadorDeRonda();
-        int puntosActuales = partida.getPuntosPorEquipo().getOrDefault(equipoGanador.getId(), 0);
-        int nuevosPuntos = puntosActuales + partida.getPuntosEnJuego();
+        sumarPuntos(partida, partida.getGanadorDeRonda(), partida.getPuntosEnJuego());
+    }
+
+    private void sumarPuntos(Partida partida, Equipo equipo, int puntos) {
+        int puntosActuales = partida.getPuntosPorEquipo().getOrDefault(equipo.getId(), 0);
+        int nuevosPuntos = puntosActuales + puntos;
 
-        partida.getPuntosPorEquipo().put(equipoGanador.getId(), nuevosPuntos);
-        equipoGanador.setPuntaje(nuevosPuntos);
+        partida.getPuntosPorEquipo().put(equipo.getId(), nuevosPuntos);
+        equipo.setPuntaje(nuevosPuntos);
 
         log.info("Equipo {} ganó {} puntos. Total: {}",
-                equipoGanador.getNombre(),
-                partida.getPuntosEnJuego(),
+                equipo.getNombre(),
+                puntos,
                 nuevosPuntos);
     }
 
+    // Al reconstruir desde la bitácora las acciones ya fueron notificadas
+    private void publicar(Object evento) {
+        if (!ContextoReproduccion.activo()) {
+            eventPublisher.publishEvent(evento);
+        }
+    }
+
     private List<Jugador> obtenerTodosLosJugadores(Partida partida) {
         return partida.getEquipos().stream()
                 .flatMap(e -> e.getJugadores().stream())
@@ -301,7 +636,13 @@ public class PartidaService {
     }
 
     private void ordenarTurno(Partida partida) {
-        Queue<Jugador> orden = new LinkedList<>();
+        partida.setOrdenDeTurno(new LinkedList<>(ordenDeMano(partida)));
+        partida.setIndiceTurnoActual(0);
+    }
+
+    // Alternando equipos y empezando por el primero, que es el mano
+    private static List<Jugador> ordenDeMano(Partida partida) {
+        List<Jugador> orden = new ArrayList<>();
         for (int i = 0; i < 2; i++) {
             for (Equipo equipo : partida.getEquipos()) {
                 if (equipo.getJugadores().size() > i) {
@@ -309,8 +650,7 @@ public class PartidaService {
                 }
             }
         }
-        partida.setOrdenDeTurno(orden);
-        partida.setIndiceTurnoActual(0);
+        return orden;
     }
 
     /**
@@ -322,14 +662,7 @@ public class PartidaService {
             return; // Ya está inicializado
         }
 
-        Queue<Jugador> orden = new LinkedList<>();
-        for (int i = 0; i < 2; i++) {
-            for (Equipo equipo : partida.getEquipos()) {
-                if (equipo.getJugadores().size() > i) {
-                    orden.add(equipo.getJugadores().get(i));
-                }
-            }
-        }
+        Queue<Jugador> orden = new LinkedList<>(ordenDeMano(partida));
 
         // Rotar hasta el índice guardado
         for (int i = 0; i < partida.getIndiceTurnoActual(); i++) {
@@ -340,7 +673,6 @@ public class PartidaService {
         partida.setOrdenDeTurno(orden);
     }
 
-    @Transactional
     public void finalizarMano(Partida partida) {
         log.info("Finalizando mano...");
 
@@ -348,17 +680,33 @@ public class PartidaService {
             ruleLoader.ejecutarTodas(jugador, partida);
         }
 
-        if (partida.getGanadorDeRonda() != null) {
-            asignarPuntos(partida);
+        if (partida.getGanadorDeRonda() == null) {
+            return;
+        }
 
-            if (verificarFinPartida(partida)) {
-                partida.setEstadoRonda(EstadoRonda.FINALIZADA);
-            } else {
-                iniciarNuevaMano(partida);
-            }
+        asignarPuntos(partida);
+        // Fin de mano: tanto el cierre como la mano nueva se persisten en el momento
+        if (verificarFinPartida(partida)) {
+            finalizarPartida(partida);
+        } else {
+            iniciarNuevaMano(partida);
         }
+    }
 
-        partidaRepository.save(partida);
+    private void finalizarPartida(Partida partida) {
+        partida.setEstadoRonda(EstadoRonda.FINALIZADA);
+        partida.setFinalizadaEn(Instant.now());
+        registroPartidas.persistir(partida);
+
+        int puntajeGanador = partida.getEquipos().stream().mapToInt(Equipo::getPuntaje).max().orElse(0);
+        List<PartidaFinalizadaEvent.ResultadoEquipo> resultados = partida.getEquipos().stream()
+                .map(e -> new PartidaFinalizadaEvent.ResultadoEquipo(
+                        e.getNombre(),
+                        e.getJugadores().stream().map(Jugador::getNombre).toList(),
+                        e.getPuntaje(),
+                        e.getPuntaje() == puntajeGanador))
+                .toList();
+        publicar(new PartidaFinalizadaEvent(partida.getId(), partida.getNombre(), partida.getFinalizadaEn(), resultados));
     }
 
     private boolean verificarFinPartida(Partida partida) {
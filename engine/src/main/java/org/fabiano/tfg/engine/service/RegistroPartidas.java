@@ -0,0 +1,429 @@
+package org.fabiano.tfg.engine.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.event.ContextoReproduccion;
+import org.fabiano.tfg.engine.event.PartidaCargadaEvent;
+import org.fabiano.tfg.engine.event.PartidaRetiradaEvent;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Registro en memoria de las partidas en juego. Es la copia autoritativa:
+ * las acciones modifican la instancia registrada y quedan escritas en la
+ * bitácora de eventos; la partida entera se escribe sólo en los finales de
+ * mano ({@link #persistir}) o cuando se marca con {@link #marcarModificada}.
+ * Esas escrituras, y las de la bitácora, no ocurren en el hilo del
+ * comando: quedan pendientes y {@link #vaciar} las hace en lote, varias
+ * partidas en un solo {@code saveAll} y con sus eventos y snapshots en la
+ * misma transacción. Quien necesita saber que ya están en la base lo espera
+ * con {@link #escrita}. Cómo se escribe y se carga cada partida lo decide
+ * el {@link AlmacenPartidas}.
+ */
+@Slf4j
+@Service
+public class RegistroPartidas {
+
+    private static final String UUID_REGEX =
+            "^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$";
+
+    private final AlmacenPartidas almacen;
+    private final BitacoraPartidaService bitacora;
+    private final TransactionTemplate transaccion;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tamanoLote;
+
+    private final Map<UUID, Entrada> porId = new ConcurrentHashMap<>();
+    private final Map<String, UUID> idPorNombre = new ConcurrentHashMap<>();
+    private final Set<UUID> pendientes = ConcurrentHashMap.newKeySet();
+
+    public RegistroPartidas(AlmacenPartidas almacen,
+                            BitacoraPartidaService bitacora,
+                            PlatformTransactionManager transacciones,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${truco.partidas.tamano-lote:50}") int tamanoLote) {
+        this.almacen = almacen;
+        this.bitacora = bitacora;
+        this.transaccion = new TransactionTemplate(transacciones);
+        this.eventPublisher = eventPublisher;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Registra una partida ya persistida (con id) como partida en juego.
+     */
+    public Partida registrar(Partida partida) {
+        porId.putIfAbsent(partida.getId(), new Entrada(partida));
+        if (partida.getNombre() != null) {
+            idPorNombre.put(partida.getNombre(), partida.getId());
+        }
+        return porId.get(partida.getId()).partida;
+    }
+
+    /**
+     * Busca por UUID o por nombre; si la partida no está en memoria se carga
+     * de la base y queda registrada.
+     */
+    public Optional<Partida> buscar(String idONombre) {
+        if (esUuid(idONombre)) {
+            return buscar(UUID.fromString(idONombre));
+        }
+        UUID id = idPorNombre.get(idONombre);
+        Entrada entrada = id != null ? porId.get(id) : null;
+        if (entrada != null) {
+            return Optional.of(entrada.usar());
+        }
+        return almacen.cargar(idONombre).map(this::registrarCargada);
+    }
+
+    public Optional<Partida> buscar(UUID id) {
+        Entrada entrada = porId.get(id);
+        if (entrada != null) {
+            return Optional.of(entrada.usar());
+        }
+        return almacen.cargar(id).map(this::registrarCargada);
+    }
+
+    public static boolean esUuid(String idONombre) {
+        return idONombre != null && idONombre.matches(UUID_REGEX);
+    }
+
+    // Los oyentes completan la partida (por ejemplo, desde la bitácora) antes de registrarla
+    private Partida registrarCargada(Partida partida) {
+        eventPublisher.publishEvent(new PartidaCargadaEvent(partida));
+        return registrar(partida);
+    }
+
+    /**
+     * Ejecuta una acción sobre la partida con acceso exclusivo. Las jugadas y
+     * cantos que agregue a la bitácora la dejan pendiente de escritura; la
+     * partida entera, sólo si se marca con {@link #marcarModificada}. Las acciones de los
+     * jugadores llegan por {@link ComandosPartida}, así que el bloqueo sólo
+     * se disputa con la escritura en segundo plano.
+     */
+    public <T> T modificar(Partida partida, Supplier<T> accion) {
+        ReentrantLock bloqueo = bloqueo(partida);
+        bloqueo.lock();
+        try {
+            T resultado = accion.get();
+            tocar(partida);
+            if (partida.getId() != null && bitacora.tieneSinEscribir(partida.getId())) {
+                pendientes.add(partida.getId());
+            }
+            return resultado;
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    /**
+     * Ejecuta una lectura con acceso exclusivo, sin marcar la partida.
+     */
+    public <T> T leer(Partida partida, Supplier<T> lectura) {
+        ReentrantLock bloqueo = bloqueo(partida);
+        bloqueo.lock();
+        try {
+            return lectura.get();
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    /**
+     * Deja la partida pendiente de escritura; varias marcas seguidas se
+     * resuelven con una sola escritura.
+     */
+    public void marcarModificada(Partida partida) {
+        Entrada entrada = entrada(partida);
+        if (entrada != null) {
+            entrada.filaPendiente = true;
+            pendientes.add(partida.getId());
+        }
+    }
+
+    /**
+     * Fin de mano: la partida entera queda pendiente de escritura y
+     * {@link ComandosPartida} no responde el comando hasta que esté en la
+     * base. Una partida nueva, o que no está registrada, se escribe en el
+     * acto: la nueva necesita el id que le da la base. Al reconstruir una
+     * partida no se escribe nada: ese estado ya está en la base.
+     */
+    public void persistir(Partida partida) {
+        if (ContextoReproduccion.activo()) {
+            return;
+        }
+        if (entrada(partida) != null) {
+            marcarModificada(partida);
+            return;
+        }
+        almacen.guardar(partida);
+    }
+
+    /**
+     * Devuelve un futuro que se completa cuando los cambios pendientes de la
+     * partida llegan a la base, o que ya está completo si no tiene ninguno.
+     * Si la escritura falla, el futuro falla con el mismo error.
+     */
+    public CompletableFuture<Void> escrita(Partida partida) {
+        Entrada entrada = entrada(partida);
+        if (entrada == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Con el bloqueo tomado ninguna escritura está en curso para esta partida
+        entrada.bloqueo.lock();
+        try {
+            if (!pendientes.contains(partida.getId()) && !bitacora.tieneSinEscribir(partida.getId())) {
+                return CompletableFuture.completedFuture(null);
+            }
+            pendientes.add(partida.getId());
+            CompletableFuture<Void> escritura = new CompletableFuture<>();
+            entrada.esperando.add(escritura);
+            return escritura;
+        } finally {
+            entrada.bloqueo.unlock();
+        }
+    }
+
+    /**
+     * Escribe en lote las partidas con cambios, cada lote en una transacción
+     * con la bitácora pendiente de esas partidas. Las que están ocupadas en
+     * este momento, o cuya escritura falló, quedan para la próxima pasada.
+     */
+    @Scheduled(fixedDelayString = "${truco.partidas.vaciar-cada-ms:250}")
+    public void vaciar() {
+        // También las que no pasaron por modificar, como una partida recién creada
+        pendientes.addAll(bitacora.conSinEscribir());
+        List<UUID> fallidas = new ArrayList<>();
+        try {
+            while (!pendientes.isEmpty()) {
+                Lote lote = tomarLote();
+                if (lote.entradas().isEmpty() && lote.sueltas().isEmpty()) {
+                    return;
+                }
+                try {
+                    escribirLote(lote, fallidas);
+                } finally {
+                    lote.entradas().forEach(entrada -> entrada.bloqueo.unlock());
+                }
+            }
+        } finally {
+            // Siguen con cambios sin escribir: no se pueden sacar de memoria
+            pendientes.addAll(fallidas);
+        }
+    }
+
+    /**
+     * Saca de memoria las partidas que nadie usa desde {@code limite} y que
+     * no tienen cambios sin escribir. Si se vuelven a pedir se cargan de la
+     * base. Devuelve cuántas salieron.
+     */
+    public int liberarInactivas(Instant limite) {
+        int liberadas = 0;
+        for (UUID id : List.copyOf(porId.keySet())) {
+            Entrada entrada = porId.get(id);
+            if (entrada != null && entrada.ultimoUso.isBefore(limite) && retirar(id, limite)) {
+                liberadas++;
+            }
+        }
+        return liberadas;
+    }
+
+    /**
+     * Deja la partida fuera de memoria antes de borrarla de la base. Devuelve
+     * false si se usó desde {@code limite}, tiene cambios sin escribir o está
+     * ocupada; en ese caso no debe borrarse. Si sale, lo avisa con
+     * {@link PartidaRetiradaEvent}.
+     */
+    public boolean retirar(UUID id, Instant limite) {
+        Entrada entrada = porId.get(id);
+        if (entrada != null) {
+            if (!entrada.bloqueo.tryLock()) {
+                return false;
+            }
+            try {
+                if (pendientes.contains(id) || bitacora.tieneSinEscribir(id) || !entrada.ultimoUso.isBefore(limite)) {
+                    return false;
+                }
+                descartar(entrada.partida);
+            } finally {
+                entrada.bloqueo.unlock();
+            }
+        }
+        eventPublisher.publishEvent(new PartidaRetiradaEvent(id));
+        return true;
+    }
+
+    public int cantidadPendientes() {
+        return pendientes.size();
+    }
+
+    public int cantidadEnJuego() {
+        return porId.size();
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        vaciar();
+    }
+
+    private Lote tomarLote() {
+        List<Entrada> entradas = new ArrayList<>();
+        List<UUID> sueltas = new ArrayList<>();
+        Iterator<UUID> it = pendientes.iterator();
+        while (it.hasNext() && entradas.size() + sueltas.size() < tamanoLote) {
+            UUID id = it.next();
+            Entrada entrada = porId.get(id);
+            if (entrada == null) {
+                // Fuera de memoria sólo puede quedarle bitácora por escribir
+                it.remove();
+                sueltas.add(id);
+            } else if (entrada.bloqueo.tryLock()) {
+                it.remove();
+                entradas.add(entrada);
+            }
+        }
+        return new Lote(entradas, sueltas);
+    }
+
+    private void escribirLote(Lote lote, List<UUID> fallidas) {
+        List<Entrada> conFila = lote.entradas().stream().filter(entrada -> entrada.filaPendiente).toList();
+        conFila.forEach(entrada -> entrada.filaPendiente = false);
+        List<UUID> ids = new ArrayList<>(lote.sueltas());
+        lote.entradas().forEach(entrada -> ids.add(entrada.partida.getId()));
+        try {
+            escribir(conFila.stream().map(entrada -> entrada.partida).toList(), bitacora.tomar(ids));
+            lote.entradas().forEach(this::escrita);
+            log.debug("Escritura en lote de {} partidas ({} enteras)", ids.size(), conFila.size());
+        } catch (RuntimeException e) {
+            // Un conflicto invalida todo el lote: se reintenta de a una para aislarlo
+            log.warn("Falló la escritura en lote de {} partidas, se reintenta una por una", ids.size(), e);
+            for (Entrada entrada : lote.entradas()) {
+                UUID id = entrada.partida.getId();
+                boolean fila = conFila.contains(entrada);
+                try {
+                    escribir(fila ? List.of(entrada.partida) : List.of(), bitacora.tomar(List.of(id)));
+                    escrita(entrada);
+                } catch (RuntimeException individual) {
+                    log.error("No se pudo persistir la partida {}", id, individual);
+                    if (fila) {
+                        entrada.filaPendiente = true;
+                    }
+                    fallidas.add(id);
+                    entrada.confirmar(individual);
+                }
+            }
+            for (UUID id : lote.sueltas()) {
+                try {
+                    escribir(List.of(), bitacora.tomar(List.of(id)));
+                } catch (RuntimeException individual) {
+                    log.error("No se pudo escribir la bitácora de la partida {}", id, individual);
+                    fallidas.add(id);
+                }
+            }
+        }
+    }
+
+    // Una sola transacción: si algo falla, lo tomado de la bitácora sigue pendiente
+    private void escribir(List<Partida> partidas, List<BitacoraPartidaService.Tomado> tomados) {
+        try {
+            transaccion.executeWithoutResult(estado -> {
+                if (!partidas.isEmpty()) {
+                    almacen.guardarTodas(partidas);
+                }
+                bitacora.escribir(tomados);
+            });
+        } catch (RuntimeException e) {
+            bitacora.liberar(tomados);
+            throw e;
+        }
+        bitacora.confirmar(tomados);
+    }
+
+    // Una partida terminada ya no recibe comandos: escrita, sale de memoria
+    private void escrita(Entrada entrada) {
+        entrada.confirmar(null);
+        if (entrada.partida.getEstadoRonda() == EstadoRonda.FINALIZADA) {
+            descartar(entrada.partida);
+        }
+    }
+
+    private void descartar(Partida partida) {
+        porId.remove(partida.getId());
+        if (partida.getNombre() != null) {
+            idPorNombre.remove(partida.getNombre(), partida.getId());
+        }
+    }
+
+    private void tocar(Partida partida) {
+        Entrada entrada = entrada(partida);
+        if (entrada != null) {
+            entrada.usar();
+        }
+    }
+
+    private ReentrantLock bloqueo(Partida partida) {
+        Entrada entrada = entrada(partida);
+        // Partida todavía sin registrar (por ejemplo, durante su creación)
+        return entrada != null ? entrada.bloqueo : new ReentrantLock();
+    }
+
+    private Entrada entrada(Partida partida) {
+        Entrada entrada = partida.getId() != null ? porId.get(partida.getId()) : null;
+        return entrada != null && entrada.partida == partida ? entrada : null;
+    }
+
+    // Partidas tomadas para un lote: las registradas, bloqueadas, y las que
+    // sólo tienen bitácora pendiente
+    private record Lote(List<Entrada> entradas, List<UUID> sueltas) {
+    }
+
+    private static final class Entrada {
+        private final Partida partida;
+        private final ReentrantLock bloqueo = new ReentrantLock();
+        private volatile Instant ultimoUso = Instant.now();
+        // La partida entera tiene cambios sin escribir (fin de mano o marca)
+        private volatile boolean filaPendiente;
+        // Quienes esperan la próxima escritura; se usa con el bloqueo tomado
+        private final List<CompletableFuture<Void>> esperando = new ArrayList<>();
+
+        private Entrada(Partida partida) {
+            this.partida = partida;
+        }
+
+        private void confirmar(RuntimeException error) {
+            for (CompletableFuture<Void> escritura : esperando) {
+                if (error == null) {
+                    escritura.complete(null);
+                } else {
+                    escritura.completeExceptionally(error);
+                }
+            }
+            esperando.clear();
+        }
+
+        private Partida usar() {
+            ultimoUso = Instant.now();
+            return partida;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.fabiano.tfg.engine.service.archivo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tarea de fondo que archiva las partidas terminadas hace más de
+ * {@code truco.archivo.antiguedad-horas}. Cada partida va en su propia
+ * transacción, así que un error deja sólo esa para la próxima pasada.
+ */
+@Slf4j
+@Component
+public class ArchivadorPartidas {
+
+    private final PartidaRepository partidaRepository;
+    private final ArchivoPartidas archivo;
+    private final Duration antiguedad;
+    private final int tamanoLote;
+
+    public ArchivadorPartidas(PartidaRepository partidaRepository,
+                              ArchivoPartidas archivo,
+                              @Value("${truco.archivo.antiguedad-horas:24}") long antiguedadHoras,
+                              @Value("${truco.archivo.tamano-lote:100}") int tamanoLote) {
+        this.partidaRepository = partidaRepository;
+        this.archivo = archivo;
+        this.antiguedad = Duration.ofHours(antiguedadHoras);
+        this.tamanoLote = tamanoLote;
+    }
+
+    @Scheduled(fixedDelayString = "${truco.archivo.cada-ms:600000}",
+            initialDelayString = "${truco.archivo.cada-ms:600000}")
+    public int archivar() {
+        List<UUID> ids = partidaRepository.findIdsParaArchivar(Instant.now().minus(antiguedad),
+                PageRequest.of(0, tamanoLote));
+        int archivadas = 0;
+        for (UUID id : ids) {
+            try {
+                if (archivo.archivar(id)) {
+                    archivadas++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("No se pudo archivar la partida {}", id, e);
+            }
+        }
+        if (archivadas > 0) {
+            log.info("Archivadas {} partidas terminadas", archivadas);
+        }
+        return archivadas;
+    }
+}
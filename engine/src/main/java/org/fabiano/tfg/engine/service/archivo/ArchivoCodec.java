@@ -0,0 +1,146 @@
+package org.fabiano.tfg.engine.service.archivo;
+
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.service.bitacora.PartidaCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Formato de archivo de una partida: la estructura (equipos y jugadores) que
+ * {@link PartidaCodec} no guarda, seguida del estado que sí guarda, todo
+ * comprimido con deflate. Alcanza para reconstruir la partida sin la base.
+ */
+public final class ArchivoCodec {
+
+    public static final byte VERSION = 1;
+
+    private ArchivoCodec() {
+    }
+
+    public static byte[] codificar(Partida partida) {
+        return codificar(partida, Deflater.BEST_COMPRESSION);
+    }
+
+    /**
+     * Con el nivel de deflate dado: las partidas en juego se reescriben a
+     * cada rato y conviene {@link Deflater#BEST_SPEED}.
+     */
+    public static byte[] codificar(Partida partida, int nivelCompresion) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        Deflater deflater = new Deflater(nivelCompresion);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeByte(VERSION);
+            escribirUuid(out, partida.getId());
+            escribirTexto(out, partida.getNombre());
+            out.writeInt(partida.getPuntajeLimite());
+            out.writeLong(partida.getSemilla() != null ? partida.getSemilla() : 0L);
+            out.writeLong(partida.getFinalizadaEn() != null ? partida.getFinalizadaEn().toEpochMilli() : -1L);
+            out.writeLong(partida.getVersion() != null ? partida.getVersion() : -1L);
+
+            out.writeByte(partida.getEquipos().size());
+            for (Equipo equipo : partida.getEquipos()) {
+                escribirUuid(out, equipo.getId());
+                escribirTexto(out, equipo.getNombre());
+                out.writeByte(equipo.getJugadores().size());
+                for (Jugador jugador : equipo.getJugadores()) {
+                    escribirUuid(out, jugador.getId());
+                    out.writeUTF(jugador.getNombre());
+                }
+            }
+
+            byte[] estado = PartidaCodec.codificar(partida);
+            out.writeInt(estado.length);
+            out.write(estado);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reconstruye una partida desacoplada de la base, pensada sólo para
+     * lectura.
+     */
+    public static Partida restaurar(byte[] datos) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(datos)))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Versión de archivo no soportada: " + version);
+            }
+            Partida partida = new Partida();
+            partida.setId(leerUuid(in));
+            partida.setNombre(leerTexto(in));
+            partida.setPuntajeLimite(in.readInt());
+            partida.setSemilla(in.readLong());
+            long finalizadaEn = in.readLong();
+            partida.setFinalizadaEn(finalizadaEn >= 0 ? Instant.ofEpochMilli(finalizadaEn) : null);
+            long versionPartida = in.readLong();
+            partida.setVersion(versionPartida >= 0 ? versionPartida : null);
+
+            int cantidadEquipos = in.readByte();
+            List<Equipo> equipos = new ArrayList<>(cantidadEquipos);
+            for (int i = 0; i < cantidadEquipos; i++) {
+                UUID id = leerUuid(in);
+                String nombre = leerTexto(in);
+                int cantidadJugadores = in.readByte();
+                List<Jugador> jugadores = new ArrayList<>(cantidadJugadores);
+                for (int j = 0; j < cantidadJugadores; j++) {
+                    Jugador jugador = new Jugador();
+                    jugador.setId(leerUuid(in));
+                    jugador.setNombre(in.readUTF());
+                    jugadores.add(jugador);
+                }
+                Equipo equipo = new Equipo(nombre, jugadores, 0);
+                equipo.setId(id);
+                equipos.add(equipo);
+            }
+            partida.setEquipos(equipos);
+
+            byte[] estado = new byte[in.readInt()];
+            in.readFully(estado);
+            PartidaCodec.restaurar(estado, partida);
+            return partida;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        out.writeBoolean(texto != null);
+        if (texto != null) {
+            out.writeUTF(texto);
+        }
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void escribirUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeBoolean(uuid != null);
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID leerUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+}
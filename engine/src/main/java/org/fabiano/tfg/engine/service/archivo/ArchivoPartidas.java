@@ -0,0 +1,136 @@
+package org.fabiano.tfg.engine.service.archivo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.PartidaArchivada;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.CartaRepository;
+import org.fabiano.tfg.engine.repository.JugadaRepository;
+import org.fabiano.tfg.engine.repository.JugadorRepository;
+import org.fabiano.tfg.engine.repository.MembresiaPartidaRepository;
+import org.fabiano.tfg.engine.repository.PartidaArchivadaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.repository.SnapshotPartidaRepository;
+import org.fabiano.tfg.engine.service.MembresiasPartida;
+import org.fabiano.tfg.engine.service.RegistroPartidas;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventos;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Archivo de partidas terminadas. Mueve cada partida de las tablas de juego
+ * a una fila comprimida de {@link PartidaArchivada} y la reconstruye a pedido
+ * para las vistas de historial.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArchivoPartidas {
+
+    private final PartidaRepository partidaRepository;
+    private final PartidaArchivadaRepository archivadaRepository;
+    private final JugadorRepository jugadorRepository;
+    private final CartaRepository cartaRepository;
+    private final JugadaRepository jugadaRepository;
+    private final SnapshotPartidaRepository snapshotRepository;
+    private final BitacoraPartidaService bitacora;
+    private final AlmacenEventos almacenEventos;
+    private final MembresiaPartidaRepository membresiaRepository;
+    private final MembresiasPartida membresias;
+
+    /**
+     * Archiva la partida y la borra junto con sus jugadas, cartas, jugadores y
+     * bitácora. Devuelve false si ya no está o todavía no terminó.
+     */
+    @Transactional
+    public boolean archivar(UUID id) {
+        Partida partida = partidaRepository.findById(id).orElse(null);
+        if (partida == null || partida.getEstadoRonda() != EstadoRonda.FINALIZADA) {
+            return false;
+        }
+        guardarArchivada(partida);
+        borrar(List.of(partida));
+        return true;
+    }
+
+    /**
+     * Borra de una vez un lote de partidas abandonadas, archivándolas antes si
+     * {@code archivar}. Se saltean las que ya no están o terminaron mientras
+     * tanto; devuelve cuántas filas salieron de cada tabla.
+     */
+    @Transactional
+    public FilasRecuperadas reclamarAbandonadas(List<UUID> ids, boolean archivar) {
+        List<Partida> partidas = partidaRepository.findAllById(ids).stream()
+                .filter(p -> p.getEstadoRonda() != EstadoRonda.FINALIZADA)
+                .toList();
+        if (partidas.isEmpty()) {
+            return FilasRecuperadas.NINGUNA;
+        }
+        if (archivar) {
+            partidas.forEach(this::guardarArchivada);
+        }
+        return borrar(partidas);
+    }
+
+    // Las abandonadas se archivan sin fecha de fin. Con almacenamiento por
+    // documento, el estado está en el documento y no en las tablas
+    private void guardarArchivada(Partida partida) {
+        Partida estado = partida.getDocumento() != null ? ArchivoCodec.restaurar(partida.getDocumento()) : partida;
+        archivadaRepository.save(new PartidaArchivada(partida.getId(), partida.getNombre(),
+                partida.getFinalizadaEn(), Instant.now(), ArchivoCodec.codificar(estado)));
+    }
+
+    private FilasRecuperadas borrar(List<Partida> partidas) {
+        List<UUID> ids = partidas.stream().map(Partida::getId).toList();
+        List<Jugador> jugadores = partidas.stream()
+                .flatMap(p -> p.getEquipos().stream())
+                .flatMap(e -> e.getJugadores().stream())
+                .toList();
+        // Cartas de antes de asociarlas a la partida: sólo se encuentran las de las manos
+        List<Carta> sinPartida = jugadores.stream()
+                .flatMap(j -> j.getMano().stream())
+                .filter(c -> c.getPartidaId() == null)
+                .toList();
+
+        // El ganador apunta a un equipo que la cascada borra antes que la partida.
+        // Las jugadas se sueltan de la partida y salen abajo, con las de manos anteriores
+        partidas.forEach(p -> {
+            p.setGanadorDeRonda(null);
+            p.getCartasJugadas().clear();
+        });
+        partidaRepository.flush();
+        partidaRepository.deleteAll(partidas);
+        jugadorRepository.deleteAll(jugadores);
+        int jugadas = jugadaRepository.borrarDePartidas(ids);
+        int cartas = cartaRepository.borrarDePartidas(ids) + sinPartida.size();
+        cartaRepository.deleteAll(sinPartida);
+        int snapshots = snapshotRepository.borrarDePartidas(ids);
+        membresiaRepository.borrarDePartidas(ids);
+        // Último, porque el diario no vuelve atrás si la transacción falla
+        int eventos = almacenEventos.borrar(ids);
+        ids.forEach(bitacora::olvidar);
+        membresias.olvidar(ids);
+        return new FilasRecuperadas(partidas.size(), jugadas, jugadores.size(), cartas, eventos, snapshots);
+    }
+
+    /**
+     * Busca por UUID o por nombre y reconstruye la partida, desacoplada de la
+     * base y sin registrarla como partida en juego.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Partida> buscar(String idONombre) {
+        Optional<PartidaArchivada> archivada = RegistroPartidas.esUuid(idONombre)
+                ? archivadaRepository.findById(UUID.fromString(idONombre))
+                : archivadaRepository.findByNombre(idONombre);
+        return archivada.map(a -> ArchivoCodec.restaurar(a.getDatos()));
+    }
+}
@@ -0,0 +1,13 @@
+package org.fabiano.tfg.engine.service.archivo;
+
+/**
+ * Filas que salieron de las tablas de juego en un lote de limpieza.
+ */
+public record FilasRecuperadas(int partidas, int jugadas, int jugadores, int cartas, int eventos, int snapshots) {
+
+    public static final FilasRecuperadas NINGUNA = new FilasRecuperadas(0, 0, 0, 0, 0, 0);
+
+    public int total() {
+        return partidas + jugadas + jugadores + cartas + eventos + snapshots;
+    }
+}
@@ -0,0 +1,159 @@
+package org.fabiano.tfg.engine.service.archivo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.dto.EstadisticasLimpieza;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.service.RegistroPartidas;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventos;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tarea de fondo que recupera las partidas abandonadas: sin terminar y sin
+ * actividad en la bitácora ni en memoria desde hace más de
+ * {@code truco.limpieza.inactividad-horas}. Trabaja en lotes acotados, con
+ * una pausa entre lotes y un tope por pasada, y cede la pasada si la
+ * escritura diferida de las partidas en juego está atrasada.
+ */
+@Slf4j
+@Component
+public class LimpiezaPartidas {
+
+    // Menor que cualquier id generado, para arrancar el recorrido
+    private static final UUID INICIO = new UUID(0L, 0L);
+
+    private final PartidaRepository partidaRepository;
+    private final ArchivoPartidas archivo;
+    private final RegistroPartidas registroPartidas;
+    private final AlmacenEventos almacenEventos;
+    private final Duration inactividad;
+    private final int tamanoLote;
+    private final int lotesPorPasada;
+    private final long pausaMs;
+    private final int maxPendientes;
+    private final boolean archivar;
+
+    private final AtomicLong pasadas = new AtomicLong();
+    private final AtomicLong liberadasDeMemoria = new AtomicLong();
+    private final AtomicLong partidas = new AtomicLong();
+    private final AtomicLong jugadas = new AtomicLong();
+    private final AtomicLong jugadores = new AtomicLong();
+    private final AtomicLong cartas = new AtomicLong();
+    private final AtomicLong eventos = new AtomicLong();
+    private final AtomicLong snapshots = new AtomicLong();
+    private volatile Instant ultimaPasada;
+
+    public LimpiezaPartidas(PartidaRepository partidaRepository,
+                            ArchivoPartidas archivo,
+                            RegistroPartidas registroPartidas,
+                            AlmacenEventos almacenEventos,
+                            @Value("${truco.limpieza.inactividad-horas:24}") long inactividadHoras,
+                            @Value("${truco.limpieza.tamano-lote:50}") int tamanoLote,
+                            @Value("${truco.limpieza.lotes-por-pasada:20}") int lotesPorPasada,
+                            @Value("${truco.limpieza.pausa-ms:200}") long pausaMs,
+                            @Value("${truco.limpieza.max-pendientes:200}") int maxPendientes,
+                            @Value("${truco.limpieza.archivar:true}") boolean archivar) {
+        this.partidaRepository = partidaRepository;
+        this.archivo = archivo;
+        this.registroPartidas = registroPartidas;
+        this.almacenEventos = almacenEventos;
+        this.inactividad = Duration.ofHours(inactividadHoras);
+        this.tamanoLote = tamanoLote;
+        this.lotesPorPasada = lotesPorPasada;
+        this.pausaMs = pausaMs;
+        this.maxPendientes = maxPendientes;
+        this.archivar = archivar;
+    }
+
+    /**
+     * Hace una pasada y devuelve cuántas partidas recuperó.
+     */
+    @Scheduled(fixedDelayString = "${truco.limpieza.cada-ms:900000}",
+            initialDelayString = "${truco.limpieza.cada-ms:900000}")
+    public int limpiar() {
+        Instant limite = Instant.now().minus(inactividad);
+        liberadasDeMemoria.addAndGet(registroPartidas.liberarInactivas(limite));
+
+        FilasRecuperadas pasada = FilasRecuperadas.NINGUNA;
+        UUID despues = INICIO;
+        for (int lote = 0; lote < lotesPorPasada; lote++) {
+            if (registroPartidas.cantidadPendientes() > maxPendientes) {
+                log.debug("Limpieza pospuesta: {} partidas esperan escritura", registroPartidas.cantidadPendientes());
+                break;
+            }
+            List<UUID> ids = partidaRepository.findIdsSinTerminar(despues, Limit.of(tamanoLote));
+            if (ids.isEmpty()) {
+                break;
+            }
+            despues = ids.get(ids.size() - 1);
+            Set<UUID> conActividad = almacenEventos.conActividadDesde(ids, limite);
+            // Las que alguien volvió a usar en memoria quedan para otra pasada
+            List<UUID> retiradas = ids.stream()
+                    .filter(id -> !conActividad.contains(id))
+                    .filter(id -> registroPartidas.retirar(id, limite))
+                    .toList();
+            if (!retiradas.isEmpty()) {
+                pasada = sumar(pasada, reclamar(retiradas));
+            }
+            if (ids.size() < tamanoLote || !pausar()) {
+                break;
+            }
+        }
+        pasadas.incrementAndGet();
+        ultimaPasada = Instant.now();
+        if (pasada.partidas() > 0) {
+            log.info("Limpieza: {} partidas abandonadas, {} filas recuperadas", pasada.partidas(), pasada.total());
+        }
+        return pasada.partidas();
+    }
+
+    public EstadisticasLimpieza estadisticas() {
+        return new EstadisticasLimpieza(pasadas.get(), ultimaPasada, liberadasDeMemoria.get(), partidas.get(),
+                jugadas.get(), jugadores.get(), cartas.get(), eventos.get(), snapshots.get());
+    }
+
+    private FilasRecuperadas reclamar(List<UUID> ids) {
+        try {
+            FilasRecuperadas filas = archivo.reclamarAbandonadas(ids, archivar);
+            partidas.addAndGet(filas.partidas());
+            jugadas.addAndGet(filas.jugadas());
+            jugadores.addAndGet(filas.jugadores());
+            cartas.addAndGet(filas.cartas());
+            eventos.addAndGet(filas.eventos());
+            snapshots.addAndGet(filas.snapshots());
+            return filas;
+        } catch (RuntimeException e) {
+            // El lote vuelve entero en la próxima pasada
+            log.warn("No se pudo limpiar un lote de {} partidas abandonadas", ids.size(), e);
+            return FilasRecuperadas.NINGUNA;
+        }
+    }
+
+    private boolean pausar() {
+        if (pausaMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static FilasRecuperadas sumar(FilasRecuperadas a, FilasRecuperadas b) {
+        return new FilasRecuperadas(a.partidas() + b.partidas(), a.jugadas() + b.jugadas(),
+                a.jugadores() + b.jugadores(), a.cartas() + b.cartas(),
+                a.eventos() + b.eventos(), a.snapshots() + b.snapshots());
+    }
+}
@@ -0,0 +1,43 @@
+package org.fabiano.tfg.engine.service.bitacora;
+
+import org.fabiano.tfg.engine.model.EventoPartida;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Dónde se guardan los eventos de la bitácora. Por defecto es la tabla de
+ * {@link EventoPartida}; con el perfil {@code diario} es un diario local en
+ * archivos mapeados ({@link DiarioEventos}).
+ */
+public interface AlmacenEventos {
+
+    void agregar(EventoPartida evento);
+
+    /**
+     * Agrega los eventos de un lote, en orden.
+     */
+    default void agregarTodos(List<EventoPartida> eventos) {
+        eventos.forEach(this::agregar);
+    }
+
+    /**
+     * Eventos de la partida posteriores a {@code secuenciaExcluida}, en orden.
+     */
+    List<EventoPartida> desde(UUID partidaId, long secuenciaExcluida);
+
+    long ultimaSecuencia(UUID partidaId);
+
+    /**
+     * De las partidas indicadas, las que tienen algún evento desde {@code limite}.
+     */
+    Set<UUID> conActividadDesde(Collection<UUID> partidaIds, Instant limite);
+
+    /**
+     * Borra todos los eventos de las partidas y devuelve cuántos eran.
+     */
+    int borrar(Collection<UUID> partidaIds);
+}
@@ -0,0 +1,55 @@
+package org.fabiano.tfg.engine.service.bitacora;
+
+import lombok.RequiredArgsConstructor;
+import org.fabiano.tfg.engine.model.EventoPartida;
+import org.fabiano.tfg.engine.repository.EventoPartidaRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Eventos en la tabla de la base, un INSERT por acción.
+ */
+@Component
+@Profile("!diario")
+@RequiredArgsConstructor
+public class AlmacenEventosJpa implements AlmacenEventos {
+
+    private final EventoPartidaRepository eventoRepository;
+
+    @Override
+    public void agregar(EventoPartida evento) {
+        eventoRepository.save(evento);
+    }
+
+    @Override
+    public void agregarTodos(List<EventoPartida> eventos) {
+        eventoRepository.saveAll(eventos);
+    }
+
+    @Override
+    public List<EventoPartida> desde(UUID partidaId, long secuenciaExcluida) {
+        return eventoRepository.findByPartidaIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(partidaId, secuenciaExcluida);
+    }
+
+    @Override
+    public long ultimaSecuencia(UUID partidaId) {
+        return eventoRepository.ultimaSecuencia(partidaId);
+    }
+
+    @Override
+    public Set<UUID> conActividadDesde(Collection<UUID> partidaIds, Instant limite) {
+        return partidaIds.isEmpty() ? Set.of() : new HashSet<>(eventoRepository.conActividadDesde(partidaIds, limite));
+    }
+
+    @Override
+    public int borrar(Collection<UUID> partidaIds) {
+        return partidaIds.isEmpty() ? 0 : eventoRepository.borrarDePartidas(partidaIds);
+    }
+}
@@ -0,0 +1,225 @@
+package org.fabiano.tfg.engine.service.bitacora;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.event.CantoRealizadoEvent;
+import org.fabiano.tfg.engine.event.ContextoReproduccion;
+import org.fabiano.tfg.engine.event.JugadaRegistradaEvent;
+import org.fabiano.tfg.engine.event.ManoRepartidaEvent;
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.EventoPartida;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.SnapshotPartida;
+import org.fabiano.tfg.engine.repository.SnapshotPartidaRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bitácora de solo-agregado de cada partida: un evento chico por acción
+ * (reparto con su semilla, carta jugada, canto o respuesta), guardado en el
+ * {@link AlmacenEventos} del perfil activo, y un snapshot
+ * del estado compacto en cada reparto. Permite reconstruir una partida con
+ * el último snapshot más los eventos posteriores, y reproducirla o
+ * auditarla completa. Es por donde se escriben las acciones: la fila de la
+ * partida sólo se reescribe al repartir y al terminar.
+ *
+ * <p>Eventos y snapshots no se escriben al agregarse: esperan en memoria a
+ * la escritura en lote de {@code RegistroPartidas}, que los toma con
+ * {@link #tomar} y los escribe junto con las partidas, en la misma
+ * transacción. Mientras tanto las lecturas ya los incluyen.</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BitacoraPartidaService {
+
+    private final AlmacenEventos almacenEventos;
+    private final SnapshotPartidaRepository snapshotRepository;
+
+    // Última secuencia asignada por partida
+    private final Map<UUID, AtomicLong> secuencias = new ConcurrentHashMap<>();
+
+    // Lo agregado y todavía no escrito, por partida. Sólo se toca dentro de compute
+    private final Map<UUID, SinEscribir> sinEscribir = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onManoRepartida(ManoRepartidaEvent event) {
+        agregar(event.partidaId(), EventoPartida.Tipo.MANO_REPARTIDA, event.numeroMano(), null, 0, event.semilla());
+    }
+
+    @EventListener
+    public void onJugadaRegistrada(JugadaRegistradaEvent event) {
+        agregar(event.partidaId(), EventoPartida.Tipo.CARTA_JUGADA, event.numeroMano(), event.jugador(),
+                CodigoCarta.indice(event.carta()), null);
+    }
+
+    @EventListener
+    public void onCantoRealizado(CantoRealizadoEvent event) {
+        agregar(event.partidaId(), EventoPartida.Tipo.CANTO, event.numeroMano(), event.jugador(),
+                event.tipo().ordinal(), null);
+    }
+
+    /**
+     * Guarda el estado actual asociado al último evento de la partida.
+     */
+    public void tomarSnapshot(Partida partida) {
+        if (ContextoReproduccion.activo() || partida.getId() == null) {
+            return;
+        }
+        long secuencia = secuencia(partida.getId()).get();
+        SnapshotPartida snapshot = new SnapshotPartida(null, partida.getId(), secuencia,
+                partida.getManoActual(), PartidaCodec.codificar(partida), Instant.now());
+        sinEscribir.compute(partida.getId(), (id, pendiente) -> {
+            pendiente = pendiente != null ? pendiente : new SinEscribir();
+            pendiente.snapshots.add(snapshot);
+            return pendiente;
+        });
+        log.debug("Snapshot de la partida {} en la secuencia {}", partida.getId(), secuencia);
+    }
+
+    public Optional<SnapshotPartida> ultimoSnapshot(UUID partidaId) {
+        List<SnapshotPartida> pendientes = new ArrayList<>();
+        sinEscribir.computeIfPresent(partidaId, (id, pendiente) -> {
+            pendientes.addAll(pendiente.snapshots);
+            return pendiente;
+        });
+        if (!pendientes.isEmpty()) {
+            return Optional.of(pendientes.get(pendientes.size() - 1));
+        }
+        return snapshotRepository.findFirstByPartidaIdOrderBySecuenciaDesc(partidaId);
+    }
+
+    public List<EventoPartida> eventosDesde(UUID partidaId, long secuenciaExcluida) {
+        // Lo pendiente se lee antes: si entretanto se escribe, ya aparece en el almacén
+        List<EventoPartida> pendientes = new ArrayList<>();
+        sinEscribir.computeIfPresent(partidaId, (id, pendiente) -> {
+            pendientes.addAll(pendiente.eventos);
+            return pendiente;
+        });
+        List<EventoPartida> eventos = new ArrayList<>(almacenEventos.desde(partidaId, secuenciaExcluida));
+        long ultima = eventos.isEmpty() ? secuenciaExcluida : eventos.get(eventos.size() - 1).getSecuencia();
+        pendientes.stream().filter(e -> e.getSecuencia() > ultima).forEach(eventos::add);
+        return eventos;
+    }
+
+    public void olvidar(UUID partidaId) {
+        secuencias.remove(partidaId);
+        sinEscribir.remove(partidaId);
+    }
+
+    /**
+     * Si la partida tiene eventos o snapshots sin escribir.
+     */
+    public boolean tieneSinEscribir(UUID partidaId) {
+        return sinEscribir.containsKey(partidaId);
+    }
+
+    public Set<UUID> conSinEscribir() {
+        return Set.copyOf(sinEscribir.keySet());
+    }
+
+    /**
+     * Toma lo pendiente de las partidas para escribirlo. Lo tomado sigue
+     * visible hasta {@link #confirmar}; una partida que ya se está
+     * escribiendo en otro lote no se toma.
+     */
+    public List<Tomado> tomar(Collection<UUID> partidaIds) {
+        List<Tomado> tomados = new ArrayList<>();
+        for (UUID partidaId : partidaIds) {
+            sinEscribir.computeIfPresent(partidaId, (id, pendiente) -> {
+                if (!pendiente.enEscritura) {
+                    pendiente.enEscritura = true;
+                    tomados.add(new Tomado(id, List.copyOf(pendiente.eventos), List.copyOf(pendiente.snapshots)));
+                }
+                return pendiente;
+            });
+        }
+        return tomados;
+    }
+
+    /**
+     * Escribe lo tomado. Los eventos van al final: si el almacén no es
+     * transaccional, sólo se escriben cuando lo demás ya salió bien.
+     */
+    public void escribir(List<Tomado> tomados) {
+        List<SnapshotPartida> snapshots = tomados.stream().flatMap(t -> t.snapshots().stream()).toList();
+        List<EventoPartida> eventos = tomados.stream().flatMap(t -> t.eventos().stream()).toList();
+        if (!snapshots.isEmpty()) {
+            snapshotRepository.saveAll(snapshots);
+        }
+        if (!eventos.isEmpty()) {
+            almacenEventos.agregarTodos(eventos);
+        }
+    }
+
+    /**
+     * Lo tomado ya está en la base: sale de lo pendiente. Lo agregado
+     * mientras se escribía queda para el próximo lote.
+     */
+    public void confirmar(List<Tomado> tomados) {
+        for (Tomado tomado : tomados) {
+            sinEscribir.computeIfPresent(tomado.partidaId(), (id, pendiente) -> {
+                pendiente.eventos.subList(0, tomado.eventos().size()).clear();
+                pendiente.snapshots.subList(0, tomado.snapshots().size()).clear();
+                pendiente.enEscritura = false;
+                return pendiente.eventos.isEmpty() && pendiente.snapshots.isEmpty() ? null : pendiente;
+            });
+        }
+    }
+
+    /**
+     * La escritura volvió atrás: lo tomado sigue pendiente, sin los ids que
+     * le asignó la transacción fallida.
+     */
+    public void liberar(List<Tomado> tomados) {
+        for (Tomado tomado : tomados) {
+            tomado.eventos().forEach(evento -> evento.setId(null));
+            tomado.snapshots().forEach(snapshot -> snapshot.setId(null));
+            sinEscribir.computeIfPresent(tomado.partidaId(), (id, pendiente) -> {
+                pendiente.enEscritura = false;
+                return pendiente;
+            });
+        }
+    }
+
+    private void agregar(UUID partidaId, EventoPartida.Tipo tipo, int numeroMano, String jugador, int dato, Long semilla) {
+        if (partidaId == null || ContextoReproduccion.activo()) {
+            return;
+        }
+        long secuencia = secuencia(partidaId).incrementAndGet();
+        EventoPartida evento = new EventoPartida(null, partidaId, secuencia, tipo, numeroMano, jugador, dato,
+                semilla, Instant.now());
+        sinEscribir.compute(partidaId, (id, pendiente) -> {
+            pendiente = pendiente != null ? pendiente : new SinEscribir();
+            pendiente.eventos.add(evento);
+            return pendiente;
+        });
+    }
+
+    private AtomicLong secuencia(UUID partidaId) {
+        return secuencias.computeIfAbsent(partidaId, id -> new AtomicLong(almacenEventos.ultimaSecuencia(id)));
+    }
+
+    /**
+     * Eventos y snapshots de una partida tomados para un lote.
+     */
+    public record Tomado(UUID partidaId, List<EventoPartida> eventos, List<SnapshotPartida> snapshots) {
+    }
+
+    private static final class SinEscribir {
+        private final List<EventoPartida> eventos = new ArrayList<>();
+        private final List<SnapshotPartida> snapshots = new ArrayList<>();
+        private boolean enEscritura;
+    }
+}
@@ -0,0 +1,340 @@
+package org.fabiano.tfg.engine.service.bitacora;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.model.EventoPartida;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitácora en un diario local de solo-agregado, para correr sin Postgres
+ * (perfil {@code diario}). Los eventos se escriben en segmentos mapeados en
+ * memoria ({@link SegmentoDiario}) que rotan al llenarse; al arrancar se
+ * recorren todos para rearmar el índice en memoria, cortando en el primer
+ * registro incompleto. Borrar una partida agrega una marca y deja sus
+ * registros muertos; la compactación copia lo vivo de los segmentos más
+ * muertos al segmento actual y los elimina.
+ */
+@Slf4j
+@Component
+@Profile("diario")
+public class DiarioEventos implements AlmacenEventos {
+
+    private final Path directorio;
+    private final int tamanoSegmento;
+    private final boolean forzarSiempre;
+    private final double umbralCompactacion;
+
+    // Segmentos del más viejo al más nuevo; el último es donde se escribe
+    private final TreeMap<Integer, SegmentoDiario> segmentos = new TreeMap<>();
+    private final Map<UUID, Indice> porPartida = new HashMap<>();
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private boolean sinForzar;
+
+    public DiarioEventos(@Value("${truco.diario.directorio:./data/diario}") Path directorio,
+                         @Value("${truco.diario.tamano-segmento:16MB}") DataSize tamanoSegmento,
+                         @Value("${truco.diario.forzar-siempre:true}") boolean forzarSiempre,
+                         @Value("${truco.diario.umbral-compactacion:0.5}") double umbralCompactacion) {
+        this.directorio = directorio;
+        this.tamanoSegmento = Math.toIntExact(tamanoSegmento.toBytes());
+        this.forzarSiempre = forzarSiempre;
+        this.umbralCompactacion = umbralCompactacion;
+        try {
+            Files.createDirectories(directorio);
+            recuperar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el diario en " + directorio, e);
+        }
+    }
+
+    @Override
+    public void agregar(EventoPartida evento) {
+        bloqueo.writeLock().lock();
+        try {
+            escribir(evento);
+            if (forzarSiempre) {
+                actual().forzar();
+            } else {
+                sinForzar = true;
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<EventoPartida> desde(UUID partidaId, long secuenciaExcluida) {
+        bloqueo.readLock().lock();
+        try {
+            Indice indice = porPartida.get(partidaId);
+            if (indice == null) {
+                return List.of();
+            }
+            List<EventoPartida> eventos = new ArrayList<>();
+            for (long ubicacion : indice.ubicaciones.tailMap(secuenciaExcluida, false).values()) {
+                eventos.add(segmentos.get(segmento(ubicacion)).leer(posicion(ubicacion)));
+            }
+            return eventos;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long ultimaSecuencia(UUID partidaId) {
+        bloqueo.readLock().lock();
+        try {
+            Indice indice = porPartida.get(partidaId);
+            return indice == null || indice.ubicaciones.isEmpty() ? 0 : indice.ubicaciones.lastKey();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<UUID> conActividadDesde(Collection<UUID> partidaIds, Instant limite) {
+        bloqueo.readLock().lock();
+        try {
+            Set<UUID> activas = new HashSet<>();
+            for (UUID id : partidaIds) {
+                Indice indice = porPartida.get(id);
+                if (indice != null && indice.ultimoInstante >= limite.toEpochMilli()) {
+                    activas.add(id);
+                }
+            }
+            return activas;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int borrar(Collection<UUID> partidaIds) {
+        bloqueo.writeLock().lock();
+        try {
+            int borrados = 0;
+            for (UUID id : partidaIds) {
+                Indice indice = porPartida.remove(id);
+                if (indice == null) {
+                    continue;
+                }
+                for (long ubicacion : indice.ubicaciones.values()) {
+                    SegmentoDiario segmento = segmentos.get(segmento(ubicacion));
+                    segmento.vivos -= segmento.largo(posicion(ubicacion));
+                }
+                borrados += indice.ubicaciones.size();
+                escribir(SegmentoDiario.borrado(id));
+            }
+            if (borrados > 0) {
+                actual().forzar();
+            }
+            return borrados;
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Con {@code forzar-siempre} apagado, baja a disco lo escrito desde la
+     * última pasada: se puede perder como mucho ese intervalo.
+     */
+    @Scheduled(fixedDelayString = "${truco.diario.forzar-cada-ms:100}")
+    public void forzar() {
+        bloqueo.writeLock().lock();
+        try {
+            if (sinForzar) {
+                actual().forzar();
+                sinForzar = false;
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reescribe los segmentos cerrados con menos de {@code umbral-compactacion}
+     * de su contenido vivo. Devuelve cuántos segmentos eliminó.
+     */
+    @Scheduled(fixedDelayString = "${truco.diario.compactar-cada-ms:300000}",
+            initialDelayString = "${truco.diario.compactar-cada-ms:300000}")
+    public int compactar() {
+        bloqueo.writeLock().lock();
+        try {
+            int eliminados = 0;
+            for (SegmentoDiario segmento : List.copyOf(segmentos.headMap(actual().numero).values())) {
+                double ocupado = (double) segmento.vivos / (segmento.escrito() - SegmentoDiario.TAMANO_CABECERA);
+                if (ocupado < umbralCompactacion) {
+                    compactar(segmento);
+                    eliminados++;
+                }
+            }
+            if (eliminados > 0) {
+                log.info("Diario compactado: {} segmentos eliminados, {} en uso", eliminados, segmentos.size());
+            }
+            return eliminados;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    public int cantidadSegmentos() {
+        bloqueo.readLock().lock();
+        try {
+            return segmentos.size();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        bloqueo.writeLock().lock();
+        try {
+            segmentos.values().forEach(SegmentoDiario::forzar);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+    }
+
+    private void recuperar() throws IOException {
+        int eventos = 0;
+        for (Path archivo : SegmentoDiario.listar(directorio)) {
+            SegmentoDiario segmento = SegmentoDiario.abrir(archivo);
+            segmentos.put(segmento.numero, segmento);
+            int pos = SegmentoDiario.TAMANO_CABECERA;
+            int largo;
+            while ((largo = segmento.largoValido(pos)) > 0) {
+                if (segmento.secuencia(pos) == SegmentoDiario.BORRADA) {
+                    olvidar(segmento.partida(pos));
+                } else {
+                    indexar(segmento, pos, largo);
+                    eventos++;
+                }
+                pos += largo;
+            }
+            segmento.posicionar(pos);
+        }
+        if (segmentos.isEmpty()) {
+            rotar();
+        }
+        log.info("Diario abierto en {}: {} segmentos, {} eventos de {} partidas",
+                directorio, segmentos.size(), eventos, porPartida.size());
+    }
+
+    // Se escribe siempre al final del segmento actual, rotando si no entra
+    private void escribir(EventoPartida evento) {
+        int largo = SegmentoDiario.tamano(evento);
+        if (largo > tamanoSegmento - SegmentoDiario.TAMANO_CABECERA) {
+            throw new IllegalArgumentException("El evento no entra en un segmento del diario");
+        }
+        try {
+            if (!actual().entra(largo)) {
+                actual().forzar();
+                rotar();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        SegmentoDiario segmento = actual();
+        int pos = segmento.agregar(evento);
+        if (evento.getSecuencia() != SegmentoDiario.BORRADA) {
+            indexar(segmento, pos, largo);
+        }
+    }
+
+    private void indexar(SegmentoDiario segmento, int pos, int largo) {
+        Indice indice = porPartida.computeIfAbsent(segmento.partida(pos), id -> new Indice());
+        Long anterior = indice.ubicaciones.put(segmento.secuencia(pos), ubicacion(segmento.numero, pos));
+        if (anterior != null) {
+            // Copia que dejó una compactación interrumpida
+            SegmentoDiario viejo = segmentos.get(segmento(anterior));
+            viejo.vivos -= viejo.largo(posicion(anterior));
+        }
+        indice.ultimoInstante = Math.max(indice.ultimoInstante, segmento.instante(pos));
+        segmento.vivos += largo;
+    }
+
+    private void olvidar(UUID partidaId) {
+        Indice indice = porPartida.remove(partidaId);
+        if (indice != null) {
+            for (long ubicacion : indice.ubicaciones.values()) {
+                SegmentoDiario segmento = segmentos.get(segmento(ubicacion));
+                segmento.vivos -= segmento.largo(posicion(ubicacion));
+            }
+        }
+    }
+
+    private void compactar(SegmentoDiario segmento) throws IOException {
+        boolean hayAnteriores = !segmentos.headMap(segmento.numero).isEmpty();
+        int pos = SegmentoDiario.TAMANO_CABECERA;
+        while (pos < segmento.escrito()) {
+            int largo = segmento.largo(pos);
+            UUID partidaId = segmento.partida(pos);
+            long secuencia = segmento.secuencia(pos);
+            if (secuencia == SegmentoDiario.BORRADA) {
+                // La marca sólo hace falta mientras queden segmentos más viejos
+                if (hayAnteriores) {
+                    escribir(SegmentoDiario.borrado(partidaId));
+                }
+            } else {
+                Indice indice = porPartida.get(partidaId);
+                Long ubicacion = indice == null ? null : indice.ubicaciones.get(secuencia);
+                if (ubicacion != null && ubicacion == ubicacion(segmento.numero, pos)) {
+                    escribir(segmento.leer(pos));
+                }
+            }
+            pos += largo;
+        }
+        actual().forzar();
+        segmentos.remove(segmento.numero);
+        Files.deleteIfExists(segmento.archivo);
+    }
+
+    private void rotar() throws IOException {
+        int numero = segmentos.isEmpty() ? 0 : segmentos.lastKey() + 1;
+        segmentos.put(numero, SegmentoDiario.crear(directorio, numero, tamanoSegmento));
+    }
+
+    private SegmentoDiario actual() {
+        return segmentos.lastEntry().getValue();
+    }
+
+    private static long ubicacion(int segmento, int posicion) {
+        return ((long) segmento << 32) | (posicion & 0xFFFFFFFFL);
+    }
+
+    private static int segmento(long ubicacion) {
+        return (int) (ubicacion >>> 32);
+    }
+
+    private static int posicion(long ubicacion) {
+        return (int) ubicacion;
+    }
+
+    private static final class Indice {
+        private final NavigableMap<Long, Long> ubicaciones = new TreeMap<>();
+        private long ultimoInstante;
+    }
+}
@@ -0,0 +1,227 @@
+package org.fabiano.tfg.engine.service.bitacora;
+
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.Jugada;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Codificación binaria compacta del estado mutable de una partida: contadores,
+ * cantos, puntajes, manos de cada jugador y cartas jugadas. La estructura
+ * (equipos y jugadores) no se codifica; al restaurar se la busca por id y
+ * nombre en la partida destino.
+ */
+public final class PartidaCodec {
+
+    private static final byte VERSION = 1;
+
+    private PartidaCodec() {
+    }
+
+    public static byte[] codificar(Partida partida) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeInt(partida.getManoActual());
+            out.writeInt(partida.getRonda());
+            out.writeInt(partida.getVuelta());
+            out.writeInt(partida.getIndiceTurnoActual());
+            out.writeByte(partida.getEstadoRonda() != null ? partida.getEstadoRonda().ordinal() : -1);
+            out.writeShort(banderas(partida));
+            out.writeInt(partida.getValorTruco());
+            out.writeInt(partida.getValorEnvido());
+            out.writeInt(partida.getPuntosEnJuego());
+            escribirUuid(out, partida.getGanadorDeRonda() != null ? partida.getGanadorDeRonda().getId() : null);
+
+            out.writeByte(partida.getEquipos().size());
+            for (Equipo equipo : partida.getEquipos()) {
+                escribirUuid(out, equipo.getId());
+                out.writeInt(equipo.getPuntaje());
+                Integer puntos = partida.getPuntosPorEquipo() != null ? partida.getPuntosPorEquipo().get(equipo.getId()) : null;
+                out.writeInt(puntos != null ? puntos : -1);
+                out.writeByte(equipo.getJugadores().size());
+                for (Jugador jugador : equipo.getJugadores()) {
+                    out.writeUTF(jugador.getNombre());
+                    out.writeInt(jugador.getPuntosEnvido());
+                    List<Carta> mano = jugador.getMano() != null ? jugador.getMano() : List.of();
+                    out.writeByte(mano.size());
+                    for (Carta carta : mano) {
+                        escribirCarta(out, carta);
+                    }
+                }
+            }
+
+            Map<Integer, UUID> ganadores = partida.getGanadoresPorMano() != null ? partida.getGanadoresPorMano() : Map.of();
+            out.writeByte(ganadores.size());
+            for (Map.Entry<Integer, UUID> entry : ganadores.entrySet()) {
+                out.writeInt(entry.getKey());
+                escribirUuid(out, entry.getValue());
+            }
+
+            List<Jugada> jugadas = partida.getCartasJugadas() != null ? partida.getCartasJugadas() : List.of();
+            out.writeShort(jugadas.size());
+            for (Jugada jugada : jugadas) {
+                escribirUuid(out, jugada.getId());
+                out.writeUTF(jugada.getJugador());
+                escribirCarta(out, jugada.getCarta());
+                out.writeInt(jugada.getNumeroVuelta());
+                out.writeInt(jugada.getNumeroRonda());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Vuelca el estado codificado sobre una partida con los mismos equipos y
+     * jugadores.
+     */
+    public static void restaurar(byte[] datos, Partida partida) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(datos))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Versión de snapshot no soportada: " + version);
+            }
+            partida.setManoActual(in.readInt());
+            partida.setRonda(in.readInt());
+            partida.setVuelta(in.readInt());
+            partida.setIndiceTurnoActual(in.readInt());
+            byte estado = in.readByte();
+            partida.setEstadoRonda(estado >= 0 ? EstadoRonda.values()[estado] : null);
+            restaurarBanderas(partida, in.readShort());
+            partida.setValorTruco(in.readInt());
+            partida.setValorEnvido(in.readInt());
+            partida.setPuntosEnJuego(in.readInt());
+
+            Map<UUID, Equipo> equipos = new HashMap<>();
+            Map<String, Jugador> jugadores = new HashMap<>();
+            for (Equipo equipo : partida.getEquipos()) {
+                equipos.put(equipo.getId(), equipo);
+                for (Jugador jugador : equipo.getJugadores()) {
+                    jugadores.put(jugador.getNombre(), jugador);
+                }
+            }
+            partida.setGanadorDeRonda(equipos.get(leerUuid(in)));
+
+            Map<UUID, Integer> puntosPorEquipo = new HashMap<>();
+            int cantidadEquipos = in.readByte();
+            for (int i = 0; i < cantidadEquipos; i++) {
+                Equipo equipo = requerido(equipos.get(leerUuid(in)), "equipo");
+                equipo.setPuntaje(in.readInt());
+                int puntos = in.readInt();
+                if (puntos >= 0) {
+                    puntosPorEquipo.put(equipo.getId(), puntos);
+                }
+                int cantidadJugadores = in.readByte();
+                for (int j = 0; j < cantidadJugadores; j++) {
+                    Jugador jugador = requerido(jugadores.get(in.readUTF()), "jugador");
+                    jugador.setPuntosEnvido(in.readInt());
+                    int cartas = in.readByte();
+                    List<Carta> mano = new ArrayList<>(cartas);
+                    for (int c = 0; c < cartas; c++) {
+                        mano.add(leerCarta(in));
+                    }
+                    jugador.setMano(mano);
+                }
+            }
+            partida.setPuntosPorEquipo(puntosPorEquipo);
+
+            Map<Integer, UUID> ganadores = new HashMap<>();
+            int cantidadGanadores = in.readByte();
+            for (int i = 0; i < cantidadGanadores; i++) {
+                ganadores.put(in.readInt(), leerUuid(in));
+            }
+            partida.setGanadoresPorMano(ganadores);
+
+            int cantidadJugadas = in.readShort();
+            List<Jugada> jugadas = new ArrayList<>(cantidadJugadas);
+            for (int i = 0; i < cantidadJugadas; i++) {
+                UUID id = leerUuid(in);
+                Jugada jugada = new Jugada(in.readUTF(), leerCarta(in), in.readInt(), in.readInt());
+                jugada.setId(id);
+                jugadas.add(jugada);
+            }
+            partida.setCartasJugadas(jugadas);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int banderas(Partida partida) {
+        boolean[] valores = {
+                partida.isTrucoCantado(), partida.isRetrucoCantado(), partida.isValeCuatroCantado(),
+                partida.isEnvidoCantado(), partida.isRealEnvidoCantado(), partida.isFaltaEnvidoCantado(),
+                partida.isFlorCantada(), partida.isContraflorCantada(), partida.isContraflorAlRestoCantada(),
+                partida.isAlMazo(), partida.isQuiso(), partida.isNoQuiso()
+        };
+        int banderas = 0;
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i]) {
+                banderas |= 1 << i;
+            }
+        }
+        return banderas;
+    }
+
+    private static void restaurarBanderas(Partida partida, int banderas) {
+        partida.setTrucoCantado((banderas & 1) != 0);
+        partida.setRetrucoCantado((banderas & 1 << 1) != 0);
+        partida.setValeCuatroCantado((banderas & 1 << 2) != 0);
+        partida.setEnvidoCantado((banderas & 1 << 3) != 0);
+        partida.setRealEnvidoCantado((banderas & 1 << 4) != 0);
+        partida.setFaltaEnvidoCantado((banderas & 1 << 5) != 0);
+        partida.setFlorCantada((banderas & 1 << 6) != 0);
+        partida.setContraflorCantada((banderas & 1 << 7) != 0);
+        partida.setContraflorAlRestoCantada((banderas & 1 << 8) != 0);
+        partida.setAlMazo((banderas & 1 << 9) != 0);
+        partida.setQuiso((banderas & 1 << 10) != 0);
+        partida.setNoQuiso((banderas & 1 << 11) != 0);
+    }
+
+    private static void escribirCarta(DataOutputStream out, Carta carta) throws IOException {
+        out.writeLong(carta.getId() != null ? carta.getId() : -1L);
+        out.writeByte(CodigoCarta.indice(carta));
+    }
+
+    private static Carta leerCarta(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        Carta carta = CodigoCarta.carta(in.readByte());
+        carta.setId(id >= 0 ? id : null);
+        return carta;
+    }
+
+    private static void escribirUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeBoolean(uuid != null);
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID leerUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static <T> T requerido(T valor, String que) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El snapshot no corresponde a la partida: falta un " + que);
+        }
+        return valor;
+    }
+}
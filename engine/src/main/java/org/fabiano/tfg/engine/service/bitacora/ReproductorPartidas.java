@@ -0,0 +1,95 @@
+package org.fabiano.tfg.engine.service.bitacora;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.event.ContextoReproduccion;
+import org.fabiano.tfg.engine.event.PartidaCargadaEvent;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.EventoPartida;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.SnapshotPartida;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.service.PartidaService;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reconstruye las partidas que se cargan de la base: aplica el último
+ * snapshot y vuelve a ejecutar con el motor los eventos posteriores. La fila
+ * de la partida sólo se escribe en los finales de mano, así que lo jugado en
+ * la mano en curso sale de acá.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReproductorPartidas {
+
+    private final BitacoraPartidaService bitacora;
+    private final PartidaService partidaService;
+
+    @EventListener
+    public void onPartidaCargada(PartidaCargadaEvent event) {
+        Partida partida = event.partida();
+        Optional<SnapshotPartida> snapshot = bitacora.ultimoSnapshot(partida.getId());
+        if (snapshot.isEmpty()) {
+            // Partida anterior a la bitácora: se usa tal como está en la base y
+            // desde acá sigue como las demás, con sus acciones sólo en eventos
+            bitacora.tomarSnapshot(partida);
+            return;
+        }
+        List<EventoPartida> cola = bitacora.eventosDesde(partida.getId(), snapshot.get().getSecuencia());
+        reproducir(partida, snapshot.get().getDatos(), cola);
+        log.info("Partida {} reconstruida desde la secuencia {} con {} eventos",
+                partida.getId(), snapshot.get().getSecuencia(), cola.size());
+    }
+
+    /**
+     * Restaura el snapshot y aplica los eventos en orden, sin volver a
+     * registrarlos.
+     */
+    public void reproducir(Partida partida, byte[] snapshot, List<EventoPartida> eventos) {
+        PartidaCodec.restaurar(snapshot, partida);
+        partida.setOrdenDeTurno(null);
+        partidaService.reconstruirOrdenDeTurno(partida);
+        ContextoReproduccion.ejecutar(() -> {
+            for (EventoPartida evento : eventos) {
+                aplicar(partida, evento);
+            }
+        });
+    }
+
+    private void aplicar(Partida partida, EventoPartida evento) {
+        switch (evento.getTipo()) {
+            case CARTA_JUGADA -> {
+                Jugador jugador = jugador(partida, evento.getJugador());
+                Carta carta = jugador.getMano().stream()
+                        .filter(c -> CodigoCarta.indice(c) == evento.getDato())
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalStateException(
+                                "La bitácora no coincide: " + evento.getJugador() + " no tiene la carta " + evento.getDato()));
+                partidaService.registrarJugada(partida, jugador, carta);
+            }
+            case CANTO -> partidaService.aplicarCanto(partida, jugador(partida, evento.getJugador()), evento.getCanto());
+            // El reparto es consecuencia de las acciones anteriores y usa la semilla de la partida
+            case MANO_REPARTIDA -> {
+                if (partida.getManoActual() != evento.getNumeroMano()) {
+                    throw new IllegalStateException("La bitácora no coincide en la mano " + evento.getNumeroMano());
+                }
+            }
+        }
+    }
+
+    private static Jugador jugador(Partida partida, String nombre) {
+        return partida.getEquipos().stream()
+                .map(Equipo::getJugadores)
+                .flatMap(List::stream)
+                .filter(j -> j.getNombre().equals(nombre))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("La bitácora menciona a un jugador desconocido: " + nombre));
+    }
+}
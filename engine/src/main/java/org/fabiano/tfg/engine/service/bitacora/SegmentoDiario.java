@@ -0,0 +1,213 @@
+package org.fabiano.tfg.engine.service.bitacora;
+
+import org.fabiano.tfg.engine.model.EventoPartida;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Un archivo del diario de eventos, mapeado en memoria. Los registros se
+ * agregan al final y nunca se modifican; el largo se escribe último, así que
+ * un registro a medio escribir se ve como fin del segmento.
+ *
+ * <p>Formato (little-endian): cabecera de {@value #TAMANO_CABECERA} bytes
+ * (magia, versión) seguida de registros de largo variable:</p>
+ * <pre>
+ *  0  int    largo total del registro (0 = fin del segmento)
+ *  4  int    CRC32 de los bytes 8..largo
+ *  8  long   partida (bits altos)
+ * 16  long   partida (bits bajos)
+ * 24  long   secuencia ({@value #BORRADA} = partida borrada)
+ * 32  long   instante (epoch ms)
+ * 40  long   semilla
+ * 48  int    número de mano
+ * 52  int    dato
+ * 56  byte   tipo (ordinal de {@link EventoPartida.Tipo})
+ * 57  byte   1 si hay semilla
+ * 58  short  largo del jugador en UTF-8 (-1 = sin jugador)
+ * 60  ...    jugador
+ * </pre>
+ */
+class SegmentoDiario {
+
+    static final int MAGIA = 0x44494152; // "DIAR"
+    static final short VERSION = 1;
+    static final int TAMANO_CABECERA = 16;
+    static final String EXTENSION = ".jrn";
+    static final long BORRADA = -1L;
+
+    private static final int TAMANO_FIJO = 60;
+
+    final int numero;
+    final Path archivo;
+    private final MappedByteBuffer buffer;
+    private int escrito = TAMANO_CABECERA;
+    // Bytes de registros que el índice todavía referencia
+    int vivos;
+
+    private SegmentoDiario(int numero, Path archivo, MappedByteBuffer buffer) {
+        this.numero = numero;
+        this.archivo = archivo;
+        this.buffer = buffer;
+    }
+
+    static SegmentoDiario crear(Path directorio, int numero, int tamano) throws IOException {
+        Path archivo = directorio.resolve(String.format("diario-%05d%s", numero, EXTENSION));
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamano);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIA);
+            buffer.putShort(4, VERSION);
+            buffer.force();
+            return new SegmentoDiario(numero, archivo, buffer);
+        }
+    }
+
+    static SegmentoDiario abrir(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < TAMANO_CABECERA || buffer.getInt(0) != MAGIA) {
+                throw new IOException("No es un segmento del diario: " + archivo);
+            }
+            if (buffer.getShort(4) != VERSION) {
+                throw new IOException("Versión de diario no soportada: " + archivo);
+            }
+            return new SegmentoDiario(numero(archivo), archivo, buffer);
+        }
+    }
+
+    /**
+     * Segmentos del directorio, del más viejo al más nuevo.
+     */
+    static List<Path> listar(Path directorio) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                    .filter(p -> p.getFileName().toString().endsWith(EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int numero(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        return Integer.parseInt(nombre.substring("diario-".length(), nombre.length() - EXTENSION.length()));
+    }
+
+    static int tamano(EventoPartida evento) {
+        return TAMANO_FIJO + (evento.getJugador() == null ? 0 : evento.getJugador().getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    boolean entra(int largo) {
+        return escrito + largo <= buffer.capacity();
+    }
+
+    /**
+     * Escribe el registro y devuelve su posición.
+     */
+    int agregar(EventoPartida evento) {
+        byte[] jugador = evento.getJugador() == null ? null : evento.getJugador().getBytes(StandardCharsets.UTF_8);
+        int largo = TAMANO_FIJO + (jugador == null ? 0 : jugador.length);
+        int pos = escrito;
+        buffer.putLong(pos + 8, evento.getPartidaId().getMostSignificantBits());
+        buffer.putLong(pos + 16, evento.getPartidaId().getLeastSignificantBits());
+        buffer.putLong(pos + 24, evento.getSecuencia());
+        buffer.putLong(pos + 32, evento.getInstante() == null ? 0L : evento.getInstante().toEpochMilli());
+        buffer.putLong(pos + 40, evento.getSemilla() == null ? 0L : evento.getSemilla());
+        buffer.putInt(pos + 48, evento.getNumeroMano());
+        buffer.putInt(pos + 52, evento.getDato());
+        buffer.put(pos + 56, evento.getTipo() == null ? -1 : (byte) evento.getTipo().ordinal());
+        buffer.put(pos + 57, (byte) (evento.getSemilla() == null ? 0 : 1));
+        buffer.putShort(pos + 58, (short) (jugador == null ? -1 : jugador.length));
+        if (jugador != null) {
+            buffer.put(pos + TAMANO_FIJO, jugador);
+        }
+        buffer.putInt(pos + 4, crc(pos, largo));
+        buffer.putInt(pos, largo);
+        escrito += largo;
+        return pos;
+    }
+
+    /**
+     * Largo del registro válido en {@code pos}, o 0 si ahí termina el
+     * segmento (sin escribir, cortado o corrupto).
+     */
+    int largoValido(int pos) {
+        if (pos + TAMANO_FIJO > buffer.capacity()) {
+            return 0;
+        }
+        int largo = buffer.getInt(pos);
+        if (largo < TAMANO_FIJO || pos + largo > buffer.capacity()) {
+            return 0;
+        }
+        return buffer.getInt(pos + 4) == crc(pos, largo) ? largo : 0;
+    }
+
+    int largo(int pos) {
+        return buffer.getInt(pos);
+    }
+
+    UUID partida(int pos) {
+        return new UUID(buffer.getLong(pos + 8), buffer.getLong(pos + 16));
+    }
+
+    long secuencia(int pos) {
+        return buffer.getLong(pos + 24);
+    }
+
+    long instante(int pos) {
+        return buffer.getLong(pos + 32);
+    }
+
+    EventoPartida leer(int pos) {
+        boolean conSemilla = buffer.get(pos + 57) != 0;
+        short largoJugador = buffer.getShort(pos + 58);
+        String jugador = null;
+        if (largoJugador >= 0) {
+            byte[] bytes = new byte[largoJugador];
+            buffer.get(pos + TAMANO_FIJO, bytes);
+            jugador = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new EventoPartida(null, partida(pos), secuencia(pos),
+                EventoPartida.Tipo.values()[buffer.get(pos + 56)], buffer.getInt(pos + 48), jugador,
+                buffer.getInt(pos + 52), conSemilla ? buffer.getLong(pos + 40) : null,
+                Instant.ofEpochMilli(instante(pos)));
+    }
+
+    /**
+     * Registro que marca la partida como borrada; anula los anteriores.
+     */
+    static EventoPartida borrado(UUID partidaId) {
+        return new EventoPartida(null, partidaId, BORRADA, null, 0, null, 0, null, Instant.now());
+    }
+
+    int escrito() {
+        return escrito;
+    }
+
+    void posicionar(int escrito) {
+        this.escrito = escrito;
+    }
+
+    void forzar() {
+        buffer.force();
+    }
+
+    private int crc(int pos, int largo) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(pos + 8, largo - 8));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,177 @@
+package org.fabiano.tfg.engine.service.clasificacion;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Treap con el tamaño de cada subárbol, para saber la posición de un elemento
+ * y recorrer un tramo de la tabla en O(log n) sin ordenar nada al consultar.
+ * Los elementos deben ser distintos según el comparador. No es seguro para
+ * varios hilos: lo protege quien lo usa.
+ */
+class ArbolPosiciones<T> {
+
+    private final Comparator<? super T> orden;
+    private Nodo<T> raiz;
+
+    ArbolPosiciones(Comparator<? super T> orden) {
+        this.orden = orden;
+    }
+
+    int tamano() {
+        return tamano(raiz);
+    }
+
+    void insertar(T valor) {
+        Partes<T> partes = dividir(raiz, valor);
+        raiz = unir(unir(partes.menores(), new Nodo<>(valor)), partes.resto());
+    }
+
+    /**
+     * Quita el elemento igual a {@code valor} según el comparador, si está.
+     */
+    void quitar(T valor) {
+        raiz = quitar(raiz, valor);
+    }
+
+    /**
+     * Posición (desde 0) de {@code valor}, o -1 si no está.
+     */
+    int posicion(T valor) {
+        int antes = 0;
+        Nodo<T> nodo = raiz;
+        while (nodo != null) {
+            int c = orden.compare(valor, nodo.valor);
+            if (c == 0) {
+                return antes + tamano(nodo.izquierdo);
+            }
+            if (c < 0) {
+                nodo = nodo.izquierdo;
+            } else {
+                antes += tamano(nodo.izquierdo) + 1;
+                nodo = nodo.derecho;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Cuántos elementos del principio cumplen {@code condicion}, que debe ser
+     * verdadera para un prefijo del orden y falsa para el resto.
+     */
+    int contarMientras(Predicate<? super T> condicion) {
+        int cantidad = 0;
+        Nodo<T> nodo = raiz;
+        while (nodo != null) {
+            if (condicion.test(nodo.valor)) {
+                cantidad += tamano(nodo.izquierdo) + 1;
+                nodo = nodo.derecho;
+            } else {
+                nodo = nodo.izquierdo;
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Hasta {@code cantidad} elementos en orden a partir de la posición
+     * {@code desde}: O(log n + cantidad).
+     */
+    List<T> rango(int desde, int cantidad) {
+        List<T> resultado = new ArrayList<>(Math.max(0, Math.min(cantidad, tamano() - desde)));
+        recorrer(raiz, desde, cantidad, resultado);
+        return resultado;
+    }
+
+    private void recorrer(Nodo<T> nodo, int desde, int cantidad, List<T> resultado) {
+        if (nodo == null || resultado.size() == cantidad) {
+            return;
+        }
+        int izquierda = tamano(nodo.izquierdo);
+        if (desde < izquierda) {
+            recorrer(nodo.izquierdo, desde, cantidad, resultado);
+        }
+        if (desde <= izquierda && resultado.size() < cantidad) {
+            resultado.add(nodo.valor);
+        }
+        recorrer(nodo.derecho, Math.max(0, desde - izquierda - 1), cantidad, resultado);
+    }
+
+    private Nodo<T> quitar(Nodo<T> nodo, T valor) {
+        if (nodo == null) {
+            return null;
+        }
+        int c = orden.compare(valor, nodo.valor);
+        if (c == 0) {
+            return unir(nodo.izquierdo, nodo.derecho);
+        }
+        if (c < 0) {
+            nodo.izquierdo = quitar(nodo.izquierdo, valor);
+        } else {
+            nodo.derecho = quitar(nodo.derecho, valor);
+        }
+        nodo.actualizar();
+        return nodo;
+    }
+
+    // Separa en los elementos menores que valor y el resto
+    private Partes<T> dividir(Nodo<T> nodo, T valor) {
+        if (nodo == null) {
+            return new Partes<>(null, null);
+        }
+        if (orden.compare(nodo.valor, valor) < 0) {
+            Partes<T> partes = dividir(nodo.derecho, valor);
+            nodo.derecho = partes.menores();
+            nodo.actualizar();
+            return new Partes<>(nodo, partes.resto());
+        }
+        Partes<T> partes = dividir(nodo.izquierdo, valor);
+        nodo.izquierdo = partes.resto();
+        nodo.actualizar();
+        return new Partes<>(partes.menores(), nodo);
+    }
+
+    // Todos los elementos de menores van antes que los de mayores
+    private Nodo<T> unir(Nodo<T> menores, Nodo<T> mayores) {
+        if (menores == null) {
+            return mayores;
+        }
+        if (mayores == null) {
+            return menores;
+        }
+        if (menores.prioridad > mayores.prioridad) {
+            menores.derecho = unir(menores.derecho, mayores);
+            menores.actualizar();
+            return menores;
+        }
+        mayores.izquierdo = unir(menores, mayores.izquierdo);
+        mayores.actualizar();
+        return mayores;
+    }
+
+    private static int tamano(Nodo<?> nodo) {
+        return nodo == null ? 0 : nodo.tamano;
+    }
+
+    private static final class Nodo<T> {
+        final T valor;
+        final int prioridad = ThreadLocalRandom.current().nextInt();
+        int tamano = 1;
+        Nodo<T> izquierdo;
+        Nodo<T> derecho;
+
+        Nodo(T valor) {
+            this.valor = valor;
+        }
+
+        void actualizar() {
+            tamano = 1 + tamano(izquierdo) + tamano(derecho);
+        }
+    }
+
+    private record Partes<T>(Nodo<T> menores, Nodo<T> resto) {
+    }
+}
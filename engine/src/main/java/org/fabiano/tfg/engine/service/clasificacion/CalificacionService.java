@@ -0,0 +1,515 @@
+package org.fabiano.tfg.engine.service.clasificacion;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.dto.PosicionCalificacion;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent.ResultadoEquipo;
+import org.fabiano.tfg.engine.model.Calificacion;
+import org.fabiano.tfg.engine.model.FilaClasificacion;
+import org.fabiano.tfg.engine.model.FilaClasificacion.Tipo;
+import org.fabiano.tfg.engine.model.ResultadoPartida;
+import org.fabiano.tfg.engine.repository.CalificacionRepository;
+import org.fabiano.tfg.engine.repository.ResultadoPartidaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Ratings Glicko de jugadores y equipos. Cada partida terminada se aplica al
+ * momento o, con {@code truco.calificacion.por-periodo}, se acumula hasta que
+ * cierra el período. Los ratings viven en un índice ordenado en memoria para
+ * responder posiciones y rangos en O(log n); la base guarda su copia y el
+ * historial de resultados del que se pueden recalcular desde cero.
+ * <p>
+ * Un jugador se mide contra el promedio de los jugadores del equipo rival.
+ */
+@Slf4j
+@Service
+public class CalificacionService {
+
+    private static final Comparator<Entrada> ORDEN = Comparator
+            .comparingDouble(Entrada::rating).reversed()
+            .thenComparing(Entrada::nombre);
+
+    // Por debajo de esto repartir un período entre hilos cuesta más que calcularlo
+    private static final int MINIMO_PARALELO = 64;
+
+    private final CalificacionRepository calificacionRepository;
+    private final ResultadoPartidaRepository resultadoPartidaRepository;
+    private final boolean porPeriodo;
+    private final long periodoMs;
+    private final int tamanoLote;
+
+    // Serializa las escrituras al índice: partidas, cierres de período y el recálculo
+    private final Object escritura = new Object();
+    private final Object recalculo = new Object();
+    private final List<PartidaFinalizadaEvent> periodo = new ArrayList<>();
+    private final ConcurrentLinkedQueue<ResultadoPartida> resultadosPendientes = new ConcurrentLinkedQueue<>();
+    private List<PartidaFinalizadaEvent> duranteRecalculo;
+    // Lo aplicado antes de poder cargar los ratings: se repite sobre lo cargado
+    private final List<List<PartidaFinalizadaEvent>> sinCargar = new ArrayList<>();
+    private volatile Map<Tipo, Indice> indices = indicesVacios();
+    private volatile boolean cargada;
+
+    public CalificacionService(CalificacionRepository calificacionRepository,
+                               ResultadoPartidaRepository resultadoPartidaRepository,
+                               @Value("${truco.calificacion.por-periodo:false}") boolean porPeriodo,
+                               @Value("${truco.calificacion.periodo-ms:3600000}") long periodoMs,
+                               @Value("${truco.calificacion.tamano-lote:500}") int tamanoLote) {
+        this.calificacionRepository = calificacionRepository;
+        this.resultadoPartidaRepository = resultadoPartidaRepository;
+        this.porPeriodo = porPeriodo;
+        this.periodoMs = periodoMs;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Carga los ratings guardados, que reemplazan a los de memoria. Si la carga
+     * falla no se persiste nada hasta que una recarga funcione; las partidas
+     * aplicadas mientras tanto se vuelven a aplicar sobre lo cargado.
+     */
+    @PostConstruct
+    public void cargar() {
+        try {
+            List<Calificacion> guardadas = calificacionRepository.findAll();
+            synchronized (escritura) {
+                Map<Tipo, Indice> cargados = indicesVacios();
+                for (Calificacion c : guardadas) {
+                    cargados.get(c.getTipo()).cargar(
+                            new Entrada(c.getNombre(), c.getRating(), c.getDesviacion(), c.getPartidas()));
+                }
+                indices = cargados;
+                cargada = true;
+                sinCargar.forEach(this::aplicar);
+                sinCargar.clear();
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron cargar los ratings: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onPartidaFinalizada(PartidaFinalizadaEvent event) {
+        resultadosPendientes.add(ResultadoCodec.codificar(event));
+        synchronized (escritura) {
+            if (porPeriodo) {
+                periodo.add(event);
+                return;
+            }
+            if (duranteRecalculo != null) {
+                duranteRecalculo.add(event);
+            }
+            aplicar(List.of(event));
+        }
+    }
+
+    /**
+     * Aplica juntas las partidas acumuladas desde el último cierre.
+     */
+    @Scheduled(fixedDelayString = "${truco.calificacion.periodo-ms:3600000}")
+    public void cerrarPeriodo() {
+        synchronized (escritura) {
+            if (periodo.isEmpty()) {
+                return;
+            }
+            aplicar(new ArrayList<>(periodo));
+            periodo.clear();
+        }
+    }
+
+    public List<PosicionCalificacion> top(Tipo tipo, int desde, int cantidad) {
+        return indices.get(tipo).rango(Math.max(0, desde), Math.max(0, cantidad));
+    }
+
+    public Optional<PosicionCalificacion> buscar(Tipo tipo, String nombre) {
+        return indices.get(tipo).buscar(nombre);
+    }
+
+    /**
+     * Hasta {@code limite} ratings entre {@code minimo} y {@code maximo}
+     * inclusive, de mayor a menor.
+     */
+    public List<PosicionCalificacion> entre(Tipo tipo, double minimo, double maximo, int limite) {
+        return indices.get(tipo).entre(minimo, maximo, Math.max(0, limite));
+    }
+
+    /**
+     * Reconstruye todos los ratings desde el historial de resultados, por
+     * ejemplo después de cambiar el algoritmo. Los jugadores y los equipos se
+     * recalculan en paralelo, y dentro de cada período los nombres también;
+     * sin períodos, las partidas seguidas sin nombres en común se agrupan para
+     * calcularse juntas, que da el mismo resultado que aplicarlas de a una.
+     *
+     * @return cuántas partidas se leyeron del historial
+     */
+    public int recalcular() {
+        synchronized (recalculo) {
+            // Antes de vaciar la cola: una partida que llegue en el medio, o
+            // entra en el historial, o queda anotada para aplicarla después
+            synchronized (escritura) {
+                duranteRecalculo = porPeriodo ? null : new ArrayList<>();
+            }
+            try {
+                // Que el historial incluya todo lo que ya se aplicó en memoria
+                guardarResultados();
+                List<PartidaFinalizadaEvent> historial = resultadoPartidaRepository
+                        .findAllByOrderByFinalizadaEnAscPartidaIdAsc().stream()
+                        .map(ResultadoCodec::restaurar)
+                        .toList();
+                Map<Tipo, Indice> nuevos = Arrays.stream(Tipo.values()).parallel()
+                        .collect(Collectors.toMap(Function.identity(), tipo -> reconstruir(tipo, historial),
+                                (a, b) -> a, () -> new EnumMap<>(Tipo.class)));
+
+                Set<UUID> leidas = historial.stream().map(PartidaFinalizadaEvent::partidaId).collect(Collectors.toSet());
+                synchronized (escritura) {
+                    indices = nuevos;
+                    // El historial ya incluye lo aplicado sin cargar
+                    cargada = true;
+                    sinCargar.clear();
+                    if (porPeriodo) {
+                        periodo.removeIf(e -> leidas.contains(e.partidaId()));
+                    } else {
+                        for (PartidaFinalizadaEvent e : duranteRecalculo) {
+                            if (!leidas.contains(e.partidaId())) {
+                                aplicar(List.of(e));
+                            }
+                        }
+                    }
+                }
+                log.info("Ratings recalculados desde {} partidas", historial.size());
+                return historial.size();
+            } finally {
+                synchronized (escritura) {
+                    duranteRecalculo = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Guarda el historial nuevo y, por lotes, los ratings que cambiaron.
+     */
+    @Scheduled(fixedDelayString = "${truco.calificacion.persistir-cada-ms:30000}")
+    public void persistir() {
+        guardarResultados();
+        if (!cargada) {
+            cargar();
+            if (!cargada) {
+                return;
+            }
+        }
+        Instant ahora = Instant.now();
+        for (Map.Entry<Tipo, Indice> entrada : indices.entrySet()) {
+            List<Calificacion> pendientes = entrada.getValue().tomarPendientes(entrada.getKey(), ahora);
+            for (int i = 0; i < pendientes.size(); i += tamanoLote) {
+                List<Calificacion> lote = pendientes.subList(i, Math.min(i + tamanoLote, pendientes.size()));
+                try {
+                    calificacionRepository.saveAll(lote);
+                } catch (RuntimeException e) {
+                    log.warn("No se pudieron persistir {} ratings, se reintenta en el próximo ciclo: {}",
+                            lote.size(), e.getMessage());
+                    lote.forEach(c -> entrada.getValue().marcarPendiente(c.getNombre()));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        cerrarPeriodo();
+        persistir();
+    }
+
+    private void guardarResultados() {
+        List<ResultadoPartida> lote = new ArrayList<>(tamanoLote);
+        ResultadoPartida resultado;
+        while ((resultado = resultadosPendientes.poll()) != null) {
+            lote.add(resultado);
+            if (lote.size() == tamanoLote) {
+                guardarLoteResultados(lote);
+                lote = new ArrayList<>(tamanoLote);
+            }
+        }
+        if (!lote.isEmpty()) {
+            guardarLoteResultados(lote);
+        }
+    }
+
+    private void guardarLoteResultados(List<ResultadoPartida> lote) {
+        try {
+            resultadoPartidaRepository.saveAll(lote);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron persistir {} resultados, se reintenta en el próximo ciclo: {}",
+                    lote.size(), e.getMessage());
+            resultadosPendientes.addAll(lote);
+        }
+    }
+
+    private void aplicar(List<PartidaFinalizadaEvent> partidas) {
+        if (!cargada) {
+            sinCargar.add(partidas);
+        }
+        for (Map.Entry<Tipo, Indice> entrada : indices.entrySet()) {
+            Indice indice = entrada.getValue();
+            indice.reemplazar(calcular(entrada.getKey(), partidas, indice::obtener));
+        }
+    }
+
+    private Indice reconstruir(Tipo tipo, List<PartidaFinalizadaEvent> historial) {
+        Map<String, Entrada> estado = new HashMap<>();
+        for (List<PartidaFinalizadaEvent> grupo : agrupar(tipo, historial)) {
+            for (Entrada entrada : calcular(tipo, grupo, estado::get)) {
+                estado.put(entrada.nombre(), entrada);
+            }
+        }
+        Indice indice = new Indice();
+        indice.reemplazar(estado.values());
+        return indice;
+    }
+
+    private List<List<PartidaFinalizadaEvent>> agrupar(Tipo tipo, List<PartidaFinalizadaEvent> historial) {
+        if (porPeriodo) {
+            Map<Long, List<PartidaFinalizadaEvent>> porVentana = new TreeMap<>();
+            for (PartidaFinalizadaEvent e : historial) {
+                long ventana = e.finalizadaEn() != null ? e.finalizadaEn().toEpochMilli() / periodoMs : 0;
+                porVentana.computeIfAbsent(ventana, v -> new ArrayList<>()).add(e);
+            }
+            return new ArrayList<>(porVentana.values());
+        }
+        List<List<PartidaFinalizadaEvent>> grupos = new ArrayList<>();
+        List<PartidaFinalizadaEvent> grupo = new ArrayList<>();
+        Set<String> nombres = new HashSet<>();
+        for (PartidaFinalizadaEvent e : historial) {
+            List<String> participantes = e.equipos().stream().flatMap(equipo -> miembros(tipo, equipo)).toList();
+            if (participantes.stream().anyMatch(nombres::contains)) {
+                grupos.add(grupo);
+                grupo = new ArrayList<>();
+                nombres.clear();
+            }
+            grupo.add(e);
+            nombres.addAll(participantes);
+        }
+        if (!grupo.isEmpty()) {
+            grupos.add(grupo);
+        }
+        return grupos;
+    }
+
+    /**
+     * Ratings nuevos de todos los que jugaron en {@code partidas}, tomando como
+     * punto de partida los de {@code actual} antes del período.
+     */
+    private static List<Entrada> calcular(Tipo tipo, List<PartidaFinalizadaEvent> partidas,
+                                          Function<String, Entrada> actual) {
+        Map<String, Acumulado> porNombre = new LinkedHashMap<>();
+        for (PartidaFinalizadaEvent partida : partidas) {
+            for (ResultadoEquipo equipo : partida.equipos()) {
+                List<String> propios = miembros(tipo, equipo).toList();
+                for (String nombre : propios) {
+                    porNombre.computeIfAbsent(nombre, n -> new Acumulado()).partidas++;
+                }
+                for (ResultadoEquipo rival : partida.equipos()) {
+                    if (rival == equipo) {
+                        continue;
+                    }
+                    Entrada promedio = promedio(miembros(tipo, rival).map(n -> actualOInicial(actual, n)).toList());
+                    double puntaje = equipo.ganador() == rival.ganador() ? 0.5 : equipo.ganador() ? 1 : 0;
+                    Glicko.Resultado resultado = new Glicko.Resultado(promedio.rating(), promedio.desviacion(), puntaje);
+                    for (String nombre : propios) {
+                        porNombre.get(nombre).resultados.add(resultado);
+                    }
+                }
+            }
+        }
+        Stream<Map.Entry<String, Acumulado>> nombres = porNombre.entrySet().stream();
+        if (porNombre.size() >= MINIMO_PARALELO) {
+            nombres = nombres.parallel();
+        }
+        return nombres.map(e -> {
+            Entrada previa = actualOInicial(actual, e.getKey());
+            Glicko.Estado estado = Glicko.actualizar(previa.rating(), previa.desviacion(), e.getValue().resultados);
+            return new Entrada(e.getKey(), estado.rating(), estado.desviacion(),
+                    previa.partidas() + e.getValue().partidas);
+        }).toList();
+    }
+
+    private static Stream<String> miembros(Tipo tipo, ResultadoEquipo equipo) {
+        return tipo == Tipo.EQUIPO ? Stream.of(equipo.identidad()) : equipo.jugadores().stream();
+    }
+
+    private static Entrada actualOInicial(Function<String, Entrada> actual, String nombre) {
+        Entrada entrada = actual.apply(nombre);
+        return entrada != null ? entrada : new Entrada(nombre, Glicko.RATING_INICIAL, Glicko.DESVIACION_INICIAL, 0);
+    }
+
+    // Rating medio y desviación cuadrática media de un equipo
+    private static Entrada promedio(List<Entrada> entradas) {
+        double rating = 0;
+        double varianza = 0;
+        for (Entrada e : entradas) {
+            rating += e.rating();
+            varianza += e.desviacion() * e.desviacion();
+        }
+        int n = Math.max(1, entradas.size());
+        return new Entrada(null, rating / n, Math.sqrt(varianza / n), 0);
+    }
+
+    private static Map<Tipo, Indice> indicesVacios() {
+        Map<Tipo, Indice> vacios = new EnumMap<>(Tipo.class);
+        for (Tipo tipo : Tipo.values()) {
+            vacios.put(tipo, new Indice());
+        }
+        return vacios;
+    }
+
+    private record Entrada(String nombre, double rating, double desviacion, int partidas) {
+    }
+
+    private static final class Acumulado {
+        final List<Glicko.Resultado> resultados = new ArrayList<>();
+        int partidas;
+    }
+
+    /**
+     * Ratings por nombre y el árbol ordenado por rating que los indexa.
+     */
+    private static final class Indice {
+        private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+        private final Map<String, Entrada> porNombre = new HashMap<>();
+        private final ArbolPosiciones<Entrada> arbol = new ArbolPosiciones<>(ORDEN);
+        private final Set<String> pendientes = new LinkedHashSet<>();
+
+        Entrada obtener(String nombre) {
+            cerrojo.readLock().lock();
+            try {
+                return porNombre.get(nombre);
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        }
+
+        void reemplazar(Collection<Entrada> nuevas) {
+            cerrojo.writeLock().lock();
+            try {
+                for (Entrada nueva : nuevas) {
+                    Entrada anterior = porNombre.put(nueva.nombre(), nueva);
+                    if (anterior != null) {
+                        arbol.quitar(anterior);
+                    }
+                    arbol.insertar(nueva);
+                    pendientes.add(nueva.nombre());
+                }
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+
+        // Un valor que ya está en la base: no queda pendiente de guardar
+        void cargar(Entrada entrada) {
+            cerrojo.writeLock().lock();
+            try {
+                Entrada anterior = porNombre.put(entrada.nombre(), entrada);
+                if (anterior != null) {
+                    arbol.quitar(anterior);
+                }
+                arbol.insertar(entrada);
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+
+        List<PosicionCalificacion> rango(int desde, int cantidad) {
+            cerrojo.readLock().lock();
+            try {
+                return posiciones(desde, arbol.rango(desde, cantidad));
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        }
+
+        List<PosicionCalificacion> entre(double minimo, double maximo, int limite) {
+            cerrojo.readLock().lock();
+            try {
+                int desde = arbol.contarMientras(e -> e.rating() > maximo);
+                int hasta = arbol.contarMientras(e -> e.rating() >= minimo);
+                return posiciones(desde, arbol.rango(desde, Math.min(limite, hasta - desde)));
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        }
+
+        Optional<PosicionCalificacion> buscar(String nombre) {
+            cerrojo.readLock().lock();
+            try {
+                Entrada entrada = porNombre.get(nombre);
+                return entrada == null
+                        ? Optional.empty()
+                        : Optional.of(posicion(arbol.posicion(entrada), entrada));
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        }
+
+        List<Calificacion> tomarPendientes(Tipo tipo, Instant ahora) {
+            cerrojo.writeLock().lock();
+            try {
+                List<Calificacion> filas = new ArrayList<>(pendientes.size());
+                for (String nombre : pendientes) {
+                    Entrada e = porNombre.get(nombre);
+                    filas.add(new Calificacion(FilaClasificacion.clave(tipo, nombre), tipo, nombre,
+                            e.rating(), e.desviacion(), e.partidas(), ahora));
+                }
+                pendientes.clear();
+                return filas;
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+
+        void marcarPendiente(String nombre) {
+            cerrojo.writeLock().lock();
+            try {
+                pendientes.add(nombre);
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+
+        private static List<PosicionCalificacion> posiciones(int desde, List<Entrada> tramo) {
+            List<PosicionCalificacion> resultado = new ArrayList<>(tramo.size());
+            for (int i = 0; i < tramo.size(); i++) {
+                resultado.add(posicion(desde + i, tramo.get(i)));
+            }
+            return resultado;
+        }
+
+        private static PosicionCalificacion posicion(int indice, Entrada e) {
+            return new PosicionCalificacion(indice + 1, e.nombre(), e.rating(), e.desviacion(), e.partidas());
+        }
+    }
+}
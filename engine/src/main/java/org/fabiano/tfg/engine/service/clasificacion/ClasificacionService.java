@@ -0,0 +1,234 @@
+package org.fabiano.tfg.engine.service.clasificacion;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.dto.PosicionClasificacion;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.model.FilaClasificacion;
+import org.fabiano.tfg.engine.model.FilaClasificacion.Tipo;
+import org.fabiano.tfg.engine.repository.FilaClasificacionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Tabla de posiciones de jugadores y equipos. Se arma en memoria con cada
+ * partida terminada y se consulta sin tocar las tablas de juego; la tabla
+ * {@link FilaClasificacion} es sólo su copia, guardada por lotes.
+ */
+@Slf4j
+@Service
+public class ClasificacionService {
+
+    // Más partidas ganadas, después más puntos, después menos partidas jugadas
+    private static final Comparator<Totales> ORDEN = Comparator
+            .comparingInt(Totales::ganadas).reversed()
+            .thenComparing(Comparator.comparingLong(Totales::puntos).reversed())
+            .thenComparingInt(Totales::partidasJugadas)
+            .thenComparing(Totales::nombre);
+
+    private final FilaClasificacionRepository filaClasificacionRepository;
+    private final int tamanoLote;
+    private final Map<Tipo, Tabla> tablas = new EnumMap<>(Tipo.class);
+    private volatile boolean cargada;
+
+    public ClasificacionService(FilaClasificacionRepository filaClasificacionRepository,
+                                @Value("${truco.clasificacion.tamano-lote:500}") int tamanoLote) {
+        this.filaClasificacionRepository = filaClasificacionRepository;
+        this.tamanoLote = tamanoLote;
+        for (Tipo tipo : Tipo.values()) {
+            tablas.put(tipo, new Tabla());
+        }
+    }
+
+    /**
+     * Suma a la memoria lo que quedó guardado de ejecuciones anteriores. Si la
+     * base no responde, se reintenta antes de la próxima escritura para no
+     * pisar los totales persistidos con los parciales.
+     */
+    @PostConstruct
+    public void cargar() {
+        try {
+            for (FilaClasificacion fila : filaClasificacionRepository.findAll()) {
+                tablas.get(fila.getTipo()).sumar(fila.getNombre(),
+                        fila.getPartidasJugadas(), fila.getGanadas(), fila.getPuntos(), false);
+            }
+            cargada = true;
+        } catch (RuntimeException e) {
+            log.warn("No se pudo cargar la clasificación: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onPartidaFinalizada(PartidaFinalizadaEvent event) {
+        for (PartidaFinalizadaEvent.ResultadoEquipo equipo : event.equipos()) {
+            int ganada = equipo.ganador() ? 1 : 0;
+            tablas.get(Tipo.EQUIPO).sumar(equipo.identidad(), 1, ganada, equipo.puntaje(), true);
+            for (String jugador : equipo.jugadores()) {
+                tablas.get(Tipo.JUGADOR).sumar(jugador, 1, ganada, equipo.puntaje(), true);
+            }
+        }
+    }
+
+    /**
+     * Hasta {@code cantidad} posiciones a partir de la posición {@code desde}
+     * (desde 0).
+     */
+    public List<PosicionClasificacion> top(Tipo tipo, int desde, int cantidad) {
+        return tablas.get(tipo).rango(Math.max(0, desde), Math.max(0, cantidad));
+    }
+
+    public Optional<PosicionClasificacion> buscar(Tipo tipo, String nombre) {
+        return tablas.get(tipo).buscar(nombre);
+    }
+
+    public int tamano(Tipo tipo) {
+        return tablas.get(tipo).tamano();
+    }
+
+    /**
+     * Guarda por lotes las filas que cambiaron desde la última vez.
+     */
+    @Scheduled(fixedDelayString = "${truco.clasificacion.persistir-cada-ms:30000}")
+    public void persistir() {
+        if (!cargada) {
+            cargar();
+            if (!cargada) {
+                return;
+            }
+        }
+        Instant ahora = Instant.now();
+        for (Map.Entry<Tipo, Tabla> entrada : tablas.entrySet()) {
+            List<FilaClasificacion> pendientes = entrada.getValue().tomarPendientes(entrada.getKey(), ahora);
+            for (int i = 0; i < pendientes.size(); i += tamanoLote) {
+                List<FilaClasificacion> lote = pendientes.subList(i, Math.min(i + tamanoLote, pendientes.size()));
+                try {
+                    filaClasificacionRepository.saveAll(lote);
+                } catch (RuntimeException e) {
+                    log.warn("No se pudieron persistir {} filas de clasificación, se reintenta en el próximo ciclo: {}",
+                            lote.size(), e.getMessage());
+                    lote.forEach(fila -> entrada.getValue().marcarPendiente(fila.getNombre()));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        persistir();
+    }
+
+    private record Totales(String nombre, int partidasJugadas, int ganadas, long puntos) {
+    }
+
+    /**
+     * Los totales por nombre y el árbol ordenado que los indexa. El árbol
+     * guarda los mismos registros inmutables que el mapa, así que un cambio es
+     * quitar el viejo e insertar el nuevo.
+     */
+    private static final class Tabla {
+        private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+        private final Map<String, Totales> porNombre = new HashMap<>();
+        private final ArbolPosiciones<Totales> arbol = new ArbolPosiciones<>(ORDEN);
+        private final Set<String> pendientes = new LinkedHashSet<>();
+
+        void sumar(String nombre, int partidasJugadas, int ganadas, long puntos, boolean pendiente) {
+            cerrojo.writeLock().lock();
+            try {
+                Totales anterior = porNombre.get(nombre);
+                Totales nuevo = anterior == null
+                        ? new Totales(nombre, partidasJugadas, ganadas, puntos)
+                        : new Totales(nombre, anterior.partidasJugadas() + partidasJugadas,
+                        anterior.ganadas() + ganadas, anterior.puntos() + puntos);
+                if (anterior != null) {
+                    arbol.quitar(anterior);
+                }
+                arbol.insertar(nuevo);
+                porNombre.put(nombre, nuevo);
+                if (pendiente) {
+                    pendientes.add(nombre);
+                }
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+
+        List<PosicionClasificacion> rango(int desde, int cantidad) {
+            cerrojo.readLock().lock();
+            try {
+                List<Totales> tramo = arbol.rango(desde, cantidad);
+                List<PosicionClasificacion> resultado = new ArrayList<>(tramo.size());
+                for (int i = 0; i < tramo.size(); i++) {
+                    resultado.add(posicion(desde + i, tramo.get(i)));
+                }
+                return resultado;
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        }
+
+        Optional<PosicionClasificacion> buscar(String nombre) {
+            cerrojo.readLock().lock();
+            try {
+                Totales totales = porNombre.get(nombre);
+                return totales == null
+                        ? Optional.empty()
+                        : Optional.of(posicion(arbol.posicion(totales), totales));
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        }
+
+        int tamano() {
+            cerrojo.readLock().lock();
+            try {
+                return arbol.tamano();
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        }
+
+        List<FilaClasificacion> tomarPendientes(Tipo tipo, Instant ahora) {
+            cerrojo.writeLock().lock();
+            try {
+                List<FilaClasificacion> filas = new ArrayList<>(pendientes.size());
+                for (String nombre : pendientes) {
+                    Totales t = porNombre.get(nombre);
+                    filas.add(new FilaClasificacion(FilaClasificacion.clave(tipo, nombre), tipo, nombre,
+                            t.partidasJugadas(), t.ganadas(), t.puntos(), ahora));
+                }
+                pendientes.clear();
+                return filas;
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+
+        void marcarPendiente(String nombre) {
+            cerrojo.writeLock().lock();
+            try {
+                pendientes.add(nombre);
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+
+        private static PosicionClasificacion posicion(int indice, Totales t) {
+            return new PosicionClasificacion(indice + 1, t.nombre(), t.partidasJugadas(), t.ganadas(), t.puntos());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.fabiano.tfg.engine.service.clasificacion;
+
+import java.util.List;
+
+/**
+ * Actualización Glicko de un período de calificación. Una partida suelta es
+ * un período con un único resultado, así que el mismo cálculo sirve para
+ * actualizar partida a partida o por períodos.
+ */
+final class Glicko {
+
+    static final double RATING_INICIAL = 1500;
+    static final double DESVIACION_INICIAL = 350;
+    // Piso para que un jugador con muchas partidas siga pudiendo moverse
+    static final double DESVIACION_MINIMA = 30;
+    // Cuánto crece la desviación entre períodos en los que se juega
+    static final double INCERTIDUMBRE_POR_PERIODO = 35;
+
+    private static final double Q = Math.log(10) / 400;
+
+    private Glicko() {
+    }
+
+    /** Rating de un rival: {@code puntaje} es 1 si se le ganó, 0 si perdió y 0.5 si empató. */
+    record Resultado(double rating, double desviacion, double puntaje) {
+    }
+
+    record Estado(double rating, double desviacion) {
+    }
+
+    static Estado actualizar(double rating, double desviacion, List<Resultado> resultados) {
+        double previa = Math.min(Math.hypot(desviacion, INCERTIDUMBRE_POR_PERIODO), DESVIACION_INICIAL);
+        if (resultados.isEmpty()) {
+            return new Estado(rating, previa);
+        }
+        double inversaD2 = 0;
+        double suma = 0;
+        for (Resultado r : resultados) {
+            double g = g(r.desviacion());
+            double esperado = 1 / (1 + Math.pow(10, -g * (rating - r.rating()) / 400));
+            inversaD2 += g * g * esperado * (1 - esperado);
+            suma += g * (r.puntaje() - esperado);
+        }
+        inversaD2 *= Q * Q;
+        double precision = 1 / (previa * previa) + inversaD2;
+        double nuevoRating = rating + Q / precision * suma;
+        double nuevaDesviacion = Math.max(Math.sqrt(1 / precision), DESVIACION_MINIMA);
+        return new Estado(nuevoRating, nuevaDesviacion);
+    }
+
+    private static double g(double desviacion) {
+        return 1 / Math.sqrt(1 + 3 * Q * Q * desviacion * desviacion / (Math.PI * Math.PI));
+    }
+}
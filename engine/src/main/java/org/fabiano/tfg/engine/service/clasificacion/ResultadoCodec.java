@@ -0,0 +1,73 @@
+package org.fabiano.tfg.engine.service.clasificacion;
+
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent.ResultadoEquipo;
+import org.fabiano.tfg.engine.model.ResultadoPartida;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato de {@link ResultadoPartida}: nombre de la partida y, por equipo,
+ * nombre, puntaje, si ganó y sus jugadores.
+ */
+public final class ResultadoCodec {
+
+    private static final byte VERSION = 1;
+
+    private ResultadoCodec() {
+    }
+
+    public static ResultadoPartida codificar(PartidaFinalizadaEvent evento) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(evento.nombre() != null ? evento.nombre() : "");
+            out.writeByte(evento.equipos().size());
+            for (ResultadoEquipo equipo : evento.equipos()) {
+                out.writeUTF(equipo.nombre());
+                out.writeInt(equipo.puntaje());
+                out.writeBoolean(equipo.ganador());
+                out.writeByte(equipo.jugadores().size());
+                for (String jugador : equipo.jugadores()) {
+                    out.writeUTF(jugador);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ResultadoPartida(evento.partidaId(), evento.finalizadaEn(), bytes.toByteArray());
+    }
+
+    public static PartidaFinalizadaEvent restaurar(ResultadoPartida resultado) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(resultado.getDatos()))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("Versión de resultado desconocida: " + version);
+            }
+            String nombre = in.readUTF();
+            int cantidadEquipos = in.readByte();
+            List<ResultadoEquipo> equipos = new ArrayList<>(cantidadEquipos);
+            for (int i = 0; i < cantidadEquipos; i++) {
+                String equipo = in.readUTF();
+                int puntaje = in.readInt();
+                boolean ganador = in.readBoolean();
+                int cantidadJugadores = in.readByte();
+                List<String> jugadores = new ArrayList<>(cantidadJugadores);
+                for (int j = 0; j < cantidadJugadores; j++) {
+                    jugadores.add(in.readUTF());
+                }
+                equipos.add(new ResultadoEquipo(equipo, jugadores, puntaje, ganador));
+            }
+            return new PartidaFinalizadaEvent(resultado.getPartidaId(), nombre, resultado.getFinalizadaEn(), equipos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cliente de un modelo de lenguaje. La implementación real habla con un
+ * servidor local o una API externa; en los tests se reemplaza por un stub.
+ */
+public interface ClienteLLM {
+
+    /**
+     * Envía el prompt y devuelve el texto generado. No debe bloquear el hilo
+     * que llama.
+     */
+    CompletableFuture<String> completar(String prompt);
+}
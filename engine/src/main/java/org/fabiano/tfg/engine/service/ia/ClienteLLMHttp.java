@@ -0,0 +1,68 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cliente HTTP asíncrono para un servidor LLM que acepta
+ * {@code {"prompt": "..."}} y responde {@code {"respuesta": "..."}} o texto plano.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "truco.ia.llm", name = "url")
+public class ClienteLLMHttp implements ClienteLLM {
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ClienteLLMHttp(@Value("${truco.ia.llm.url}") String url) {
+        this.uri = URI.create(url);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<String> completar(String prompt) {
+        try {
+            String body = objectMapper.writeValueAsString(Map.of("prompt", prompt));
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .thenApply(this::extraerRespuesta);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private String extraerRespuesta(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("El servidor LLM respondió " + response.statusCode());
+        }
+        String body = response.body();
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            if (json != null && json.has("respuesta")) {
+                return json.get("respuesta").asText();
+            }
+        } catch (Exception e) {
+            log.debug("Respuesta del LLM no es JSON, se usa como texto plano");
+        }
+        return body;
+    }
+}
@@ -0,0 +1,327 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.TipoCanto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Distribución de probabilidad sobre la mano de un oponente, representada como
+ * un conjunto de partículas ponderadas. Cada partícula es la mano original de
+ * tres cartas codificada como máscara de bits ({@link CodigoCarta}).
+ *
+ * <p>Las observaciones se aplican en O(partículas) con operaciones de bits y
+ * el muestreo es O(log partículas). Cuando las restricciones dejan pocas
+ * partículas vivas se vuelven a generar enumerando las manos compatibles
+ * (como mucho C(37,3)) y reaplicando los cantos observados.</p>
+ *
+ * <p>No es thread-safe: cada instancia pertenece al observador que la consulta.</p>
+ */
+public class CreenciaMano {
+
+    private static final int CARTAS_POR_MANO = 3;
+
+    // Verosimilitud de cantar envido según los puntos de la mano (0..33)
+    private static final double[] VEROSIMILITUD_ENVIDO = new double[34];
+
+    static {
+        for (int puntos = 0; puntos < VEROSIMILITUD_ENVIDO.length; puntos++) {
+            VEROSIMILITUD_ENVIDO[puntos] = 0.05 + 0.95 / (1 + Math.exp(-(puntos - 26) / 2.0));
+        }
+    }
+
+    private final long[] particulas;
+    private final double[] pesos;
+    private final double[] acumulados;
+    private final Random random;
+
+    // Restricciones duras acumuladas
+    private long cartasJugadas;
+    private long cartasDescartadas;
+    private int envidoDeclarado = -1;
+
+    // Evidencia suave, para reaplicarla al regenerar
+    private final List<TipoCanto> cantosObservados = new ArrayList<>();
+
+    private boolean acumuladosVigentes;
+
+    /**
+     * @param cartasConocidas cartas que el oponente seguro no tiene (por
+     *                        ejemplo, la mano del observador)
+     */
+    public CreenciaMano(int cantidadParticulas, long cartasConocidas, Random random) {
+        this.particulas = new long[cantidadParticulas];
+        this.pesos = new double[cantidadParticulas];
+        this.acumulados = new double[cantidadParticulas];
+        this.random = random;
+        this.cartasDescartadas = cartasConocidas;
+        regenerar();
+    }
+
+    /**
+     * El oponente jugó la carta: sólo sobreviven las manos que la contenían.
+     */
+    public void observarCartaPropia(int indiceCarta) {
+        long bit = 1L << indiceCarta;
+        if ((cartasJugadas & bit) != 0) {
+            return;
+        }
+        cartasJugadas |= bit;
+        for (int i = 0; i < particulas.length; i++) {
+            if ((particulas[i] & bit) == 0) {
+                pesos[i] = 0;
+            }
+        }
+        normalizar();
+    }
+
+    /**
+     * La carta apareció en la mesa o en otra mano: el oponente no la tiene.
+     */
+    public void observarCartaAjena(int indiceCarta) {
+        long bit = 1L << indiceCarta;
+        if ((cartasDescartadas & bit) != 0) {
+            return;
+        }
+        cartasDescartadas |= bit;
+        for (int i = 0; i < particulas.length; i++) {
+            if ((particulas[i] & bit) != 0) {
+                pesos[i] = 0;
+            }
+        }
+        normalizar();
+    }
+
+    /**
+     * El oponente declaró sus puntos de envido: restricción exacta.
+     */
+    public void observarEnvidoDeclarado(int puntos) {
+        envidoDeclarado = puntos;
+        for (int i = 0; i < particulas.length; i++) {
+            if (CodigoCarta.envido(particulas[i]) != puntos) {
+                pesos[i] = 0;
+            }
+        }
+        normalizar();
+    }
+
+    /**
+     * El oponente cantó o respondió: ajuste suave según la fuerza de la mano.
+     */
+    public void observarCanto(TipoCanto tipo) {
+        if (!tipo.esEnvido() && !tipo.esTruco() && tipo != TipoCanto.QUIERO) {
+            return;
+        }
+        cantosObservados.add(tipo);
+        aplicarVerosimilitud(tipo);
+        normalizar();
+    }
+
+    /**
+     * Muestrea una mano según la distribución actual. Devuelve sólo las cartas
+     * que el oponente todavía no jugó.
+     */
+    public long muestrear(Random rnd) {
+        if (!acumuladosVigentes) {
+            double suma = 0;
+            for (int i = 0; i < pesos.length; i++) {
+                suma += pesos[i];
+                acumulados[i] = suma;
+            }
+            acumuladosVigentes = true;
+        }
+        double objetivo = rnd.nextDouble() * acumulados[acumulados.length - 1];
+        int pos = Arrays.binarySearch(acumulados, objetivo);
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        // Las partículas sin peso comparten acumulado con la anterior: saltarlas
+        while (pos < particulas.length - 1 && pesos[pos] == 0) {
+            pos++;
+        }
+        return particulas[Math.min(pos, particulas.length - 1)] & ~cartasJugadas;
+    }
+
+    /**
+     * Probabilidad marginal de que el oponente tenga todavía la carta.
+     */
+    public double probabilidadCarta(int indiceCarta) {
+        long bit = 1L << indiceCarta;
+        if ((cartasJugadas & bit) != 0) {
+            return 0;
+        }
+        double total = 0;
+        for (int i = 0; i < particulas.length; i++) {
+            if ((particulas[i] & bit) != 0) {
+                total += pesos[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Probabilidad de que la mano original del oponente sume exactamente los
+     * puntos de envido indicados.
+     */
+    public double probabilidadEnvido(int puntos) {
+        double total = 0;
+        for (int i = 0; i < particulas.length; i++) {
+            if (CodigoCarta.envido(particulas[i]) == puntos) {
+                total += pesos[i];
+            }
+        }
+        return total;
+    }
+
+    public double tamanoEfectivo() {
+        double cuadrados = 0;
+        for (double peso : pesos) {
+            cuadrados += peso * peso;
+        }
+        return cuadrados == 0 ? 0 : 1 / cuadrados;
+    }
+
+    public long getCartasJugadas() {
+        return cartasJugadas;
+    }
+
+    public long getCartasDescartadas() {
+        return cartasDescartadas;
+    }
+
+    public int cantidadParticulas() {
+        return particulas.length;
+    }
+
+    private void normalizar() {
+        acumuladosVigentes = false;
+        double suma = 0;
+        for (double peso : pesos) {
+            suma += peso;
+        }
+        if (suma == 0) {
+            regenerar();
+            return;
+        }
+        double inversa = 1 / suma;
+        for (int i = 0; i < pesos.length; i++) {
+            pesos[i] *= inversa;
+        }
+        if (tamanoEfectivo() < particulas.length / 2.0) {
+            regenerar();
+        }
+    }
+
+    private void aplicarVerosimilitud(TipoCanto tipo) {
+        if (tipo.esEnvido()) {
+            for (int i = 0; i < particulas.length; i++) {
+                pesos[i] *= VEROSIMILITUD_ENVIDO[CodigoCarta.envido(particulas[i])];
+            }
+        } else {
+            for (int i = 0; i < particulas.length; i++) {
+                pesos[i] *= 0.25 + fuerzaRestante(particulas[i]);
+            }
+        }
+    }
+
+    /**
+     * Enumera las manos compatibles con las restricciones duras, reparte las
+     * partículas entre ellas y reaplica la evidencia suave.
+     */
+    private void regenerar() {
+        long disponibles = CodigoCarta.MAZO_COMPLETO & ~cartasDescartadas & ~cartasJugadas;
+        int[] indices = new int[Long.bitCount(disponibles)];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = Long.numberOfTrailingZeros(disponibles);
+            disponibles &= disponibles - 1;
+        }
+
+        long[] compatibles = new long[combinaciones(indices.length)];
+        int cantidad = 0;
+        int faltantes = CARTAS_POR_MANO - Long.bitCount(cartasJugadas);
+        if (faltantes <= 0) {
+            cantidad = agregarSiCompatible(compatibles, cantidad, cartasJugadas);
+        } else {
+            for (int a = 0; a < indices.length; a++) {
+                long manoA = cartasJugadas | (1L << indices[a]);
+                if (faltantes == 1) {
+                    cantidad = agregarSiCompatible(compatibles, cantidad, manoA);
+                    continue;
+                }
+                for (int b = a + 1; b < indices.length; b++) {
+                    long manoB = manoA | (1L << indices[b]);
+                    if (faltantes == 2) {
+                        cantidad = agregarSiCompatible(compatibles, cantidad, manoB);
+                        continue;
+                    }
+                    for (int c = b + 1; c < indices.length; c++) {
+                        cantidad = agregarSiCompatible(compatibles, cantidad, manoB | (1L << indices[c]));
+                    }
+                }
+            }
+        }
+        if (cantidad == 0) {
+            if (envidoDeclarado >= 0) {
+                // El envido declarado es imposible con las cartas vistas: se descarta
+                envidoDeclarado = -1;
+                regenerar();
+                return;
+            }
+            compatibles[0] = cartasJugadas;
+            cantidad = 1;
+        }
+
+        if (cantidad <= particulas.length) {
+            // Enumeración exacta: una partícula por mano, el resto sin peso
+            for (int i = 0; i < particulas.length; i++) {
+                particulas[i] = compatibles[i % cantidad];
+                pesos[i] = i < cantidad ? 1.0 / cantidad : 0;
+            }
+        } else {
+            for (int i = 0; i < particulas.length; i++) {
+                particulas[i] = compatibles[random.nextInt(cantidad)];
+            }
+            Arrays.fill(pesos, 1.0 / particulas.length);
+        }
+
+        if (!cantosObservados.isEmpty()) {
+            for (TipoCanto tipo : cantosObservados) {
+                aplicarVerosimilitud(tipo);
+            }
+            double suma = 0;
+            for (double peso : pesos) {
+                suma += peso;
+            }
+            for (int i = 0; i < pesos.length; i++) {
+                pesos[i] /= suma;
+            }
+        }
+        acumuladosVigentes = false;
+    }
+
+    private int agregarSiCompatible(long[] compatibles, int cantidad, long mano) {
+        if (envidoDeclarado < 0 || CodigoCarta.envido(mano) == envidoDeclarado) {
+            compatibles[cantidad++] = mano;
+        }
+        return cantidad;
+    }
+
+    // Cota superior de manos a enumerar, sea cual sea la cantidad de cartas faltantes
+    private static int combinaciones(int n) {
+        return 1 + n + n * (n - 1) / 2 + n * (n - 1) * (n - 2) / 6;
+    }
+
+    private double fuerzaRestante(long mano) {
+        long restantes = mano & ~cartasJugadas;
+        int mejor = 0;
+        while (restantes != 0) {
+            int indice = Long.numberOfTrailingZeros(restantes);
+            mejor = Math.max(mejor, CodigoCarta.valorJerarquico(indice));
+            restantes &= restantes - 1;
+        }
+        return mejor / 14.0;
+    }
+}
@@ -0,0 +1,182 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.event.CantoRealizadoEvent;
+import org.fabiano.tfg.engine.event.JugadaRegistradaEvent;
+import org.fabiano.tfg.engine.event.ManoRepartidaEvent;
+import org.fabiano.tfg.engine.event.PartidaCreadaEvent;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.event.PartidaRetiradaEvent;
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mantiene, para cada bot que sigue una partida, la creencia sobre las cartas
+ * ocultas de cada oponente. Se actualiza escuchando los eventos de la partida;
+ * los bots pedidos al crearla se siguen solos hasta que termina o sale de
+ * memoria.
+ */
+@Slf4j
+@Service
+public class CreenciaService {
+
+    private final int cantidadParticulas;
+
+    // partidaId -> observador -> creencias de esa mano
+    private final Map<UUID, Map<String, CreenciasObservador>> creencias = new ConcurrentHashMap<>();
+
+    public CreenciaService(@Value("${truco.ia.creencias.particulas:1024}") int cantidadParticulas) {
+        this.cantidadParticulas = cantidadParticulas;
+    }
+
+    /**
+     * Empieza a seguir la partida desde el punto de vista del jugador indicado.
+     * Las creencias se crean en el próximo reparto.
+     */
+    public void seguir(UUID partidaId, String observador) {
+        creencias.computeIfAbsent(partidaId, id -> new ConcurrentHashMap<>())
+                .putIfAbsent(observador, new CreenciasObservador());
+    }
+
+    public void dejarDeSeguir(UUID partidaId) {
+        creencias.remove(partidaId);
+    }
+
+    /**
+     * Acceso directo a la creencia sobre un oponente. La instancia no es
+     * thread-safe; sólo debe consultarse desde el turno del propio observador.
+     */
+    public Optional<CreenciaMano> obtener(UUID partidaId, String observador, String oponente) {
+        CreenciasObservador delObservador = creencias.getOrDefault(partidaId, Map.of()).get(observador);
+        if (delObservador == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(delObservador.porOponente.get(oponente));
+    }
+
+    /**
+     * Muestrea una asignación conjunta de manos para todos los oponentes, sin
+     * cartas repetidas entre ellos. Pensado para búsqueda Monte Carlo.
+     */
+    public Map<String, Long> muestrear(UUID partidaId, String observador, Random rnd) {
+        CreenciasObservador delObservador = creencias.getOrDefault(partidaId, Map.of()).get(observador);
+        if (delObservador == null) {
+            return Map.of();
+        }
+        synchronized (delObservador) {
+            Map<String, Long> muestra = new HashMap<>();
+            for (int intento = 0; intento < 16; intento++) {
+                muestra.clear();
+                long usadas = 0L;
+                boolean disjuntas = true;
+                for (Map.Entry<String, CreenciaMano> entry : delObservador.porOponente.entrySet()) {
+                    long mano = entry.getValue().muestrear(rnd);
+                    disjuntas &= (mano & usadas) == 0;
+                    usadas |= mano;
+                    muestra.put(entry.getKey(), mano);
+                }
+                if (disjuntas) {
+                    break;
+                }
+            }
+            return muestra;
+        }
+    }
+
+    @EventListener
+    public void onPartidaCreada(PartidaCreadaEvent event) {
+        event.bots().forEach(bot -> seguir(event.partidaId(), bot));
+    }
+
+    @EventListener
+    public void onPartidaFinalizada(PartidaFinalizadaEvent event) {
+        dejarDeSeguir(event.partidaId());
+    }
+
+    @EventListener
+    public void onPartidaRetirada(PartidaRetiradaEvent event) {
+        dejarDeSeguir(event.partidaId());
+    }
+
+    @EventListener
+    public void onManoRepartida(ManoRepartidaEvent event) {
+        Map<String, CreenciasObservador> observadores = observadores(event.partidaId());
+        if (observadores == null) {
+            return;
+        }
+        observadores.forEach((observador, delObservador) -> {
+            Integer equipoObservador = event.equipos().get(observador);
+            long propias = event.manos().getOrDefault(observador, 0L);
+            Map<String, CreenciaMano> nuevas = new HashMap<>();
+            for (Map.Entry<String, Integer> entry : event.equipos().entrySet()) {
+                if (!entry.getValue().equals(equipoObservador)) {
+                    nuevas.put(entry.getKey(), new CreenciaMano(cantidadParticulas, propias,
+                            new Random(ThreadLocalRandom.current().nextLong())));
+                }
+            }
+            synchronized (delObservador) {
+                delObservador.porOponente = nuevas;
+            }
+        });
+        log.debug("Creencias reiniciadas para la mano {} de la partida {}", event.numeroMano(), event.partidaId());
+    }
+
+    @EventListener
+    public void onJugadaRegistrada(JugadaRegistradaEvent event) {
+        Map<String, CreenciasObservador> observadores = observadores(event.partidaId());
+        if (observadores == null) {
+            return;
+        }
+        int indice = CodigoCarta.indice(event.carta());
+        for (CreenciasObservador delObservador : observadores.values()) {
+            synchronized (delObservador) {
+                delObservador.porOponente.forEach((oponente, creencia) -> {
+                    if (oponente.equals(event.jugador())) {
+                        creencia.observarCartaPropia(indice);
+                    } else {
+                        creencia.observarCartaAjena(indice);
+                    }
+                });
+            }
+        }
+    }
+
+    @EventListener
+    public void onCantoRealizado(CantoRealizadoEvent event) {
+        Map<String, CreenciasObservador> observadores = observadores(event.partidaId());
+        if (observadores == null) {
+            return;
+        }
+        for (CreenciasObservador delObservador : observadores.values()) {
+            synchronized (delObservador) {
+                CreenciaMano creencia = delObservador.porOponente.get(event.jugador());
+                if (creencia == null) {
+                    continue;
+                }
+                if (event.puntosDeclarados() != null) {
+                    creencia.observarEnvidoDeclarado(event.puntosDeclarados());
+                } else {
+                    creencia.observarCanto(event.tipo());
+                }
+            }
+        }
+    }
+
+    private Map<String, CreenciasObservador> observadores(UUID partidaId) {
+        return partidaId != null ? creencias.get(partidaId) : null;
+    }
+
+    private static class CreenciasObservador {
+        private Map<String, CreenciaMano> porOponente = new HashMap<>();
+    }
+}
@@ -0,0 +1,99 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Genera una tabla de políticas para {@link TablaPoliticas}. Escribe
+ * directamente sobre el archivo mapeado, así que el tamaño de la tabla no
+ * depende del heap. Pensado para los procesos offline de entrenamiento.
+ */
+public class EscritorTablaPoliticas implements AutoCloseable {
+
+    private final FileChannel canal;
+    private final MappedByteBuffer buffer;
+    private final int puntajeMaximo;
+    private final int bucketsMano;
+    private final long offsetEnvido;
+    private final long offsetTruco;
+
+    public EscritorTablaPoliticas(Path archivo, int puntajeMaximo, int bucketsMano) throws IOException {
+        if (puntajeMaximo <= 0 || bucketsMano <= 0) {
+            throw new IllegalArgumentException("puntajeMaximo y bucketsMano deben ser positivos");
+        }
+        long tamano = TablaPoliticas.tamanoArchivo(puntajeMaximo, bucketsMano);
+        if (tamano > Integer.MAX_VALUE) {
+            throw new IOException("La tabla supera los 2 GB que admite un único mapeo");
+        }
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamano);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.puntajeMaximo = puntajeMaximo;
+        this.bucketsMano = bucketsMano;
+
+        this.offsetEnvido = TablaPoliticas.TAMANO_CABECERA;
+        this.offsetTruco = TablaPoliticas.offsetTruco(puntajeMaximo);
+
+        buffer.putInt(0, TablaPoliticas.MAGIA);
+        buffer.putInt(4, TablaPoliticas.VERSION);
+        buffer.putInt(8, puntajeMaximo);
+        buffer.putInt(12, bucketsMano);
+        buffer.putLong(16, offsetEnvido);
+        buffer.putLong(24, offsetTruco);
+    }
+
+    /**
+     * Los índices son los mismos que lee {@link TablaPoliticas}. Allí se
+     * acotan; acá uno fuera de rango es un error del entrenamiento y se
+     * rechaza en vez de pisar otra entrada.
+     */
+    public void envido(int propios, int rivales, int puntosEnvido, double cantar, double querer) {
+        verificarRango("puntosEnvido", puntosEnvido, TablaPoliticas.PUNTOS_ENVIDO);
+        long situacion = situacion(propios, rivales);
+        long offset = offsetEnvido + (situacion * TablaPoliticas.PUNTOS_ENVIDO + puntosEnvido) * TablaPoliticas.TAMANO_ENTRADA;
+        escribir(offset, cantar, querer);
+    }
+
+    public void truco(int propios, int rivales, int bucketMano, int nivel, double subir, double aceptar) {
+        verificarRango("bucketMano", bucketMano, bucketsMano);
+        verificarRango("nivel", nivel, TablaPoliticas.NIVELES_TRUCO);
+        long situacion = situacion(propios, rivales);
+        long offset = offsetTruco
+                + ((situacion * bucketsMano + bucketMano) * TablaPoliticas.NIVELES_TRUCO + nivel) * TablaPoliticas.TAMANO_ENTRADA;
+        escribir(offset, subir, aceptar);
+    }
+
+    private long situacion(int propios, int rivales) {
+        verificarRango("propios", propios, puntajeMaximo + 1);
+        verificarRango("rivales", rivales, puntajeMaximo + 1);
+        return (long) propios * (puntajeMaximo + 1) + rivales;
+    }
+
+    private static void verificarRango(String nombre, int valor, int limite) {
+        if (valor < 0 || valor >= limite) {
+            throw new IllegalArgumentException(nombre + " fuera de rango: " + valor + " (0 a " + (limite - 1) + ")");
+        }
+    }
+
+    private void escribir(long offset, double primera, double segunda) {
+        int posicion = Math.toIntExact(offset);
+        buffer.putShort(posicion, escalar(primera));
+        buffer.putShort(posicion + 2, escalar(segunda));
+    }
+
+    private static short escalar(double probabilidad) {
+        double acotada = Math.min(Math.max(probabilidad, 0), 1);
+        return (short) Math.round(acotada * TablaPoliticas.ESCALA);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        canal.close();
+    }
+}
@@ -0,0 +1,129 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import lombok.RequiredArgsConstructor;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.Jugada;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.TipoCanto;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.service.JerarquiaLoader;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Decisión determinística y barata para cuando el LLM no responde a tiempo.
+ * Misma situación, misma sugerencia. Si hay una {@link TablaPoliticas}
+ * cargada, los umbrales de envido y truco salen de ella.
+ */
+@Component
+@RequiredArgsConstructor
+public class HeuristicaIA {
+
+    private static final int ENVIDO_MINIMO = 27;
+    private static final int CARTA_PARA_TRUCO = 12;
+
+    private static final String[] FRASES_ENVIDO = {"¡Envido!", "Tengo algo para el envido...", "Envido, y no me asusto"};
+    private static final String[] FRASES_TRUCO = {"¡Truco!", "¿Y si jugamos por dos? ¡Truco!", "Truco, a ver qué tenés"};
+    private static final String[] FRASES_CARTA = {"Ahí va", "Mirá esta", "Vamos con esta", "A ver quién la mata"};
+    private static final String FRASE_MAZO = "Me voy al mazo";
+
+    private final JerarquiaLoader jerarquiaLoader;
+    private final Optional<TablaPoliticas> politicas;
+
+    public SugerenciaIA decidir(Partida partida, Jugador jugador) {
+        List<Carta> mano = jugador.getMano();
+        long mascara = CodigoCarta.mascara(mano);
+        int propios = 0;
+        int rivales = 0;
+        for (Equipo equipo : partida.getEquipos()) {
+            if (equipo.getJugadores() != null && equipo.getJugadores().contains(jugador)) {
+                propios = equipo.getPuntaje();
+            } else {
+                rivales = Math.max(rivales, equipo.getPuntaje());
+            }
+        }
+
+        if (!partida.isEnvidoCantado() && !partida.isTrucoCantado() && partida.getVuelta() == 1
+                && conviene(CodigoCarta.envido(mascara), propios, rivales)) {
+            return new SugerenciaIA(frase(FRASES_ENVIDO, mascara), TipoCanto.ENVIDO, null, false);
+        }
+        if (mano == null || mano.isEmpty()) {
+            return new SugerenciaIA(FRASE_MAZO, TipoCanto.AL_MAZO, null, false);
+        }
+
+        int mejorValor = 0;
+        int sumaValores = 0;
+        for (Carta carta : mano) {
+            int valor = jerarquiaLoader.obtenerValor(carta);
+            mejorValor = Math.max(mejorValor, valor);
+            sumaValores += valor;
+        }
+        TipoCanto siguienteTruco = siguienteTruco(partida);
+        if (siguienteTruco != null && conviene(siguienteTruco, mejorValor, sumaValores, propios, rivales)) {
+            return new SugerenciaIA(frase(FRASES_TRUCO, mascara), siguienteTruco, null, false);
+        }
+
+        return new SugerenciaIA(frase(FRASES_CARTA, mascara), null, elegirCarta(partida, mano), false);
+    }
+
+    private boolean conviene(int puntosEnvido, int propios, int rivales) {
+        return politicas
+                .map(tabla -> tabla.probabilidadCantarEnvido(propios, rivales, puntosEnvido) >= 0.5)
+                .orElse(puntosEnvido >= ENVIDO_MINIMO);
+    }
+
+    private boolean conviene(TipoCanto canto, int mejorValor, int sumaValores, int propios, int rivales) {
+        int nivel = canto.ordinal() - TipoCanto.TRUCO.ordinal();
+        return politicas
+                .map(tabla -> tabla.probabilidadSubirTruco(propios, rivales, tabla.bucketMano(sumaValores), nivel) >= 0.5)
+                .orElse(canto == TipoCanto.TRUCO && mejorValor >= CARTA_PARA_TRUCO);
+    }
+
+    private static TipoCanto siguienteTruco(Partida partida) {
+        if (!partida.isTrucoCantado()) {
+            return TipoCanto.TRUCO;
+        }
+        if (!partida.isRetrucoCantado()) {
+            return TipoCanto.RETRUCO;
+        }
+        if (!partida.isValeCuatroCantado()) {
+            return TipoCanto.VALE_CUATRO;
+        }
+        return null;
+    }
+
+    /**
+     * La carta más baja que gana la vuelta; si ninguna gana, la más baja de todas.
+     */
+    private int elegirCarta(Partida partida, List<Carta> mano) {
+        int aSuperar = 0;
+        for (Jugada jugada : partida.getCartasJugadasEnVueltaActual()) {
+            aSuperar = Math.max(aSuperar, jerarquiaLoader.obtenerValor(jugada.getCarta()));
+        }
+
+        int ganadora = -1;
+        int valorGanadora = Integer.MAX_VALUE;
+        int masBaja = 0;
+        int valorMasBaja = Integer.MAX_VALUE;
+        for (int i = 0; i < mano.size(); i++) {
+            int valor = jerarquiaLoader.obtenerValor(mano.get(i));
+            if (valor > aSuperar && valor < valorGanadora) {
+                ganadora = i;
+                valorGanadora = valor;
+            }
+            if (valor < valorMasBaja) {
+                masBaja = i;
+                valorMasBaja = valor;
+            }
+        }
+        return ganadora >= 0 ? ganadora : masBaja;
+    }
+
+    private static String frase(String[] frases, long semilla) {
+        return frases[(int) Long.remainderUnsigned(semilla, frases.length)];
+    }
+}
@@ -0,0 +1,179 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estadísticas en línea de cómo apuesta un jugador. Cada observación es un
+ * incremento atómico sin locks; las tasas se calculan al leer, con suavizado
+ * de Laplace para que un jugador nuevo arranque en 50%.
+ */
+public class PerfilOponente {
+
+    public static final int BUCKETS_ENVIDO = 5;
+
+    static final int MANOS = 0;
+    static final int MAZO = 1;
+    static final int MANOS_DEBILES = 2;
+    static final int TRUCOS = 3;
+    static final int TRUCOS_DEBILES = 4;
+    static final int TRUCO_QUERIDO = 5;
+    static final int TRUCO_NO_QUERIDO = 6;
+    static final int RETRUCO_QUERIDO = 7;
+    static final int RETRUCO_NO_QUERIDO = 8;
+    static final int ENVIDO_QUERIDO = 9;
+    static final int ENVIDO_NO_QUERIDO = 10;
+    static final int OPORTUNIDADES_ENVIDO = 11;
+    // Manos en las que cantó algún envido, no cantos: así no pasa de las oportunidades
+    static final int CANTOS_ENVIDO = OPORTUNIDADES_ENVIDO + BUCKETS_ENVIDO;
+    static final int TOTAL_CONTADORES = CANTOS_ENVIDO + BUCKETS_ENVIDO;
+
+    private final String nombreJugador;
+    private final AtomicLongArray contadores = new AtomicLongArray(TOTAL_CONTADORES);
+    private final AtomicLong modificaciones = new AtomicLong();
+    private final AtomicInteger partidasEnCurso = new AtomicInteger();
+    private volatile long modificacionesPersistidas;
+    private volatile boolean cargado;
+    // Si ya tiene fila: decide entre insertarlo o actualizarlo al guardar
+    private volatile boolean enBase;
+
+    public PerfilOponente(String nombreJugador) {
+        this.nombreJugador = nombreJugador;
+    }
+
+    /**
+     * Bucket de puntos de envido: menos de 20, 20-23, 24-27, 28-30, 31-33.
+     */
+    public static int bucketEnvido(int puntos) {
+        if (puntos < 20) {
+            return 0;
+        }
+        if (puntos < 24) {
+            return 1;
+        }
+        if (puntos < 28) {
+            return 2;
+        }
+        return puntos < 31 ? 3 : 4;
+    }
+
+    void incrementar(int contador) {
+        contadores.incrementAndGet(contador);
+        modificaciones.incrementAndGet();
+    }
+
+    /**
+     * Suma los valores persistidos a lo que se haya acumulado mientras se
+     * cargaban. La suma conmuta con los incrementos concurrentes.
+     */
+    void sumarPersistidos(long[] persistidos) {
+        int limite = Math.min(persistidos.length, TOTAL_CONTADORES);
+        for (int i = 0; i < limite; i++) {
+            contadores.addAndGet(i, persistidos[i]);
+        }
+        modificaciones.incrementAndGet();
+    }
+
+    long[] copiarContadores() {
+        long[] copia = new long[TOTAL_CONTADORES];
+        for (int i = 0; i < TOTAL_CONTADORES; i++) {
+            copia[i] = contadores.get(i);
+        }
+        return copia;
+    }
+
+    long getModificaciones() {
+        return modificaciones.get();
+    }
+
+    boolean pendienteDePersistir() {
+        return cargado && modificaciones.get() != modificacionesPersistidas;
+    }
+
+    void marcarPersistido(long modificaciones) {
+        this.modificacionesPersistidas = modificaciones;
+    }
+
+    void entrarEnPartida() {
+        partidasEnCurso.incrementAndGet();
+    }
+
+    void salirDePartida() {
+        partidasEnCurso.decrementAndGet();
+    }
+
+    /**
+     * Sin partidas en curso y con todo guardado: se puede sacar de memoria.
+     */
+    boolean descartable() {
+        return cargado && partidasEnCurso.get() <= 0 && modificaciones.get() == modificacionesPersistidas;
+    }
+
+    boolean isCargado() {
+        return cargado;
+    }
+
+    void marcarCargado() {
+        this.cargado = true;
+    }
+
+    boolean isEnBase() {
+        return enBase;
+    }
+
+    void marcarEnBase() {
+        this.enBase = true;
+    }
+
+    public String getNombreJugador() {
+        return nombreJugador;
+    }
+
+    public long getManosJugadas() {
+        return contadores.get(MANOS);
+    }
+
+    /**
+     * En qué fracción de las manos con esos puntos cantó envido.
+     */
+    public double tasaEnvido(int puntos) {
+        int bucket = bucketEnvido(puntos);
+        return tasa(contadores.get(CANTOS_ENVIDO + bucket), contadores.get(OPORTUNIDADES_ENVIDO + bucket));
+    }
+
+    /**
+     * Con qué frecuencia canta truco cuando le tocó una mano sin ninguna carta
+     * mejor que un rey.
+     */
+    public double tasaFarolTruco() {
+        return tasa(contadores.get(TRUCOS_DEBILES), contadores.get(MANOS_DEBILES));
+    }
+
+    /**
+     * Fracción de sus trucos que fueron con mano débil.
+     */
+    public double proporcionTrucosDebiles() {
+        return tasa(contadores.get(TRUCOS_DEBILES), contadores.get(TRUCOS));
+    }
+
+    public double tasaAceptaTruco() {
+        return tasa(contadores.get(TRUCO_QUERIDO), contadores.get(TRUCO_QUERIDO) + contadores.get(TRUCO_NO_QUERIDO));
+    }
+
+    public double tasaAceptaRetruco() {
+        return tasa(contadores.get(RETRUCO_QUERIDO), contadores.get(RETRUCO_QUERIDO) + contadores.get(RETRUCO_NO_QUERIDO));
+    }
+
+    public double tasaAceptaEnvido() {
+        return tasa(contadores.get(ENVIDO_QUERIDO), contadores.get(ENVIDO_QUERIDO) + contadores.get(ENVIDO_NO_QUERIDO));
+    }
+
+    public double tasaMazo() {
+        return tasa(contadores.get(MAZO), contadores.get(MANOS));
+    }
+
+    private static double tasa(long favorables, long total) {
+        return (favorables + 1.0) / (total + 2.0);
+    }
+}
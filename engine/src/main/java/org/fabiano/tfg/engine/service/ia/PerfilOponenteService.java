@@ -0,0 +1,281 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.event.CantoRealizadoEvent;
+import org.fabiano.tfg.engine.event.ManoRepartidaEvent;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.event.PartidaRetiradaEvent;
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.PerfilJugador;
+import org.fabiano.tfg.engine.model.TipoCanto;
+import org.fabiano.tfg.engine.repository.PerfilJugadorRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Perfiles de apuesta de cada jugador, actualizados en memoria con cada
+ * reparto y canto. La base de datos nunca se toca desde el turno: los perfiles
+ * se cargan en segundo plano la primera vez que aparecen y se guardan por
+ * lotes periódicamente. Sólo quedan en memoria los perfiles de quienes tienen
+ * una partida en curso o cambios sin guardar.
+ */
+@Slf4j
+@Service
+public class PerfilOponenteService {
+
+    // Una mano sin cartas mejores que un rey se considera débil
+    private static final int JERARQUIA_MANO_DEBIL = 7;
+
+    private final PerfilJugadorRepository perfilJugadorRepository;
+    private final TransactionTemplate transaccion;
+    private final int tamanoLote;
+    private final Map<String, PerfilOponente> perfiles = new ConcurrentHashMap<>();
+    private final Map<UUID, PartidaEnCurso> enCurso = new ConcurrentHashMap<>();
+    private final ExecutorService cargador = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "perfiles-cargador");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public PerfilOponenteService(PerfilJugadorRepository perfilJugadorRepository,
+                                 PlatformTransactionManager transacciones,
+                                 @Value("${truco.ia.perfiles.tamano-lote:500}") int tamanoLote) {
+        this.perfilJugadorRepository = perfilJugadorRepository;
+        this.transaccion = new TransactionTemplate(transacciones);
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Perfil del jugador. Si todavía no se cargó desde la base, devuelve lo
+     * observado en este proceso y la carga sigue en segundo plano.
+     */
+    public PerfilOponente obtener(String nombreJugador) {
+        return perfiles.computeIfAbsent(nombreJugador, this::nuevo);
+    }
+
+    @EventListener
+    public void onManoRepartida(ManoRepartidaEvent event) {
+        PartidaEnCurso partida = enCurso.computeIfAbsent(event.partidaId(), id -> new PartidaEnCurso());
+        partida.cantaronEnvido.clear();
+        event.manos().forEach((jugador, mano) -> {
+            PerfilOponente perfil = participante(partida, jugador);
+            perfil.incrementar(PerfilOponente.MANOS);
+            perfil.incrementar(PerfilOponente.OPORTUNIDADES_ENVIDO
+                    + PerfilOponente.bucketEnvido(CodigoCarta.envido(mano)));
+            if (esDebil(mano)) {
+                perfil.incrementar(PerfilOponente.MANOS_DEBILES);
+            }
+        });
+    }
+
+    @EventListener
+    public void onCantoRealizado(CantoRealizadoEvent event) {
+        PartidaEnCurso partida = enCurso.computeIfAbsent(event.partidaId(), id -> new PartidaEnCurso());
+        PerfilOponente perfil = participante(partida, event.jugador());
+        TipoCanto tipo = event.tipo();
+        if (tipo.esEnvido()) {
+            // Envido, real envido y falta en la misma mano cuentan una vez
+            if (partida.cantaronEnvido.add(event.jugador())) {
+                perfil.incrementar(PerfilOponente.CANTOS_ENVIDO
+                        + PerfilOponente.bucketEnvido(CodigoCarta.envido(event.manoOriginal())));
+            }
+        } else if (tipo == TipoCanto.TRUCO) {
+            perfil.incrementar(PerfilOponente.TRUCOS);
+            if (esDebil(event.manoOriginal())) {
+                perfil.incrementar(PerfilOponente.TRUCOS_DEBILES);
+            }
+        } else if (tipo == TipoCanto.QUIERO || tipo == TipoCanto.NO_QUIERO) {
+            registrarRespuesta(perfil, tipo == TipoCanto.QUIERO, event.respuestaA());
+        } else if (tipo == TipoCanto.AL_MAZO) {
+            perfil.incrementar(PerfilOponente.MAZO);
+        }
+    }
+
+    @EventListener
+    public void onPartidaFinalizada(PartidaFinalizadaEvent event) {
+        salirDePartida(event.partidaId());
+    }
+
+    // Una partida que sale de memoria sin terminar no retiene los perfiles
+    @EventListener
+    public void onPartidaRetirada(PartidaRetiradaEvent event) {
+        salirDePartida(event.partidaId());
+    }
+
+    private void salirDePartida(UUID partidaId) {
+        PartidaEnCurso partida = enCurso.remove(partidaId);
+        if (partida == null) {
+            return;
+        }
+        // Se descartan en el próximo guardado, cuando ya no tengan cambios pendientes
+        for (String jugador : partida.jugadores) {
+            perfiles.computeIfPresent(jugador, (nombre, perfil) -> {
+                perfil.salirDePartida();
+                return perfil;
+            });
+        }
+    }
+
+    /**
+     * Perfil de un jugador de la partida; la primera vez que aparece en ella
+     * cuenta como partida en curso y el perfil no se descarta hasta que termine.
+     */
+    private PerfilOponente participante(PartidaEnCurso partida, String jugador) {
+        if (!partida.jugadores.add(jugador)) {
+            return obtener(jugador);
+        }
+        // Dentro del compute: no puede descartarse entre que se obtiene y se marca
+        return perfiles.compute(jugador, (nombre, perfil) -> {
+            PerfilOponente enPartida = perfil != null ? perfil : nuevo(nombre);
+            enPartida.entrarEnPartida();
+            return enPartida;
+        });
+    }
+
+    private PerfilOponente nuevo(String nombre) {
+        PerfilOponente perfil = new PerfilOponente(nombre);
+        programarCarga(perfil);
+        return perfil;
+    }
+
+    private void registrarRespuesta(PerfilOponente perfil, boolean quiso, TipoCanto respuestaA) {
+        if (respuestaA == null) {
+            return;
+        }
+        if (respuestaA == TipoCanto.TRUCO) {
+            perfil.incrementar(quiso ? PerfilOponente.TRUCO_QUERIDO : PerfilOponente.TRUCO_NO_QUERIDO);
+        } else if (respuestaA == TipoCanto.RETRUCO || respuestaA == TipoCanto.VALE_CUATRO) {
+            perfil.incrementar(quiso ? PerfilOponente.RETRUCO_QUERIDO : PerfilOponente.RETRUCO_NO_QUERIDO);
+        } else if (respuestaA.esEnvido()) {
+            perfil.incrementar(quiso ? PerfilOponente.ENVIDO_QUERIDO : PerfilOponente.ENVIDO_NO_QUERIDO);
+        }
+    }
+
+    /**
+     * Guarda por lotes los perfiles que cambiaron desde la última vez y saca
+     * de memoria los de quienes ya no están jugando.
+     */
+    @Scheduled(fixedDelayString = "${truco.ia.perfiles.persistir-cada-ms:30000}")
+    public void persistir() {
+        List<Pendiente> lote = new ArrayList<>(tamanoLote);
+        Instant ahora = Instant.now();
+
+        for (PerfilOponente perfil : perfiles.values()) {
+            if (!perfil.isCargado()) {
+                programarCarga(perfil);
+                continue;
+            }
+            if (!perfil.pendienteDePersistir()) {
+                continue;
+            }
+            // Leer la versión antes de copiar: si cambia en medio, queda pendiente
+            long version = perfil.getModificaciones();
+            lote.add(new Pendiente(perfil, version,
+                    new PerfilJugador(perfil.getNombreJugador(), perfil.copiarContadores(), ahora,
+                            !perfil.isEnBase())));
+            if (lote.size() == tamanoLote) {
+                guardarLote(lote);
+                lote = new ArrayList<>(tamanoLote);
+            }
+        }
+        if (!lote.isEmpty()) {
+            guardarLote(lote);
+        }
+        for (String nombre : perfiles.keySet()) {
+            perfiles.computeIfPresent(nombre, (n, perfil) -> perfil.descartable() ? null : perfil);
+        }
+    }
+
+    /**
+     * Los nuevos se insertan sin más; los que ya tienen fila se leen todos
+     * juntos antes, para que el merge no haga un SELECT por perfil.
+     */
+    private void guardarLote(List<Pendiente> lote) {
+        List<PerfilJugador> entidades = lote.stream().map(Pendiente::entidad).toList();
+        List<String> existentes = entidades.stream()
+                .filter(entidad -> !entidad.isNew())
+                .map(PerfilJugador::getNombreJugador)
+                .toList();
+        try {
+            transaccion.executeWithoutResult(estado -> {
+                if (!existentes.isEmpty()) {
+                    perfilJugadorRepository.findAllById(existentes);
+                }
+                perfilJugadorRepository.saveAll(entidades);
+            });
+            lote.forEach(pendiente -> {
+                pendiente.perfil().marcarEnBase();
+                pendiente.perfil().marcarPersistido(pendiente.version());
+            });
+            log.debug("Persistidos {} perfiles de jugador", lote.size());
+        } catch (DataIntegrityViolationException e) {
+            // Otro proceso insertó alguno entre la carga y el guardado: el próximo ciclo actualiza
+            lote.forEach(pendiente -> pendiente.perfil().marcarEnBase());
+            log.warn("Algún perfil de {} ya tenía fila, se reintenta como actualización: {}",
+                    lote.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron persistir {} perfiles, se reintenta en el próximo ciclo: {}",
+                    lote.size(), e.getMessage());
+        }
+    }
+
+    private void programarCarga(PerfilOponente perfil) {
+        cargador.execute(() -> {
+            if (perfil.isCargado()) {
+                return;
+            }
+            try {
+                perfilJugadorRepository.findById(perfil.getNombreJugador())
+                        .ifPresent(fila -> {
+                            perfil.sumarPersistidos(fila.getContadores());
+                            perfil.marcarEnBase();
+                        });
+                perfil.marcarCargado();
+            } catch (RuntimeException e) {
+                log.warn("No se pudo cargar el perfil de {}: {}", perfil.getNombreJugador(), e.getMessage());
+            }
+        });
+    }
+
+    private static boolean esDebil(long mano) {
+        long restantes = mano;
+        while (restantes != 0) {
+            if (CodigoCarta.valorJerarquico(Long.numberOfTrailingZeros(restantes)) > JERARQUIA_MANO_DEBIL) {
+                return false;
+            }
+            restantes &= restantes - 1;
+        }
+        return mano != 0;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        persistir();
+        cargador.shutdown();
+    }
+
+    private static class PartidaEnCurso {
+        private final Set<String> jugadores = ConcurrentHashMap.newKeySet();
+        // Quiénes ya cantaron envido en la mano actual
+        private final Set<String> cantaronEnvido = ConcurrentHashMap.newKeySet();
+    }
+
+    private record Pendiente(PerfilOponente perfil, long version, PerfilJugador entidad) {
+    }
+}
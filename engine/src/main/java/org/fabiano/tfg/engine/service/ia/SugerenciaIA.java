@@ -0,0 +1,17 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import org.fabiano.tfg.engine.model.TipoCanto;
+
+/**
+ * Acción sugerida para el turno de un bot junto con la frase para la mesa.
+ *
+ * @param canto       canto sugerido, o {@code null} si conviene jugar una carta
+ * @param indiceCarta índice en la mano de la carta a jugar cuando no hay canto
+ * @param delModelo   {@code true} si la sugerencia vino del LLM y no de la heurística
+ */
+public record SugerenciaIA(String frase, TipoCanto canto, Integer indiceCarta, boolean delModelo) {
+
+    public SugerenciaIA conFrase(String otraFrase) {
+        return new SugerenciaIA(otraFrase, canto, indiceCarta, delModelo);
+    }
+}
@@ -0,0 +1,171 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tablas de estrategia precalculadas, mapeadas en memoria en modo sólo lectura.
+ * Los datos no se copian al heap: cada consulta lee un {@code short} en un
+ * offset calculado, y varios procesos que abren el mismo archivo comparten las
+ * páginas a través de la cache del sistema operativo.
+ *
+ * <p>Formato (little-endian):</p>
+ * <pre>
+ * cabecera (64 bytes)
+ *   int  MAGIA, int VERSION
+ *   int  puntajeMaximo   (la situación es puntos propios x puntos rivales, 0..puntajeMaximo)
+ *   int  bucketsMano     (fuerza de la mano para el truco)
+ *   long offsetEnvido, long offsetTruco
+ * envido [situación][puntos 0..33] -> u16 cantar, u16 querer
+ * truco  [situación][bucket][nivel 0..2] -> u16 subir, u16 aceptar
+ * </pre>
+ * Las probabilidades se guardan escaladas a 0..65535.
+ */
+public class TablaPoliticas implements AutoCloseable {
+
+    static final int MAGIA = 0x5452504C; // "TRPL"
+    static final int VERSION = 1;
+    static final int TAMANO_CABECERA = 64;
+    static final int PUNTOS_ENVIDO = 34;
+    static final int NIVELES_TRUCO = 3;
+    static final int TAMANO_ENTRADA = 4;
+    static final double ESCALA = 65535.0;
+
+    private final FileChannel canal;
+    private final MappedByteBuffer buffer;
+    private final int puntajeMaximo;
+    private final int bucketsMano;
+    private final long offsetEnvido;
+    private final long offsetTruco;
+
+    private TablaPoliticas(FileChannel canal, MappedByteBuffer buffer) {
+        this.canal = canal;
+        this.buffer = buffer;
+        if (buffer.capacity() < TAMANO_CABECERA || buffer.getInt(0) != MAGIA) {
+            throw new IllegalStateException("El archivo no es una tabla de políticas");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Versión de tabla de políticas no soportada: " + buffer.getInt(4));
+        }
+        this.puntajeMaximo = buffer.getInt(8);
+        this.bucketsMano = buffer.getInt(12);
+        this.offsetEnvido = buffer.getLong(16);
+        this.offsetTruco = buffer.getLong(24);
+        if (puntajeMaximo <= 0 || bucketsMano <= 0) {
+            throw new IllegalStateException("Dimensiones inválidas en la tabla de políticas: puntajeMaximo="
+                    + puntajeMaximo + ", bucketsMano=" + bucketsMano);
+        }
+        // Con el tamaño y los offsets que corresponden a las dimensiones, ninguna lectura sale del archivo
+        long esperado;
+        try {
+            esperado = tamanoArchivo(puntajeMaximo, bucketsMano);
+        } catch (ArithmeticException e) {
+            esperado = -1;
+        }
+        if (buffer.capacity() != esperado) {
+            throw new IllegalStateException("La tabla de políticas mide " + buffer.capacity()
+                    + " bytes y sus dimensiones piden " + esperado);
+        }
+        if (offsetEnvido != TAMANO_CABECERA || offsetTruco != offsetTruco(puntajeMaximo)) {
+            throw new IllegalStateException("Offsets inválidos en la tabla de políticas: envido="
+                    + offsetEnvido + ", truco=" + offsetTruco);
+        }
+    }
+
+    public static TablaPoliticas abrir(Path archivo) throws IOException {
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        try {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("La tabla supera los 2 GB que admite un único mapeo");
+            }
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new TablaPoliticas(canal, buffer);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public double probabilidadCantarEnvido(int propios, int rivales, int puntosEnvido) {
+        return leer(offsetEnvidoDe(propios, rivales, puntosEnvido));
+    }
+
+    public double probabilidadQuererEnvido(int propios, int rivales, int puntosEnvido) {
+        return leer(offsetEnvidoDe(propios, rivales, puntosEnvido) + 2);
+    }
+
+    /**
+     * @param nivel 0 = truco, 1 = retruco, 2 = vale cuatro
+     */
+    public double probabilidadSubirTruco(int propios, int rivales, int bucketMano, int nivel) {
+        return leer(offsetTrucoDe(propios, rivales, bucketMano, nivel));
+    }
+
+    public double probabilidadAceptarTruco(int propios, int rivales, int bucketMano, int nivel) {
+        return leer(offsetTrucoDe(propios, rivales, bucketMano, nivel) + 2);
+    }
+
+    public int getPuntajeMaximo() {
+        return puntajeMaximo;
+    }
+
+    public int getBucketsMano() {
+        return bucketsMano;
+    }
+
+    /**
+     * Bucket de fuerza para el truco: suma de la jerarquía de las cartas que
+     * quedan en la mano, acotada a la cantidad de buckets de la tabla.
+     */
+    public int bucketMano(int sumaJerarquia) {
+        return Math.min(Math.max(sumaJerarquia, 0), bucketsMano - 1);
+    }
+
+    private long offsetEnvidoDe(int propios, int rivales, int puntosEnvido) {
+        long situacion = situacion(propios, rivales);
+        int puntos = Math.min(Math.max(puntosEnvido, 0), PUNTOS_ENVIDO - 1);
+        return offsetEnvido + (situacion * PUNTOS_ENVIDO + puntos) * TAMANO_ENTRADA;
+    }
+
+    private long offsetTrucoDe(int propios, int rivales, int bucketMano, int nivel) {
+        long situacion = situacion(propios, rivales);
+        int bucket = Math.min(Math.max(bucketMano, 0), bucketsMano - 1);
+        int n = Math.min(Math.max(nivel, 0), NIVELES_TRUCO - 1);
+        return offsetTruco + ((situacion * bucketsMano + bucket) * NIVELES_TRUCO + n) * TAMANO_ENTRADA;
+    }
+
+    private long situacion(int propios, int rivales) {
+        int p = Math.min(Math.max(propios, 0), puntajeMaximo);
+        int r = Math.min(Math.max(rivales, 0), puntajeMaximo);
+        return (long) p * ((long) puntajeMaximo + 1) + r;
+    }
+
+    private double leer(long offset) {
+        return (buffer.getShort(Math.toIntExact(offset)) & 0xFFFF) / ESCALA;
+    }
+
+    static long tamanoArchivo(int puntajeMaximo, int bucketsMano) {
+        long situaciones = situaciones(puntajeMaximo);
+        return Math.addExact(offsetTruco(puntajeMaximo),
+                Math.multiplyExact(situaciones, (long) bucketsMano * NIVELES_TRUCO * TAMANO_ENTRADA));
+    }
+
+    static long offsetTruco(int puntajeMaximo) {
+        return Math.addExact(TAMANO_CABECERA,
+                Math.multiplyExact(situaciones(puntajeMaximo), (long) PUNTOS_ENVIDO * TAMANO_ENTRADA));
+    }
+
+    private static long situaciones(int puntajeMaximo) {
+        return Math.multiplyExact((long) puntajeMaximo + 1, (long) puntajeMaximo + 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
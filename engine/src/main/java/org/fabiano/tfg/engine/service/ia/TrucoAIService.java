@@ -0,0 +1,221 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.Jugada;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.TipoCanto;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio IA de frases y decisiones (ver arquitectura.puml): arma un prompt
+ * con el contexto de la mano, consulta al LLM de forma asíncrona y devuelve la
+ * acción sugerida y la frase para la mesa.
+ *
+ * <p>El futuro devuelto siempre se completa dentro del plazo configurado: si el
+ * modelo tarda, falla o hay demasiadas consultas en vuelo se usa
+ * {@link HeuristicaIA}. Las respuestas se cachean por prompt, así que una
+ * misma situación de juego no vuelve a consultar al modelo.</p>
+ */
+@Slf4j
+@Service
+public class TrucoAIService {
+
+    private final ClienteLLM clienteLLM;
+    private final HeuristicaIA heuristica;
+    private final long plazoMs;
+    private final long abandonoMs;
+    private final Semaphore enVuelo;
+
+    private final Map<String, SugerenciaIA> cache;
+    private final Map<String, CompletableFuture<SugerenciaIA>> pendientes = new ConcurrentHashMap<>();
+
+    public TrucoAIService(Optional<ClienteLLM> clienteLLM,
+                          HeuristicaIA heuristica,
+                          @Value("${truco.ia.llm.plazo-ms:800}") long plazoMs,
+                          @Value("${truco.ia.llm.abandono-ms:10000}") long abandonoMs,
+                          @Value("${truco.ia.llm.max-en-vuelo:8}") int maxEnVuelo,
+                          @Value("${truco.ia.llm.cache-tamano:1000}") int tamanoCache) {
+        this.clienteLLM = clienteLLM.orElse(null);
+        this.heuristica = heuristica;
+        this.plazoMs = plazoMs;
+        this.abandonoMs = abandonoMs;
+        this.enVuelo = new Semaphore(maxEnVuelo);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SugerenciaIA> eldest) {
+                return size() > tamanoCache;
+            }
+        });
+        if (this.clienteLLM == null) {
+            log.info("Sin cliente LLM configurado: las sugerencias usan sólo la heurística");
+        }
+    }
+
+    /**
+     * Sugiere la acción del jugador. Debe llamarse desde el hilo que tiene la
+     * partida; el resultado llega como mucho en {@code plazo-ms}.
+     */
+    public CompletableFuture<SugerenciaIA> sugerir(Partida partida, Jugador jugador) {
+        SugerenciaIA respaldo = heuristica.decidir(partida, jugador);
+        if (clienteLLM == null) {
+            return CompletableFuture.completedFuture(respaldo);
+        }
+
+        String prompt = construirPrompt(partida, jugador);
+        SugerenciaIA cacheada = cache.get(prompt);
+        if (cacheada != null) {
+            return CompletableFuture.completedFuture(cacheada);
+        }
+
+        CompletableFuture<SugerenciaIA> enCurso = pendientes.get(prompt);
+        if (enCurso == null) {
+            if (!enVuelo.tryAcquire()) {
+                log.debug("Demasiadas consultas al LLM en vuelo, se usa la heurística");
+                return CompletableFuture.completedFuture(respaldo);
+            }
+            CompletableFuture<SugerenciaIA> nueva = new CompletableFuture<>();
+            enCurso = pendientes.putIfAbsent(prompt, nueva);
+            if (enCurso != null) {
+                enVuelo.release();
+            } else {
+                enCurso = nueva;
+                consultarModelo(prompt, respaldo, cantidadCartas(jugador), nueva);
+            }
+        }
+
+        return enCurso.copy()
+                .completeOnTimeout(respaldo, plazoMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> respaldo);
+    }
+
+    public int consultasEnVuelo() {
+        return pendientes.size();
+    }
+
+    private void consultarModelo(String prompt, SugerenciaIA respaldo, int cartasEnMano,
+                                 CompletableFuture<SugerenciaIA> resultado) {
+        CompletableFuture<String> llamada;
+        try {
+            llamada = clienteLLM.completar(prompt);
+        } catch (RuntimeException e) {
+            llamada = CompletableFuture.failedFuture(e);
+        }
+
+        // El permiso se libera cuando el modelo termina, aunque ya se haya usado el respaldo
+        llamada.orTimeout(abandonoMs, TimeUnit.MILLISECONDS).whenComplete((texto, error) -> {
+            try {
+                if (error != null) {
+                    log.warn("El LLM no respondió: {}", error.toString());
+                    resultado.completeExceptionally(error);
+                    return;
+                }
+                SugerenciaIA sugerencia = interpretar(texto, respaldo, cartasEnMano);
+                // En la cache antes de dejar de estar pendiente: quien llegue en
+                // el medio la encuentra en uno de los dos y no vuelve a consultar
+                cache.put(prompt, sugerencia);
+                resultado.complete(sugerencia);
+            } finally {
+                pendientes.remove(prompt);
+                enVuelo.release();
+            }
+        });
+    }
+
+    /**
+     * Espera líneas "ACCION: TRUCO" o "ACCION: CARTA 2" y "FRASE: ...". Si la
+     * acción no es válida se conserva la de la heurística con la frase del modelo.
+     */
+    SugerenciaIA interpretar(String texto, SugerenciaIA respaldo, int cartasEnMano) {
+        if (texto == null || texto.isBlank()) {
+            return respaldo;
+        }
+        String frase = null;
+        String accion = null;
+        for (String linea : texto.split("\\R")) {
+            String limpia = linea.trim();
+            String mayusculas = limpia.toUpperCase(Locale.ROOT);
+            if (mayusculas.startsWith("FRASE:")) {
+                frase = limpia.substring("FRASE:".length()).trim();
+            } else if (mayusculas.startsWith("ACCION:") || mayusculas.startsWith("ACCIÓN:")) {
+                accion = mayusculas.substring(mayusculas.indexOf(':') + 1).trim();
+            }
+        }
+        String fraseFinal = frase != null && !frase.isEmpty() ? frase : respaldo.frase();
+
+        if (accion != null) {
+            if (accion.startsWith("CARTA")) {
+                try {
+                    int indice = Integer.parseInt(accion.substring("CARTA".length()).trim());
+                    if (indice >= 0 && indice < cartasEnMano) {
+                        return new SugerenciaIA(fraseFinal, null, indice, true);
+                    }
+                } catch (NumberFormatException e) {
+                    log.debug("Índice de carta inválido en la respuesta del LLM: {}", accion);
+                }
+            } else {
+                try {
+                    TipoCanto canto = TipoCanto.valueOf(accion.replace(' ', '_'));
+                    return new SugerenciaIA(fraseFinal, canto, null, true);
+                } catch (IllegalArgumentException e) {
+                    log.debug("Acción desconocida en la respuesta del LLM: {}", accion);
+                }
+            }
+        }
+        return respaldo.conFrase(fraseFinal);
+    }
+
+    /**
+     * El prompt sólo incluye lo que el jugador puede ver, y nada que cambie
+     * entre partidas (ids, nombres de partida), para que la cache sirva.
+     */
+    String construirPrompt(Partida partida, Jugador jugador) {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("Sos un jugador de truco argentino. Respondé con dos líneas:\n")
+                .append("ACCION: <CARTA n | ENVIDO | REAL_ENVIDO | FALTA_ENVIDO | TRUCO | RETRUCO | VALE_CUATRO | QUIERO | NO_QUIERO | AL_MAZO>\n")
+                .append("FRASE: <lo que decís en la mesa>\n\n");
+        sb.append("Tus cartas:");
+        List<Carta> mano = jugador.getMano();
+        if (mano != null) {
+            for (int i = 0; i < mano.size(); i++) {
+                sb.append(' ').append(i).append('=').append(mano.get(i));
+            }
+        }
+        sb.append("\nVuelta: ").append(partida.getVuelta());
+        sb.append("\nCartas en la mesa:");
+        for (Jugada jugada : partida.getCartasJugadasEnVueltaActual()) {
+            sb.append(' ').append(jugada.getCarta());
+        }
+        sb.append("\nEnvido cantado: ").append(partida.isEnvidoCantado())
+                .append(", truco cantado: ").append(partida.isTrucoCantado())
+                .append(", retruco: ").append(partida.isRetrucoCantado())
+                .append(", vale cuatro: ").append(partida.isValeCuatroCantado());
+        sb.append("\nPuntajes:");
+        if (partida.getEquipos() != null) {
+            for (Equipo equipo : partida.getEquipos()) {
+                boolean propio = equipo.getJugadores() != null && equipo.getJugadores().contains(jugador);
+                sb.append(propio ? " nosotros=" : " ellos=").append(equipo.getPuntaje());
+            }
+        }
+        sb.append(" (se juega a ").append(partida.getPuntajeLimite()).append(')');
+        return sb.toString();
+    }
+
+    private static int cantidadCartas(Jugador jugador) {
+        return jugador.getMano() != null ? jugador.getMano().size() : 0;
+    }
+}
@@ -0,0 +1,38 @@
+package org.fabiano.tfg.engine.service.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Elige la base al pedir la conexión: la réplica para las lecturas marcadas
+ * con {@link LecturaReplica} dentro de una transacción de sólo lectura y
+ * mientras la réplica esté al día; la primaria para todo lo demás. Va
+ * envuelto en un {@code LazyConnectionDataSourceProxy} para que la conexión
+ * se pida en la primera sentencia, cuando ya se sabe si la transacción es de
+ * sólo lectura.
+ */
+public class DataSourceRuteado extends AbstractRoutingDataSource {
+
+    public enum Destino { PRIMARIA, REPLICA }
+
+    private final GuardiaReplica guardia;
+
+    public DataSourceRuteado(DataSource primaria, DataSource replica, GuardiaReplica guardia) {
+        this.guardia = guardia;
+        setTargetDataSources(Map.of(Destino.PRIMARIA, primaria, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primaria);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Destino determineCurrentLookupKey() {
+        return LecturaReplica.activa()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && guardia.disponible()
+                ? Destino.REPLICA
+                : Destino.PRIMARIA;
+    }
+}
@@ -0,0 +1,111 @@
+package org.fabiano.tfg.engine.service.replica;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decide qué lecturas pueden ir a la réplica. Mide el retraso de la réplica
+ * cada tanto y, si pasa de {@code retraso-maximo-ms} o no responde, manda
+ * todo a la primaria. Además, después de una acción de un jugador, sus
+ * propias lecturas quedan en la primaria durante el vaciado de la
+ * escritura diferida más el retraso medido: así ve lo que acaba de hacer.
+ * Sin {@code truco.replica.url} no hay réplica y todo va a la primaria.
+ */
+@Slf4j
+@Component
+public class GuardiaReplica {
+
+    private final JdbcTemplate replica;
+    private final String consultaRetraso;
+    private final long retrasoMaximoMs;
+    // Lo que tarda una acción en llegar a la primaria, más un margen
+    private final long ventanaMs;
+
+    private final Map<String, Long> ultimasAcciones = new ConcurrentHashMap<>();
+    // Hasta la primera medición no se sabe si la réplica está al día
+    private volatile boolean disponible;
+    private volatile long retrasoMs;
+
+    public GuardiaReplica(@Qualifier("replicaDataSource") Optional<DataSource> replica,
+                          @Value("${truco.replica.consulta-retraso:SELECT 0}") String consultaRetraso,
+                          @Value("${truco.replica.retraso-maximo-ms:2000}") long retrasoMaximoMs,
+                          @Value("${truco.partidas.vaciar-cada-ms:250}") long vaciarCadaMs,
+                          @Value("${truco.replica.margen-ms:500}") long margenMs) {
+        this.replica = replica.map(JdbcTemplate::new).orElse(null);
+        this.consultaRetraso = consultaRetraso;
+        this.retrasoMaximoMs = retrasoMaximoMs;
+        this.ventanaMs = vaciarCadaMs + margenMs;
+    }
+
+    /**
+     * Corre la lectura en la réplica si se puede. Las transacciones de sólo
+     * lectura que abra adentro toman la conexión de ahí.
+     */
+    public <T, E extends Exception> T leer(LecturaReplica.Lectura<T, E> lectura) throws E {
+        return leer(null, lectura);
+    }
+
+    /**
+     * Como {@link #leer(LecturaReplica.Lectura)}, pero queda en la primaria
+     * si el jugador actuó hace poco.
+     */
+    public <T, E extends Exception> T leer(String jugador, LecturaReplica.Lectura<T, E> lectura) throws E {
+        return puedeLeerDeReplica(jugador) ? LecturaReplica.ejecutar(lectura) : lectura.leer();
+    }
+
+    public void registrarAccion(String jugador) {
+        if (replica != null && jugador != null) {
+            ultimasAcciones.put(jugador, System.currentTimeMillis());
+        }
+    }
+
+    public boolean puedeLeerDeReplica(String jugador) {
+        if (!disponible()) {
+            return false;
+        }
+        Long ultima = jugador == null ? null : ultimasAcciones.get(jugador);
+        return ultima == null || System.currentTimeMillis() - ultima >= ventanaMs + retrasoMs;
+    }
+
+    public boolean disponible() {
+        return replica != null && disponible;
+    }
+
+    public long getRetrasoMs() {
+        return retrasoMs;
+    }
+
+    @Scheduled(fixedDelayString = "${truco.replica.medir-cada-ms:1000}")
+    public void medir() {
+        if (replica == null) {
+            return;
+        }
+        boolean estaba = disponible;
+        try {
+            Number medido = replica.queryForObject(consultaRetraso, Number.class);
+            retrasoMs = medido == null ? 0 : medido.longValue();
+            disponible = retrasoMs <= retrasoMaximoMs;
+            if (estaba != disponible) {
+                log.info("Réplica {} (retraso {} ms)", disponible ? "en uso" : "atrasada, se lee de la primaria",
+                        retrasoMs);
+            }
+        } catch (DataAccessException e) {
+            disponible = false;
+            if (estaba) {
+                log.warn("Réplica sin respuesta, se lee de la primaria: {}", e.getMessage());
+            }
+        }
+        long vencidas = System.currentTimeMillis() - ventanaMs - retrasoMaximoMs;
+        ultimasAcciones.values().removeIf(instante -> instante < vencidas);
+    }
+}
@@ -0,0 +1,33 @@
+package org.fabiano.tfg.engine.service.replica;
+
+/**
+ * Marca el hilo que está haciendo una lectura que puede ir a la réplica.
+ * Sólo se respeta dentro de una transacción de sólo lectura: el resto
+ * (cargas para jugar, reproducciones, escrituras) sigue en la primaria.
+ */
+public final class LecturaReplica {
+
+    private static final ThreadLocal<Boolean> ACTIVA = ThreadLocal.withInitial(() -> false);
+
+    private LecturaReplica() {
+    }
+
+    public static boolean activa() {
+        return ACTIVA.get();
+    }
+
+    static <T, E extends Exception> T ejecutar(Lectura<T, E> lectura) throws E {
+        boolean anterior = ACTIVA.get();
+        ACTIVA.set(true);
+        try {
+            return lectura.leer();
+        } finally {
+            ACTIVA.set(anterior);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Lectura<T, E extends Exception> {
+        T leer() throws E;
+    }
+}
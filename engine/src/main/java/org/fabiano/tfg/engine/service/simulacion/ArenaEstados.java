@@ -0,0 +1,334 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Arena fuera del heap para poblaciones grandes de estados de mano
+ * simulados (self-play, CFR). Cada estado ocupa {@value #TAMANO_ESTADO} bytes
+ * con un formato fijo y se identifica por su índice dentro de la arena, así
+ * que millones de estados no generan objetos para el recolector.
+ *
+ * <p>Formato de un estado (little-endian):</p>
+ * <pre>
+ *  0  long  mano del jugador 0 (máscara de {@code CodigoCarta})
+ *  8  long  mano del jugador 1
+ * 16  long  cartas en la mesa
+ * 24  byte  vuelta actual (0..2)
+ * 25  byte  jugador en turno
+ * 26  byte  resultado de las vueltas, 2 bits cada una (0 sin jugar, 1 y 2 el jugador, 3 parda)
+ * 27  byte  nivel de truco (0 nada, 1 truco, 2 retruco, 3 vale cuatro)
+ * 28  byte  carta que abrió la vuelta en curso (índice + 1, 0 si nadie jugó)
+ * 29  byte  puntos del jugador 0
+ * 30  byte  puntos del jugador 1
+ * 31  byte  banderas ({@link #TERMINADA}, {@link #ENVIDO_CANTADO}, ...)
+ * 32  byte  puntos del tanto (envido o flor) si se quiere, sin contar la falta
+ * 33  byte  puntos del tanto si no se quiere
+ * 34  byte  cantos del tanto ({@link #CANTO_ENVIDO}, {@link #CANTO_FLOR}, ...)
+ * 35  byte  banderas del tanto ({@link #FLOR_JUGADOR_0}, {@link #FLOR_PENDIENTE}, ...)
+ * 36  byte  puntos que vale la falta (falta envido, contraflor al resto)
+ * 37  reservado (3 bytes)
+ * </pre>
+ *
+ * <p>Los accesores no reservan memoria. La arena se reserva en bloques de
+ * {@code ByteBuffer} directos y no es thread-safe: cada hilo de simulación
+ * usa la suya.</p>
+ */
+public class ArenaEstados {
+
+    public static final int TAMANO_ESTADO = 40;
+
+    public static final int TERMINADA = 1;
+    public static final int ENVIDO_CANTADO = 1 << 1;
+    public static final int ENVIDO_RESUELTO = 1 << 2;
+    public static final int TRUCO_PENDIENTE = 1 << 3;
+    public static final int AL_MAZO = 1 << 4;
+    public static final int ENVIDO_PENDIENTE = 1 << 5;
+    public static final int ENVIDO_GANA_JUGADOR_1 = 1 << 6;
+    public static final int QUIERO_JUGADOR_1 = 1 << 7;
+
+    // Cantos del tanto
+    public static final int CANTO_ENVIDO = 1;
+    public static final int CANTO_ENVIDO_ENVIDO = 1 << 1;
+    public static final int CANTO_REAL_ENVIDO = 1 << 2;
+    public static final int CANTO_FALTA_ENVIDO = 1 << 3;
+    public static final int CANTO_FLOR = 1 << 4;
+    public static final int CANTO_CONTRAFLOR = 1 << 5;
+    public static final int CANTO_CONTRAFLOR_AL_RESTO = 1 << 6;
+
+    // Banderas del tanto
+    public static final int FLOR_JUGADOR_0 = 1;
+    public static final int FLOR_JUGADOR_1 = 1 << 1;
+    public static final int FLOR_GANA_JUGADOR_1 = 1 << 2;
+    public static final int FLOR_PENDIENTE = 1 << 3;
+    public static final int TANTO_INICIA_JUGADOR_1 = 1 << 4;
+    public static final int TRUCO_INICIA_JUGADOR_1 = 1 << 5;
+
+    private static final int OFFSET_MANOS = 0;
+    private static final int OFFSET_MESA = 16;
+    private static final int OFFSET_VUELTA = 24;
+    private static final int OFFSET_TURNO = 25;
+    private static final int OFFSET_RESULTADOS = 26;
+    private static final int OFFSET_TRUCO = 27;
+    private static final int OFFSET_CARTA_PENDIENTE = 28;
+    private static final int OFFSET_PUNTOS = 29;
+    private static final int OFFSET_BANDERAS = 31;
+    private static final int OFFSET_TANTO_QUERIDO = 32;
+    private static final int OFFSET_TANTO_NO_QUERIDO = 33;
+    private static final int OFFSET_CANTOS_TANTO = 34;
+    private static final int OFFSET_BANDERAS_TANTO = 35;
+    private static final int OFFSET_PUNTOS_FALTA = 36;
+
+    private static final int ESTADOS_POR_BLOQUE_DEFECTO = 1 << 20;
+
+    private final ByteBuffer[] bloques;
+    private final int desplazamientoBloque;
+    private final int mascaraBloque;
+    private final int capacidad;
+    private int usados;
+
+    public ArenaEstados(int capacidad) {
+        this(capacidad, ESTADOS_POR_BLOQUE_DEFECTO);
+    }
+
+    /**
+     * @param estadosPorBloque potencia de dos; limita el tamaño de cada buffer directo
+     */
+    public ArenaEstados(int capacidad, int estadosPorBloque) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        if (Integer.bitCount(estadosPorBloque) != 1 || (long) estadosPorBloque * TAMANO_ESTADO > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Estados por bloque inválidos: " + estadosPorBloque);
+        }
+        this.capacidad = capacidad;
+        this.desplazamientoBloque = Integer.numberOfTrailingZeros(estadosPorBloque);
+        this.mascaraBloque = estadosPorBloque - 1;
+        int cantidadBloques = (int) (((long) capacidad + estadosPorBloque - 1) / estadosPorBloque);
+        this.bloques = new ByteBuffer[cantidadBloques];
+        for (int i = 0; i < cantidadBloques; i++) {
+            int estados = Math.min(estadosPorBloque, capacidad - i * estadosPorBloque);
+            bloques[i] = ByteBuffer.allocateDirect(estados * TAMANO_ESTADO).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Reserva un estado nuevo, en cero.
+     *
+     * @return el índice del estado
+     */
+    public int reservar() {
+        if (usados == capacidad) {
+            throw new IllegalStateException("Arena llena: " + capacidad + " estados");
+        }
+        return usados++;
+    }
+
+    /**
+     * Libera todos los estados de una vez y los deja en cero para el próximo lote.
+     */
+    public void reiniciar() {
+        int restantes = usados;
+        for (int i = 0; restantes > 0; i++) {
+            ByteBuffer bloque = bloques[i];
+            int bytes = Math.min(restantes, mascaraBloque + 1) * TAMANO_ESTADO;
+            for (int pos = 0; pos < bytes; pos += Long.BYTES) {
+                bloque.putLong(pos, 0L);
+            }
+            restantes -= mascaraBloque + 1;
+        }
+        usados = 0;
+    }
+
+    public void copiar(int origen, int destino) {
+        ByteBuffer desde = bloque(origen);
+        ByteBuffer hacia = bloque(destino);
+        int posDesde = posicion(origen);
+        int posHacia = posicion(destino);
+        for (int i = 0; i < TAMANO_ESTADO; i += Long.BYTES) {
+            hacia.putLong(posHacia + i, desde.getLong(posDesde + i));
+        }
+    }
+
+    public int usados() {
+        return usados;
+    }
+
+    public int capacidad() {
+        return capacidad;
+    }
+
+    public long mano(int estado, int jugador) {
+        return bloque(estado).getLong(posicion(estado) + OFFSET_MANOS + jugador * Long.BYTES);
+    }
+
+    public void mano(int estado, int jugador, long mascara) {
+        bloque(estado).putLong(posicion(estado) + OFFSET_MANOS + jugador * Long.BYTES, mascara);
+    }
+
+    public long mesa(int estado) {
+        return bloque(estado).getLong(posicion(estado) + OFFSET_MESA);
+    }
+
+    public void mesa(int estado, long mascara) {
+        bloque(estado).putLong(posicion(estado) + OFFSET_MESA, mascara);
+    }
+
+    /**
+     * Saca la carta de la mano del jugador y la pone en la mesa.
+     */
+    public void jugar(int estado, int jugador, int indiceCarta) {
+        long bit = 1L << indiceCarta;
+        mano(estado, jugador, mano(estado, jugador) & ~bit);
+        mesa(estado, mesa(estado) | bit);
+    }
+
+    public int vuelta(int estado) {
+        return leerByte(estado, OFFSET_VUELTA);
+    }
+
+    public void vuelta(int estado, int vuelta) {
+        escribirByte(estado, OFFSET_VUELTA, vuelta);
+    }
+
+    public int turno(int estado) {
+        return leerByte(estado, OFFSET_TURNO);
+    }
+
+    public void turno(int estado, int jugador) {
+        escribirByte(estado, OFFSET_TURNO, jugador);
+    }
+
+    /**
+     * @return 0 sin jugar, 1 ganó el jugador 0, 2 ganó el jugador 1, 3 parda
+     */
+    public int resultadoVuelta(int estado, int vuelta) {
+        return (leerByte(estado, OFFSET_RESULTADOS) >>> (vuelta * 2)) & 0b11;
+    }
+
+    /**
+     * Los resultados de las tres vueltas empaquetados en un byte.
+     */
+    public int resultadosVueltas(int estado) {
+        return leerByte(estado, OFFSET_RESULTADOS);
+    }
+
+    public void resultadoVuelta(int estado, int vuelta, int resultado) {
+        int desplazamiento = vuelta * 2;
+        int actual = leerByte(estado, OFFSET_RESULTADOS) & ~(0b11 << desplazamiento);
+        escribirByte(estado, OFFSET_RESULTADOS, actual | ((resultado & 0b11) << desplazamiento));
+    }
+
+    public int nivelTruco(int estado) {
+        return leerByte(estado, OFFSET_TRUCO);
+    }
+
+    public void nivelTruco(int estado, int nivel) {
+        escribirByte(estado, OFFSET_TRUCO, nivel);
+    }
+
+    /**
+     * @return el índice de la carta que abrió la vuelta, o -1 si nadie jugó todavía
+     */
+    public int cartaPendiente(int estado) {
+        return leerByte(estado, OFFSET_CARTA_PENDIENTE) - 1;
+    }
+
+    public void cartaPendiente(int estado, int indiceCarta) {
+        escribirByte(estado, OFFSET_CARTA_PENDIENTE, indiceCarta + 1);
+    }
+
+    public int puntos(int estado, int jugador) {
+        return leerByte(estado, OFFSET_PUNTOS + jugador);
+    }
+
+    public void puntos(int estado, int jugador, int puntos) {
+        escribirByte(estado, OFFSET_PUNTOS + jugador, puntos);
+    }
+
+    /**
+     * Todas las banderas del estado, tal como están guardadas.
+     */
+    public int banderas(int estado) {
+        return leerByte(estado, OFFSET_BANDERAS);
+    }
+
+    public boolean tieneBandera(int estado, int bandera) {
+        return (leerByte(estado, OFFSET_BANDERAS) & bandera) != 0;
+    }
+
+    public void marcar(int estado, int bandera) {
+        escribirByte(estado, OFFSET_BANDERAS, leerByte(estado, OFFSET_BANDERAS) | bandera);
+    }
+
+    public void desmarcar(int estado, int bandera) {
+        escribirByte(estado, OFFSET_BANDERAS, leerByte(estado, OFFSET_BANDERAS) & ~bandera);
+    }
+
+    public int tantoQuerido(int estado) {
+        return leerByte(estado, OFFSET_TANTO_QUERIDO);
+    }
+
+    public void tantoQuerido(int estado, int puntos) {
+        escribirByte(estado, OFFSET_TANTO_QUERIDO, puntos);
+    }
+
+    public int tantoNoQuerido(int estado) {
+        return leerByte(estado, OFFSET_TANTO_NO_QUERIDO);
+    }
+
+    public void tantoNoQuerido(int estado, int puntos) {
+        escribirByte(estado, OFFSET_TANTO_NO_QUERIDO, puntos);
+    }
+
+    public int cantosTanto(int estado) {
+        return leerByte(estado, OFFSET_CANTOS_TANTO);
+    }
+
+    public void cantosTanto(int estado, int cantos) {
+        escribirByte(estado, OFFSET_CANTOS_TANTO, cantos);
+    }
+
+    public int banderasTanto(int estado) {
+        return leerByte(estado, OFFSET_BANDERAS_TANTO);
+    }
+
+    public boolean tieneBanderaTanto(int estado, int bandera) {
+        return (leerByte(estado, OFFSET_BANDERAS_TANTO) & bandera) != 0;
+    }
+
+    public void marcarTanto(int estado, int bandera) {
+        escribirByte(estado, OFFSET_BANDERAS_TANTO, leerByte(estado, OFFSET_BANDERAS_TANTO) | bandera);
+    }
+
+    public void desmarcarTanto(int estado, int bandera) {
+        escribirByte(estado, OFFSET_BANDERAS_TANTO, leerByte(estado, OFFSET_BANDERAS_TANTO) & ~bandera);
+    }
+
+    public int puntosFalta(int estado) {
+        return leerByte(estado, OFFSET_PUNTOS_FALTA);
+    }
+
+    public void puntosFalta(int estado, int puntos) {
+        escribirByte(estado, OFFSET_PUNTOS_FALTA, puntos);
+    }
+
+    private int leerByte(int estado, int offset) {
+        return bloque(estado).get(posicion(estado) + offset) & 0xFF;
+    }
+
+    private void escribirByte(int estado, int offset, int valor) {
+        bloque(estado).put(posicion(estado) + offset, (byte) valor);
+    }
+
+    private ByteBuffer bloque(int estado) {
+        if (estado < 0 || estado >= usados) {
+            throw new IndexOutOfBoundsException("Estado no reservado: " + estado);
+        }
+        return bloques[estado >>> desplazamientoBloque];
+    }
+
+    private int posicion(int estado) {
+        return (estado & mascaraBloque) * TAMANO_ESTADO;
+    }
+}
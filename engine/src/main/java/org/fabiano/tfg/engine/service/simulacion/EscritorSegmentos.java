@@ -0,0 +1,117 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.fabiano.tfg.engine.service.simulacion.SegmentoRegistros.*;
+
+/**
+ * Escribe registros de self-play en segmentos mapeados en memoria que rotan
+ * al llenarse. Cada hilo usa su propio escritor, así que no hay
+ * sincronización. Los registros de una mano siempre quedan en el mismo
+ * segmento para poder completar su resultado al terminarla.
+ */
+public class EscritorSegmentos implements AutoCloseable {
+
+    private final Path directorio;
+    private final String prefijo;
+    private final int registrosPorSegmento;
+
+    private MappedByteBuffer buffer;
+    private int numeroSegmento = -1;
+    private int registros;
+    private int manos;
+    private long totalRegistros;
+
+    public EscritorSegmentos(Path directorio, String prefijo, int registrosPorSegmento) {
+        this.directorio = directorio;
+        this.prefijo = prefijo;
+        this.registrosPorSegmento = registrosPorSegmento;
+    }
+
+    /**
+     * Garantiza lugar para la cantidad de registros indicada en el segmento
+     * actual, abriendo uno nuevo si hace falta.
+     */
+    public void reservar(int cantidad) throws IOException {
+        if (cantidad > registrosPorSegmento) {
+            throw new IllegalArgumentException("No entran " + cantidad + " registros en un segmento");
+        }
+        if (buffer == null || registros + cantidad > registrosPorSegmento) {
+            rotar();
+        }
+    }
+
+    /**
+     * Escribe un registro sin resultado.
+     *
+     * @return la posición del registro dentro del segmento actual
+     */
+    public int escribir(ArenaEstados arena, int estado, int jugador, long accionesLegales, int accion) {
+        if (registros == registrosPorSegmento) {
+            throw new IllegalStateException("Segmento lleno; falta llamar a reservar()");
+        }
+        int registro = registros++;
+        int pos = TAMANO_CABECERA + registro * TAMANO_REGISTRO;
+        buffer.putLong(pos + OFFSET_MANO, arena.mano(estado, jugador));
+        buffer.putLong(pos + OFFSET_MESA, arena.mesa(estado));
+        buffer.putLong(pos + OFFSET_LEGALES, accionesLegales);
+        buffer.put(pos + OFFSET_JUGADOR, (byte) jugador);
+        buffer.put(pos + OFFSET_VUELTA, (byte) arena.vuelta(estado));
+        buffer.put(pos + OFFSET_TRUCO, (byte) arena.nivelTruco(estado));
+        buffer.put(pos + OFFSET_BANDERAS, (byte) arena.banderas(estado));
+        buffer.put(pos + OFFSET_RESULTADOS, (byte) arena.resultadosVueltas(estado));
+        buffer.put(pos + OFFSET_CARTA_PENDIENTE, (byte) (arena.cartaPendiente(estado) + 1));
+        buffer.put(pos + OFFSET_ACCION, (byte) accion);
+        buffer.putInt(pos + OFFSET_NUMERO_MANO, manos);
+        totalRegistros++;
+        return registro;
+    }
+
+    public void resultado(int registro, int puntos) {
+        buffer.putShort(TAMANO_CABECERA + registro * TAMANO_REGISTRO + OFFSET_RESULTADO, (short) puntos);
+    }
+
+    /**
+     * Cierra la mano en curso: publica la cantidad de registros en la
+     * cabecera, así un lector nunca ve manos a medio escribir.
+     */
+    public void confirmarMano() {
+        buffer.putLong(OFFSET_CANTIDAD, registros);
+        manos++;
+    }
+
+    public long totalRegistros() {
+        return totalRegistros;
+    }
+
+    @Override
+    public void close() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+    }
+
+    private void rotar() throws IOException {
+        close();
+        numeroSegmento++;
+        registros = 0;
+        manos = 0;
+        Path archivo = directorio.resolve(String.format("%s-%05d%s", prefijo, numeroSegmento, EXTENSION));
+        long tamano = TAMANO_CABECERA + (long) registrosPorSegmento * TAMANO_REGISTRO;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamano);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIA);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) TAMANO_REGISTRO);
+        buffer.putLong(OFFSET_CANTIDAD, 0L);
+    }
+}
@@ -0,0 +1,120 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Genera datos de entrenamiento jugando manos entre dos políticas. Cada
+ * decisión se guarda como registro de ancho fijo ({@link SegmentoRegistros})
+ * con el resultado final de la mano para quien decidió.
+ *
+ * <p>Cada hilo juega sobre su propia {@link ArenaEstados} y escribe en sus
+ * propios segmentos, así que el camino caliente no reserva objetos ni
+ * comparte estado.</p>
+ */
+@Slf4j
+@Service
+public class GeneradorSelfPlay {
+
+    // Cota de decisiones en una mano: 6 cartas, la cadena del tanto (hasta cuatro
+    // cantos y la respuesta) y la del truco (tres cantos con sus respuestas)
+    private static final int MAX_DECISIONES_POR_MANO = 24;
+    private static final int ESTADOS_POR_ARENA = 4096;
+
+    private final SimuladorMano simulador;
+    private final int registrosPorSegmento;
+
+    public GeneradorSelfPlay(ResolutorVueltasLote resolutor,
+                             @Value("${truco.simulacion.registros-por-segmento:1048576}") int registrosPorSegmento) {
+        this.simulador = new SimuladorMano(resolutor);
+        this.registrosPorSegmento = registrosPorSegmento;
+    }
+
+    /**
+     * Juega {@code manos} manos repartidas entre {@code hilos} hilos y deja los
+     * segmentos en el directorio.
+     *
+     * @return la cantidad de registros escritos
+     */
+    public long generar(Path directorio, PoliticaBot politicaMano, PoliticaBot politicaPie,
+                        long manos, int hilos, long semilla) throws IOException {
+        Files.createDirectories(directorio);
+        SplittableRandom raiz = new SplittableRandom(semilla);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<CompletableFuture<Long>> tareas = new ArrayList<>();
+            for (int hilo = 0; hilo < hilos; hilo++) {
+                long manosDelHilo = manos / hilos + (hilo < manos % hilos ? 1 : 0);
+                String prefijo = String.format("selfplay-%02d", hilo);
+                SplittableRandom rnd = raiz.split();
+                tareas.add(CompletableFuture.supplyAsync(
+                        () -> jugar(directorio, prefijo, politicaMano, politicaPie, manosDelHilo, rnd), ejecutor));
+            }
+            long total = 0;
+            for (CompletableFuture<Long> tarea : tareas) {
+                total += tarea.join();
+            }
+            log.info("Self-play: {} manos, {} registros en {}", manos, total, directorio);
+            return total;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private long jugar(Path directorio, String prefijo, PoliticaBot politicaMano, PoliticaBot politicaPie,
+                       long manos, SplittableRandom rnd) {
+        ArenaEstados arena = new ArenaEstados(ESTADOS_POR_ARENA);
+        int[] registros = new int[MAX_DECISIONES_POR_MANO];
+        int[] jugadores = new int[MAX_DECISIONES_POR_MANO];
+        try (EscritorSegmentos escritor = new EscritorSegmentos(directorio, prefijo, registrosPorSegmento)) {
+            for (long mano = 0; mano < manos; mano++) {
+                if (arena.usados() == arena.capacidad()) {
+                    arena.reiniciar();
+                }
+                int estado = arena.reservar();
+                simulador.repartir(arena, estado, rnd);
+                escritor.reservar(MAX_DECISIONES_POR_MANO);
+
+                int decisiones = 0;
+                while (!simulador.terminada(arena, estado)) {
+                    int jugador = arena.turno(estado);
+                    long legales = simulador.accionesLegales(arena, estado);
+                    PoliticaBot politica = jugador == 0 ? politicaMano : politicaPie;
+                    int accion = politica.elegir(arena, estado, jugador, legales, rnd);
+                    if ((legales & (1L << accion)) == 0) {
+                        throw new IllegalStateException("La política eligió una acción ilegal: " + accion);
+                    }
+                    registros[decisiones] = escritor.escribir(arena, estado, jugador, legales, accion);
+                    jugadores[decisiones] = jugador;
+                    decisiones++;
+                    simulador.aplicar(arena, estado, accion);
+                }
+                for (int i = 0; i < decisiones; i++) {
+                    escritor.resultado(registros[i], simulador.diferencia(arena, estado, jugadores[i]));
+                }
+                escritor.confirmarMano();
+            }
+            return escritor.totalRegistros();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
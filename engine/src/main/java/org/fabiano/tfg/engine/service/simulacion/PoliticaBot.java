@@ -0,0 +1,29 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Política de juego para la simulación. Recibe el estado dentro de la arena
+ * y la máscara de acciones legales ({@link SimuladorMano}) y devuelve la
+ * acción elegida. Las implementaciones se comparten entre hilos, así que no
+ * deben guardar estado mutable.
+ */
+@FunctionalInterface
+public interface PoliticaBot {
+
+    int elegir(ArenaEstados arena, int estado, int jugador, long accionesLegales, RandomGenerator rnd);
+
+    /**
+     * Elige una acción legal al azar, con probabilidad uniforme.
+     */
+    static PoliticaBot aleatoria() {
+        return (arena, estado, jugador, accionesLegales, rnd) -> {
+            int elegida = rnd.nextInt(Long.bitCount(accionesLegales));
+            long restantes = accionesLegales;
+            for (int i = 0; i < elegida; i++) {
+                restantes &= restantes - 1;
+            }
+            return Long.numberOfTrailingZeros(restantes);
+        };
+    }
+}
@@ -0,0 +1,150 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.service.JerarquiaLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resuelve lotes grandes de vueltas para la simulación. Equivale a
+ * {@code PartidaService.resolverRonda}, pero las cartas llegan como índices de
+ * {@link CodigoCarta} en arreglos primitivos, uno por asiento
+ * ({@code cartas[asiento][vuelta]}), y el ganador se calcula sin saltos
+ * sobre una tabla de jerarquía de 40 posiciones.
+ *
+ * <p>Los asientos siguen el orden en que se jugaron las cartas y alternan
+ * equipos (asiento par contra impar), como en el orden de turno de la partida.
+ * Ante un empate gana el primer asiento, igual que el {@code max} de
+ * {@code resolverRonda}; además se marca parda cuando el empate es entre
+ * equipos distintos.</p>
+ */
+@Service
+public class ResolutorVueltasLote {
+
+    private final int[] jerarquia;
+
+    @Autowired
+    public ResolutorVueltasLote(JerarquiaLoader jerarquiaLoader) {
+        this(tablaDesde(jerarquiaLoader));
+    }
+
+    /**
+     * @param jerarquia valor jerárquico de cada índice de carta (0..39)
+     */
+    public ResolutorVueltasLote(int[] jerarquia) {
+        if (jerarquia.length != CodigoCarta.TOTAL_CARTAS) {
+            throw new IllegalArgumentException("La tabla de jerarquía debe tener " + CodigoCarta.TOTAL_CARTAS + " valores");
+        }
+        this.jerarquia = jerarquia.clone();
+    }
+
+    /**
+     * Resuelve las vueltas {@code [0, cantidad)} del lote.
+     *
+     * @param cartas    índice de la carta de cada asiento en cada vuelta
+     * @param cantidad  cantidad de vueltas a resolver
+     * @param ganadores asiento ganador de cada vuelta (salida)
+     * @param pardas    1 si la vuelta quedó parda, 0 si no (salida, opcional)
+     */
+    public void resolver(int[][] cartas, int cantidad, int[] ganadores, byte[] pardas) {
+        validar(cartas, cantidad, ganadores, pardas);
+        int asientos = cartas.length;
+        int[] tabla = jerarquia;
+        int[] primera = cartas[0];
+
+        // Recorrer asiento por asiento mantiene los accesos secuenciales y
+        // deja bucles internos sin saltos que el JIT puede desenrollar
+        int[] mejores = new int[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            mejores[i] = tabla[primera[i]];
+            ganadores[i] = 0;
+        }
+        for (int asiento = 1; asiento < asientos; asiento++) {
+            int[] columna = cartas[asiento];
+            for (int i = 0; i < cantidad; i++) {
+                int valor = tabla[columna[i]];
+                int mejor = mejores[i];
+                // -1 si el valor supera estrictamente al mejor, 0 si no
+                int supera = (mejor - valor) >> 31;
+                mejores[i] = mejor ^ ((mejor ^ valor) & supera);
+                ganadores[i] = ganadores[i] ^ ((ganadores[i] ^ asiento) & supera);
+            }
+        }
+
+        if (pardas == null) {
+            return;
+        }
+        for (int i = 0; i < cantidad; i++) {
+            pardas[i] = 0;
+        }
+        for (int asiento = 0; asiento < asientos; asiento++) {
+            int[] columna = cartas[asiento];
+            for (int i = 0; i < cantidad; i++) {
+                int diferencia = tabla[columna[i]] - mejores[i];
+                // 1 si iguala al mejor, 0 si no
+                int iguala = ~(diferencia | -diferencia) >>> 31;
+                int otroEquipo = (asiento ^ ganadores[i]) & 1;
+                pardas[i] |= (byte) (iguala & otroEquipo);
+            }
+        }
+    }
+
+    /**
+     * Versión escalar para una sola vuelta; sirve de respaldo y de referencia.
+     *
+     * @return el asiento ganador
+     */
+    public int resolverVuelta(int... cartas) {
+        int ganador = 0;
+        int mejor = jerarquia[cartas[0]];
+        for (int asiento = 1; asiento < cartas.length; asiento++) {
+            int valor = jerarquia[cartas[asiento]];
+            if (valor > mejor) {
+                mejor = valor;
+                ganador = asiento;
+            }
+        }
+        return ganador;
+    }
+
+    /**
+     * Indica si la vuelta quedó parda: la mejor carta la igualó un asiento del
+     * otro equipo.
+     */
+    public boolean esParda(int... cartas) {
+        int ganador = resolverVuelta(cartas);
+        int mejor = jerarquia[cartas[ganador]];
+        for (int asiento = 0; asiento < cartas.length; asiento++) {
+            if (((asiento ^ ganador) & 1) == 1 && jerarquia[cartas[asiento]] == mejor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int valor(int indiceCarta) {
+        return jerarquia[indiceCarta];
+    }
+
+    private static void validar(int[][] cartas, int cantidad, int[] ganadores, byte[] pardas) {
+        if (cartas.length == 0) {
+            throw new IllegalArgumentException("El lote no tiene asientos");
+        }
+        for (int[] columna : cartas) {
+            if (columna.length < cantidad) {
+                throw new IllegalArgumentException("Faltan cartas en el lote para " + cantidad + " vueltas");
+            }
+        }
+        if (ganadores.length < cantidad || (pardas != null && pardas.length < cantidad)) {
+            throw new IllegalArgumentException("Los arreglos de salida son más chicos que el lote");
+        }
+    }
+
+    private static int[] tablaDesde(JerarquiaLoader jerarquiaLoader) {
+        int[] tabla = new int[CodigoCarta.TOTAL_CARTAS];
+        for (int indice = 0; indice < tabla.length; indice++) {
+            tabla[indice] = jerarquiaLoader.obtenerValor(CodigoCarta.carta(indice));
+        }
+        return tabla;
+    }
+}
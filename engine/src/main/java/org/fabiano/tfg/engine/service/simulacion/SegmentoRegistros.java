@@ -0,0 +1,161 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Lectura sin copias de un segmento de registros de self-play. El archivo se
+ * mapea en memoria y cada campo se lee directamente del buffer.
+ *
+ * <p>Formato (little-endian): cabecera de {@value #TAMANO_CABECERA} bytes
+ * (magia, versión, tamaño de registro, cantidad de registros) seguida de
+ * registros de {@value #TAMANO_REGISTRO} bytes:</p>
+ * <pre>
+ *  0  long   mano del jugador que decide
+ *  8  long   cartas en la mesa
+ * 16  long   acciones legales ({@link SimuladorMano})
+ * 24  byte   jugador que decide (0 es mano)
+ * 25  byte   vuelta
+ * 26  byte   nivel de truco
+ * 27  byte   banderas del estado ({@link ArenaEstados})
+ * 28  byte   resultado de las vueltas
+ * 29  byte   carta que abrió la vuelta (índice + 1, 0 si ninguna)
+ * 30  byte   acción elegida
+ * 31  byte   reservado
+ * 32  short  resultado de la mano para quien decide (puntos propios menos ajenos)
+ * 34  short  reservado
+ * 36  int    número de mano dentro del segmento
+ * </pre>
+ */
+public class SegmentoRegistros implements AutoCloseable {
+
+    public static final int MAGIA = 0x53504C59;
+    public static final short VERSION = 1;
+    public static final int TAMANO_CABECERA = 16;
+    public static final int TAMANO_REGISTRO = 40;
+    public static final String EXTENSION = ".seg";
+
+    static final int OFFSET_CANTIDAD = 8;
+    static final int OFFSET_MANO = 0;
+    static final int OFFSET_MESA = 8;
+    static final int OFFSET_LEGALES = 16;
+    static final int OFFSET_JUGADOR = 24;
+    static final int OFFSET_VUELTA = 25;
+    static final int OFFSET_TRUCO = 26;
+    static final int OFFSET_BANDERAS = 27;
+    static final int OFFSET_RESULTADOS = 28;
+    static final int OFFSET_CARTA_PENDIENTE = 29;
+    static final int OFFSET_ACCION = 30;
+    static final int OFFSET_RESULTADO = 32;
+    static final int OFFSET_NUMERO_MANO = 36;
+
+    private MappedByteBuffer buffer;
+    private final int cantidad;
+
+    private SegmentoRegistros(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.cantidad = (int) buffer.getLong(OFFSET_CANTIDAD);
+    }
+
+    public static SegmentoRegistros abrir(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < TAMANO_CABECERA || buffer.getInt(0) != MAGIA) {
+                throw new IOException("No es un segmento de self-play: " + archivo);
+            }
+            if (buffer.getShort(4) != VERSION || buffer.getShort(6) != TAMANO_REGISTRO) {
+                throw new IOException("Versión de segmento no soportada: " + archivo);
+            }
+            return new SegmentoRegistros(buffer);
+        }
+    }
+
+    /**
+     * Segmentos del directorio, ordenados por nombre.
+     */
+    public static List<Path> listar(Path directorio) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                    .filter(p -> p.getFileName().toString().endsWith(EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public int cantidad() {
+        return cantidad;
+    }
+
+    public long manoPropia(int registro) {
+        return buffer.getLong(posicion(registro) + OFFSET_MANO);
+    }
+
+    public long mesa(int registro) {
+        return buffer.getLong(posicion(registro) + OFFSET_MESA);
+    }
+
+    public long accionesLegales(int registro) {
+        return buffer.getLong(posicion(registro) + OFFSET_LEGALES);
+    }
+
+    public int jugador(int registro) {
+        return leerByte(registro, OFFSET_JUGADOR);
+    }
+
+    public int vuelta(int registro) {
+        return leerByte(registro, OFFSET_VUELTA);
+    }
+
+    public int nivelTruco(int registro) {
+        return leerByte(registro, OFFSET_TRUCO);
+    }
+
+    public int banderas(int registro) {
+        return leerByte(registro, OFFSET_BANDERAS);
+    }
+
+    public int resultadosVueltas(int registro) {
+        return leerByte(registro, OFFSET_RESULTADOS);
+    }
+
+    public int cartaPendiente(int registro) {
+        return leerByte(registro, OFFSET_CARTA_PENDIENTE) - 1;
+    }
+
+    public int accion(int registro) {
+        return leerByte(registro, OFFSET_ACCION);
+    }
+
+    public int resultado(int registro) {
+        return buffer.getShort(posicion(registro) + OFFSET_RESULTADO);
+    }
+
+    public int numeroMano(int registro) {
+        return buffer.getInt(posicion(registro) + OFFSET_NUMERO_MANO);
+    }
+
+    @Override
+    public void close() {
+        // No hay forma portable de desmapear: se libera al recolectar el buffer
+        buffer = null;
+    }
+
+    private int leerByte(int registro, int offset) {
+        return buffer.get(posicion(registro) + offset) & 0xFF;
+    }
+
+    private int posicion(int registro) {
+        if (registro < 0 || registro >= cantidad) {
+            throw new IndexOutOfBoundsException("Registro fuera del segmento: " + registro);
+        }
+        return TAMANO_CABECERA + registro * TAMANO_REGISTRO;
+    }
+}
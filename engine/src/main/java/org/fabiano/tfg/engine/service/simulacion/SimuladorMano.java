@@ -0,0 +1,425 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.ReglasMano;
+
+import java.util.random.RandomGenerator;
+
+import static org.fabiano.tfg.engine.model.ReglasMano.NIVEL_MAXIMO_TRUCO;
+import static org.fabiano.tfg.engine.model.ReglasMano.PARDA;
+import static org.fabiano.tfg.engine.model.ReglasMano.PUNTOS_CONTRAFLOR;
+import static org.fabiano.tfg.engine.model.ReglasMano.PUNTOS_ENVIDO;
+import static org.fabiano.tfg.engine.model.ReglasMano.PUNTOS_FLOR;
+import static org.fabiano.tfg.engine.model.ReglasMano.PUNTOS_FLOR_ACHICADA;
+import static org.fabiano.tfg.engine.model.ReglasMano.PUNTOS_REAL_ENVIDO;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.AL_MAZO;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.CANTO_CONTRAFLOR;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.CANTO_CONTRAFLOR_AL_RESTO;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.CANTO_ENVIDO;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.CANTO_ENVIDO_ENVIDO;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.CANTO_FALTA_ENVIDO;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.CANTO_FLOR;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.CANTO_REAL_ENVIDO;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.ENVIDO_CANTADO;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.ENVIDO_GANA_JUGADOR_1;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.ENVIDO_PENDIENTE;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.ENVIDO_RESUELTO;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.FLOR_GANA_JUGADOR_1;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.FLOR_JUGADOR_0;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.FLOR_JUGADOR_1;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.FLOR_PENDIENTE;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.QUIERO_JUGADOR_1;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.TANTO_INICIA_JUGADOR_1;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.TERMINADA;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.TRUCO_INICIA_JUGADOR_1;
+import static org.fabiano.tfg.engine.service.simulacion.ArenaEstados.TRUCO_PENDIENTE;
+
+/**
+ * Reglas de una mano de truco a dos jugadores sobre los estados de una
+ * {@link ArenaEstados}. El jugador 0 es mano. Los puntos de cada canto y
+ * quién gana la mano o el tanto salen de {@link ReglasMano}, las mismas
+ * reglas que usa el motor.
+ *
+ * <p>Las acciones se numeran de 0 a {@value #TOTAL_ACCIONES} - 1: los índices
+ * 0..39 juegan la carta con ese código y el resto son cantos. Las acciones
+ * legales se devuelven como máscara de bits sobre esos números.</p>
+ *
+ * <p>Cantos:</p>
+ * <ul>
+ *   <li>Truco, retruco y vale cuatro con la misma acción: la canta quien
+ *   tiene el quiero en su turno, o quien responde, queriendo el anterior
+ *   ("quiero retruco"). No querido vale lo último querido.</li>
+ *   <li>Envido, envido envido, real envido y falta envido en la primera
+ *   vuelta, antes de querer un truco; el envido va primero, así que se puede
+ *   cantar en respuesta al truco. Querido suma la cadena (la falta, lo que le
+ *   falta al que va ganando); no querido, lo querido antes del último canto,
+ *   o uno. Empate: gana el mano.</li>
+ *   <li>Flor para quien tiene tres cartas del mismo palo; mata el envido.
+ *   Si el rival no tiene flor suma {@value ReglasMano#PUNTOS_FLOR} en el acto; si
+ *   tiene, responde achicándose (no quiero), contraflor o contraflor al
+ *   resto.</li>
+ * </ul>
+ */
+public class SimuladorMano {
+
+    public static final int ACCION_TRUCO = CodigoCarta.TOTAL_CARTAS;
+    public static final int ACCION_ENVIDO = ACCION_TRUCO + 1;
+    public static final int ACCION_QUIERO = ACCION_TRUCO + 2;
+    public static final int ACCION_NO_QUIERO = ACCION_TRUCO + 3;
+    public static final int ACCION_AL_MAZO = ACCION_TRUCO + 4;
+    public static final int ACCION_REAL_ENVIDO = ACCION_TRUCO + 5;
+    public static final int ACCION_FALTA_ENVIDO = ACCION_TRUCO + 6;
+    public static final int ACCION_FLOR = ACCION_TRUCO + 7;
+    public static final int ACCION_CONTRAFLOR = ACCION_TRUCO + 8;
+    public static final int ACCION_CONTRAFLOR_AL_RESTO = ACCION_TRUCO + 9;
+    public static final int TOTAL_ACCIONES = ACCION_TRUCO + 10;
+
+    /**
+     * Falta de una partida a 30 recién empezada, para las manos sueltas.
+     */
+    public static final int FALTA_POR_DEFECTO = 30;
+
+    private static final int CANTOS_ENVIDO = CANTO_ENVIDO | CANTO_ENVIDO_ENVIDO | CANTO_REAL_ENVIDO | CANTO_FALTA_ENVIDO;
+
+    private final ResolutorVueltasLote resolutor;
+
+    public SimuladorMano(ResolutorVueltasLote resolutor) {
+        this.resolutor = resolutor;
+    }
+
+    /**
+     * Reparte tres cartas a cada jugador sobre un estado recién reservado.
+     */
+    public void repartir(ArenaEstados arena, int estado, RandomGenerator rnd) {
+        repartir(arena, estado, rnd, FALTA_POR_DEFECTO);
+    }
+
+    /**
+     * Como {@link #repartir(ArenaEstados, int, RandomGenerator)}, con lo que
+     * vale la falta en este punto de la partida.
+     */
+    public void repartir(ArenaEstados arena, int estado, RandomGenerator rnd, int puntosFalta) {
+        long usadas = 0L;
+        long[] manos = new long[2];
+        for (int jugador = 0; jugador < 2; jugador++) {
+            while (Long.bitCount(manos[jugador]) < 3) {
+                long bit = 1L << rnd.nextInt(CodigoCarta.TOTAL_CARTAS);
+                if ((usadas & bit) == 0) {
+                    usadas |= bit;
+                    manos[jugador] |= bit;
+                }
+            }
+        }
+        repartir(arena, estado, manos[0], manos[1], puntosFalta);
+    }
+
+    /**
+     * Da las manos indicadas (máscaras de {@link CodigoCarta}) sobre un
+     * estado recién reservado.
+     */
+    public void repartir(ArenaEstados arena, int estado, long manoJugador0, long manoJugador1, int puntosFalta) {
+        arena.mano(estado, 0, manoJugador0);
+        arena.mano(estado, 1, manoJugador1);
+        // Empate en el envido o la flor: gana el que es mano
+        if (ReglasMano.ganadorTanto(CodigoCarta.envido(manoJugador0), CodigoCarta.envido(manoJugador1)) == 1) {
+            arena.marcar(estado, ENVIDO_GANA_JUGADOR_1);
+        }
+        int flor0 = CodigoCarta.flor(manoJugador0);
+        int flor1 = CodigoCarta.flor(manoJugador1);
+        if (flor0 > 0) {
+            arena.marcarTanto(estado, FLOR_JUGADOR_0);
+        }
+        if (flor1 > 0) {
+            arena.marcarTanto(estado, FLOR_JUGADOR_1);
+        }
+        if (ReglasMano.ganadorTanto(flor0, flor1) == 1) {
+            arena.marcarTanto(estado, FLOR_GANA_JUGADOR_1);
+        }
+        arena.puntosFalta(estado, puntosFalta);
+        arena.turno(estado, 0);
+        arena.cartaPendiente(estado, -1);
+    }
+
+    public long accionesLegales(ArenaEstados arena, int estado) {
+        if (arena.tieneBandera(estado, TERMINADA)) {
+            return 0L;
+        }
+        int jugador = arena.turno(estado);
+        int cantos = arena.cantosTanto(estado);
+        if (arena.tieneBanderaTanto(estado, FLOR_PENDIENTE)) {
+            long legales = (1L << ACCION_NO_QUIERO);
+            if ((cantos & CANTO_CONTRAFLOR_AL_RESTO) == 0) {
+                legales |= 1L << ACCION_CONTRAFLOR_AL_RESTO;
+                if ((cantos & CANTO_CONTRAFLOR) == 0) {
+                    legales |= 1L << ACCION_CONTRAFLOR;
+                }
+            }
+            // A la flor sola no se la quiere: se le contesta con contraflor o se achica
+            if ((cantos & (CANTO_CONTRAFLOR | CANTO_CONTRAFLOR_AL_RESTO)) != 0) {
+                legales |= 1L << ACCION_QUIERO;
+            }
+            return legales;
+        }
+        if (arena.tieneBandera(estado, ENVIDO_PENDIENTE)) {
+            long legales = (1L << ACCION_QUIERO) | (1L << ACCION_NO_QUIERO);
+            if ((cantos & CANTO_FALTA_ENVIDO) == 0) {
+                legales |= 1L << ACCION_FALTA_ENVIDO;
+                if ((cantos & CANTO_REAL_ENVIDO) == 0) {
+                    legales |= 1L << ACCION_REAL_ENVIDO;
+                    if (cantos == CANTO_ENVIDO) {
+                        legales |= 1L << ACCION_ENVIDO;
+                    }
+                }
+            }
+            if (tieneFlor(arena, estado, jugador)) {
+                legales |= 1L << ACCION_FLOR;
+            }
+            return legales;
+        }
+        int nivel = arena.nivelTruco(estado);
+        long legales = 0L;
+        if (arena.tieneBandera(estado, TRUCO_PENDIENTE)) {
+            legales |= (1L << ACCION_QUIERO) | (1L << ACCION_NO_QUIERO);
+            if (nivel + 1 < NIVEL_MAXIMO_TRUCO) {
+                legales |= 1L << ACCION_TRUCO;
+            }
+        } else {
+            legales |= arena.mano(estado, jugador) | (1L << ACCION_AL_MAZO);
+            if (nivel == 0 || (nivel < NIVEL_MAXIMO_TRUCO && tieneElQuiero(arena, estado) == jugador)) {
+                legales |= 1L << ACCION_TRUCO;
+            }
+        }
+        if (tantoAbierto(arena, estado)) {
+            legales |= (1L << ACCION_ENVIDO) | (1L << ACCION_REAL_ENVIDO) | (1L << ACCION_FALTA_ENVIDO);
+            if (tieneFlor(arena, estado, jugador)) {
+                legales |= 1L << ACCION_FLOR;
+            }
+        }
+        return legales;
+    }
+
+    /**
+     * Aplica la acción del jugador en turno. No valida que sea legal.
+     */
+    public void aplicar(ArenaEstados arena, int estado, int accion) {
+        int jugador = arena.turno(estado);
+        int rival = 1 - jugador;
+        if (accion < CodigoCarta.TOTAL_CARTAS) {
+            jugarCarta(arena, estado, jugador, accion);
+        } else if (accion == ACCION_TRUCO) {
+            cantarTruco(arena, estado, jugador);
+        } else if (accion == ACCION_ENVIDO) {
+            int canto = (arena.cantosTanto(estado) & CANTO_ENVIDO) != 0 ? CANTO_ENVIDO_ENVIDO : CANTO_ENVIDO;
+            cantarEnvido(arena, estado, jugador, canto, PUNTOS_ENVIDO);
+        } else if (accion == ACCION_REAL_ENVIDO) {
+            cantarEnvido(arena, estado, jugador, CANTO_REAL_ENVIDO, PUNTOS_REAL_ENVIDO);
+        } else if (accion == ACCION_FALTA_ENVIDO) {
+            cantarEnvido(arena, estado, jugador, CANTO_FALTA_ENVIDO, 0);
+        } else if (accion == ACCION_FLOR) {
+            cantarFlor(arena, estado, jugador);
+        } else if (accion == ACCION_CONTRAFLOR) {
+            subirFlor(arena, estado, rival, CANTO_CONTRAFLOR, PUNTOS_FLOR_ACHICADA);
+        } else if (accion == ACCION_CONTRAFLOR_AL_RESTO) {
+            boolean contraflor = (arena.cantosTanto(estado) & CANTO_CONTRAFLOR) != 0;
+            subirFlor(arena, estado, rival, CANTO_CONTRAFLOR_AL_RESTO, ReglasMano.florNoQuerida(contraflor, true));
+        } else if (accion == ACCION_QUIERO || accion == ACCION_NO_QUIERO) {
+            responder(arena, estado, jugador, accion == ACCION_QUIERO);
+        } else if (accion == ACCION_AL_MAZO) {
+            arena.marcar(estado, AL_MAZO);
+            terminar(arena, estado, rival);
+        } else {
+            throw new IllegalArgumentException("Acción desconocida: " + accion);
+        }
+    }
+
+    public boolean terminada(ArenaEstados arena, int estado) {
+        return arena.tieneBandera(estado, TERMINADA);
+    }
+
+    /**
+     * Puntos que ganó el jugador en la mano menos los que ganó el rival.
+     */
+    public int diferencia(ArenaEstados arena, int estado, int jugador) {
+        return arena.puntos(estado, jugador) - arena.puntos(estado, 1 - jugador);
+    }
+
+    private void cantarTruco(ArenaEstados arena, int estado, int jugador) {
+        if (arena.tieneBandera(estado, TRUCO_PENDIENTE)) {
+            // Quiere lo cantado y sube: queda con el quiero hasta que le respondan
+            quererTruco(arena, estado, jugador);
+        } else {
+            arena.marcar(estado, TRUCO_PENDIENTE);
+            marcarQuien(arena, estado, TRUCO_INICIA_JUGADOR_1, jugador);
+        }
+        arena.turno(estado, 1 - jugador);
+    }
+
+    private void cantarEnvido(ArenaEstados arena, int estado, int jugador, int canto, int puntos) {
+        if (arena.tieneBandera(estado, ENVIDO_PENDIENTE)) {
+            arena.tantoNoQuerido(estado, arena.tantoQuerido(estado));
+        } else {
+            empezarTanto(arena, estado, jugador);
+            arena.marcar(estado, ENVIDO_PENDIENTE);
+            arena.tantoNoQuerido(estado, ReglasMano.envidoNoQuerido(0));
+        }
+        arena.tantoQuerido(estado, arena.tantoQuerido(estado) + puntos);
+        arena.cantosTanto(estado, arena.cantosTanto(estado) | canto);
+        arena.turno(estado, 1 - jugador);
+    }
+
+    private void cantarFlor(ArenaEstados arena, int estado, int jugador) {
+        if (arena.tieneBandera(estado, ENVIDO_PENDIENTE)) {
+            // La flor mata el envido: lo cantado no vale nada
+            arena.desmarcar(estado, ENVIDO_PENDIENTE);
+            arena.cantosTanto(estado, arena.cantosTanto(estado) & ~CANTOS_ENVIDO);
+        } else {
+            empezarTanto(arena, estado, jugador);
+        }
+        int rival = 1 - jugador;
+        boolean rivalConFlor = tieneFlor(arena, estado, rival);
+        arena.cantosTanto(estado, arena.cantosTanto(estado) | CANTO_FLOR);
+        if (!rivalConFlor) {
+            sumar(arena, estado, jugador, PUNTOS_FLOR);
+            resolverTanto(arena, estado);
+            return;
+        }
+        arena.marcarTanto(estado, FLOR_PENDIENTE);
+        arena.tantoNoQuerido(estado, PUNTOS_FLOR_ACHICADA);
+        arena.turno(estado, rival);
+    }
+
+    private void subirFlor(ArenaEstados arena, int estado, int rival, int canto, int noQuerido) {
+        arena.cantosTanto(estado, arena.cantosTanto(estado) | canto);
+        arena.tantoNoQuerido(estado, noQuerido);
+        arena.tantoQuerido(estado, PUNTOS_CONTRAFLOR);
+        arena.turno(estado, rival);
+    }
+
+    private void responder(ArenaEstados arena, int estado, int jugador, boolean quiere) {
+        int quienCanto = 1 - jugador;
+        int cantos = arena.cantosTanto(estado);
+        if (arena.tieneBanderaTanto(estado, FLOR_PENDIENTE)) {
+            if (quiere) {
+                int ganador = arena.tieneBanderaTanto(estado, FLOR_GANA_JUGADOR_1) ? 1 : 0;
+                boolean alResto = (cantos & CANTO_CONTRAFLOR_AL_RESTO) != 0;
+                sumar(arena, estado, ganador, ReglasMano.florQuerida(alResto, arena.puntosFalta(estado)));
+            } else {
+                sumar(arena, estado, quienCanto, arena.tantoNoQuerido(estado));
+            }
+            resolverTanto(arena, estado);
+            return;
+        }
+        if (arena.tieneBandera(estado, ENVIDO_PENDIENTE)) {
+            if (quiere) {
+                int ganador = arena.tieneBandera(estado, ENVIDO_GANA_JUGADOR_1) ? 1 : 0;
+                boolean falta = (cantos & CANTO_FALTA_ENVIDO) != 0;
+                sumar(arena, estado, ganador, falta ? arena.puntosFalta(estado) : arena.tantoQuerido(estado));
+            } else {
+                sumar(arena, estado, quienCanto, arena.tantoNoQuerido(estado));
+            }
+            resolverTanto(arena, estado);
+            return;
+        }
+        if (!quiere) {
+            arena.desmarcar(estado, TRUCO_PENDIENTE);
+            terminar(arena, estado, quienCanto);
+            return;
+        }
+        quererTruco(arena, estado, jugador);
+        arena.desmarcar(estado, TRUCO_PENDIENTE);
+        // Sigue jugando quien tenía el turno cuando empezó el truco
+        arena.turno(estado, arena.tieneBanderaTanto(estado, TRUCO_INICIA_JUGADOR_1) ? 1 : 0);
+    }
+
+    private static void quererTruco(ArenaEstados arena, int estado, int jugador) {
+        arena.nivelTruco(estado, arena.nivelTruco(estado) + 1);
+        if (jugador == 1) {
+            arena.marcar(estado, QUIERO_JUGADOR_1);
+        } else {
+            arena.desmarcar(estado, QUIERO_JUGADOR_1);
+        }
+    }
+
+    private static void empezarTanto(ArenaEstados arena, int estado, int jugador) {
+        arena.marcar(estado, ENVIDO_CANTADO);
+        marcarQuien(arena, estado, TANTO_INICIA_JUGADOR_1, jugador);
+    }
+
+    /**
+     * Cierra el envido o la flor y devuelve el turno a quien empezó a
+     * cantar: o juega, o todavía tiene que responder un truco.
+     */
+    private static void resolverTanto(ArenaEstados arena, int estado) {
+        arena.desmarcar(estado, ENVIDO_PENDIENTE);
+        arena.desmarcarTanto(estado, FLOR_PENDIENTE);
+        arena.marcar(estado, ENVIDO_RESUELTO);
+        arena.turno(estado, arena.tieneBanderaTanto(estado, TANTO_INICIA_JUGADOR_1) ? 1 : 0);
+    }
+
+    private void jugarCarta(ArenaEstados arena, int estado, int jugador, int carta) {
+        arena.jugar(estado, jugador, carta);
+        int primera = arena.cartaPendiente(estado);
+        if (primera < 0) {
+            arena.cartaPendiente(estado, carta);
+            arena.turno(estado, 1 - jugador);
+            return;
+        }
+
+        int lider = 1 - jugador;
+        int vuelta = arena.vuelta(estado);
+        int siguiente;
+        if (resolutor.esParda(primera, carta)) {
+            arena.resultadoVuelta(estado, vuelta, PARDA);
+            siguiente = lider;
+        } else {
+            int ganador = resolutor.resolverVuelta(primera, carta) == 0 ? lider : jugador;
+            arena.resultadoVuelta(estado, vuelta, ganador + 1);
+            siguiente = ganador;
+        }
+        arena.cartaPendiente(estado, -1);
+
+        int ganadorMano = ReglasMano.ganadorMano(arena.resultadosVueltas(estado), vuelta);
+        if (ganadorMano >= 0) {
+            terminar(arena, estado, ganadorMano);
+        } else {
+            arena.vuelta(estado, vuelta + 1);
+            arena.turno(estado, siguiente);
+        }
+    }
+
+    private void terminar(ArenaEstados arena, int estado, int ganador) {
+        sumar(arena, estado, ganador, ReglasMano.puntosTruco(arena.nivelTruco(estado)));
+        arena.marcar(estado, TERMINADA);
+    }
+
+    /**
+     * Envido y flor se cantan en la primera vuelta, una vez por mano y antes
+     * de que se quiera un truco.
+     */
+    private static boolean tantoAbierto(ArenaEstados arena, int estado) {
+        return arena.vuelta(estado) == 0
+                && arena.nivelTruco(estado) == 0
+                && !arena.tieneBandera(estado, ENVIDO_CANTADO);
+    }
+
+    private static boolean tieneFlor(ArenaEstados arena, int estado, int jugador) {
+        return arena.tieneBanderaTanto(estado, jugador == 0 ? FLOR_JUGADOR_0 : FLOR_JUGADOR_1)
+                && (arena.cantosTanto(estado) & CANTO_FLOR) == 0;
+    }
+
+    private static void marcarQuien(ArenaEstados arena, int estado, int bandera, int jugador) {
+        if (jugador == 1) {
+            arena.marcarTanto(estado, bandera);
+        } else {
+            arena.desmarcarTanto(estado, bandera);
+        }
+    }
+
+    private static void sumar(ArenaEstados arena, int estado, int jugador, int puntos) {
+        arena.puntos(estado, jugador, arena.puntos(estado, jugador) + puntos);
+    }
+
+    private static int tieneElQuiero(ArenaEstados arena, int estado) {
+        return arena.tieneBandera(estado, QUIERO_JUGADOR_1) ? 1 : 0;
+    }
+}
@@ -0,0 +1,9 @@
+package org.fabiano.tfg.engine.service.simulacion.torneo;
+
+import org.fabiano.tfg.engine.service.simulacion.PoliticaBot;
+
+/**
+ * Participante de un torneo: un nombre único y su política de juego.
+ */
+public record BotTorneo(String nombre, PoliticaBot politica) {
+}
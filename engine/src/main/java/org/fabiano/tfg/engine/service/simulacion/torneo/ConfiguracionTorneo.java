@@ -0,0 +1,37 @@
+package org.fabiano.tfg.engine.service.simulacion.torneo;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Parámetros de un torneo.
+ *
+ * @param partidasPorCruce partidas por cada par de bots (round robin) o por
+ *                         emparejamiento de cada ronda (suizo); el mano inicial se alterna
+ * @param rondas           rondas del sistema suizo; se ignora en round robin
+ */
+public record ConfiguracionTorneo(
+        List<BotTorneo> bots,
+        FormatoTorneo formato,
+        int partidasPorCruce,
+        int rondas,
+        int puntajeLimite,
+        int hilos,
+        long semilla) {
+
+    public ConfiguracionTorneo {
+        if (bots == null || bots.size() < 2) {
+            throw new IllegalArgumentException("Un torneo necesita al menos dos bots");
+        }
+        if (new HashSet<>(bots.stream().map(BotTorneo::nombre).toList()).size() != bots.size()) {
+            throw new IllegalArgumentException("Los nombres de los bots deben ser únicos");
+        }
+        if (partidasPorCruce <= 0 || puntajeLimite <= 0 || hilos <= 0) {
+            throw new IllegalArgumentException("Partidas, puntaje límite e hilos deben ser positivos");
+        }
+        if (formato == FormatoTorneo.SUIZO && rondas <= 0) {
+            throw new IllegalArgumentException("El sistema suizo necesita al menos una ronda");
+        }
+        bots = List.copyOf(bots);
+    }
+}
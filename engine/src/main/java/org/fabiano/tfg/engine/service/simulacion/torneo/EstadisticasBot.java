@@ -0,0 +1,123 @@
+package org.fabiano.tfg.engine.service.simulacion.torneo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumuladores de un bot, actualizados desde varios hilos a la vez. Las
+ * latencias van a un histograma logarítmico (8 subdivisiones por potencia de
+ * dos, error relativo menor al 12,5%) para no guardar cada muestra.
+ */
+class EstadisticasBot {
+
+    private static final double Z_95 = 1.96;
+    private static final int SUBDIVISIONES = 8;
+    private static final int BITS_SUBDIVISION = 3;
+
+    private final String nombre;
+    private final LongAdder partidas = new LongAdder();
+    private final LongAdder victorias = new LongAdder();
+    private final LongAdder manos = new LongAdder();
+    private final LongAdder diferenciaPuntos = new LongAdder();
+    private final LongAdder decisiones = new LongAdder();
+    private final AtomicLongArray histograma = new AtomicLongArray(Long.SIZE * SUBDIVISIONES);
+
+    EstadisticasBot(String nombre) {
+        this.nombre = nombre;
+    }
+
+    String nombre() {
+        return nombre;
+    }
+
+    void registrarDecision(long nanos) {
+        decisiones.increment();
+        histograma.incrementAndGet(cubeta(nanos));
+    }
+
+    void registrarPartida(boolean gano, int manosJugadas, int diferencia) {
+        partidas.increment();
+        if (gano) {
+            victorias.increment();
+        }
+        manos.add(manosJugadas);
+        diferenciaPuntos.add(diferencia);
+    }
+
+    long victorias() {
+        return victorias.sum();
+    }
+
+    ReporteBot reporte() {
+        long n = partidas.sum();
+        long v = victorias.sum();
+        double tasa = n == 0 ? 0 : (double) v / n;
+        double[] intervalo = wilson(v, n);
+        long manosJugadas = manos.sum();
+        return new ReporteBot(
+                nombre,
+                n,
+                v,
+                tasa,
+                intervalo[0],
+                intervalo[1],
+                manosJugadas == 0 ? 0 : (double) diferenciaPuntos.sum() / manosJugadas,
+                decisiones.sum(),
+                percentil(0.50) / 1000.0,
+                percentil(0.90) / 1000.0,
+                percentil(0.99) / 1000.0);
+    }
+
+    static double[] wilson(long exitos, long total) {
+        if (total == 0) {
+            return new double[]{0, 1};
+        }
+        double p = (double) exitos / total;
+        double z2 = Z_95 * Z_95;
+        double denominador = 1 + z2 / total;
+        double centro = (p + z2 / (2 * total)) / denominador;
+        double margen = Z_95 * Math.sqrt(p * (1 - p) / total + z2 / (4.0 * total * total)) / denominador;
+        return new double[]{Math.max(0, centro - margen), Math.min(1, centro + margen)};
+    }
+
+    /**
+     * Percentil aproximado en nanosegundos: el límite inferior de la cubeta.
+     */
+    long percentil(double fraccion) {
+        long total = 0;
+        for (int i = 0; i < histograma.length(); i++) {
+            total += histograma.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = (long) Math.ceil(fraccion * total);
+        long acumulado = 0;
+        for (int i = 0; i < histograma.length(); i++) {
+            acumulado += histograma.get(i);
+            if (acumulado >= objetivo) {
+                return limiteInferior(i);
+            }
+        }
+        return limiteInferior(histograma.length() - 1);
+    }
+
+    static int cubeta(long nanos) {
+        long valor = Math.max(nanos, 1);
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        if (exponente < BITS_SUBDIVISION) {
+            return (int) valor;
+        }
+        int subdivision = (int) (valor >>> (exponente - BITS_SUBDIVISION)) & (SUBDIVISIONES - 1);
+        return (exponente - BITS_SUBDIVISION + 1) * SUBDIVISIONES + subdivision;
+    }
+
+    static long limiteInferior(int cubeta) {
+        if (cubeta < SUBDIVISIONES) {
+            return cubeta;
+        }
+        int exponente = cubeta / SUBDIVISIONES + BITS_SUBDIVISION - 1;
+        long subdivision = cubeta % SUBDIVISIONES;
+        return (SUBDIVISIONES + subdivision) << (exponente - BITS_SUBDIVISION);
+    }
+}
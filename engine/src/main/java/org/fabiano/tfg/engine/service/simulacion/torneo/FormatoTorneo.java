@@ -0,0 +1,8 @@
+package org.fabiano.tfg.engine.service.simulacion.torneo;
+
+public enum FormatoTorneo {
+    /** Todos contra todos. */
+    ROUND_ROBIN,
+    /** Rondas emparejando bots con puntaje parecido, sin repetir cruces si se puede. */
+    SUIZO
+}
@@ -0,0 +1,24 @@
+package org.fabiano.tfg.engine.service.simulacion.torneo;
+
+/**
+ * Estadísticas de un bot en un momento del torneo.
+ *
+ * @param tasaVictorias        victorias sobre partidas jugadas
+ * @param intervaloInferior    límite inferior del intervalo de Wilson al 95%
+ * @param intervaloSuperior    límite superior del intervalo de Wilson al 95%
+ * @param puntosPorMano        puntos propios menos ajenos, promedio por mano
+ * @param latenciaP50Micros    percentil 50 del tiempo de decisión
+ */
+public record ReporteBot(
+        String nombre,
+        long partidas,
+        long victorias,
+        double tasaVictorias,
+        double intervaloInferior,
+        double intervaloSuperior,
+        double puntosPorMano,
+        long decisiones,
+        double latenciaP50Micros,
+        double latenciaP90Micros,
+        double latenciaP99Micros) {
+}
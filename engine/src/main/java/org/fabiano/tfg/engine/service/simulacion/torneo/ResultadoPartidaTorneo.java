@@ -0,0 +1,14 @@
+package org.fabiano.tfg.engine.service.simulacion.torneo;
+
+/**
+ * Resultado de una partida del torneo, publicado apenas termina.
+ */
+public record ResultadoPartidaTorneo(
+        int ronda,
+        String botA,
+        String botB,
+        int puntosA,
+        int puntosB,
+        int manos,
+        String ganador) {
+}
@@ -0,0 +1,61 @@
+package org.fabiano.tfg.engine.service.simulacion.torneo;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Manejo de un torneo en ejecución: permite consultar el reporte parcial,
+ * cancelarlo o esperar a que termine.
+ */
+public class TorneoEnCurso {
+
+    private final Collection<EstadisticasBot> estadisticas;
+    private final AtomicBoolean cancelado = new AtomicBoolean();
+    private final AtomicInteger partidasJugadas = new AtomicInteger();
+    private CompletableFuture<Void> fin;
+
+    TorneoEnCurso(Collection<EstadisticasBot> estadisticas) {
+        this.estadisticas = estadisticas;
+    }
+
+    /**
+     * Reporte con lo jugado hasta ahora, ordenado por tasa de victorias.
+     */
+    public List<ReporteBot> reporte() {
+        return estadisticas.stream()
+                .map(EstadisticasBot::reporte)
+                .sorted(Comparator.comparingDouble(ReporteBot::tasaVictorias).reversed())
+                .toList();
+    }
+
+    /**
+     * Deja de programar partidas; las que están en juego terminan normalmente.
+     */
+    public void cancelar() {
+        cancelado.set(true);
+    }
+
+    public boolean isCancelado() {
+        return cancelado.get();
+    }
+
+    public int partidasJugadas() {
+        return partidasJugadas.get();
+    }
+
+    public CompletableFuture<List<ReporteBot>> alTerminar() {
+        return fin.thenApply(v -> reporte());
+    }
+
+    void iniciado(CompletableFuture<Void> fin) {
+        this.fin = fin;
+    }
+
+    void partidaTerminada() {
+        partidasJugadas.incrementAndGet();
+    }
+}
@@ -0,0 +1,187 @@
+package org.fabiano.tfg.engine.service.simulacion.torneo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.service.simulacion.ArenaEstados;
+import org.fabiano.tfg.engine.service.simulacion.PoliticaBot;
+import org.fabiano.tfg.engine.service.simulacion.ResolutorVueltasLote;
+import org.fabiano.tfg.engine.service.simulacion.SimuladorMano;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Ejecuta torneos de partidas completas entre bots, en paralelo. Cada partida
+ * se juega mano a mano con {@link SimuladorMano}, con todos los cantos (flor,
+ * contraflor, envidos y falta, truco hasta vale cuatro), hasta el puntaje
+ * límite y alternando quién es mano como en el motor.
+ */
+@Slf4j
+@Service
+public class TorneoService {
+
+    private static final int ESTADOS_POR_ARENA = 1024;
+
+    private final SimuladorMano simulador;
+
+    // Una arena por hilo del pool: las partidas sólo usan un estado por mano
+    private final ThreadLocal<ArenaEstados> arenas = ThreadLocal.withInitial(() -> new ArenaEstados(ESTADOS_POR_ARENA));
+
+    public TorneoService(ResolutorVueltasLote resolutor) {
+        this.simulador = new SimuladorMano(resolutor);
+    }
+
+    /**
+     * Lanza el torneo y devuelve enseguida. Cada resultado se entrega al
+     * consumidor apenas termina la partida, desde el hilo que la jugó.
+     */
+    public TorneoEnCurso iniciar(ConfiguracionTorneo configuracion, Consumer<ResultadoPartidaTorneo> alTerminarPartida) {
+        Map<String, EstadisticasBot> estadisticas = new LinkedHashMap<>();
+        for (BotTorneo bot : configuracion.bots()) {
+            estadisticas.put(bot.nombre(), new EstadisticasBot(bot.nombre()));
+        }
+        TorneoEnCurso torneo = new TorneoEnCurso(estadisticas.values());
+        SplittableRandom raiz = new SplittableRandom(configuracion.semilla());
+        ExecutorService ejecutor = Executors.newFixedThreadPool(configuracion.hilos());
+
+        CompletableFuture<Void> fin;
+        if (configuracion.formato() == FormatoTorneo.ROUND_ROBIN) {
+            List<BotTorneo> bots = configuracion.bots();
+            List<BotTorneo[]> cruces = new ArrayList<>();
+            for (int i = 0; i < bots.size(); i++) {
+                for (int j = i + 1; j < bots.size(); j++) {
+                    cruces.add(new BotTorneo[]{bots.get(i), bots.get(j)});
+                }
+            }
+            fin = jugarRonda(0, cruces, configuracion, estadisticas, torneo, raiz, ejecutor, alTerminarPartida);
+        } else {
+            fin = CompletableFuture.completedFuture(null);
+            Set<String> cruzados = new HashSet<>();
+            for (int ronda = 0; ronda < configuracion.rondas(); ronda++) {
+                int numeroRonda = ronda;
+                SplittableRandom rndRonda = raiz.split();
+                // Cada ronda se empareja con la tabla que dejó la anterior
+                fin = fin.thenCompose(v -> torneo.isCancelado()
+                        ? CompletableFuture.completedFuture(null)
+                        : jugarRonda(numeroRonda, emparejarSuizo(configuracion.bots(), estadisticas, cruzados),
+                        configuracion, estadisticas, torneo, rndRonda, ejecutor, alTerminarPartida));
+            }
+        }
+        fin = fin.whenComplete((v, e) -> {
+            ejecutor.shutdown();
+            if (e != null) {
+                log.error("El torneo terminó con error", e);
+            }
+        });
+        torneo.iniciado(fin);
+        return torneo;
+    }
+
+    private CompletableFuture<Void> jugarRonda(int ronda, List<BotTorneo[]> cruces, ConfiguracionTorneo configuracion,
+                                               Map<String, EstadisticasBot> estadisticas, TorneoEnCurso torneo,
+                                               SplittableRandom raiz, ExecutorService ejecutor,
+                                               Consumer<ResultadoPartidaTorneo> alTerminarPartida) {
+        List<CompletableFuture<Void>> partidas = new ArrayList<>();
+        for (BotTorneo[] cruce : cruces) {
+            for (int n = 0; n < configuracion.partidasPorCruce(); n++) {
+                SplittableRandom rnd = raiz.split();
+                int primeroMano = n % 2;
+                partidas.add(CompletableFuture.runAsync(() -> {
+                    if (torneo.isCancelado()) {
+                        return;
+                    }
+                    ResultadoPartidaTorneo resultado = jugarPartida(ronda, cruce[0], cruce[1], primeroMano,
+                            configuracion.puntajeLimite(), estadisticas, rnd);
+                    torneo.partidaTerminada();
+                    alTerminarPartida.accept(resultado);
+                }, ejecutor));
+            }
+        }
+        return CompletableFuture.allOf(partidas.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Ordena por victorias y empareja cada bot con el siguiente que todavía
+     * no enfrentó; si no queda ninguno, con el siguiente libre. Con cantidad
+     * impar el último queda libre esa ronda.
+     */
+    static List<BotTorneo[]> emparejarSuizo(List<BotTorneo> bots, Map<String, EstadisticasBot> estadisticas,
+                                            Set<String> cruzados) {
+        List<BotTorneo> libres = new ArrayList<>(bots);
+        libres.sort(Comparator.comparingLong((BotTorneo b) -> estadisticas.get(b.nombre()).victorias()).reversed());
+        List<BotTorneo[]> cruces = new ArrayList<>();
+        while (libres.size() >= 2) {
+            BotTorneo primero = libres.remove(0);
+            int rival = 0;
+            for (int i = 0; i < libres.size(); i++) {
+                if (!cruzados.contains(claveCruce(primero, libres.get(i)))) {
+                    rival = i;
+                    break;
+                }
+            }
+            BotTorneo segundo = libres.remove(rival);
+            cruzados.add(claveCruce(primero, segundo));
+            cruces.add(new BotTorneo[]{primero, segundo});
+        }
+        return cruces;
+    }
+
+    private ResultadoPartidaTorneo jugarPartida(int ronda, BotTorneo botA, BotTorneo botB, int primeroMano,
+                                                int puntajeLimite, Map<String, EstadisticasBot> estadisticas,
+                                                SplittableRandom rnd) {
+        EstadisticasBot[] stats = {estadisticas.get(botA.nombre()), estadisticas.get(botB.nombre())};
+        PoliticaBot[] politicas = {botA.politica(), botB.politica()};
+        ArenaEstados arena = arenas.get();
+        int[] puntos = new int[2];
+        int mano = primeroMano;
+        int manos = 0;
+        int ganadorUltimaMano = 0;
+
+        while (puntos[0] < puntajeLimite && puntos[1] < puntajeLimite) {
+            if (arena.usados() == arena.capacidad()) {
+                arena.reiniciar();
+            }
+            int estado = arena.reservar();
+            // La falta es lo que le queda al que va ganando
+            simulador.repartir(arena, estado, rnd, puntajeLimite - Math.max(puntos[0], puntos[1]));
+            while (!simulador.terminada(arena, estado)) {
+                int asiento = arena.turno(estado);
+                int participante = asiento == 0 ? mano : 1 - mano;
+                long legales = simulador.accionesLegales(arena, estado);
+                long inicio = System.nanoTime();
+                int accion = politicas[participante].elegir(arena, estado, asiento, legales, rnd);
+                stats[participante].registrarDecision(System.nanoTime() - inicio);
+                if ((legales & (1L << accion)) == 0) {
+                    String nombre = participante == 0 ? botA.nombre() : botB.nombre();
+                    throw new IllegalStateException(nombre + " eligió una acción ilegal: " + accion);
+                }
+                simulador.aplicar(arena, estado, accion);
+            }
+            puntos[mano] += arena.puntos(estado, 0);
+            puntos[1 - mano] += arena.puntos(estado, 1);
+            ganadorUltimaMano = arena.puntos(estado, 0) >= arena.puntos(estado, 1) ? mano : 1 - mano;
+            mano = 1 - mano;
+            manos++;
+        }
+
+        int ganador = puntos[0] == puntos[1] ? ganadorUltimaMano : (puntos[0] > puntos[1] ? 0 : 1);
+        stats[0].registrarPartida(ganador == 0, manos, puntos[0] - puntos[1]);
+        stats[1].registrarPartida(ganador == 1, manos, puntos[1] - puntos[0]);
+        return new ResultadoPartidaTorneo(ronda, botA.nombre(), botB.nombre(), puntos[0], puntos[1], manos,
+                ganador == 0 ? botA.nombre() : botB.nombre());
+    }
+
+    private static String claveCruce(BotTorneo a, BotTorneo b) {
+        return a.nombre().compareTo(b.nombre()) < 0 ? a.nombre() + "|" + b.nombre() : b.nombre() + "|" + a.nombre();
+    }
+}
@@ -0,0 +1,120 @@
+-- Mismo esquema que db/migration/postgresql, en H2 (perfil diario y tests).
+-- Los nombres van entre comillas: H2 pasa a mayúsculas los que no las
+-- llevan y Hibernate los busca en minúsculas.
+
+CREATE SEQUENCE "carta_seq" START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE "carta" (
+    "id"    BIGINT NOT NULL,
+    "palo"  ENUM ('BASTO', 'COPA', 'ESPADA', 'ORO'),
+    "valor" INTEGER,
+    CONSTRAINT "carta_pkey" PRIMARY KEY ("id")
+);
+
+CREATE TABLE "jugador" (
+    "id"                               UUID    NOT NULL,
+    "nombre"                           VARCHAR(255),
+    "puede_cantar_envido"              BOOLEAN NOT NULL,
+    "puede_cantar_real_envido"         BOOLEAN NOT NULL,
+    "puede_cantar_falta_envido"        BOOLEAN NOT NULL,
+    "puede_cantar_truco"               BOOLEAN NOT NULL,
+    "puede_cantar_retruco"             BOOLEAN NOT NULL,
+    "puede_cantar_vale_cuatro"         BOOLEAN NOT NULL,
+    "puede_cantar_flor"                BOOLEAN NOT NULL,
+    "puede_cantar_contraflor"          BOOLEAN NOT NULL,
+    "puede_cantar_contraflor_al_resto" BOOLEAN NOT NULL,
+    "puede_querer"                     BOOLEAN NOT NULL,
+    "puede_no_querer"                  BOOLEAN NOT NULL,
+    "se_va_al_mazo"                    BOOLEAN NOT NULL,
+    "puntos_envido"                    INTEGER NOT NULL,
+    CONSTRAINT "jugador_pkey" PRIMARY KEY ("id")
+);
+
+CREATE TABLE "jugador_mano" (
+    "jugador_id" UUID   NOT NULL,
+    "mano_id"    BIGINT NOT NULL,
+    CONSTRAINT "jugador_mano_jugador_fk" FOREIGN KEY ("jugador_id") REFERENCES "jugador",
+    CONSTRAINT "jugador_mano_carta_fk" FOREIGN KEY ("mano_id") REFERENCES "carta"
+);
+
+CREATE TABLE "equipo" (
+    "id"      UUID    NOT NULL,
+    "nombre"  VARCHAR(255),
+    "puntaje" INTEGER NOT NULL,
+    CONSTRAINT "equipo_pkey" PRIMARY KEY ("id")
+);
+
+CREATE TABLE "equipo_jugadores" (
+    "equipo_id"  UUID NOT NULL,
+    "jugador_id" UUID NOT NULL,
+    CONSTRAINT "equipo_jugadores_unico" UNIQUE ("equipo_id", "jugador_id"),
+    CONSTRAINT "equipo_jugadores_equipo_fk" FOREIGN KEY ("equipo_id") REFERENCES "equipo",
+    CONSTRAINT "equipo_jugadores_jugador_fk" FOREIGN KEY ("jugador_id") REFERENCES "jugador"
+);
+
+CREATE TABLE "partida" (
+    "id"                          UUID    NOT NULL,
+    "nombre"                      VARCHAR(255),
+    "estado_ronda"                ENUM ('EN_CURSO', 'FINALIZADA', 'PRIMERA_MANO', 'SEGUNDA_MANO', 'TERCERA_MANO'),
+    "ganador_de_ronda_id"         UUID,
+    "mano_actual"                 INTEGER NOT NULL,
+    "ronda"                       INTEGER NOT NULL,
+    "vuelta"                      INTEGER NOT NULL,
+    "indice_turno_actual"         INTEGER NOT NULL,
+    "puntaje_limite"              INTEGER NOT NULL,
+    "puntos_en_juego"             INTEGER NOT NULL,
+    "valor_envido"                INTEGER NOT NULL,
+    "valor_truco"                 INTEGER NOT NULL,
+    "envido_cantado"              BOOLEAN NOT NULL,
+    "real_envido_cantado"         BOOLEAN NOT NULL,
+    "falta_envido_cantado"        BOOLEAN NOT NULL,
+    "truco_cantado"               BOOLEAN NOT NULL,
+    "retruco_cantado"             BOOLEAN NOT NULL,
+    "vale_cuatro_cantado"         BOOLEAN NOT NULL,
+    "flor_cantada"                BOOLEAN NOT NULL,
+    "contraflor_cantada"          BOOLEAN NOT NULL,
+    "contraflor_al_resto_cantada" BOOLEAN NOT NULL,
+    "quiso"                       BOOLEAN NOT NULL,
+    "no_quiso"                    BOOLEAN NOT NULL,
+    "al_mazo"                     BOOLEAN NOT NULL,
+    "version"                     BIGINT,
+    CONSTRAINT "partida_pkey" PRIMARY KEY ("id"),
+    CONSTRAINT "partida_nombre_unico" UNIQUE ("nombre"),
+    CONSTRAINT "partida_ganador_de_ronda_fk" FOREIGN KEY ("ganador_de_ronda_id") REFERENCES "equipo"
+);
+
+CREATE TABLE "partida_equipos" (
+    "partida_id" UUID NOT NULL,
+    "equipos_id" UUID NOT NULL,
+    CONSTRAINT "partida_equipos_equipo_unico" UNIQUE ("equipos_id"),
+    CONSTRAINT "partida_equipos_partida_fk" FOREIGN KEY ("partida_id") REFERENCES "partida",
+    CONSTRAINT "partida_equipos_equipo_fk" FOREIGN KEY ("equipos_id") REFERENCES "equipo"
+);
+
+CREATE TABLE "partida_ganadores_por_mano" (
+    "partida_id"             UUID    NOT NULL,
+    "ganadores_por_mano_key" INTEGER NOT NULL,
+    "ganadores_por_mano"     UUID,
+    CONSTRAINT "partida_ganadores_por_mano_pkey" PRIMARY KEY ("ganadores_por_mano_key", "partida_id"),
+    CONSTRAINT "partida_ganadores_por_mano_partida_fk" FOREIGN KEY ("partida_id") REFERENCES "partida"
+);
+
+CREATE TABLE "partida_puntos_por_equipo" (
+    "partida_id"            UUID NOT NULL,
+    "puntos_por_equipo_key" UUID NOT NULL,
+    "puntos_por_equipo"     INTEGER,
+    CONSTRAINT "partida_puntos_por_equipo_pkey" PRIMARY KEY ("partida_id", "puntos_por_equipo_key"),
+    CONSTRAINT "partida_puntos_por_equipo_partida_fk" FOREIGN KEY ("partida_id") REFERENCES "partida"
+);
+
+CREATE TABLE "jugada" (
+    "id"             UUID    NOT NULL,
+    "partida_id"     UUID,
+    "jugador_nombre" VARCHAR(255),
+    "carta_id"       BIGINT,
+    "numero_ronda"   INTEGER NOT NULL,
+    "numero_vuelta"  INTEGER NOT NULL,
+    CONSTRAINT "jugada_pkey" PRIMARY KEY ("id"),
+    CONSTRAINT "jugada_partida_fk" FOREIGN KEY ("partida_id") REFERENCES "partida",
+    CONSTRAINT "jugada_carta_fk" FOREIGN KEY ("carta_id") REFERENCES "carta"
+);
@@ -0,0 +1,104 @@
+-- Mismo contenido que db/migration/postgresql/V2, en H2.
+
+CREATE SEQUENCE IF NOT EXISTS "evento_partida_seq" START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS "snapshot_partida_seq" START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE "partida" ADD COLUMN IF NOT EXISTS "semilla" BIGINT;
+ALTER TABLE "partida" ADD COLUMN IF NOT EXISTS "finalizada_en" TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE "partida" ADD COLUMN IF NOT EXISTS "actualizada_en" TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE "partida" ADD COLUMN IF NOT EXISTS "documento" VARBINARY(65536);
+ALTER TABLE "partida" ADD COLUMN IF NOT EXISTS "version_documento" SMALLINT;
+
+CREATE INDEX IF NOT EXISTS "partida_actualizada_en_idx" ON "partida" ("actualizada_en");
+
+CREATE TABLE IF NOT EXISTS "membresia_partida" (
+    "partida_id"       UUID         NOT NULL,
+    "jugador_nombre"   VARCHAR(255) NOT NULL,
+    "jugador_id"       UUID,
+    "estado"           ENUM ('EN_CURSO', 'FINALIZADA', 'PRIMERA_MANO', 'SEGUNDA_MANO', 'TERCERA_MANO'),
+    "ultima_actividad" TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT "membresia_partida_pkey" PRIMARY KEY ("partida_id", "jugador_nombre")
+);
+
+CREATE INDEX IF NOT EXISTS "membresia_partida_jugador_idx" ON "membresia_partida" ("jugador_nombre", "ultima_actividad");
+
+CREATE TABLE IF NOT EXISTS "evento_partida" (
+    "id"          BIGINT  NOT NULL,
+    "partida_id"  UUID,
+    "secuencia"   BIGINT  NOT NULL,
+    "tipo"        ENUM ('CANTO', 'CARTA_JUGADA', 'MANO_REPARTIDA'),
+    "numero_mano" INTEGER NOT NULL,
+    "jugador"     VARCHAR(255),
+    "dato"        INTEGER NOT NULL,
+    "semilla"     BIGINT,
+    "instante"    TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT "evento_partida_pkey" PRIMARY KEY ("id"),
+    CONSTRAINT "evento_partida_secuencia_unica" UNIQUE ("partida_id", "secuencia")
+);
+
+CREATE INDEX IF NOT EXISTS "evento_partida_instante_idx" ON "evento_partida" ("partida_id", "instante");
+
+CREATE TABLE IF NOT EXISTS "snapshot_partida" (
+    "id"          BIGINT  NOT NULL,
+    "partida_id"  UUID,
+    "secuencia"   BIGINT  NOT NULL,
+    "numero_mano" INTEGER NOT NULL,
+    "instante"    TIMESTAMP(6) WITH TIME ZONE,
+    "datos"       VARBINARY(16384),
+    CONSTRAINT "snapshot_partida_pkey" PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "snapshot_partida_secuencia_idx" ON "snapshot_partida" ("partida_id", "secuencia");
+
+CREATE TABLE IF NOT EXISTS "partida_archivada" (
+    "id"            UUID NOT NULL,
+    "nombre"        VARCHAR(255),
+    "finalizada_en" TIMESTAMP(6) WITH TIME ZONE,
+    "archivada_en"  TIMESTAMP(6) WITH TIME ZONE,
+    "datos"         VARBINARY(65536),
+    CONSTRAINT "partida_archivada_pkey" PRIMARY KEY ("id")
+);
+
+CREATE INDEX IF NOT EXISTS "partida_archivada_nombre_idx" ON "partida_archivada" ("nombre");
+
+CREATE TABLE IF NOT EXISTS "resultado_partida" (
+    "partida_id"    UUID NOT NULL,
+    "finalizada_en" TIMESTAMP(6) WITH TIME ZONE,
+    "datos"         VARBINARY(4096),
+    CONSTRAINT "resultado_partida_pkey" PRIMARY KEY ("partida_id")
+);
+
+CREATE INDEX IF NOT EXISTS "resultado_partida_finalizada_en_idx" ON "resultado_partida" ("finalizada_en");
+
+CREATE TABLE IF NOT EXISTS "fila_clasificacion" (
+    "clave"            VARCHAR(255) NOT NULL,
+    "tipo"             ENUM ('EQUIPO', 'JUGADOR'),
+    "nombre"           VARCHAR(255),
+    "partidas_jugadas" INTEGER      NOT NULL,
+    "ganadas"          INTEGER      NOT NULL,
+    "puntos"           BIGINT       NOT NULL,
+    "actualizada"      TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT "fila_clasificacion_pkey" PRIMARY KEY ("clave")
+);
+
+CREATE INDEX IF NOT EXISTS "fila_clasificacion_tipo_idx" ON "fila_clasificacion" ("tipo");
+
+CREATE TABLE IF NOT EXISTS "calificacion" (
+    "clave"       VARCHAR(255) NOT NULL,
+    "tipo"        ENUM ('EQUIPO', 'JUGADOR'),
+    "nombre"      VARCHAR(255),
+    "rating"      FLOAT(53)    NOT NULL,
+    "desviacion"  FLOAT(53)    NOT NULL,
+    "partidas"    INTEGER      NOT NULL,
+    "actualizada" TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT "calificacion_pkey" PRIMARY KEY ("clave")
+);
+
+CREATE INDEX IF NOT EXISTS "calificacion_tipo_idx" ON "calificacion" ("tipo");
+
+CREATE TABLE IF NOT EXISTS "perfil_jugador" (
+    "nombre_jugador" VARCHAR(255) NOT NULL,
+    "contadores"     BIGINT ARRAY,
+    "actualizado"    TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT "perfil_jugador_pkey" PRIMARY KEY ("nombre_jugador")
+);
@@ -0,0 +1,6 @@
+-- Índices de db/migration/postgresql/V3. H2 ya indexa cada clave foránea y
+-- no tiene índices parciales: los de estado llevan el estado adelante.
+
+CREATE INDEX "partida_estado_idx" ON "partida" ("estado_ronda", "id");
+CREATE INDEX "partida_finalizada_idx" ON "partida" ("estado_ronda", "finalizada_en");
+CREATE INDEX "equipo_puntaje_idx" ON "equipo" ("puntaje");
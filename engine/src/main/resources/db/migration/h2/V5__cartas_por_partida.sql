@@ -0,0 +1,4 @@
+-- Ver db/migration/postgresql/V5.
+
+ALTER TABLE "carta" ADD COLUMN IF NOT EXISTS "partida_id" UUID;
+CREATE INDEX IF NOT EXISTS "carta_partida_idx" ON "carta" ("partida_id");
@@ -0,0 +1,28 @@
+-- Índices para las consultas de los repositorios. Postgres no indexa las
+-- claves foráneas: las cargas por lotes y los borrados de partidas las
+-- recorren desde el lado de la tabla hija.
+
+CREATE INDEX jugada_partida_idx ON jugada (partida_id);
+CREATE INDEX jugada_carta_idx ON jugada (carta_id);
+CREATE INDEX jugador_mano_jugador_idx ON jugador_mano (jugador_id);
+CREATE INDEX jugador_mano_carta_idx ON jugador_mano (mano_id);
+CREATE INDEX equipo_jugadores_jugador_idx ON equipo_jugadores (jugador_id);
+CREATE INDEX partida_equipos_partida_idx ON partida_equipos (partida_id);
+CREATE INDEX partida_ganadores_por_mano_partida_idx ON partida_ganadores_por_mano (partida_id);
+CREATE INDEX partida_ganador_de_ronda_idx ON partida (ganador_de_ronda_id);
+
+-- Partidas en curso: listados y recorridos por clave. Parciales, porque son
+-- una fracción chica de la tabla y ahí se consulta siempre el mismo estado
+CREATE INDEX partida_en_curso_idx ON partida (id) WHERE estado_ronda = 'EN_CURSO';
+CREATE INDEX partida_sin_terminar_idx ON partida (id)
+    WHERE estado_ronda IS NULL OR estado_ronda <> 'FINALIZADA';
+
+-- Archivador: terminadas por fecha de fin
+CREATE INDEX partida_finalizada_idx ON partida (finalizada_en) WHERE estado_ronda = 'FINALIZADA';
+
+-- Partidas con cantos en alguna mano ya jugada
+CREATE INDEX partida_con_cantos_idx ON partida (id)
+    WHERE mano_actual > 0 AND (truco_cantado OR envido_cantado);
+
+-- Partidas con algún equipo por encima de un puntaje
+CREATE INDEX equipo_puntaje_idx ON equipo (puntaje);
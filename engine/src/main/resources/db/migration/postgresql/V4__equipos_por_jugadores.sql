@@ -0,0 +1,7 @@
+-- Los equipos de la clasificación y de los ratings pasan a identificarse por
+-- sus jugadores en vez de por el nombre de la partida, que se repetía entre
+-- equipos distintos. Las filas viejas mezclaban equipos: se descartan. Los
+-- ratings de equipo se reconstruyen con el recálculo desde el historial.
+
+DELETE FROM fila_clasificacion WHERE tipo = 'EQUIPO';
+DELETE FROM calificacion WHERE tipo = 'EQUIPO';
@@ -0,0 +1,6 @@
+-- Cada carta queda asociada a la partida en que se repartió, para poder
+-- borrarlas con ella aunque ya no estén en ninguna mano ni jugada actual.
+-- Las cartas de antes quedan sin partida.
+
+ALTER TABLE carta ADD COLUMN IF NOT EXISTS partida_id UUID;
+CREATE INDEX IF NOT EXISTS carta_partida_idx ON carta (partida_id);
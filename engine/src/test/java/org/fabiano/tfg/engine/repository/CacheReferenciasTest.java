@@ -0,0 +1,90 @@
+package org.fabiano.tfg.engine.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.fabiano.tfg.engine.dto.EstadisticaCache;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.service.EstadisticasCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(EstadisticasCache.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CacheReferenciasTest {
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private EquipoRepository equipoRepository;
+
+    @Autowired
+    private EstadisticasCache estadisticasCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void lasLecturasRepetidasNoVanALaBase() {
+        Jugador ana = jugadorRepository.save(jugador("Ana"));
+        Equipo equipo = equipoRepository.save(new Equipo("Rojos", new ArrayList<>(), 0));
+        equipo.getJugadores().add(ana);
+        equipo = equipoRepository.save(equipo);
+        estadisticas.clear();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Ana", jugadorRepository.findById(ana.getId()).orElseThrow().getNombre());
+            assertEquals(List.of("Ana"), equipoRepository.buscarConJugadores(equipo.getId()).orElseThrow()
+                    .getJugadores().stream().map(Jugador::getNombre).toList());
+        }
+
+        // Sólo la primera lectura del equipo trae sus jugadores; el resto sale de la caché
+        assertTrue(estadisticas.getPrepareStatementCount() <= 1,
+                "sentencias: " + estadisticas.getPrepareStatementCount());
+        EstadisticaCache region = estadisticasCache.regiones().stream()
+                .filter(r -> r.region().equals("jugador"))
+                .findFirst().orElseThrow();
+        assertTrue(region.aciertos() > 0);
+    }
+
+    @Test
+    void actualizarYBorrarInvalidanLaCache() {
+        Jugador beto = jugadorRepository.save(jugador("Beto"));
+        jugadorRepository.findById(beto.getId()).orElseThrow();
+
+        beto.setNombre("Roberto");
+        jugadorRepository.save(beto);
+        assertEquals("Roberto", jugadorRepository.findById(beto.getId()).orElseThrow().getNombre());
+
+        jugadorRepository.deleteById(beto.getId());
+        assertTrue(jugadorRepository.findById(beto.getId()).isEmpty());
+    }
+
+    private static Jugador jugador(String nombre) {
+        return new Jugador(nombre, false, false, false, false, false,
+                false, false, false, false, false, false, false, 0, new ArrayList<>());
+    }
+}
@@ -0,0 +1,325 @@
+package org.fabiano.tfg.engine.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.repository.Repository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Corre el EXPLAIN de cada consulta de los repositorios sobre el esquema de
+ * las migraciones, en Postgres. Con los recorridos secuenciales apagados el
+ * planificador usa cualquier índice que sirva; si igual recorre una tabla
+ * entera para filtrarla (secuencial, o la clave primaria completa con un
+ * filtro), a la consulta le falta un índice. Un método de consulta nuevo no
+ * pasa {@link #cadaMetodoDeConsultaTieneSuPlanRevisado} hasta agregarlo a
+ * {@link #consultas}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PlanesConsultaTest.Captura.class)
+class PlanesConsultaTest {
+
+    @Autowired
+    private Captura captura;
+
+    @Autowired
+    private PartidaRepository partidaRepository;
+
+    @Autowired
+    private EquipoRepository equipoRepository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private EventoPartidaRepository eventoPartidaRepository;
+
+    @Autowired
+    private SnapshotPartidaRepository snapshotPartidaRepository;
+
+    @Autowired
+    private MembresiaPartidaRepository membresiaPartidaRepository;
+
+    @Autowired
+    private PartidaArchivadaRepository partidaArchivadaRepository;
+
+    @Autowired
+    private ResultadoPartidaRepository resultadoPartidaRepository;
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Test
+    void cadaMetodoDeConsultaTieneSuPlanRevisado() {
+        assertEquals(metodosDeConsulta(), new TreeSet<>(consultas().keySet()));
+    }
+
+    @Test
+    void ningunaConsultaRecorreUnaTablaEntera() throws Exception {
+        List<String> problemas = new ArrayList<>();
+        for (Map.Entry<String, Runnable> consulta : consultas().entrySet()) {
+            captura.sentencias.clear();
+            consulta.getValue().run();
+            assertFalse(captura.sentencias.isEmpty(), consulta.getKey() + " no llegó a la base");
+            for (Sentencia sentencia : captura.sentencias) {
+                revisar(explicar(sentencia).path(0).path("Plan"), consulta.getKey(), problemas);
+            }
+        }
+        assertTrue(problemas.isEmpty(), String.join("\n", problemas));
+    }
+
+    private Map<String, Runnable> consultas() {
+        UUID id = UUID.randomUUID();
+        Instant ahora = Instant.now();
+        Limit limite = Limit.of(20);
+        Map<String, Runnable> consultas = new LinkedHashMap<>();
+
+        consultas.put("EquipoRepository.findById", () -> equipoRepository.findById(id));
+        consultas.put("EquipoRepository.findAll", () -> equipoRepository.findAll());
+        consultas.put("EquipoRepository.listarIdsPrimeros", () -> equipoRepository.listarIdsPrimeros(limite));
+        consultas.put("EquipoRepository.listarIdsDesde", () -> equipoRepository.listarIdsDesde(id, limite));
+        consultas.put("EquipoRepository.findByIdInOrderByIdAsc",
+                () -> equipoRepository.findByIdInOrderByIdAsc(List.of(id)));
+        consultas.put("EquipoRepository.recorrerConJugadores",
+                () -> recorrer(equipoRepository.recorrerConJugadores()));
+
+        consultas.put("JugadorRepository.listarPrimeros", () -> jugadorRepository.listarPrimeros(limite));
+        consultas.put("JugadorRepository.listarDesde", () -> jugadorRepository.listarDesde(id, limite));
+        consultas.put("JugadorRepository.recorrerTodos", () -> recorrer(jugadorRepository.recorrerTodos()));
+
+        consultas.put("EventoPartidaRepository.findByPartidaIdAndSecuenciaGreaterThanOrderBySecuenciaAsc",
+                () -> eventoPartidaRepository.findByPartidaIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(id, 0));
+        consultas.put("EventoPartidaRepository.ultimaSecuencia", () -> eventoPartidaRepository.ultimaSecuencia(id));
+        consultas.put("EventoPartidaRepository.conActividadDesde",
+                () -> eventoPartidaRepository.conActividadDesde(List.of(id), ahora));
+        consultas.put("EventoPartidaRepository.borrarDePartidas",
+                () -> eventoPartidaRepository.borrarDePartidas(List.of(id)));
+
+        consultas.put("SnapshotPartidaRepository.findFirstByPartidaIdOrderBySecuenciaDesc",
+                () -> snapshotPartidaRepository.findFirstByPartidaIdOrderBySecuenciaDesc(id));
+        consultas.put("SnapshotPartidaRepository.borrarDePartida",
+                () -> snapshotPartidaRepository.borrarDePartida(id));
+        consultas.put("SnapshotPartidaRepository.borrarDePartidas",
+                () -> snapshotPartidaRepository.borrarDePartidas(List.of(id)));
+
+        consultas.put("MembresiaPartidaRepository.existsByPartidaIdAndJugadorNombre",
+                () -> membresiaPartidaRepository.existsByPartidaIdAndJugadorNombre(id, "Ana"));
+        consultas.put("MembresiaPartidaRepository.existsByPartidaId",
+                () -> membresiaPartidaRepository.existsByPartidaId(id));
+        consultas.put("MembresiaPartidaRepository.nombresEnPartida",
+                () -> membresiaPartidaRepository.nombresEnPartida(id));
+        consultas.put("MembresiaPartidaRepository.registrar", () -> membresiaPartidaRepository.registrar(id, ahora));
+        consultas.put("MembresiaPartidaRepository.registrarTodas",
+                () -> membresiaPartidaRepository.registrarTodas(ahora));
+        consultas.put("MembresiaPartidaRepository.tocar", () -> membresiaPartidaRepository.tocar(id, ahora));
+        consultas.put("MembresiaPartidaRepository.cambiarEstado",
+                () -> membresiaPartidaRepository.cambiarEstado(id, EstadoRonda.FINALIZADA, ahora));
+        consultas.put("MembresiaPartidaRepository.borrarDePartidas",
+                () -> membresiaPartidaRepository.borrarDePartidas(List.of(id)));
+
+        consultas.put("PartidaArchivadaRepository.findByNombre",
+                () -> partidaArchivadaRepository.findByNombre("archivada"));
+        consultas.put("ResultadoPartidaRepository.findAllByOrderByFinalizadaEnAscPartidaIdAsc",
+                () -> resultadoPartidaRepository.findAllByOrderByFinalizadaEnAscPartidaIdAsc());
+
+        consultas.put("PartidaRepository.findByIdWithEquipos", () -> partidaRepository.findByIdWithEquipos(id));
+        consultas.put("PartidaRepository.findPartidasEnCurso", () -> partidaRepository.findPartidasEnCurso());
+        consultas.put("PartidaRepository.findParaJugarById", () -> partidaRepository.findParaJugarById(id));
+        consultas.put("PartidaRepository.findParaJugarByNombre",
+                () -> partidaRepository.findParaJugarByNombre("partida"));
+        consultas.put("PartidaRepository.listarEnCursoPrimeras", () -> partidaRepository.listarEnCursoPrimeras(limite));
+        consultas.put("PartidaRepository.listarEnCursoDesde",
+                () -> partidaRepository.listarEnCursoDesde(id, limite));
+        consultas.put("PartidaRepository.recorrerEnCurso", () -> recorrer(partidaRepository.recorrerEnCurso()));
+        consultas.put("PartidaRepository.listarPorJugador", () -> partidaRepository.listarPorJugador("Ana"));
+        consultas.put("PartidaRepository.findPartidasConCantos", () -> partidaRepository.findPartidasConCantos());
+        consultas.put("PartidaRepository.findPartidasConPuntajeMinimo",
+                () -> partidaRepository.findPartidasConPuntajeMinimo(15));
+        consultas.put("PartidaRepository.findIdsParaArchivar",
+                () -> partidaRepository.findIdsParaArchivar(ahora, PageRequest.ofSize(100)));
+        consultas.put("PartidaRepository.findIdsSinTerminar",
+                () -> partidaRepository.findIdsSinTerminar(id, limite));
+        consultas.put("PartidaRepository.guardarDocumento",
+                () -> partidaRepository.guardarDocumento(id, 1L, new byte[]{1}, (short) 1,
+                        EstadoRonda.EN_CURSO, 1, null, ahora));
+        consultas.put("PartidaRepository.documento", () -> partidaRepository.documento(id));
+        consultas.put("PartidaRepository.documentoPorNombre", () -> partidaRepository.documentoPorNombre("partida"));
+        consultas.put("PartidaRepository.findByNombre", () -> partidaRepository.findByNombre("partida"));
+        return consultas;
+    }
+
+    private static void recorrer(Stream<?> filas) {
+        try (filas) {
+            filas.findFirst();
+        }
+    }
+
+    // Métodos declarados en las interfaces de repositorio, sin los default
+    private static Set<String> metodosDeConsulta() {
+        ClassPathScanningCandidateComponentProvider escaner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition definicion) {
+                return definicion.getMetadata().isInterface();
+            }
+        };
+        escaner.addIncludeFilter(new AssignableTypeFilter(Repository.class));
+        Set<String> metodos = new TreeSet<>();
+        for (BeanDefinition definicion : escaner.findCandidateComponents(PartidaRepository.class.getPackageName())) {
+            Class<?> repositorio;
+            try {
+                repositorio = Class.forName(definicion.getBeanClassName());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+            for (Method metodo : repositorio.getDeclaredMethods()) {
+                if (!metodo.isDefault() && !metodo.isSynthetic() && !Modifier.isStatic(metodo.getModifiers())) {
+                    metodos.add(repositorio.getSimpleName() + "." + metodo.getName());
+                }
+            }
+        }
+        return metodos;
+    }
+
+    private JsonNode explicar(Sentencia sentencia) throws Exception {
+        try (Connection conexion = captura.real.getConnection()) {
+            conexion.setAutoCommit(false);
+            try (Statement configuracion = conexion.createStatement();
+                 PreparedStatement explain = conexion.prepareStatement("EXPLAIN (FORMAT JSON) " + sentencia.sql())) {
+                configuracion.execute("SET LOCAL enable_seqscan = off");
+                for (Llamada llamada : sentencia.parametros()) {
+                    llamada.metodo().invoke(explain, llamada.argumentos());
+                }
+                try (ResultSet plan = explain.executeQuery()) {
+                    plan.next();
+                    return json.readTree(plan.getString(1));
+                }
+            } finally {
+                conexion.rollback();
+            }
+        }
+    }
+
+    private static void revisar(JsonNode nodo, String consulta, List<String> problemas) {
+        String tipo = nodo.path("Node Type").asText();
+        String tabla = nodo.path("Relation Name").asText();
+        if (tipo.equals("Seq Scan")) {
+            problemas.add(consulta + ": recorrido secuencial de " + tabla);
+        } else if (nodo.has("Filter") && !nodo.has("Index Cond")
+                && nodo.path("Index Name").asText().endsWith("_pkey")) {
+            problemas.add(consulta + ": recorre toda la clave primaria de " + tabla
+                    + " para filtrar " + nodo.path("Filter").asText());
+        }
+        for (JsonNode hijo : nodo.path("Plans")) {
+            revisar(hijo, consulta, problemas);
+        }
+    }
+
+    private record Llamada(Method metodo, Object[] argumentos) {
+    }
+
+    private record Sentencia(String sql, List<Llamada> parametros) {
+    }
+
+    /**
+     * Envuelve el DataSource para anotar cada sentencia que se ejecuta con
+     * los parámetros que recibió, y poder repetirla después bajo EXPLAIN.
+     */
+    @TestConfiguration
+    static class Captura {
+
+        private final List<Sentencia> sentencias = new CopyOnWriteArrayList<>();
+        private DataSource real;
+
+        @Bean
+        DataSource dataSource(DataSourceProperties propiedades) {
+            real = propiedades.initializeDataSourceBuilder().build();
+            return envolver(DataSource.class, real, (metodo, argumentos, resultado) ->
+                    resultado instanceof Connection conexion ? envolverConexion(conexion) : resultado);
+        }
+
+        private Connection envolverConexion(Connection conexion) {
+            return envolver(Connection.class, conexion, (metodo, argumentos, resultado) ->
+                    metodo.getName().equals("prepareStatement")
+                            ? envolverSentencia((PreparedStatement) resultado, (String) argumentos[0])
+                            : resultado);
+        }
+
+        private PreparedStatement envolverSentencia(PreparedStatement sentencia, String sql) {
+            List<Llamada> parametros = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, metodo, argumentos) -> {
+                        String nombre = metodo.getName();
+                        if (nombre.startsWith("set") && argumentos != null && argumentos.length >= 2
+                                && argumentos[0] instanceof Integer) {
+                            parametros.add(new Llamada(metodo, argumentos.clone()));
+                        } else if (nombre.equals("clearParameters")) {
+                            parametros.clear();
+                        } else if ((nombre.equals("execute") || nombre.equals("executeQuery")
+                                || nombre.equals("executeUpdate")) && argumentos == null && recorre(sql)) {
+                            sentencias.add(new Sentencia(sql, List.copyOf(parametros)));
+                        }
+                        return invocar(metodo, sentencia, argumentos);
+                    });
+        }
+
+        // Los INSERT con VALUES no leen ninguna tabla
+        private static boolean recorre(String sql) {
+            String minusculas = sql.stripLeading().toLowerCase();
+            return !minusculas.startsWith("insert") || minusculas.contains("select");
+        }
+
+        private interface Envoltura {
+            Object aplicar(Method metodo, Object[] argumentos, Object resultado);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T envolver(Class<T> tipo, T objetivo, Envoltura envoltura) {
+            return (T) Proxy.newProxyInstance(Captura.class.getClassLoader(), new Class<?>[]{tipo},
+                    (proxy, metodo, argumentos) ->
+                            envoltura.aplicar(metodo, argumentos, invocar(metodo, objetivo, argumentos)));
+        }
+
+        private static Object invocar(Method metodo, Object objetivo, Object[] argumentos) throws Throwable {
+            try {
+                return metodo.invoke(objetivo, argumentos);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.fabiano.tfg.engine.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.CartaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventosJpa;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.fabiano.tfg.engine.service.bitacora.PartidaCodec;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mide la escritura diferida con cada almacenamiento sobre la misma carga:
+ * varias partidas que juegan una carta por vez y se escriben después de cada
+ * una. Registra en el log escrituras por segundo, latencias y sentencias por escritura;
+ * sólo verifica que las dos formas guarden la misma partida.
+ */
+@Slf4j
+@Tag("medicion")
+// El log de cada sentencia pesaría más que la sentencia
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Las escrituras las hace el test; la diferida no debe meterse en las cuentas
+        "truco.partidas.vaciar-cada-ms=3600000",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@Import({PartidaService.class, MazoService.class, YamlRuleLoader.class, JerarquiaLoader.class,
+        RegistroPartidas.class, CargaPartidas.class, AlmacenPartidasJpa.class, BitacoraPartidaService.class,
+        AlmacenEventosJpa.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AlmacenPartidasMedicionTest {
+
+    private static final int PARTIDAS = 10;
+    // Antes de que se cierre la primera vuelta
+    private static final int JUGADAS = 3;
+
+    @Autowired
+    private PartidaService partidaService;
+
+    @Autowired
+    private RegistroPartidas registroPartidas;
+
+    @Autowired
+    private AlmacenPartidasJpa tablas;
+
+    @Autowired
+    private PartidaRepository partidaRepository;
+
+    @Autowired
+    private CartaRepository cartaRepository;
+
+    @Autowired
+    private CargaPartidas cargaPartidas;
+
+    @Autowired
+    private PlatformTransactionManager transacciones;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void tablasYDocumentoGuardanLoMismoYSeMidenConLaMismaCarga() {
+        DocumentosPartida documentos = new DocumentosPartida(partidaRepository, cartaRepository, cargaPartidas, transacciones);
+
+        List<Partida> normalizadas = crear("normalizado");
+        List<Partida> enDocumento = crear("documento");
+        medir("tablas", tablas, normalizadas);
+        double sentencias = medir("documento", documentos, enDocumento);
+
+        assertEquals(1.0, sentencias);
+        for (int i = 0; i < PARTIDAS; i++) {
+            Partida desdeTablas = tablas.cargar(normalizadas.get(i).getId()).orElseThrow();
+            Partida desdeDocumento = documentos.cargar(enDocumento.get(i).getId()).orElseThrow();
+            assertEquals(JUGADAS, desdeTablas.getCartasJugadas().size());
+            assertEquals(JUGADAS, desdeDocumento.getCartasJugadas().size());
+            assertArrayEquals(PartidaCodec.codificar(enDocumento.get(i)), PartidaCodec.codificar(desdeDocumento));
+        }
+    }
+
+    private List<Partida> crear(String prefijo) {
+        List<Partida> partidas = new ArrayList<>();
+        for (int i = 0; i < PARTIDAS; i++) {
+            partidas.add(partidaService.crearPartida(request(prefijo + "-" + i)));
+        }
+        registroPartidas.vaciar();
+        return partidas;
+    }
+
+    // Devuelve las sentencias por escritura
+    private double medir(String nombre, AlmacenPartidas almacen, List<Partida> partidas) {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long[] latencias = new long[PARTIDAS * JUGADAS];
+        long sentencias = 0;
+        long total = 0;
+        int i = 0;
+        for (int jugada = 0; jugada < JUGADAS; jugada++) {
+            for (Partida partida : partidas) {
+                jugarUnaCarta(partida);
+                estadisticas.clear();
+                long antes = System.nanoTime();
+                almacen.guardar(partida);
+                latencias[i++] = System.nanoTime() - antes;
+                total += latencias[i - 1];
+                sentencias += estadisticas.getPrepareStatementCount();
+            }
+        }
+        Arrays.sort(latencias);
+        double porEscritura = (double) sentencias / latencias.length;
+        log.info(String.format("%-10s %8.0f escrituras/s  p50 %7.1f µs  p99 %8.1f µs  %5.1f sentencias por escritura",
+                nombre, latencias.length / (total / 1e9), percentil(latencias, 0.50), percentil(latencias, 0.99),
+                porEscritura));
+        return porEscritura;
+    }
+
+    private void jugarUnaCarta(Partida partida) {
+        registroPartidas.modificar(partida, () -> {
+            Jugador jugador = partida.getJugadorActual();
+            partidaService.registrarJugada(partida, jugador, jugador.getMano().get(0));
+            // La jugada sola va a la bitácora; se pide la escritura de la partida entera
+            registroPartidas.marcarModificada(partida);
+            return null;
+        });
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.round(p * (ordenadas.length - 1)))] / 1e3;
+    }
+
+    private static CrearPartidaRequest request(String nombre) {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setPartidaId(nombre);
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", List.of("Ana", "Beto")),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", List.of("Ciro", "Dora"))));
+        return request;
+    }
+}
@@ -0,0 +1,179 @@
+package org.fabiano.tfg.engine.service;
+
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.repository.CartaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.repository.SnapshotPartidaRepository;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventos;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ComandosPartidaTest {
+
+    private RegistroPartidas registro;
+    private ComandosPartida comandos;
+
+    @BeforeEach
+    void setUp() {
+        PartidaRepository repositorio = mock(PartidaRepository.class);
+        registro = new RegistroPartidas(
+                new AlmacenPartidasJpa(repositorio, mock(CartaRepository.class), new CargaPartidas(repositorio)), bitacora(),
+                mock(PlatformTransactionManager.class), mock(ApplicationEventPublisher.class), 50);
+        comandos = new ComandosPartida(registro, 4, false, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        comandos.cerrar();
+    }
+
+    @Test
+    void losComandosDeUnaPartidaSeEjecutanDeAUnoEnElMismoHilo() throws Exception {
+        Partida partida = partida(UUID.randomUUID());
+        int[] contador = new int[1];
+        Set<String> hilos = new HashSet<>();
+        ExecutorService clientes = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> envios = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            envios.add(CompletableFuture.runAsync(() -> comandos.ejecutar(partida, () -> {
+                // Sin sincronización: el carril garantiza un único escritor
+                contador[0]++;
+                hilos.add(Thread.currentThread().getName());
+                return null;
+            }), clientes));
+        }
+        CompletableFuture.allOf(envios.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        clientes.shutdown();
+
+        assertEquals(2000, contador[0]);
+        assertEquals(1, hilos.size());
+        // Ejecutar un comando no pide reescribir la partida: lo jugado va a la bitácora
+        assertEquals(0, registro.cantidadPendientes());
+    }
+
+    @Test
+    void partidasDeCarrilesDistintosAvanzanEnParalelo() throws Exception {
+        UUID primera = UUID.randomUUID();
+        UUID segunda = UUID.randomUUID();
+        while (comandos.carril(segunda) == comandos.carril(primera)) {
+            segunda = UUID.randomUUID();
+        }
+        CountDownLatch ambas = new CountDownLatch(2);
+        CompletableFuture<Boolean> a = comandos.enviar(partida(primera), () -> esperarA(ambas));
+        CompletableFuture<Boolean> b = comandos.enviar(partida(segunda), () -> esperarA(ambas));
+
+        assertTrue(a.get(5, TimeUnit.SECONDS));
+        assertTrue(b.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void lasExcepcionesDelComandoSeRelanzanTalCual() {
+        Partida partida = partida(UUID.randomUUID());
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> comandos.ejecutar(partida, () -> {
+                    throw new IllegalStateException("jugada inválida");
+                }));
+        assertEquals("jugada inválida", error.getMessage());
+
+        // El carril sigue atendiendo comandos después del error
+        assertEquals(1, comandos.ejecutar(partida, () -> 1));
+    }
+
+    @Test
+    void unComandoPuedeEncolarOtroDeSuMismoCarrilSinBloquearse() {
+        Partida partida = partida(UUID.randomUUID());
+        int resultado = comandos.ejecutar(partida, () -> comandos.ejecutar(partida, () -> 7) + 1);
+        assertEquals(8, resultado);
+    }
+
+    @Test
+    void conConfirmacionCadaRespuestaLlegaDespuesDeEscribirYLasPartidasVanJuntas() throws Exception {
+        List<Integer> lotes = new CopyOnWriteArrayList<>();
+        Set<UUID> escritas = ConcurrentHashMap.newKeySet();
+        RegistroPartidas registroConfirmado = new RegistroPartidas(new AlmacenPartidas() {
+            @Override
+            public void guardar(Partida partida) {
+                guardarTodas(List.of(partida));
+            }
+
+            @Override
+            public void guardarTodas(List<Partida> partidas) {
+                lotes.add(partidas.size());
+                partidas.forEach(p -> escritas.add(p.getId()));
+            }
+
+            @Override
+            public Optional<Partida> cargar(UUID id) {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<Partida> cargar(String nombre) {
+                return Optional.empty();
+            }
+        }, bitacora(), mock(PlatformTransactionManager.class), mock(ApplicationEventPublisher.class), 50);
+        ComandosPartida confirmados = new ComandosPartida(registroConfirmado, 4, true, 50);
+        try {
+            List<CompletableFuture<Boolean>> respuestas = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Partida partida = registroConfirmado.registrar(partida(UUID.randomUUID()));
+                respuestas.add(confirmados.enviar(partida, () -> {
+                            registroConfirmado.marcarModificada(partida);
+                            return true;
+                        })
+                        .thenApply(ok -> ok && escritas.contains(partida.getId())));
+            }
+            for (CompletableFuture<Boolean> respuesta : respuestas) {
+                assertTrue(respuesta.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            confirmados.cerrar();
+        }
+
+        assertEquals(20, lotes.stream().mapToInt(Integer::intValue).sum());
+        // Las 20 caen en la misma ventana salvo que el reloj justo la corte
+        assertTrue(lotes.size() <= 2, "lotes: " + lotes);
+        assertEquals(0, registroConfirmado.cantidadPendientes());
+    }
+
+    private static boolean esperarA(CountDownLatch ambas) {
+        ambas.countDown();
+        try {
+            return ambas.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Partida partida(UUID id) {
+        Partida partida = new Partida();
+        partida.setId(id);
+        return partida;
+    }
+
+    private static BitacoraPartidaService bitacora() {
+        return new BitacoraPartidaService(mock(AlmacenEventos.class), mock(SnapshotPartidaRepository.class));
+    }
+}
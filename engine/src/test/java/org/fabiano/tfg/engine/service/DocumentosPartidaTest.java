@@ -0,0 +1,119 @@
+package org.fabiano.tfg.engine.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventosJpa;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.fabiano.tfg.engine.service.bitacora.PartidaCodec;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Las escrituras las hace el test; la diferida no debe meterse en las cuentas
+        "truco.partidas.vaciar-cada-ms=3600000",
+        "truco.partidas.almacenamiento=documento"
+})
+@Import({PartidaService.class, MazoService.class, YamlRuleLoader.class, JerarquiaLoader.class,
+        RegistroPartidas.class, CargaPartidas.class, DocumentosPartida.class, BitacoraPartidaService.class,
+        AlmacenEventosJpa.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DocumentosPartidaTest {
+
+    @Autowired
+    private PartidaService partidaService;
+
+    @Autowired
+    private RegistroPartidas registroPartidas;
+
+    @Autowired
+    private AlmacenPartidas almacen;
+
+    @Autowired
+    private PartidaRepository partidaRepository;
+
+    @Autowired
+    private CargaPartidas cargaPartidas;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void cadaEscrituraEsUnUpdateYLaPartidaSeCargaIgual() {
+        assertInstanceOf(DocumentosPartida.class, almacen);
+        Partida partida = partidaService.crearPartida(request("documento-escritura"));
+        jugarUnaCarta(partida);
+        registroPartidas.vaciar();
+        jugarUnaCarta(partida);
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        registroPartidas.vaciar();
+
+        // El UPDATE del documento y el evento de la jugada, en la misma transacción
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+        assertEquals(1, estadisticas.getSuccessfulTransactionCount());
+        Partida fila = partidaRepository.findById(partida.getId()).orElseThrow();
+        assertEquals(partida.getVersion(), fila.getVersion());
+        assertEquals(partida.getManoActual(), fila.getManoActual());
+        assertNotNull(fila.getActualizadaEn());
+        // Las jugadas sólo están en el documento
+        assertTrue(cargaPartidas.paraJugar(partida.getId()).orElseThrow().getCartasJugadas().isEmpty());
+
+        Partida cargada = almacen.cargar(partida.getNombre()).orElseThrow();
+        assertEquals(partida.getVersion(), cargada.getVersion());
+        assertEquals(2, cargada.getCartasJugadas().size());
+        assertArrayEquals(PartidaCodec.codificar(partida), PartidaCodec.codificar(cargada));
+    }
+
+    @Test
+    void unaCopiaViejaNoPisaElDocumento() {
+        Partida partida = partidaService.crearPartida(request("documento-version"));
+        registroPartidas.vaciar();
+        almacen.guardar(partida);
+        Partida vieja = almacen.cargar(partida.getId()).orElseThrow();
+
+        jugarUnaCarta(partida);
+        almacen.guardar(partida);
+        long version = partida.getVersion();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> almacen.guardar(vieja));
+        assertEquals(1, almacen.cargar(partida.getId()).orElseThrow().getCartasJugadas().size());
+        assertEquals(version, partidaRepository.findById(partida.getId()).orElseThrow().getVersion());
+    }
+
+    private void jugarUnaCarta(Partida partida) {
+        registroPartidas.modificar(partida, () -> {
+            Jugador jugador = partida.getJugadorActual();
+            partidaService.registrarJugada(partida, jugador, jugador.getMano().get(0));
+            // La jugada sola va a la bitácora; se pide la escritura de la partida entera
+            registroPartidas.marcarModificada(partida);
+            return null;
+        });
+    }
+
+    private static CrearPartidaRequest request(String nombre) {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setPartidaId(nombre);
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", List.of("Ana", "Beto")),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", List.of("Ciro", "Dora"))));
+        return request;
+    }
+}
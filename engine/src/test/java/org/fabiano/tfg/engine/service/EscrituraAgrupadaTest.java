@@ -0,0 +1,113 @@
+package org.fabiano.tfg.engine.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.EventoPartidaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventosJpa;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Sólo escribe la ventana, y es ancha: repartir corre las reglas y tarda
+        "truco.partidas.vaciar-cada-ms=3600000",
+        "truco.partidas.ventana-escritura-ms=2000",
+        "truco.partidas.carriles=8"
+})
+@Import({PartidaService.class, MazoService.class, YamlRuleLoader.class, JerarquiaLoader.class,
+        RegistroPartidas.class, CargaPartidas.class, AlmacenPartidasJpa.class, BitacoraPartidaService.class,
+        AlmacenEventosJpa.class, ComandosPartida.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EscrituraAgrupadaTest {
+
+    private static final int PARTIDAS = 8;
+
+    @Autowired
+    private PartidaService partidaService;
+
+    @Autowired
+    private RegistroPartidas registroPartidas;
+
+    @Autowired
+    private ComandosPartida comandos;
+
+    @Autowired
+    private BitacoraPartidaService bitacora;
+
+    @Autowired
+    private PartidaRepository partidaRepository;
+
+    @Autowired
+    private EventoPartidaRepository eventoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void losFinesDeManoDeVariasPartidasSeConfirmanEnUnaSolaTransaccion() throws Exception {
+        List<Partida> partidas = new ArrayList<>();
+        for (int i = 0; i < PARTIDAS; i++) {
+            partidas.add(partidaService.crearPartida(request("agrupada-" + i)));
+        }
+        registroPartidas.vaciar();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        // Cada comando cierra la mano de su partida
+        List<CompletableFuture<Integer>> respuestas = new ArrayList<>();
+        for (Partida partida : partidas) {
+            respuestas.add(comandos.enviar(partida, () -> jugarYRepartir(partida)));
+        }
+        CompletableFuture.allOf(respuestas.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        long transacciones = estadisticas.getSuccessfulTransactionCount();
+
+        // Un lote, a lo sumo dos si algún comando tardó más que la ventana
+        assertTrue(transacciones <= 2, "transacciones: " + transacciones);
+        assertEquals(0, registroPartidas.cantidadPendientes());
+        for (int i = 0; i < PARTIDAS; i++) {
+            Partida partida = partidas.get(i);
+            // La respuesta llegó con la fila y la bitácora de la mano nueva ya en la base
+            assertEquals(respuestas.get(i).get(), partida.getManoActual());
+            assertEquals(partida.getManoActual(),
+                    partidaRepository.findById(partida.getId()).orElseThrow().getManoActual());
+            assertFalse(bitacora.tieneSinEscribir(partida.getId()));
+            assertTrue(eventoRepository.ultimaSecuencia(partida.getId()) > 2);
+        }
+    }
+
+    // Una carta y el reparto de la mano siguiente, como al cerrarse una mano
+    private int jugarYRepartir(Partida partida) {
+        Jugador jugador = partida.getJugadorActual();
+        partidaService.registrarJugada(partida, jugador, jugador.getMano().get(0));
+        partidaService.iniciarNuevaMano(partida);
+        return partida.getManoActual();
+    }
+
+    private static CrearPartidaRequest request(String nombre) {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setPartidaId(nombre);
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", List.of("Ana", "Beto")),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", List.of("Ciro", "Dora"))));
+        return request;
+    }
+}
@@ -0,0 +1,88 @@
+package org.fabiano.tfg.engine.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventosJpa;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Las escrituras las hace el test; la diferida no debe meterse en las cuentas
+        "truco.partidas.vaciar-cada-ms=3600000"
+})
+@Import({PartidaService.class, MazoService.class, YamlRuleLoader.class, JerarquiaLoader.class,
+        RegistroPartidas.class, CargaPartidas.class, AlmacenPartidasJpa.class, BitacoraPartidaService.class, AlmacenEventosJpa.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EscrituraEnLotesTest {
+
+    @Autowired
+    private PartidaService partidaService;
+
+    @Autowired
+    private RegistroPartidas registroPartidas;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void crearPartidaSaleEnPocosLotes() {
+        Partida partida = partidaService.crearPartida(request("lotes-crear"));
+        registroPartidas.vaciar();
+
+        assertNotNull(partida.getId());
+        // 12 cartas repartidas, 4 jugadores, 2 equipos, la partida, el evento y el snapshot
+        assertEquals(21, estadisticas.getEntityInsertCount());
+        // Una sentencia por tabla y lote, más las secuencias: sin lotes sería una por fila
+        assertTrue(estadisticas.getPrepareStatementCount() <= 12,
+                "sentencias: " + estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void repartirUnaManoSaleEnPocosLotes() {
+        Partida partida = partidaService.crearPartida(request("lotes-repartir"));
+        registroPartidas.vaciar();
+        estadisticas.clear();
+
+        partidaService.iniciarNuevaMano(partida);
+        registroPartidas.vaciar();
+
+        // Las cartas repartidas, el evento del reparto y el snapshot
+        assertEquals(12 + 2, estadisticas.getEntityInsertCount());
+        // Incluye las lecturas del merge de la partida en memoria; sin lotes sería una por fila
+        assertTrue(estadisticas.getPrepareStatementCount() <= 26,
+                "sentencias: " + estadisticas.getPrepareStatementCount());
+    }
+
+    private static CrearPartidaRequest request(String nombre) {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setPartidaId(nombre);
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", List.of("Ana", "Beto")),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", List.of("Ciro", "Dora"))));
+        return request;
+    }
+}
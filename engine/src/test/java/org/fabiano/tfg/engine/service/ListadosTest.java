@@ -0,0 +1,108 @@
+package org.fabiano.tfg.engine.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.fabiano.tfg.engine.dto.EquipoResponse;
+import org.fabiano.tfg.engine.dto.JugadorResponse;
+import org.fabiano.tfg.engine.dto.Pagina;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.EquipoRepository;
+import org.fabiano.tfg.engine.repository.JugadorRepository;
+import org.fabiano.tfg.engine.service.replica.GuardiaReplica;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({Listados.class, GuardiaReplica.class, ObjectMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ListadosTest {
+
+    @Autowired
+    private Listados listados;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private EquipoRepository equipoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void lasPaginasRecorrenTodosLosJugadoresUnaVezYEnOrden() throws Exception {
+        List<Jugador> guardados = jugadorRepository.saveAll(IntStream.range(0, 23)
+                .mapToObj(i -> jugador("Pag" + i)).toList());
+        List<UUID> esperados = guardados.stream().map(Jugador::getId).toList();
+
+        List<UUID> vistos = new ArrayList<>();
+        UUID despues = null;
+        int paginas = 0;
+        do {
+            Pagina<JugadorResponse> pagina = listados.jugadores(despues, 5);
+            assertTrue(pagina.elementos().size() <= 5);
+            pagina.elementos().forEach(j -> vistos.add(j.getId()));
+            despues = pagina.siguiente();
+            paginas++;
+        } while (despues != null);
+
+        // Sin repetidos ni faltantes, y cada página llena salvo la última
+        assertEquals(vistos.size(), new HashSet<>(vistos).size());
+        assertTrue(vistos.containsAll(esperados));
+        assertEquals((vistos.size() + 4) / 5, paginas);
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        listados.escribirJugadores(salida);
+        List<Map<String, Object>> escritos = objectMapper.readValue(salida.toByteArray(), new TypeReference<>() {
+        });
+        assertEquals(vistos.size(), escritos.size());
+    }
+
+    @Test
+    void elStreamingDeEquiposAgrupaLosJugadoresDeCadaUno() throws Exception {
+        Jugador ana = jugadorRepository.save(jugador("Ana"));
+        Jugador beto = jugadorRepository.save(jugador("Beto"));
+        Equipo rojos = equipoRepository.save(new Equipo("Rojos", new ArrayList<>(), 0));
+        rojos.getJugadores().addAll(List.of(ana, beto));
+        equipoRepository.save(rojos);
+        equipoRepository.save(new Equipo("Vacio", new ArrayList<>(), 3));
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        listados.escribirEquipos(salida);
+        List<Map<String, Object>> escritos = objectMapper.readValue(salida.toByteArray(), new TypeReference<>() {
+        });
+
+        Map<String, Integer> jugadoresPorEquipo = new TreeMap<>();
+        for (Map<String, Object> equipo : escritos) {
+            jugadoresPorEquipo.put((String) equipo.get("nombre"), ((List<?>) equipo.get("jugadores")).size());
+        }
+        assertEquals(2, jugadoresPorEquipo.get("Rojos"));
+        assertEquals(0, jugadoresPorEquipo.get("Vacio"));
+
+        // La página y el streaming usan el mismo orden
+        List<EquipoResponse> pagina = listados.equipos(null, 100).elementos();
+        assertEquals(escritos.stream().map(e -> e.get("id")).toList(),
+                pagina.stream().map(e -> e.getId().toString()).toList());
+    }
+
+    private static Jugador jugador(String nombre) {
+        return new Jugador(nombre, false, false, false, false, false,
+                false, false, false, false, false, false, false, 0, new ArrayList<>());
+    }
+}
@@ -0,0 +1,112 @@
+package org.fabiano.tfg.engine.service;
+
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.dto.PartidaResumen;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.MembresiaPartida;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.repository.MembresiaPartidaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventosJpa;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({PartidaService.class, MazoService.class, YamlRuleLoader.class, JerarquiaLoader.class,
+        RegistroPartidas.class, CargaPartidas.class, AlmacenPartidasJpa.class, BitacoraPartidaService.class, AlmacenEventosJpa.class,
+        MembresiasPartida.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MembresiasPartidaTest {
+
+    @Autowired
+    private PartidaService partidaService;
+
+    @Autowired
+    private RegistroPartidas registroPartidas;
+
+    @Autowired
+    private MembresiasPartida membresias;
+
+    @Autowired
+    private MembresiaPartidaRepository membresiaRepository;
+
+    @Autowired
+    private PartidaRepository partidaRepository;
+
+    @Test
+    void seIndexaAlCrearSeTocaEnCadaManoYSeCierraAlTerminar() {
+        Partida primera = partidaService.crearPartida(request("membresia-primera", "Ana", "Beto"));
+        Partida segunda = partidaService.crearPartida(request("membresia-segunda", "Ana", "Ciro"));
+
+        assertTrue(membresias.esMiembro(primera.getId(), "Beto"));
+        assertFalse(membresias.esMiembro(segunda.getId(), "Beto"));
+        // Sin la copia en memoria la respuesta sale del índice
+        MembresiasPartida sinMemoria = new MembresiasPartida(membresiaRepository);
+        assertTrue(sinMemoria.esMiembro(segunda.getId(), "Ciro"));
+        assertFalse(sinMemoria.esMiembro(segunda.getId(), "Beto"));
+
+        MembresiaPartida fila = membresiaRepository.findById(
+                new MembresiaPartida.Clave(primera.getId(), "Ana")).orElseThrow();
+        assertEquals(EstadoRonda.EN_CURSO, fila.getEstado());
+        assertEquals(jugador(primera, "Ana"), fila.getJugadorId());
+
+        // Una mano nueva en la primera la deja como la más reciente de Ana
+        partidaService.iniciarNuevaMano(primera);
+        registroPartidas.vaciar();
+        assertEquals(List.of("membresia-primera", "membresia-segunda"),
+                nombres(partidaRepository.listarPorJugador("Ana")));
+
+        Instant fin = Instant.now();
+        membresias.onPartidaFinalizada(new PartidaFinalizadaEvent(segunda.getId(), segunda.getNombre(), fin, List.of()));
+        fila = membresiaRepository.findById(new MembresiaPartida.Clave(segunda.getId(), "Ciro")).orElseThrow();
+        assertEquals(EstadoRonda.FINALIZADA, fila.getEstado());
+        assertEquals(List.of("membresia-segunda", "membresia-primera"),
+                nombres(partidaRepository.listarPorJugador("Ana")));
+        assertEquals(List.of("membresia-primera"), nombres(partidaRepository.listarPorJugador("Beto")));
+    }
+
+    @Test
+    void completaElIndiceConLasPartidasQueYaEstaban() {
+        Partida partida = partidaService.crearPartida(request("membresia-previa", "Dora", "Eva"));
+        membresiaRepository.deleteAll();
+
+        membresias.completarIndice();
+
+        assertTrue(membresiaRepository.existsByPartidaIdAndJugadorNombre(partida.getId(), "Eva"));
+        assertEquals(List.of("membresia-previa"), nombres(partidaRepository.listarPorJugador("Dora")));
+    }
+
+    private static UUID jugador(Partida partida, String nombre) {
+        return partida.getEquipos().stream()
+                .flatMap(e -> e.getJugadores().stream())
+                .filter(j -> j.getNombre().equals(nombre))
+                .findFirst().orElseThrow()
+                .getId();
+    }
+
+    private static List<String> nombres(List<PartidaResumen> partidas) {
+        return partidas.stream().map(PartidaResumen::nombre).toList();
+    }
+
+    private static CrearPartidaRequest request(String nombre, String uno, String otro) {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setPartidaId(nombre);
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", List.of(uno)),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", List.of(otro))));
+        return request;
+    }
+}
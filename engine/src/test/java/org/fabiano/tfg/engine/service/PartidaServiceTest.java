@@ -1,6 +1,7 @@
 package org.fabiano.tfg.engine.service;
 
 import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
 import org.fabiano.tfg.engine.model.Carta;
 import org.fabiano.tfg.engine.model.EstadoRonda;
 import org.fabiano.tfg.engine.model.Palo;
@@ -9,15 +10,20 @@ import org.fabiano.tfg.engine.model.team.Equipo;
 import org.fabiano.tfg.engine.model.team.Jugador;
 import org.fabiano.tfg.engine.repository.CartaRepository;
 import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 class PartidaServiceTest {
@@ -37,17 +43,29 @@ class PartidaServiceTest {
     @Mock
     private CartaRepository cartaRepository; // Agregar este mock
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private BitacoraPartidaService bitacora;
+
+    private RegistroPartidas registroPartidas;
+
     private PartidaService partidaService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        registroPartidas = new RegistroPartidas(
+                new AlmacenPartidasJpa(partidaRepository, cartaRepository, new CargaPartidas(partidaRepository)), bitacora,
+                mock(PlatformTransactionManager.class), eventPublisher, 50);
         partidaService = new PartidaService(
                 mazoService,
                 ruleLoader,
-                partidaRepository,
-                cartaRepository,    // Agregar cartaRepository aquí
-                jerarquiaLoader
+                registroPartidas,
+                jerarquiaLoader,
+                eventPublisher,
+                bitacora
         );
         // Simulate ID generation when saving a Partida
         when(partidaRepository.save(any(Partida.class))).thenAnswer(i -> {
@@ -58,6 +76,7 @@ class PartidaServiceTest {
             return p;
         });
         when(cartaRepository.save(any(Carta.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(cartaRepository.saveAll(anyList())).thenAnswer(i -> i.getArguments()[0]);
     }
 
     @Test
@@ -72,7 +91,9 @@ class PartidaServiceTest {
         assertEquals(2, partida.getEquipos().size());
         assertEquals(30, partida.getPuntajeLimite());
         assertEquals(EstadoRonda.EN_CURSO, partida.getEstadoRonda());
-        verify(partidaRepository, times(2)).save(any(Partida.class));
+        // Sólo se persiste al repartir la primera mano; después queda en memoria
+        verify(partidaRepository, times(1)).save(any(Partida.class));
+        assertSame(partida, partidaService.obtenerPartida(partida.getId()).orElseThrow());
     }
 
     @Test
@@ -98,7 +119,7 @@ class PartidaServiceTest {
         assertEquals(2, partida.getEquipos().size());
         assertEquals("Equipo1", partida.getEquipos().get(0).getNombre());
         assertEquals("Equipo2", partida.getEquipos().get(1).getNombre());
-        verify(partidaRepository, times(2)).save(any(Partida.class));
+        verify(partidaRepository, times(1)).save(any(Partida.class));
     }
 
     @Test
@@ -113,7 +134,8 @@ class PartidaServiceTest {
         assertEquals(1, partida.getCartasJugadas().size());
         assertTrue(jugador.getMano().isEmpty());
         verify(ruleLoader, atLeast(1)).ejecutarTodas(eq(jugador), eq(partida));
-        verify(partidaRepository, atLeast(1)).save(partida);
+        // Una jugada en medio de la mano no va a la base en el momento
+        verify(partidaRepository, never()).save(partida);
     }
 
     @Test
@@ -158,7 +180,8 @@ class PartidaServiceTest {
 
         assertEquals(2, equipoGanador.getPuntaje());
         assertEquals(2, partida.getPuntosPorEquipo().get(equipoId));
-        verify(partidaRepository, times(2)).save(partida);
+        // Fin de mano: la mano nueva se persiste una vez, sin escritura extra
+        verify(partidaRepository, times(1)).save(partida);
     }
 
     @Test
@@ -181,6 +204,11 @@ class PartidaServiceTest {
         assertEquals(31, equipoGanador.getPuntaje());
         assertEquals(31, partida.getPuntosPorEquipo().get(equipoId));
         verify(partidaRepository).save(partida);
+
+        ArgumentCaptor<PartidaFinalizadaEvent> evento = ArgumentCaptor.forClass(PartidaFinalizadaEvent.class);
+        verify(eventPublisher).publishEvent(evento.capture());
+        assertEquals(List.of(true, false),
+                evento.getValue().equipos().stream().map(PartidaFinalizadaEvent.ResultadoEquipo::ganador).toList());
     }
 
     private Partida crearPartidaDePrueba() {
@@ -0,0 +1,114 @@
+package org.fabiano.tfg.engine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.dto.Pagina;
+import org.fabiano.tfg.engine.dto.PartidaResumen;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventosJpa;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.fabiano.tfg.engine.service.replica.GuardiaReplica;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Las escrituras diferidas no deben meterse en las cuentas
+        "truco.partidas.vaciar-cada-ms=3600000"
+})
+@Import({PartidaService.class, MazoService.class, YamlRuleLoader.class, JerarquiaLoader.class,
+        RegistroPartidas.class, CargaPartidas.class, AlmacenPartidasJpa.class, BitacoraPartidaService.class,
+        AlmacenEventosJpa.class, MembresiasPartida.class, Listados.class, GuardiaReplica.class, ObjectMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PlanesCargaTest {
+
+    @Autowired
+    private PartidaService partidaService;
+
+    @Autowired
+    private CargaPartidas cargaPartidas;
+
+    @Autowired
+    private Listados listados;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void setUp() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void cargarUnaPartidaParaJugarSonSeisSentenciasConCualquierCantidadDeJugadores() {
+        Partida deCuatro = partidaService.crearPartida(request("plan-cuatro", List.of("Ana", "Beto"), List.of("Ciro", "Dora")));
+        Partida deDos = partidaService.crearPartida(request("plan-dos", List.of("Eva"), List.of("Fede")));
+
+        for (Partida partida : List.of(deCuatro, deDos)) {
+            estadisticas.clear();
+            Partida cargada = cargaPartidas.paraJugar(partida.getId()).orElseThrow();
+
+            // La partida con sus jugadas, y una por nivel: equipos, jugadores, manos y los dos mapas
+            assertEquals(6, estadisticas.getPrepareStatementCount(), partida.getNombre());
+            // Queda completa fuera de la sesión, sin más consultas
+            int cartas = 0;
+            for (Equipo equipo : cargada.getEquipos()) {
+                for (Jugador jugador : equipo.getJugadores()) {
+                    cartas += jugador.getMano().size();
+                }
+            }
+            assertEquals(3 * partida.getTotalJugadores(), cartas);
+            assertNotNull(cargada.getGanadoresPorMano());
+            assertEquals(6, estadisticas.getPrepareStatementCount(), partida.getNombre());
+        }
+    }
+
+    @Test
+    void unaPaginaDelListadoEsUnaSentencia() {
+        for (int i = 0; i < 3; i++) {
+            partidaService.crearPartida(request("plan-listado-" + i, List.of("Gabi"), List.of("Hugo" + i)));
+        }
+
+        estadisticas.clear();
+        Pagina<PartidaResumen> primera = listados.partidasEnCurso(null, 2);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(2, primera.elementos().size());
+        assertNotNull(primera.siguiente());
+
+        estadisticas.clear();
+        listados.partidasEnCurso(primera.siguiente(), 2);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        estadisticas.clear();
+        List<PartidaResumen> deGabi = listados.partidasDe("Gabi");
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(3, deGabi.size());
+    }
+
+    private static CrearPartidaRequest request(String nombre, List<String> equipo1, List<String> equipo2) {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setPartidaId(nombre);
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", equipo1),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", equipo2)));
+        return request;
+    }
+}
@@ -0,0 +1,209 @@
+package org.fabiano.tfg.engine.service;
+
+import org.fabiano.tfg.engine.event.PartidaRetiradaEvent;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.Jugada;
+import org.fabiano.tfg.engine.model.Palo;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.repository.CartaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.repository.SnapshotPartidaRepository;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventos;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class RegistroPartidasTest {
+
+    @Mock
+    private PartidaRepository partidaRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private RegistroPartidas registro;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registro = new RegistroPartidas(
+                new AlmacenPartidasJpa(partidaRepository, mock(CartaRepository.class), new CargaPartidas(partidaRepository)),
+                new BitacoraPartidaService(mock(AlmacenEventos.class), mock(SnapshotPartidaRepository.class)),
+                mock(PlatformTransactionManager.class), eventPublisher, 50);
+        // Como merge: devuelve una copia con versión nueva e ids asignados
+        when(partidaRepository.saveAll(anyList())).thenAnswer(i -> {
+            List<Partida> guardadas = new ArrayList<>();
+            for (Object o : (List<?>) i.getArguments()[0]) {
+                guardadas.add(copiaGuardada((Partida) o));
+            }
+            return guardadas;
+        });
+        when(partidaRepository.save(any(Partida.class))).thenAnswer(i -> copiaGuardada((Partida) i.getArguments()[0]));
+    }
+
+    @Test
+    void variasModificacionesSeEscribenUnaSolaVez() {
+        Partida partida = registro.registrar(partidaConId("viernes"));
+        for (int i = 0; i < 3; i++) {
+            Jugada jugada = jugada(i);
+            registro.modificar(partida, () -> {
+                partida.getCartasJugadas().add(jugada);
+                registro.marcarModificada(partida);
+                return null;
+            });
+        }
+        assertEquals(1, registro.cantidadPendientes());
+        verifyNoMoreInteractions(partidaRepository);
+
+        registro.vaciar();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Partida>> lote = ArgumentCaptor.forClass(List.class);
+        verify(partidaRepository, times(1)).saveAll(lote.capture());
+        assertEquals(List.of(partida), lote.getValue());
+        assertEquals(0, registro.cantidadPendientes());
+        // La versión y los ids del merge vuelven a la instancia en memoria
+        assertEquals(1L, partida.getVersion());
+        assertTrue(partida.getCartasJugadas().stream().allMatch(j -> j.getId() != null));
+    }
+
+    @Test
+    void buscaEnMemoriaAntesQueEnLaBase() {
+        Partida partida = partidaConId("sabado");
+        when(partidaRepository.findParaJugarByNombre("sabado")).thenReturn(Optional.of(partida));
+
+        Partida primera = registro.buscar("sabado").orElseThrow();
+        Partida segunda = registro.buscar("sabado").orElseThrow();
+        Partida porId = registro.buscar(partida.getId().toString()).orElseThrow();
+
+        assertSame(primera, segunda);
+        assertSame(primera, porId);
+        verify(partidaRepository, times(1)).findParaJugarByNombre("sabado");
+        verify(partidaRepository, never()).findParaJugarById(any());
+    }
+
+    @Test
+    void partidaOcupadaQuedaParaLaProximaPasada() throws Exception {
+        Partida partida = registro.registrar(partidaConId("domingo"));
+        CountDownLatch adentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        Thread jugador = new Thread(() -> registro.modificar(partida, () -> {
+            adentro.countDown();
+            try {
+                soltar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        registro.marcarModificada(partida);
+        jugador.start();
+        assertTrue(adentro.await(5, TimeUnit.SECONDS));
+
+        registro.vaciar();
+        verify(partidaRepository, never()).saveAll(anyList());
+        assertEquals(1, registro.cantidadPendientes());
+
+        soltar.countDown();
+        jugador.join();
+        registro.vaciar();
+        verify(partidaRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void persistirDejaElFinDeManoParaElLoteYDescartaLasFinalizadas() {
+        Partida partida = registro.registrar(partidaConId("lunes"));
+        partida.setEstadoRonda(EstadoRonda.FINALIZADA);
+
+        registro.persistir(partida);
+
+        verifyNoMoreInteractions(partidaRepository);
+        CompletableFuture<Void> escrita = registro.escrita(partida);
+        assertFalse(escrita.isDone());
+        assertEquals(1, registro.cantidadEnJuego());
+
+        registro.vaciar();
+
+        verify(partidaRepository).saveAll(List.of(partida));
+        verify(partidaRepository, never()).flush();
+        assertTrue(escrita.isDone());
+        assertEquals(0, registro.cantidadPendientes());
+        assertEquals(0, registro.cantidadEnJuego());
+    }
+
+    @Test
+    void siLaEscrituraFallaLaPartidaSigueConCambiosYNoSeLibera() {
+        Partida partida = registro.registrar(partidaConId("martes"));
+        partida.getCartasJugadas().add(jugada(0));
+        registro.marcarModificada(partida);
+        when(partidaRepository.saveAll(anyList())).thenThrow(new IllegalStateException("base caída"));
+
+        registro.vaciar();
+
+        // El lote y el reintento de la partida sola
+        verify(partidaRepository, times(2)).saveAll(List.of(partida));
+        assertEquals(1, registro.cantidadPendientes());
+        assertEquals(0, registro.liberarInactivas(Instant.now().plusSeconds(60)));
+        assertEquals(1, registro.cantidadEnJuego());
+        verify(eventPublisher, never()).publishEvent(any(PartidaRetiradaEvent.class));
+
+        reset(partidaRepository);
+        when(partidaRepository.saveAll(anyList())).thenAnswer(i -> List.of(copiaGuardada(partida)));
+        registro.vaciar();
+
+        verify(partidaRepository, times(1)).saveAll(List.of(partida));
+        assertEquals(0, registro.cantidadPendientes());
+        assertEquals(1, registro.liberarInactivas(Instant.now().plusSeconds(60)));
+        verify(eventPublisher).publishEvent(new PartidaRetiradaEvent(partida.getId()));
+    }
+
+    private static Partida partidaConId(String nombre) {
+        Partida partida = new Partida();
+        partida.setId(UUID.randomUUID());
+        partida.setNombre(nombre);
+        partida.setVersion(0L);
+        partida.setCartasJugadas(new ArrayList<>());
+        partida.setEstadoRonda(EstadoRonda.EN_CURSO);
+        return partida;
+    }
+
+    private static Jugada jugada(int i) {
+        Carta carta = new Carta(Palo.ORO, i + 1);
+        carta.setId((long) i);
+        return new Jugada("Jugador1", carta, i + 1, 1);
+    }
+
+    private static Partida copiaGuardada(Partida partida) {
+        Partida copia = new Partida();
+        copia.setId(partida.getId());
+        copia.setVersion(partida.getVersion() + 1);
+        List<Jugada> jugadas = new ArrayList<>();
+        for (Jugada jugada : partida.getCartasJugadas()) {
+            Jugada guardada = new Jugada(jugada.getJugador(), jugada.getCarta(), jugada.getNumeroVuelta(), jugada.getNumeroRonda());
+            guardada.setId(jugada.getId() != null ? jugada.getId() : UUID.randomUUID());
+            jugadas.add(guardada);
+        }
+        copia.setCartasJugadas(jugadas);
+        return copia;
+    }
+}
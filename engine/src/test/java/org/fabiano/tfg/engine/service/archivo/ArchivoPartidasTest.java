@@ -0,0 +1,147 @@
+package org.fabiano.tfg.engine.service.archivo;
+
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.EventoPartidaRepository;
+import org.fabiano.tfg.engine.repository.JugadorRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.repository.SnapshotPartidaRepository;
+import org.fabiano.tfg.engine.service.AlmacenPartidasJpa;
+import org.fabiano.tfg.engine.service.CargaPartidas;
+import org.fabiano.tfg.engine.service.JerarquiaLoader;
+import org.fabiano.tfg.engine.service.MazoService;
+import org.fabiano.tfg.engine.service.MembresiasPartida;
+import org.fabiano.tfg.engine.service.PartidaService;
+import org.fabiano.tfg.engine.service.RegistroPartidas;
+import org.fabiano.tfg.engine.service.YamlRuleLoader;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventosJpa;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({PartidaService.class, MazoService.class, YamlRuleLoader.class, JerarquiaLoader.class,
+        RegistroPartidas.class, CargaPartidas.class, AlmacenPartidasJpa.class, BitacoraPartidaService.class, AlmacenEventosJpa.class,
+        ArchivoPartidas.class, ArchivadorPartidas.class, MembresiasPartida.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ArchivoPartidasTest {
+
+    @Autowired
+    private PartidaService partidaService;
+
+    @Autowired
+    private RegistroPartidas registroPartidas;
+
+    @Autowired
+    private ArchivadorPartidas archivador;
+
+    @Autowired
+    private ArchivoPartidas archivo;
+
+    @Autowired
+    private PartidaRepository partidaRepository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private EventoPartidaRepository eventoRepository;
+
+    @Autowired
+    private SnapshotPartidaRepository snapshotRepository;
+
+    @Test
+    void archivaLasTerminadasViejasYLasReconstruyeParaElHistorial() {
+        Partida vieja = jugarYTerminar("archivo-vieja", Instant.now().minus(Duration.ofDays(3)));
+        Partida reciente = jugarYTerminar("archivo-reciente", Instant.now());
+
+        assertEquals(1, archivador.archivar());
+
+        assertFalse(partidaRepository.existsById(vieja.getId()));
+        assertTrue(partidaRepository.existsById(reciente.getId()));
+        for (Jugador jugador : jugadores(vieja)) {
+            assertFalse(jugadorRepository.existsById(jugador.getId()));
+        }
+        assertEquals(0, eventoRepository.ultimaSecuencia(vieja.getId()));
+        assertTrue(snapshotRepository.findFirstByPartidaIdOrderBySecuenciaDesc(vieja.getId()).isEmpty());
+
+        Partida porNombre = archivo.buscar("archivo-vieja").orElseThrow();
+        Partida porId = archivo.buscar(vieja.getId().toString()).orElseThrow();
+        assertEquals(vieja.getId(), porNombre.getId());
+        assertEquals(EstadoRonda.FINALIZADA, porNombre.getEstadoRonda());
+        assertEquals(resumen(vieja), resumen(porNombre));
+        assertEquals(resumen(vieja), resumen(porId));
+
+        // Una segunda pasada no encuentra nada nuevo
+        assertEquals(0, archivador.archivar());
+    }
+
+    @Test
+    void noArchivaPartidasEnCurso() {
+        Partida partida = partidaService.crearPartida(request("archivo-en-curso"));
+
+        assertFalse(archivo.archivar(partida.getId()));
+        assertTrue(partidaRepository.existsById(partida.getId()));
+        assertTrue(archivo.buscar("archivo-en-curso").isEmpty());
+    }
+
+    private Partida jugarYTerminar(String nombre, Instant finalizadaEn) {
+        Partida partida = partidaService.crearPartida(request(nombre));
+        for (int i = 0; i < 2; i++) {
+            Jugador jugador = partida.getJugadorActual();
+            partidaService.registrarJugada(partida, jugador, jugador.getMano().get(0));
+        }
+        partida.setEstadoRonda(EstadoRonda.FINALIZADA);
+        partida.setFinalizadaEn(finalizadaEn);
+        registroPartidas.persistir(partida);
+        registroPartidas.vaciar();
+        return partida;
+    }
+
+    // Lo que muestra el historial, sin depender del orden en que la base devuelve los jugadores
+    private static Map<String, Object> resumen(Partida partida) {
+        Map<String, Object> resumen = new TreeMap<>();
+        for (Jugador jugador : jugadores(partida)) {
+            resumen.put(jugador.getNombre(), jugador.getMano().stream().map(Carta::toString).toList());
+        }
+        for (Equipo equipo : partida.getEquipos()) {
+            resumen.put(equipo.getId().toString(), equipo.getNombre() + ":" + equipo.getPuntaje());
+        }
+        resumen.put("jugadas", partida.getCartasJugadas().stream()
+                .map(j -> j.getJugador() + ":" + j.getCarta() + ":" + j.getNumeroVuelta())
+                .toList());
+        resumen.put("vuelta", partida.getVuelta());
+        resumen.put("mano", partida.getManoActual());
+        return resumen;
+    }
+
+    private static List<Jugador> jugadores(Partida partida) {
+        return partida.getEquipos().stream().flatMap(e -> e.getJugadores().stream()).toList();
+    }
+
+    private static CrearPartidaRequest request(String nombre) {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setPartidaId(nombre);
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", List.of("Ana", "Beto")),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", List.of("Ciro", "Dora"))));
+        return request;
+    }
+}
@@ -0,0 +1,163 @@
+package org.fabiano.tfg.engine.service.archivo;
+
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.dto.EstadisticasLimpieza;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.EventoPartida;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.CartaRepository;
+import org.fabiano.tfg.engine.repository.EventoPartidaRepository;
+import org.fabiano.tfg.engine.repository.JugadaRepository;
+import org.fabiano.tfg.engine.repository.JugadorRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.repository.SnapshotPartidaRepository;
+import org.fabiano.tfg.engine.service.AlmacenPartidasJpa;
+import org.fabiano.tfg.engine.service.CargaPartidas;
+import org.fabiano.tfg.engine.service.JerarquiaLoader;
+import org.fabiano.tfg.engine.service.MazoService;
+import org.fabiano.tfg.engine.service.MembresiasPartida;
+import org.fabiano.tfg.engine.service.PartidaService;
+import org.fabiano.tfg.engine.service.RegistroPartidas;
+import org.fabiano.tfg.engine.service.YamlRuleLoader;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventosJpa;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "truco.limpieza.tamano-lote=1",
+        "truco.limpieza.pausa-ms=0"
+})
+@Import({PartidaService.class, MazoService.class, YamlRuleLoader.class, JerarquiaLoader.class,
+        RegistroPartidas.class, CargaPartidas.class, AlmacenPartidasJpa.class, BitacoraPartidaService.class, AlmacenEventosJpa.class,
+        ArchivoPartidas.class, LimpiezaPartidas.class, MembresiasPartida.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LimpiezaPartidasTest {
+
+    @Autowired
+    private PartidaService partidaService;
+
+    @Autowired
+    private RegistroPartidas registroPartidas;
+
+    @Autowired
+    private LimpiezaPartidas limpieza;
+
+    @Autowired
+    private ArchivoPartidas archivo;
+
+    @Autowired
+    private PartidaRepository partidaRepository;
+
+    @Autowired
+    private JugadorRepository jugadorRepository;
+
+    @Autowired
+    private EventoPartidaRepository eventoRepository;
+
+    @Autowired
+    private SnapshotPartidaRepository snapshotRepository;
+
+    @Autowired
+    private CartaRepository cartaRepository;
+
+    @Autowired
+    private JugadaRepository jugadaRepository;
+
+    @Test
+    void recuperaLasAbandonadasEnLotesYRespetaLasQueSiguenEnMemoria() {
+        Partida abandonada = partidaService.crearPartida(request("limpieza-abandonada"));
+        // Dos jugadas escritas y una mano nueva: quedan cartas y jugadas que ya
+        // no están en ninguna mano ni en la lista de jugadas de la partida
+        for (int i = 0; i < 2; i++) {
+            Jugador jugador = abandonada.getJugadorActual();
+            partidaService.registrarJugada(abandonada, jugador, jugador.getMano().get(0));
+        }
+        registroPartidas.marcarModificada(abandonada);
+        registroPartidas.vaciar();
+        partidaService.iniciarNuevaMano(abandonada);
+        registroPartidas.vaciar();
+        Partida otraAbandonada = partidaService.crearPartida(request("limpieza-otra"));
+        registroPartidas.vaciar();
+        envejecer(abandonada.getId(), otraAbandonada.getId());
+        // Como después de un reinicio: ya no están en memoria
+        registroPartidas.vaciar();
+        assertEquals(2, registroPartidas.liberarInactivas(Instant.now().plusSeconds(1)));
+
+        Partida activa = partidaService.crearPartida(request("limpieza-activa"));
+        // Sin eventos recientes en la base, pero recién usada en memoria
+        Partida enMemoria = partidaService.crearPartida(request("limpieza-en-memoria"));
+        envejecer(enMemoria.getId());
+
+        // Dos lotes de una partida cada uno
+        assertEquals(2, limpieza.limpiar());
+
+        for (Partida partida : List.of(abandonada, otraAbandonada)) {
+            assertFalse(partidaRepository.existsById(partida.getId()));
+            for (Jugador jugador : jugadores(partida)) {
+                assertFalse(jugadorRepository.existsById(jugador.getId()));
+            }
+            assertEquals(0, eventoRepository.ultimaSecuencia(partida.getId()));
+            assertTrue(snapshotRepository.findFirstByPartidaIdOrderBySecuenciaDesc(partida.getId()).isEmpty());
+        }
+        assertTrue(partidaRepository.existsById(activa.getId()));
+        assertTrue(partidaRepository.existsById(enMemoria.getId()));
+
+        // Se archivan sin fecha de fin, tal como quedaron
+        Partida archivada = archivo.buscar("limpieza-abandonada").orElseThrow();
+        assertEquals(EstadoRonda.EN_CURSO, archivada.getEstadoRonda());
+
+        EstadisticasLimpieza estadisticas = limpieza.estadisticas();
+        assertEquals(1, estadisticas.pasadas());
+        assertEquals(2, estadisticas.partidas());
+        assertEquals(8, estadisticas.jugadores());
+        assertEquals(2, estadisticas.jugadas());
+        // Doce cartas por reparto: dos repartos de una, uno de la otra
+        assertEquals(36, estadisticas.cartas());
+        // Dos repartos y dos cartas jugadas de una, el reparto de la otra
+        assertEquals(5, estadisticas.eventos());
+        assertEquals(3, estadisticas.snapshots());
+        // En las tablas sólo quedan las cartas de las dos partidas que siguen
+        assertEquals(24, cartaRepository.count());
+        assertEquals(0, jugadaRepository.count());
+
+        assertEquals(0, limpieza.limpiar());
+    }
+
+    // Lleva la bitácora de las partidas tres días atrás
+    private void envejecer(UUID... ids) {
+        Instant antes = Instant.now().minus(Duration.ofDays(3));
+        List<EventoPartida> eventos = eventoRepository.findAll().stream()
+                .filter(e -> List.of(ids).contains(e.getPartidaId()))
+                .toList();
+        eventos.forEach(e -> e.setInstante(antes));
+        eventoRepository.saveAll(eventos);
+    }
+
+    private static List<Jugador> jugadores(Partida partida) {
+        return partida.getEquipos().stream().flatMap(e -> e.getJugadores().stream()).toList();
+    }
+
+    private static CrearPartidaRequest request(String nombre) {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setPartidaId(nombre);
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", List.of("Ana", "Beto")),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", List.of("Ciro", "Dora"))));
+        return request;
+    }
+}
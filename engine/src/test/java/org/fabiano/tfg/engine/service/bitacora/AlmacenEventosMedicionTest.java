@@ -0,0 +1,93 @@
+package org.fabiano.tfg.engine.service.bitacora;
+
+import lombok.extern.slf4j.Slf4j;
+import org.fabiano.tfg.engine.model.EventoPartida;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mide el costo por evento de cada almacén con la misma carga: varias
+ * partidas que se turnan, un evento por vez y bajado a disco antes de
+ * seguir. Registra en el log eventos por segundo y latencias; sólo verifica que los
+ * dos devuelvan lo mismo.
+ */
+@Slf4j
+@Tag("medicion")
+// El log de cada sentencia pesaría más que la sentencia
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@Import(AlmacenEventosJpa.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AlmacenEventosMedicionTest {
+
+    private static final int PARTIDAS = 10;
+    private static final int EVENTOS_POR_PARTIDA = 50;
+
+    @Autowired
+    private AlmacenEventosJpa jpa;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void diarioYTablaGuardanLoMismoYSeMidenConLaMismaCarga() {
+        DiarioEventos diario = new DiarioEventos(directorio, DataSize.ofMegabytes(4), true, 0.5);
+        List<UUID> partidas = Stream.generate(UUID::randomUUID).limit(PARTIDAS).toList();
+
+        medir("tabla (JPA)", jpa, partidas);
+        medir("diario", diario, partidas);
+
+        for (UUID partida : partidas) {
+            assertEquals(EVENTOS_POR_PARTIDA, diario.ultimaSecuencia(partida));
+            assertEquals(resumen(jpa.desde(partida, 0)), resumen(diario.desde(partida, 0)));
+        }
+    }
+
+    private static void medir(String nombre, AlmacenEventos almacen, List<UUID> partidas) {
+        long[] latencias = new long[PARTIDAS * EVENTOS_POR_PARTIDA];
+        int i = 0;
+        long inicio = System.nanoTime();
+        for (int secuencia = 1; secuencia <= EVENTOS_POR_PARTIDA; secuencia++) {
+            for (UUID partida : partidas) {
+                long antes = System.nanoTime();
+                almacen.agregar(new EventoPartida(null, partida, secuencia, EventoPartida.Tipo.CARTA_JUGADA,
+                        1 + secuencia / 6, "Jugador" + secuencia % 4, secuencia % 40, null, Instant.now()));
+                latencias[i++] = System.nanoTime() - antes;
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        Arrays.sort(latencias);
+        log.info(String.format("%-12s %8.0f eventos/s  p50 %6.1f µs  p99 %7.1f µs  máx %8.1f µs", nombre,
+                latencias.length / segundos, percentil(latencias, 0.50), percentil(latencias, 0.99),
+                latencias[latencias.length - 1] / 1e3));
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.round(p * (ordenadas.length - 1)))] / 1e3;
+    }
+
+    private static List<String> resumen(List<EventoPartida> eventos) {
+        return eventos.stream()
+                .map(e -> e.getSecuencia() + ":" + e.getTipo() + ":" + e.getJugador() + ":" + e.getDato())
+                .toList();
+    }
+}
@@ -0,0 +1,128 @@
+package org.fabiano.tfg.engine.service.bitacora;
+
+import org.fabiano.tfg.engine.model.EventoPartida;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiarioEventosTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void alReabrirRecuperaLosEventosDeCadaPartida() {
+        UUID una = UUID.randomUUID();
+        UUID otra = UUID.randomUUID();
+        DiarioEventos diario = abrir(DataSize.ofMegabytes(1));
+        diario.agregar(reparto(una, 1, 42L));
+        diario.agregar(jugada(otra, 1, "Ana"));
+        diario.agregar(jugada(una, 2, "Beto"));
+        diario.agregar(jugada(una, 3, "Ñandú"));
+        diario.cerrar();
+
+        DiarioEventos reabierto = abrir(DataSize.ofMegabytes(1));
+
+        assertEquals(3, reabierto.ultimaSecuencia(una));
+        assertEquals(1, reabierto.ultimaSecuencia(otra));
+        assertEquals(0, reabierto.ultimaSecuencia(UUID.randomUUID()));
+        List<EventoPartida> eventos = reabierto.desde(una, 0);
+        assertEquals(List.of(1L, 2L, 3L), eventos.stream().map(EventoPartida::getSecuencia).toList());
+        assertEquals(42L, eventos.get(0).getSemilla());
+        assertNull(eventos.get(0).getJugador());
+        assertNull(eventos.get(1).getSemilla());
+        assertEquals("Ñandú", eventos.get(2).getJugador());
+        assertEquals(EventoPartida.Tipo.CARTA_JUGADA, eventos.get(2).getTipo());
+        assertEquals(List.of(3L), reabierto.desde(una, 2).stream().map(EventoPartida::getSecuencia).toList());
+    }
+
+    @Test
+    void unRegistroCortadoMarcaElFinYSeSigueEscribiendoAhi() throws IOException {
+        UUID partida = UUID.randomUUID();
+        DiarioEventos diario = abrir(DataSize.ofMegabytes(1));
+        diario.agregar(jugada(partida, 1, "Ana"));
+        diario.agregar(jugada(partida, 2, "Beto"));
+        diario.cerrar();
+
+        // Un corte de luz a mitad del segundo registro: su contenido no coincide con el CRC
+        Path segmento = SegmentoDiario.listar(directorio).get(0);
+        int segundo = SegmentoDiario.TAMANO_CABECERA + SegmentoDiario.tamano(jugada(partida, 1, "Ana"));
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), segundo + 30);
+        }
+
+        DiarioEventos reabierto = abrir(DataSize.ofMegabytes(1));
+        assertEquals(1, reabierto.ultimaSecuencia(partida));
+        reabierto.agregar(jugada(partida, 2, "Ciro"));
+        reabierto.cerrar();
+
+        assertEquals("Ciro", abrir(DataSize.ofMegabytes(1)).desde(partida, 1).get(0).getJugador());
+    }
+
+    @Test
+    void borrarYCompactarLiberaSegmentosSinPerderLoVivo() {
+        UUID borrada = UUID.randomUUID();
+        UUID viva = UUID.randomUUID();
+        DiarioEventos diario = abrir(DataSize.ofKilobytes(1));
+        for (int i = 1; i <= 40; i++) {
+            diario.agregar(jugada(borrada, i, "Ana"));
+            if (i % 10 == 0) {
+                diario.agregar(jugada(viva, i / 10, "Beto"));
+            }
+        }
+        int antes = diario.cantidadSegmentos();
+        assertTrue(antes >= 3, "segmentos: " + antes);
+
+        assertEquals(40, diario.borrar(List.of(borrada)));
+        assertTrue(diario.desde(borrada, 0).isEmpty());
+        assertTrue(diario.compactar() > 0);
+        assertTrue(diario.cantidadSegmentos() < antes);
+        diario.cerrar();
+
+        DiarioEventos reabierto = abrir(DataSize.ofKilobytes(1));
+        assertEquals(0, reabierto.ultimaSecuencia(borrada));
+        assertEquals(List.of(1L, 2L, 3L, 4L),
+                reabierto.desde(viva, 0).stream().map(EventoPartida::getSecuencia).toList());
+    }
+
+    @Test
+    void laActividadSaleDelUltimoEvento() {
+        UUID vieja = UUID.randomUUID();
+        UUID reciente = UUID.randomUUID();
+        DiarioEventos diario = abrir(DataSize.ofMegabytes(1));
+        EventoPartida evento = jugada(vieja, 1, "Ana");
+        evento.setInstante(Instant.now().minus(Duration.ofDays(2)));
+        diario.agregar(evento);
+        diario.agregar(jugada(reciente, 1, "Beto"));
+
+        assertEquals(Set.of(reciente),
+                diario.conActividadDesde(List.of(vieja, reciente), Instant.now().minus(Duration.ofDays(1))));
+    }
+
+    private DiarioEventos abrir(DataSize tamanoSegmento) {
+        return new DiarioEventos(directorio, tamanoSegmento, false, 0.5);
+    }
+
+    private static EventoPartida reparto(UUID partidaId, long secuencia, long semilla) {
+        return new EventoPartida(null, partidaId, secuencia, EventoPartida.Tipo.MANO_REPARTIDA, 1, null, 0,
+                semilla, Instant.now());
+    }
+
+    private static EventoPartida jugada(UUID partidaId, long secuencia, String jugador) {
+        return new EventoPartida(null, partidaId, secuencia, EventoPartida.Tipo.CARTA_JUGADA, 1, jugador, 7,
+                null, Instant.now());
+    }
+}
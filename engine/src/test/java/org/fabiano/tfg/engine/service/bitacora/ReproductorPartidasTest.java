@@ -0,0 +1,290 @@
+package org.fabiano.tfg.engine.service.bitacora;
+
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.event.CantoRealizadoEvent;
+import org.fabiano.tfg.engine.event.JugadaRegistradaEvent;
+import org.fabiano.tfg.engine.event.ManoRepartidaEvent;
+import org.fabiano.tfg.engine.event.PartidaCargadaEvent;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.EventoPartida;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.SnapshotPartida;
+import org.fabiano.tfg.engine.model.TipoCanto;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.CartaRepository;
+import org.fabiano.tfg.engine.repository.EventoPartidaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.repository.SnapshotPartidaRepository;
+import org.fabiano.tfg.engine.service.AlmacenPartidasJpa;
+import org.fabiano.tfg.engine.service.CargaPartidas;
+import org.fabiano.tfg.engine.service.JerarquiaLoader;
+import org.fabiano.tfg.engine.service.MazoService;
+import org.fabiano.tfg.engine.service.PartidaService;
+import org.fabiano.tfg.engine.service.RegistroPartidas;
+import org.fabiano.tfg.engine.service.YamlRuleLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReproductorPartidasTest {
+
+    @Mock
+    private YamlRuleLoader ruleLoader;
+
+    @Mock
+    private PartidaRepository partidaRepository;
+
+    @Mock
+    private CartaRepository cartaRepository;
+
+    @Mock
+    private JerarquiaLoader jerarquiaLoader;
+
+    @Mock
+    private EventoPartidaRepository eventoRepository;
+
+    @Mock
+    private SnapshotPartidaRepository snapshotRepository;
+
+    private final List<EventoPartida> eventos = new ArrayList<>();
+    private final List<SnapshotPartida> snapshots = new ArrayList<>();
+
+    private BitacoraPartidaService bitacora;
+    private PartidaService partidaService;
+    private ReproductorPartidas reproductor;
+    private RegistroPartidas registro;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        AtomicLong idsCartas = new AtomicLong();
+        when(cartaRepository.saveAll(anyList())).thenAnswer(i -> {
+            List<Carta> cartas = i.getArgument(0);
+            cartas.forEach(carta -> carta.setId(idsCartas.incrementAndGet()));
+            return cartas;
+        });
+        when(partidaRepository.save(any(Partida.class))).thenAnswer(i -> {
+            Partida partida = i.getArgument(0);
+            if (partida.getId() == null) {
+                partida.setId(UUID.randomUUID());
+                partida.getEquipos().forEach(e -> e.setId(UUID.randomUUID()));
+            }
+            return partida;
+        });
+        when(partidaRepository.saveAll(anyList())).thenAnswer(i -> i.getArgument(0));
+        when(jerarquiaLoader.obtenerValor(any(Carta.class)))
+                .thenAnswer(i -> CodigoCarta.valorJerarquico(CodigoCarta.indice((Carta) i.getArgument(0))));
+        when(eventoRepository.save(any(EventoPartida.class))).thenAnswer(i -> {
+            eventos.add(i.getArgument(0));
+            return i.getArgument(0);
+        });
+        when(eventoRepository.saveAll(anyList())).thenAnswer(i -> {
+            eventos.addAll(i.getArgument(0));
+            return i.getArgument(0);
+        });
+        when(eventoRepository.ultimaSecuencia(any())).thenReturn(0L);
+        when(eventoRepository.findByPartidaIdAndSecuenciaGreaterThanOrderBySecuenciaAsc(any(), anyLong()))
+                .thenAnswer(i -> eventos.stream()
+                        .filter(e -> e.getSecuencia() > (long) i.getArgument(1))
+                        .sorted(Comparator.comparingLong(EventoPartida::getSecuencia))
+                        .toList());
+        when(snapshotRepository.save(any(SnapshotPartida.class))).thenAnswer(i -> {
+            snapshots.add(i.getArgument(0));
+            return i.getArgument(0);
+        });
+        when(snapshotRepository.saveAll(anyList())).thenAnswer(i -> {
+            snapshots.addAll(i.getArgument(0));
+            return i.getArgument(0);
+        });
+        when(snapshotRepository.findFirstByPartidaIdOrderBySecuenciaDesc(any()))
+                .thenAnswer(i -> snapshots.stream().max(Comparator.comparingLong(SnapshotPartida::getSecuencia)));
+
+        bitacora = new BitacoraPartidaService(new AlmacenEventosJpa(eventoRepository), snapshotRepository);
+        ApplicationEventPublisher publicador = evento -> {
+            if (evento instanceof ManoRepartidaEvent e) {
+                bitacora.onManoRepartida(e);
+            } else if (evento instanceof JugadaRegistradaEvent e) {
+                bitacora.onJugadaRegistrada(e);
+            } else if (evento instanceof CantoRealizadoEvent e) {
+                bitacora.onCantoRealizado(e);
+            }
+        };
+        registro = new RegistroPartidas(
+                new AlmacenPartidasJpa(partidaRepository, cartaRepository, new CargaPartidas(partidaRepository)), bitacora,
+                mock(PlatformTransactionManager.class), publicador, 50);
+        partidaService = new PartidaService(new MazoService(), ruleLoader, registro,
+                jerarquiaLoader, publicador, bitacora);
+        reproductor = new ReproductorPartidas(bitacora, partidaService);
+    }
+
+    @Test
+    void cadaAccionEsUnEventoYElRepartoDejaSnapshot() {
+        Partida partida = crearPartida();
+        assertEquals(1, eventos.size());
+        assertEquals(EventoPartida.Tipo.MANO_REPARTIDA, eventos.get(0).getTipo());
+        assertNotNull(eventos.get(0).getSemilla());
+        assertEquals(1, snapshots.size());
+        assertEquals(1L, snapshots.get(0).getSecuencia());
+
+        Jugador ana = jugadorActual(partida);
+        partidaService.aplicarCanto(partida, ana, TipoCanto.ENVIDO);
+        partidaService.aplicarCanto(partida, jugadorActual(partida), TipoCanto.QUIERO);
+        registro.vaciar();
+
+        assertEquals(List.of(1L, 2L, 3L), eventos.stream().map(EventoPartida::getSecuencia).toList());
+        assertEquals(TipoCanto.QUIERO, eventos.get(2).getCanto());
+    }
+
+    @Test
+    void snapshotMasColaReconstruyeElMismoEstado() {
+        Partida original = crearPartida();
+        partidaService.aplicarCanto(original, jugadorActual(original), TipoCanto.ENVIDO);
+        partidaService.aplicarCanto(original, jugadorActual(original), TipoCanto.QUIERO);
+        for (int i = 0; i < 2; i++) {
+            Jugador jugador = jugadorActual(original);
+            partidaService.registrarJugada(original, jugador, jugador.getMano().get(0));
+        }
+        assertEquals(2, original.getVuelta());
+        registro.vaciar();
+        int eventosAntes = eventos.size();
+
+        Partida cargada = mismaEstructura(original);
+        SnapshotPartida snapshot = bitacora.ultimoSnapshot(original.getId()).orElseThrow();
+        reproductor.reproducir(cargada, snapshot.getDatos(), bitacora.eventosDesde(original.getId(), snapshot.getSecuencia()));
+
+        assertArrayEquals(PartidaCodec.codificar(original), PartidaCodec.codificar(cargada));
+        assertEquals(jugadorActual(original).getNombre(), jugadorActual(cargada).getNombre());
+        // Reproducir no vuelve a escribir en la bitácora
+        assertEquals(eventosAntes, eventos.size());
+    }
+
+    @Test
+    void dentroDeLaManoSoloSeEscribenEventosYLaCargaLosReproduce() {
+        Partida original = crearPartida();
+        partidaService.aplicarCanto(original, jugadorActual(original), TipoCanto.ENVIDO);
+        partidaService.aplicarCanto(original, jugadorActual(original), TipoCanto.QUIERO);
+        Jugador jugador = jugadorActual(original);
+        partidaService.registrarJugada(original, jugador, jugador.getMano().get(0));
+        registro.vaciar();
+
+        // La fila de la partida se escribió una sola vez, al repartir
+        verify(partidaRepository, times(1)).save(any(Partida.class));
+        verify(partidaRepository, never()).saveAll(anyList());
+        assertEquals(0, registro.cantidadPendientes());
+        assertEquals(4, eventos.size());
+
+        Partida cargada = mismaEstructura(original);
+        reproductor.onPartidaCargada(new PartidaCargadaEvent(cargada));
+
+        assertArrayEquals(PartidaCodec.codificar(original), PartidaCodec.codificar(cargada));
+    }
+
+    @Test
+    void reconstruirAtravesandoUnRepartoNoEscribeNada() {
+        Partida original = crearPartida();
+        SnapshotPartida primerReparto = bitacora.ultimoSnapshot(original.getId()).orElseThrow();
+        Jugador jugador = jugadorActual(original);
+        partidaService.registrarJugada(original, jugador, jugador.getMano().get(0));
+        partidaService.aplicarCanto(original, jugadorActual(original), TipoCanto.AL_MAZO);
+        registro.vaciar();
+        assertEquals(2, original.getManoActual());
+        clearInvocations(partidaRepository, cartaRepository, eventoRepository, snapshotRepository);
+
+        // Desde el primer snapshot: la cola cruza el reparto de la segunda mano
+        Partida cargada = mismaEstructura(original);
+        reproductor.reproducir(cargada, primerReparto.getDatos(),
+                bitacora.eventosDesde(original.getId(), primerReparto.getSecuencia()));
+        registro.vaciar();
+
+        // El mismo reparto, con cartas todavía sin id: se insertan con la próxima escritura
+        assertEquals(original.getManoActual(), cargada.getManoActual());
+        assertEquals(manos(original), manos(cargada));
+        assertTrue(manos(cargada).stream().noneMatch(List::isEmpty));
+        verify(partidaRepository, never()).save(any(Partida.class));
+        verify(partidaRepository, never()).saveAll(anyList());
+        verifyNoInteractions(cartaRepository);
+        verify(eventoRepository, never()).saveAll(anyList());
+        verify(snapshotRepository, never()).saveAll(anyList());
+        assertEquals(0, registro.cantidadPendientes());
+    }
+
+    @Test
+    void mismaSemillaMismoReparto() {
+        MazoService mazoService = new MazoService();
+        Partida a = crearPartida();
+        Partida b = mismaEstructura(a);
+        mazoService.mezclarYRepartirCartas(a, mazoService.crearMazo(), new java.util.Random(42));
+        mazoService.mezclarYRepartirCartas(b, mazoService.crearMazo(), new java.util.Random(42));
+        for (int i = 0; i < 2; i++) {
+            Jugador ja = a.getEquipos().get(i).getJugadores().get(0);
+            Jugador jb = b.getEquipos().get(i).getJugadores().get(0);
+            assertEquals(CodigoCarta.mascara(ja.getMano()), CodigoCarta.mascara(jb.getMano()));
+        }
+    }
+
+    private Partida crearPartida() {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", List.of("Ana")),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", List.of("Beto"))));
+        Partida partida = partidaService.crearPartida(request);
+        registro.vaciar();
+        return partida;
+    }
+
+    private static List<List<String>> manos(Partida partida) {
+        return partida.getEquipos().stream()
+                .flatMap(e -> e.getJugadores().stream())
+                .map(j -> j.getMano().stream().map(Carta::toString).toList())
+                .toList();
+    }
+
+    private static Jugador jugadorActual(Partida partida) {
+        return partida.getJugadorActual();
+    }
+
+    private static Partida mismaEstructura(Partida original) {
+        Partida copia = new Partida();
+        copia.setId(original.getId());
+        // La semilla está en la fila, no en el snapshot
+        copia.setSemilla(original.getSemilla());
+        List<Equipo> equipos = new ArrayList<>();
+        for (Equipo equipo : original.getEquipos()) {
+            List<Jugador> jugadores = new ArrayList<>();
+            for (Jugador jugador : equipo.getJugadores()) {
+                jugadores.add(new Jugador(jugador.getNombre(), false, false, false, false, false, false,
+                        false, false, false, false, false, false, 0, new ArrayList<>()));
+            }
+            Equipo nuevo = new Equipo(equipo.getNombre(), jugadores, 0);
+            nuevo.setId(equipo.getId());
+            equipos.add(nuevo);
+        }
+        copia.setEquipos(equipos);
+        return copia;
+    }
+}
@@ -0,0 +1,53 @@
+package org.fabiano.tfg.engine.service.clasificacion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArbolPosicionesTest {
+
+    @Test
+    void lasPosicionesYLosRangosCoincidenConUnConjuntoOrdenado() {
+        ArbolPosiciones<Integer> arbol = new ArbolPosiciones<>(Comparator.reverseOrder());
+        TreeSet<Integer> esperado = new TreeSet<>(Comparator.reverseOrder());
+        Random azar = new Random(7);
+
+        for (int i = 0; i < 5000; i++) {
+            int valor = azar.nextInt(2000);
+            if (esperado.contains(valor)) {
+                arbol.quitar(valor);
+                esperado.remove(valor);
+            } else {
+                arbol.insertar(valor);
+                esperado.add(valor);
+            }
+        }
+
+        List<Integer> ordenados = new ArrayList<>(esperado);
+        assertEquals(ordenados.size(), arbol.tamano());
+        assertEquals(ordenados, arbol.rango(0, ordenados.size()));
+        assertEquals(ordenados.subList(100, 125), arbol.rango(100, 25));
+        for (int i = 0; i < ordenados.size(); i += 37) {
+            assertEquals(i, arbol.posicion(ordenados.get(i)));
+        }
+        assertEquals(-1, arbol.posicion(5000));
+        assertEquals((int) ordenados.stream().filter(v -> v >= 1000).count(), arbol.contarMientras(v -> v >= 1000));
+    }
+
+    @Test
+    void unRangoFueraDeLaTablaDevuelveLoQueHay() {
+        ArbolPosiciones<String> arbol = new ArbolPosiciones<>(Comparator.naturalOrder());
+        arbol.insertar("b");
+        arbol.insertar("a");
+        arbol.insertar("c");
+
+        assertEquals(List.of("b", "c"), arbol.rango(1, 10));
+        assertTrue(arbol.rango(3, 10).isEmpty());
+    }
+}
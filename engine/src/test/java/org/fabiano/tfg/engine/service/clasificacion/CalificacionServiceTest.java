@@ -0,0 +1,173 @@
+package org.fabiano.tfg.engine.service.clasificacion;
+
+import org.fabiano.tfg.engine.dto.PosicionCalificacion;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent.ResultadoEquipo;
+import org.fabiano.tfg.engine.model.Calificacion;
+import org.fabiano.tfg.engine.model.FilaClasificacion;
+import org.fabiano.tfg.engine.model.FilaClasificacion.Tipo;
+import org.fabiano.tfg.engine.model.ResultadoPartida;
+import org.fabiano.tfg.engine.repository.CalificacionRepository;
+import org.fabiano.tfg.engine.repository.ResultadoPartidaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CalificacionServiceTest {
+
+    private CalificacionRepository calificaciones;
+    private ResultadoPartidaRepository resultados;
+    private final List<ResultadoPartida> historial = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        calificaciones = mock(CalificacionRepository.class);
+        resultados = mock(ResultadoPartidaRepository.class);
+        when(resultados.saveAll(anyList())).thenAnswer(i -> {
+            historial.addAll((List<ResultadoPartida>) i.getArguments()[0]);
+            return i.getArguments()[0];
+        });
+        when(resultados.findAllByOrderByFinalizadaEnAscPartidaIdAsc()).thenAnswer(i -> List.copyOf(historial));
+    }
+
+    @Test
+    void elGanadorSubeYElPerdedorBaja() {
+        CalificacionService servicio = servicio(false);
+        servicio.onPartidaFinalizada(partida(List.of("Ana", "Beto"), List.of("Ciro", "Dora"), 1));
+
+        PosicionCalificacion ana = servicio.buscar(Tipo.JUGADOR, "Ana").orElseThrow();
+        PosicionCalificacion ciro = servicio.buscar(Tipo.JUGADOR, "Ciro").orElseThrow();
+        assertTrue(ana.rating() > Glicko.RATING_INICIAL);
+        assertTrue(ciro.rating() < Glicko.RATING_INICIAL);
+        assertTrue(ana.desviacion() < Glicko.DESVIACION_INICIAL);
+        assertEquals(1, ana.partidas());
+        // Ana y Beto empatan arriba; el desempate es por nombre
+        assertEquals(1, ana.posicion());
+        assertEquals(3, ciro.posicion());
+
+        assertEquals(List.of("Ana", "Beto"), servicio.entre(Tipo.JUGADOR, Glicko.RATING_INICIAL, 9999, 10)
+                .stream().map(PosicionCalificacion::nombre).toList());
+        assertEquals(List.of("Ciro", "Dora"), servicio.entre(Tipo.JUGADOR, 0, Glicko.RATING_INICIAL, 10)
+                .stream().map(PosicionCalificacion::nombre).toList());
+        assertEquals("Ana + Beto", servicio.top(Tipo.EQUIPO, 0, 1).get(0).nombre());
+    }
+
+    @Test
+    void recalcularDesdeElHistorialDaLoMismoQuePartidaAPartida() {
+        CalificacionService servicio = servicio(false);
+        Random azar = new Random(3);
+        List<String> nombres = List.of("Ana", "Beto", "Ciro", "Dora", "Eva", "Fede", "Gabi", "Hugo");
+        for (int i = 0; i < 300; i++) {
+            List<String> mezcla = new ArrayList<>(nombres);
+            Collections.shuffle(mezcla, azar);
+            servicio.onPartidaFinalizada(partida(mezcla.subList(0, 2), mezcla.subList(2, 4), i));
+        }
+        List<PosicionCalificacion> antes = servicio.top(Tipo.JUGADOR, 0, 100);
+
+        assertEquals(300, servicio.recalcular());
+
+        List<PosicionCalificacion> despues = servicio.top(Tipo.JUGADOR, 0, 100);
+        assertEquals(antes.size(), despues.size());
+        for (int i = 0; i < antes.size(); i++) {
+            assertEquals(antes.get(i).nombre(), despues.get(i).nombre());
+            assertEquals(antes.get(i).rating(), despues.get(i).rating(), 1e-9);
+            assertEquals(antes.get(i).partidas(), despues.get(i).partidas());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unaPartidaQueTerminaMientrasSeGuardaElHistorialNoSePierdeAlRecalcular() {
+        CalificacionService servicio = servicio(false);
+        servicio.onPartidaFinalizada(partida(List.of("Ana"), List.of("Beto"), 1));
+        PartidaFinalizadaEvent enElMedio = partida(List.of("Ciro"), List.of("Dora"), 2);
+        AtomicBoolean llego = new AtomicBoolean();
+        when(resultados.saveAll(anyList())).thenAnswer(i -> {
+            historial.addAll((List<ResultadoPartida>) i.getArguments()[0]);
+            if (llego.compareAndSet(false, true)) {
+                servicio.onPartidaFinalizada(enElMedio);
+            }
+            return i.getArguments()[0];
+        });
+
+        assertEquals(1, servicio.recalcular());
+
+        assertEquals(1, servicio.buscar(Tipo.JUGADOR, "Ciro").orElseThrow().partidas());
+        assertEquals(1, servicio.buscar(Tipo.JUGADOR, "Ana").orElseThrow().partidas());
+    }
+
+    @Test
+    void porPeriodoLasPartidasSeAplicanAlCerrarlo() {
+        CalificacionService servicio = servicio(true);
+        servicio.onPartidaFinalizada(partida(List.of("Ana"), List.of("Beto"), 1));
+        servicio.onPartidaFinalizada(partida(List.of("Ana"), List.of("Ciro"), 2));
+
+        assertTrue(servicio.buscar(Tipo.JUGADOR, "Ana").isEmpty());
+
+        servicio.cerrarPeriodo();
+
+        PosicionCalificacion ana = servicio.buscar(Tipo.JUGADOR, "Ana").orElseThrow();
+        assertEquals(2, ana.partidas());
+        // En un período los dos rivales se miden con el rating previo: quedan iguales
+        assertEquals(servicio.buscar(Tipo.JUGADOR, "Beto").orElseThrow().rating(),
+                servicio.buscar(Tipo.JUGADOR, "Ciro").orElseThrow().rating(), 1e-9);
+    }
+
+    @Test
+    void elHistorialYLosRatingsSeGuardanPorLotes() {
+        CalificacionService servicio = servicio(false);
+        servicio.onPartidaFinalizada(partida(List.of("Ana"), List.of("Beto"), 1));
+
+        servicio.persistir();
+
+        assertEquals(1, historial.size());
+        assertEquals(List.of("Ana"), ResultadoCodec.restaurar(historial.get(0)).equipos().get(0).jugadores());
+        // Un lote por tipo
+        verify(calificaciones, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void siLaCargaFallaNoSePersisteYLoCargadoReemplazaALaMemoria() {
+        when(calificaciones.findAll()).thenThrow(new RuntimeException("base caída"));
+        CalificacionService servicio = servicio(false);
+        servicio.onPartidaFinalizada(partida(List.of("Ana"), List.of("Beto"), 1));
+
+        servicio.persistir();
+        verify(calificaciones, never()).saveAll(anyList());
+
+        doReturn(List.of(new Calificacion(FilaClasificacion.clave(Tipo.JUGADOR, "Ana"), Tipo.JUGADOR, "Ana",
+                1800, 60, 10, Instant.EPOCH))).when(calificaciones).findAll();
+        servicio.persistir();
+
+        // La partida se vuelve a aplicar sobre el rating guardado
+        PosicionCalificacion ana = servicio.buscar(Tipo.JUGADOR, "Ana").orElseThrow();
+        assertEquals(11, ana.partidas());
+        assertTrue(ana.rating() > 1800);
+        assertEquals(1, servicio.buscar(Tipo.JUGADOR, "Beto").orElseThrow().partidas());
+        verify(calificaciones, times(2)).saveAll(anyList());
+    }
+
+    private CalificacionService servicio(boolean porPeriodo) {
+        CalificacionService servicio = new CalificacionService(calificaciones, resultados, porPeriodo, 3600000, 500);
+        servicio.cargar();
+        return servicio;
+    }
+
+    private static PartidaFinalizadaEvent partida(List<String> ganadores, List<String> perdedores, int minuto) {
+        return new PartidaFinalizadaEvent(UUID.randomUUID(), "p" + minuto, Instant.ofEpochSecond(60L * minuto), List.of(
+                new ResultadoEquipo("Equipo1", ganadores, 30, true),
+                new ResultadoEquipo("Equipo2", perdedores, 10, false)));
+    }
+}
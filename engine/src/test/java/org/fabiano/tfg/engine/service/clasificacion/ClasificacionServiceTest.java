@@ -0,0 +1,104 @@
+package org.fabiano.tfg.engine.service.clasificacion;
+
+import org.fabiano.tfg.engine.dto.PosicionClasificacion;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent.ResultadoEquipo;
+import org.fabiano.tfg.engine.model.FilaClasificacion;
+import org.fabiano.tfg.engine.model.FilaClasificacion.Tipo;
+import org.fabiano.tfg.engine.repository.FilaClasificacionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ClasificacionServiceTest {
+
+    private FilaClasificacionRepository repositorio;
+    private ClasificacionService clasificacion;
+
+    @BeforeEach
+    void setUp() {
+        repositorio = mock(FilaClasificacionRepository.class);
+        when(repositorio.findAll()).thenReturn(List.of(
+                new FilaClasificacion(FilaClasificacion.clave(Tipo.JUGADOR, "Ana"), Tipo.JUGADOR, "Ana",
+                        3, 1, 50, Instant.now())));
+        clasificacion = new ClasificacionService(repositorio, 500);
+        clasificacion.cargar();
+    }
+
+    @Test
+    void lasPartidasTerminadasOrdenanLaTabla() {
+        clasificacion.onPartidaFinalizada(partida("Rojos", List.of("Ana", "Beto"), 30, "Azules", List.of("Ciro", "Dora"), 12));
+        clasificacion.onPartidaFinalizada(partida("Azules", List.of("Ciro", "Dora"), 30, "Verdes", List.of("Eva", "Beto"), 25));
+
+        List<PosicionClasificacion> top = clasificacion.top(Tipo.JUGADOR, 0, 3);
+        // Ana suma lo persistido: 2 ganadas y 80 puntos
+        assertEquals(new PosicionClasificacion(1, "Ana", 4, 2, 80), top.get(0));
+        // Beto y Ciro ganaron una; Beto tiene más puntos
+        assertEquals("Beto", top.get(1).nombre());
+        assertEquals(55, top.get(1).puntos());
+        assertEquals("Ciro", top.get(2).nombre());
+
+        assertEquals(5, clasificacion.tamano(Tipo.JUGADOR));
+        assertEquals(5, clasificacion.buscar(Tipo.JUGADOR, "Eva").orElseThrow().posicion());
+        assertTrue(clasificacion.buscar(Tipo.JUGADOR, "Nadie").isEmpty());
+
+        // Los equipos se identifican por sus jugadores
+        assertEquals(List.of("Ciro + Dora", "Ana + Beto", "Beto + Eva"),
+                clasificacion.top(Tipo.EQUIPO, 0, 10).stream().map(PosicionClasificacion::nombre).toList());
+    }
+
+    @Test
+    void losEquiposConElMismoNombreNoSeMezclan() {
+        clasificacion.onPartidaFinalizada(partida("Equipo-1", List.of("Ana", "Beto"), 30, "Equipo-2", List.of("Ciro", "Dora"), 12));
+        clasificacion.onPartidaFinalizada(partida("Equipo-1", List.of("Eva", "Fede"), 30, "Equipo-2", List.of("Dora", "Ciro"), 20));
+
+        assertEquals(3, clasificacion.tamano(Tipo.EQUIPO));
+        assertEquals(1, clasificacion.buscar(Tipo.EQUIPO, "Ana + Beto").orElseThrow().ganadas());
+        assertEquals(2, clasificacion.buscar(Tipo.EQUIPO, "Ciro + Dora").orElseThrow().partidasJugadas());
+        assertTrue(clasificacion.buscar(Tipo.EQUIPO, "Equipo-1").isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sePersistenSoloLasFilasQueCambiaron() {
+        clasificacion.onPartidaFinalizada(partida("Rojos", List.of("Ana"), 30, "Azules", List.of("Ciro"), 12));
+        clasificacion.persistir();
+
+        ArgumentCaptor<List<FilaClasificacion>> lotes = ArgumentCaptor.forClass(List.class);
+        verify(repositorio, times(2)).saveAll(lotes.capture());
+        List<String> claves = lotes.getAllValues().stream().flatMap(List::stream).map(FilaClasificacion::getClave).toList();
+        assertEquals(4, claves.size());
+        assertTrue(claves.containsAll(List.of("JUGADOR:Ana", "JUGADOR:Ciro", "EQUIPO:Ana", "EQUIPO:Ciro")));
+
+        clearInvocations(repositorio);
+        clasificacion.persistir();
+        verify(repositorio, never()).saveAll(anyList());
+    }
+
+    @Test
+    void siFallaLaEscrituraLasFilasQuedanPendientes() {
+        when(repositorio.saveAll(anyList())).thenThrow(new IllegalStateException("sin conexión")).thenReturn(List.of());
+        clasificacion.onPartidaFinalizada(partida("Rojos", List.of("Ana"), 30, "Azules", List.of("Ciro"), 12));
+
+        clasificacion.persistir();
+        clearInvocations(repositorio);
+        clasificacion.persistir();
+
+        verify(repositorio, atLeastOnce()).saveAll(anyList());
+    }
+
+    private static PartidaFinalizadaEvent partida(String ganador, List<String> jugadoresGanador, int puntajeGanador,
+                                                  String perdedor, List<String> jugadoresPerdedor, int puntajePerdedor) {
+        return new PartidaFinalizadaEvent(UUID.randomUUID(), ganador + "-" + perdedor, Instant.now(), List.of(
+                new ResultadoEquipo(ganador, jugadoresGanador, puntajeGanador, true),
+                new ResultadoEquipo(perdedor, jugadoresPerdedor, puntajePerdedor, false)));
+    }
+}
@@ -0,0 +1,103 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.Palo;
+import org.fabiano.tfg.engine.model.TipoCanto;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CreenciaManoTest {
+
+    @Test
+    void testEnvidoDeCodigoCarta() {
+        long sieteSeisEspada = (1L << CodigoCarta.indice(Palo.ESPADA, 7))
+                | (1L << CodigoCarta.indice(Palo.ESPADA, 6))
+                | (1L << CodigoCarta.indice(Palo.ORO, 12));
+        assertEquals(33, CodigoCarta.envido(sieteSeisEspada));
+
+        long figuras = (1L << CodigoCarta.indice(Palo.COPA, 10))
+                | (1L << CodigoCarta.indice(Palo.COPA, 12))
+                | (1L << CodigoCarta.indice(Palo.ORO, 5));
+        assertEquals(20, CodigoCarta.envido(figuras));
+
+        long sinPalo = (1L << CodigoCarta.indice(Palo.COPA, 4))
+                | (1L << CodigoCarta.indice(Palo.ORO, 6))
+                | (1L << CodigoCarta.indice(Palo.BASTO, 11));
+        assertEquals(6, CodigoCarta.envido(sinPalo));
+    }
+
+    @Test
+    void testCartasConocidasNuncaSeMuestrean() {
+        long propias = (1L << CodigoCarta.indice(Palo.ESPADA, 1))
+                | (1L << CodigoCarta.indice(Palo.BASTO, 1))
+                | (1L << CodigoCarta.indice(Palo.ORO, 7));
+        CreenciaMano creencia = new CreenciaMano(256, propias, new Random(1));
+        Random rnd = new Random(2);
+
+        for (int i = 0; i < 1000; i++) {
+            long mano = creencia.muestrear(rnd);
+            assertEquals(0, mano & propias);
+            assertEquals(3, Long.bitCount(mano));
+        }
+    }
+
+    @Test
+    void testCartaJugadaPorElOponente() {
+        CreenciaMano creencia = new CreenciaMano(512, 0L, new Random(3));
+        int anchoEspada = CodigoCarta.indice(Palo.ESPADA, 1);
+
+        creencia.observarCartaPropia(anchoEspada);
+
+        Random rnd = new Random(4);
+        for (int i = 0; i < 200; i++) {
+            long mano = creencia.muestrear(rnd);
+            assertEquals(0, mano & (1L << anchoEspada), "La carta jugada ya no está en la mano");
+            assertEquals(2, Long.bitCount(mano));
+        }
+        assertEquals(0, creencia.probabilidadCarta(anchoEspada));
+    }
+
+    @Test
+    void testEnvidoDeclaradoRestringeLasManos() {
+        long propias = (1L << CodigoCarta.indice(Palo.COPA, 3))
+                | (1L << CodigoCarta.indice(Palo.COPA, 4))
+                | (1L << CodigoCarta.indice(Palo.BASTO, 2));
+        CreenciaMano creencia = new CreenciaMano(1024, propias, new Random(5));
+
+        creencia.observarEnvidoDeclarado(33);
+
+        assertEquals(1.0, creencia.probabilidadEnvido(33), 1e-9);
+        Random rnd = new Random(6);
+        for (int i = 0; i < 200; i++) {
+            long mano = creencia.muestrear(rnd);
+            long siete = 0L;
+            long seis = 0L;
+            for (Palo palo : Palo.values()) {
+                siete |= mano & (1L << CodigoCarta.indice(palo, 7));
+                seis |= mano & (1L << CodigoCarta.indice(palo, 6));
+            }
+            assertNotEquals(0, siete);
+            assertNotEquals(0, seis);
+        }
+    }
+
+    @Test
+    void testCantarEnvidoFavoreceManosAltas() {
+        CreenciaMano creencia = new CreenciaMano(2048, 0L, new Random(7));
+        double antes = 0;
+        double despues = 0;
+        for (int puntos = 28; puntos <= 33; puntos++) {
+            antes += creencia.probabilidadEnvido(puntos);
+        }
+
+        creencia.observarCanto(TipoCanto.ENVIDO);
+
+        for (int puntos = 28; puntos <= 33; puntos++) {
+            despues += creencia.probabilidadEnvido(puntos);
+        }
+        assertTrue(despues > antes, "Después de cantar envido deberían pesar más las manos con muchos puntos");
+    }
+}
@@ -0,0 +1,186 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.event.CantoRealizadoEvent;
+import org.fabiano.tfg.engine.event.JugadaRegistradaEvent;
+import org.fabiano.tfg.engine.event.ManoRepartidaEvent;
+import org.fabiano.tfg.engine.event.PartidaCreadaEvent;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.event.PartidaRetiradaEvent;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.TipoCanto;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.CartaRepository;
+import org.fabiano.tfg.engine.repository.EventoPartidaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.repository.SnapshotPartidaRepository;
+import org.fabiano.tfg.engine.service.AlmacenPartidasJpa;
+import org.fabiano.tfg.engine.service.CargaPartidas;
+import org.fabiano.tfg.engine.service.JerarquiaLoader;
+import org.fabiano.tfg.engine.service.MazoService;
+import org.fabiano.tfg.engine.service.PartidaService;
+import org.fabiano.tfg.engine.service.RegistroPartidas;
+import org.fabiano.tfg.engine.service.YamlRuleLoader;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventosJpa;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CreenciaServiceTest {
+
+    @Mock
+    private YamlRuleLoader ruleLoader;
+
+    @Mock
+    private PartidaRepository partidaRepository;
+
+    @Mock
+    private CartaRepository cartaRepository;
+
+    @Mock
+    private EventoPartidaRepository eventoRepository;
+
+    @Mock
+    private SnapshotPartidaRepository snapshotRepository;
+
+    private CreenciaService creencias;
+    private PartidaService partidaService;
+    private RegistroPartidas registro;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        AtomicLong idsCartas = new AtomicLong();
+        when(cartaRepository.saveAll(anyList())).thenAnswer(i -> {
+            List<Carta> cartas = i.getArgument(0);
+            cartas.forEach(carta -> carta.setId(idsCartas.incrementAndGet()));
+            return cartas;
+        });
+        when(partidaRepository.save(any(Partida.class))).thenAnswer(i -> {
+            Partida partida = i.getArgument(0);
+            if (partida.getId() == null) {
+                partida.setId(UUID.randomUUID());
+                partida.getEquipos().forEach(e -> e.setId(UUID.randomUUID()));
+            }
+            return partida;
+        });
+        JerarquiaLoader jerarquiaLoader = new JerarquiaLoader();
+        jerarquiaLoader.cargarJerarquia();
+
+        creencias = new CreenciaService(256);
+        ApplicationEventPublisher publicador = evento -> {
+            if (evento instanceof PartidaCreadaEvent e) {
+                creencias.onPartidaCreada(e);
+            } else if (evento instanceof ManoRepartidaEvent e) {
+                creencias.onManoRepartida(e);
+            } else if (evento instanceof JugadaRegistradaEvent e) {
+                creencias.onJugadaRegistrada(e);
+            } else if (evento instanceof CantoRealizadoEvent e) {
+                creencias.onCantoRealizado(e);
+            } else if (evento instanceof PartidaFinalizadaEvent e) {
+                creencias.onPartidaFinalizada(e);
+            } else if (evento instanceof PartidaRetiradaEvent e) {
+                creencias.onPartidaRetirada(e);
+            }
+        };
+        BitacoraPartidaService bitacora = new BitacoraPartidaService(
+                new AlmacenEventosJpa(eventoRepository), snapshotRepository);
+        registro = new RegistroPartidas(
+                new AlmacenPartidasJpa(partidaRepository, cartaRepository, new CargaPartidas(partidaRepository)), bitacora,
+                mock(PlatformTransactionManager.class), publicador, 50);
+        partidaService = new PartidaService(new MazoService(), ruleLoader, registro,
+                jerarquiaLoader, publicador, bitacora);
+    }
+
+    @Test
+    void elBotSigueLaPartidaDesdeElPrimerRepartoYLeeElEnvidoQuerido() {
+        Partida partida = partidaService.crearPartida(request(List.of("Ana")));
+        Jugador ana = jugador(partida, "Ana");
+        Jugador beto = jugador(partida, "Beto");
+
+        CreenciaMano sobreBeto = creencias.obtener(partida.getId(), "Ana", "Beto").orElseThrow();
+        assertTrue(creencias.obtener(partida.getId(), "Beto", "Ana").isEmpty());
+        for (Carta carta : ana.getMano()) {
+            assertEquals(0.0, sobreBeto.probabilidadCarta(CodigoCarta.indice(carta)));
+        }
+
+        int envidoBeto = CodigoCarta.envido(CodigoCarta.mascara(beto.getMano()));
+        partidaService.aplicarCanto(partida, ana, TipoCanto.ENVIDO);
+        partidaService.aplicarCanto(partida, beto, TipoCanto.QUIERO);
+
+        assertEquals(1.0, sobreBeto.probabilidadEnvido(envidoBeto), 1e-9);
+    }
+
+    @Test
+    void alTerminarLaPartidaSeDejaDeSeguir() {
+        Partida partida = partidaService.crearPartida(request(List.of("Ana")));
+        // A un punto de ganar los dos: la mano que sigue cierra la partida
+        for (Equipo equipo : partida.getEquipos()) {
+            equipo.setPuntaje(29);
+            partida.getPuntosPorEquipo().put(equipo.getId(), 29);
+        }
+        while (partida.getEstadoRonda() != EstadoRonda.FINALIZADA) {
+            Jugador jugador = partida.getJugadorActual();
+            Carta carta = jugador.getMano().stream()
+                    .min(Comparator.comparingInt(CodigoCarta::indice))
+                    .orElseThrow();
+            partidaService.registrarJugada(partida, jugador, carta);
+        }
+
+        assertTrue(creencias.obtener(partida.getId(), "Ana", "Beto").isEmpty());
+    }
+
+    @Test
+    void alSalirDeMemoriaSinTerminarSeDejaDeSeguir() {
+        Partida partida = partidaService.crearPartida(request(List.of("Ana")));
+        registro.vaciar();
+
+        assertEquals(1, registro.liberarInactivas(Instant.now().plusSeconds(60)));
+
+        assertTrue(creencias.obtener(partida.getId(), "Ana", "Beto").isEmpty());
+    }
+
+    @Test
+    void unBotQueNoJuegaEsUnError() {
+        assertThrows(IllegalArgumentException.class, () -> partidaService.crearPartida(request(List.of("Ciro"))));
+    }
+
+    private static Jugador jugador(Partida partida, String nombre) {
+        return partida.getEquipos().stream()
+                .flatMap(e -> e.getJugadores().stream())
+                .filter(j -> j.getNombre().equals(nombre))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static CrearPartidaRequest request(List<String> bots) {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setPartidaId("creencias");
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", List.of("Ana")),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", List.of("Beto"))));
+        request.setBots(bots);
+        return request;
+    }
+}
@@ -0,0 +1,200 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import org.fabiano.tfg.engine.event.CantoRealizadoEvent;
+import org.fabiano.tfg.engine.event.ManoRepartidaEvent;
+import org.fabiano.tfg.engine.event.PartidaFinalizadaEvent;
+import org.fabiano.tfg.engine.event.PartidaRetiradaEvent;
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.Palo;
+import org.fabiano.tfg.engine.model.PerfilJugador;
+import org.fabiano.tfg.engine.model.TipoCanto;
+import org.fabiano.tfg.engine.repository.PerfilJugadorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+class PerfilOponenteServiceTest {
+
+    @Mock
+    private PerfilJugadorRepository perfilJugadorRepository;
+
+    private PerfilOponenteService service;
+
+    private final UUID partidaId = UUID.randomUUID();
+    private final long manoDebil = mascara(Palo.COPA, 4, Palo.ORO, 5, Palo.BASTO, 6);
+    private final long manoDeTreintaYTres = mascara(Palo.ESPADA, 7, Palo.ESPADA, 6, Palo.ORO, 12);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(perfilJugadorRepository.findById(any())).thenReturn(Optional.empty());
+        service = new PerfilOponenteService(perfilJugadorRepository, mock(PlatformTransactionManager.class), 100);
+    }
+
+    @Test
+    void testEstadisticasDeApuesta() {
+        service.onManoRepartida(new ManoRepartidaEvent(partidaId, 1, 0L,
+                Map.of("Ana", manoDeTreintaYTres, "Beto", manoDebil), Map.of("Ana", 0, "Beto", 1)));
+        service.onCantoRealizado(canto("Ana", TipoCanto.ENVIDO, manoDeTreintaYTres, null));
+        service.onCantoRealizado(canto("Beto", TipoCanto.TRUCO, manoDebil, null));
+        service.onCantoRealizado(canto("Ana", TipoCanto.NO_QUIERO, manoDeTreintaYTres, TipoCanto.TRUCO));
+
+        PerfilOponente ana = service.obtener("Ana");
+        PerfilOponente beto = service.obtener("Beto");
+        assertEquals(1, ana.getManosJugadas());
+        assertEquals(2.0 / 3.0, ana.tasaEnvido(33), 1e-9);
+        assertEquals(0.5, ana.tasaEnvido(20), 1e-9, "Sin datos en ese bucket vale el 50%");
+        assertEquals(1.0 / 3.0, ana.tasaAceptaTruco(), 1e-9);
+        assertEquals(2.0 / 3.0, beto.tasaFarolTruco(), 1e-9);
+        verify(perfilJugadorRepository, never()).saveAll(anyIterable());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPersistirPorLotesSoloLosModificados() {
+        when(perfilJugadorRepository.findById("Ana"))
+                .thenReturn(Optional.of(new PerfilJugador("Ana", new long[]{10, 4}, Instant.now(), false)));
+        service.obtener("Ana");
+        service.obtener("Beto");
+        esperarCargas("Ana", "Beto");
+
+        service.onCantoRealizado(canto("Ana", TipoCanto.AL_MAZO, manoDebil, null));
+        service.persistir();
+
+        ArgumentCaptor<List<PerfilJugador>> lote = ArgumentCaptor.forClass(List.class);
+        verify(perfilJugadorRepository).saveAll(lote.capture());
+        List<PerfilJugador> guardados = lote.getValue();
+        PerfilJugador ana = guardados.stream().filter(p -> p.getNombreJugador().equals("Ana")).findFirst().orElseThrow();
+        assertEquals(10, ana.getContadores()[PerfilOponente.MANOS]);
+        assertEquals(5, ana.getContadores()[PerfilOponente.MAZO]);
+        // Ya tenía fila: se lee junto con el resto del lote y se actualiza
+        assertFalse(ana.isNew());
+        verify(perfilJugadorRepository).findAllById(List.of("Ana"));
+
+        clearInvocations(perfilJugadorRepository);
+        service.persistir();
+        verify(perfilJugadorRepository, never()).saveAll(anyIterable());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUnPerfilSinFilaSeInsertaYDespuesSeActualiza() {
+        service.obtener("Beto");
+        esperarCargas("Beto");
+        ArgumentCaptor<List<PerfilJugador>> lote = ArgumentCaptor.forClass(List.class);
+
+        service.onCantoRealizado(canto("Beto", TipoCanto.TRUCO, manoDebil, null));
+        service.persistir();
+        verify(perfilJugadorRepository).saveAll(lote.capture());
+        assertTrue(lote.getValue().get(0).isNew());
+        verify(perfilJugadorRepository, never()).findAllById(anyIterable());
+
+        clearInvocations(perfilJugadorRepository);
+        service.onCantoRealizado(canto("Beto", TipoCanto.TRUCO, manoDebil, null));
+        service.persistir();
+        verify(perfilJugadorRepository).saveAll(lote.capture());
+        assertFalse(lote.getValue().get(0).isNew());
+    }
+
+    @Test
+    void testElEnvidoSeCuentaUnaVezPorMano() {
+        service.onManoRepartida(reparto(1));
+        service.onCantoRealizado(canto("Ana", TipoCanto.ENVIDO, manoDeTreintaYTres, null));
+        service.onCantoRealizado(canto("Beto", TipoCanto.REAL_ENVIDO, manoDebil, null));
+        service.onCantoRealizado(canto("Ana", TipoCanto.FALTA_ENVIDO, manoDeTreintaYTres, null));
+
+        PerfilOponente ana = service.obtener("Ana");
+        assertEquals(2.0 / 3.0, ana.tasaEnvido(33), 1e-9);
+
+        service.onManoRepartida(reparto(2));
+        service.onCantoRealizado(canto("Ana", TipoCanto.ENVIDO, manoDeTreintaYTres, null));
+        assertEquals(3.0 / 4.0, ana.tasaEnvido(33), 1e-9);
+
+        // Una mano sin cantar baja la tasa
+        service.onManoRepartida(reparto(3));
+        assertEquals(3.0 / 5.0, ana.tasaEnvido(33), 1e-9);
+    }
+
+    @Test
+    void testAlTerminarLaPartidaElPerfilSaleDeMemoriaUnaVezGuardado() {
+        UUID otraPartida = UUID.randomUUID();
+        service.onManoRepartida(reparto(1));
+        service.onManoRepartida(new ManoRepartidaEvent(otraPartida, 1, 0L,
+                Map.of("Beto", manoDebil, "Ciro", manoDebil), Map.of("Beto", 0, "Ciro", 1)));
+        PerfilOponente ana = service.obtener("Ana");
+        PerfilOponente beto = service.obtener("Beto");
+        esperarCargas("Ana", "Beto", "Ciro");
+
+        service.onPartidaFinalizada(new PartidaFinalizadaEvent(partidaId, "perfiles", Instant.now(), List.of()));
+        // Sigue hasta que sus cambios estén guardados
+        assertSame(ana, service.obtener("Ana"));
+
+        service.persistir();
+
+        verify(perfilJugadorRepository).saveAll(anyIterable());
+        assertNotSame(ana, service.obtener("Ana"));
+        // Beto todavía juega la otra partida
+        assertSame(beto, service.obtener("Beto"));
+    }
+
+    @Test
+    void testAlRetirarseLaPartidaDeMemoriaElPerfilTambienSale() {
+        service.onManoRepartida(reparto(1));
+        PerfilOponente ana = service.obtener("Ana");
+        esperarCargas("Ana", "Beto");
+
+        service.onPartidaRetirada(new PartidaRetiradaEvent(partidaId));
+        service.persistir();
+
+        assertNotSame(ana, service.obtener("Ana"));
+    }
+
+    @Test
+    void testSiNoSePudoGuardarElPerfilSeQuedaEnMemoria() {
+        when(perfilJugadorRepository.saveAll(anyIterable())).thenThrow(new RuntimeException("base caída"));
+        service.onManoRepartida(reparto(1));
+        PerfilOponente ana = service.obtener("Ana");
+        esperarCargas("Ana", "Beto");
+
+        service.onPartidaFinalizada(new PartidaFinalizadaEvent(partidaId, "perfiles", Instant.now(), List.of()));
+        service.persistir();
+
+        assertSame(ana, service.obtener("Ana"));
+    }
+
+    private ManoRepartidaEvent reparto(int numeroMano) {
+        return new ManoRepartidaEvent(partidaId, numeroMano, 0L,
+                Map.of("Ana", manoDeTreintaYTres, "Beto", manoDebil), Map.of("Ana", 0, "Beto", 1));
+    }
+
+    private void esperarCargas(String... jugadores) {
+        long limite = System.currentTimeMillis() + 5000;
+        for (String jugador : jugadores) {
+            while (!service.obtener(jugador).isCargado() && System.currentTimeMillis() < limite) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private CantoRealizadoEvent canto(String jugador, TipoCanto tipo, long mano, TipoCanto respuestaA) {
+        return new CantoRealizadoEvent(partidaId, 1, jugador, tipo, mano, mano, respuestaA, null);
+    }
+
+    private static long mascara(Palo p1, int v1, Palo p2, int v2, Palo p3, int v3) {
+        return (1L << CodigoCarta.indice(p1, v1)) | (1L << CodigoCarta.indice(p2, v2)) | (1L << CodigoCarta.indice(p3, v3));
+    }
+}
@@ -0,0 +1,78 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.fabiano.tfg.engine.event.CantoRealizadoEvent;
+import org.fabiano.tfg.engine.model.TipoCanto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "truco.ia.perfiles.persistir-cada-ms=3600000"
+})
+@Import(PerfilOponenteService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PerfilesEnLoteTest {
+
+    private static final List<String> JUGADORES = List.of("Ana", "Beto", "Ciro", "Dora");
+
+    @Autowired
+    private PerfilOponenteService service;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void guardarPerfilesNoLosLeeUnoPorUno() {
+        for (String jugador : JUGADORES) {
+            service.obtener(jugador);
+        }
+        esperarCargas();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        cantarTodos();
+        estadisticas.clear();
+        service.persistir();
+
+        // Sin fila todavía: se insertan sin consultar
+        assertEquals(JUGADORES.size(), estadisticas.getEntityInsertCount());
+        assertEquals(0, estadisticas.getEntityLoadCount());
+
+        cantarTodos();
+        estadisticas.clear();
+        service.persistir();
+
+        // Una lectura para todo el lote y las actualizaciones
+        assertEquals(JUGADORES.size(), estadisticas.getEntityUpdateCount());
+        assertTrue(estadisticas.getPrepareStatementCount() <= 2,
+                "sentencias: " + estadisticas.getPrepareStatementCount());
+    }
+
+    private void cantarTodos() {
+        for (String jugador : JUGADORES) {
+            service.onCantoRealizado(new CantoRealizadoEvent(UUID.randomUUID(), 1, jugador, TipoCanto.AL_MAZO,
+                    0L, 0L, null, null));
+        }
+    }
+
+    private void esperarCargas() {
+        long limite = System.currentTimeMillis() + 5000;
+        for (String jugador : JUGADORES) {
+            while (!service.obtener(jugador).isCargado() && System.currentTimeMillis() < limite) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
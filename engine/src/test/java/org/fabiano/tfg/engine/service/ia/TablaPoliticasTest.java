@@ -0,0 +1,104 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablaPoliticasTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void testEscribirYLeerTabla() throws IOException {
+        Path archivo = directorio.resolve("politicas.bin");
+        try (EscritorTablaPoliticas escritor = new EscritorTablaPoliticas(archivo, 30, 40)) {
+            escritor.envido(10, 25, 33, 1.0, 0.9);
+            escritor.envido(10, 25, 20, 0.1, 0.0);
+            escritor.truco(29, 29, 39, 2, 0.75, 0.5);
+            escritor.truco(30, 30, 39, 2, 0.25, 0.5);
+        }
+
+        assertEquals(TablaPoliticas.tamanoArchivo(30, 40), Files.size(archivo));
+
+        try (TablaPoliticas tabla = TablaPoliticas.abrir(archivo)) {
+            assertEquals(30, tabla.getPuntajeMaximo());
+            assertEquals(40, tabla.getBucketsMano());
+            assertEquals(1.0, tabla.probabilidadCantarEnvido(10, 25, 33), 1e-4);
+            assertEquals(0.9, tabla.probabilidadQuererEnvido(10, 25, 33), 1e-4);
+            assertEquals(0.1, tabla.probabilidadCantarEnvido(10, 25, 20), 1e-4);
+            assertEquals(0.75, tabla.probabilidadSubirTruco(29, 29, 39, 2), 1e-4);
+            assertEquals(0.5, tabla.probabilidadAceptarTruco(29, 29, 39, 2), 1e-4);
+            assertEquals(0.0, tabla.probabilidadSubirTruco(0, 0, 5, 0), 1e-4);
+            // Valores fuera de rango se acotan a los bordes de la tabla
+            assertEquals(0.25, tabla.probabilidadSubirTruco(35, 40, 99, 5), 1e-4);
+        }
+    }
+
+    @Test
+    void testArchivoInvalido() throws IOException {
+        Path archivo = directorio.resolve("otro.bin");
+        Files.write(archivo, new byte[64]);
+
+        assertThrows(IllegalStateException.class, () -> TablaPoliticas.abrir(archivo));
+    }
+
+    @Test
+    void testCabeceraQueNoCoincideConElArchivo() throws IOException {
+        Path archivo = directorio.resolve("politicas.bin");
+        try (EscritorTablaPoliticas escritor = new EscritorTablaPoliticas(archivo, 30, 40)) {
+            escritor.envido(0, 0, 0, 0.5, 0.5);
+        }
+        byte[] bytes = Files.readAllBytes(archivo);
+
+        // Truncado: la última entrada del truco quedaría fuera del mapeo
+        Files.write(archivo, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IllegalStateException.class, () -> TablaPoliticas.abrir(archivo));
+
+        // Más buckets de los que entran en el archivo
+        Files.write(archivo, conEntero(bytes, 12, 41));
+        assertThrows(IllegalStateException.class, () -> TablaPoliticas.abrir(archivo));
+
+        // Dimensiones negativas
+        Files.write(archivo, conEntero(bytes, 8, -1));
+        assertThrows(IllegalStateException.class, () -> TablaPoliticas.abrir(archivo));
+
+        // Offset del truco corrido
+        Files.write(archivo, conEntero(bytes, 24, 128));
+        assertThrows(IllegalStateException.class, () -> TablaPoliticas.abrir(archivo));
+
+        // Más corto que la cabecera
+        Files.write(archivo, new byte[]{0x4C, 0x50});
+        assertThrows(IllegalStateException.class, () -> TablaPoliticas.abrir(archivo));
+    }
+
+    @Test
+    void testEscribirFueraDeRangoEsUnError() throws IOException {
+        Path archivo = directorio.resolve("politicas.bin");
+        try (EscritorTablaPoliticas escritor = new EscritorTablaPoliticas(archivo, 30, 40)) {
+            escritor.envido(30, 30, 33, 0.5, 0.5);
+            escritor.truco(30, 30, 39, 2, 0.5, 0.5);
+
+            assertThrows(IllegalArgumentException.class, () -> escritor.envido(31, 0, 0, 0.5, 0.5));
+            assertThrows(IllegalArgumentException.class, () -> escritor.envido(0, -1, 0, 0.5, 0.5));
+            assertThrows(IllegalArgumentException.class, () -> escritor.envido(0, 0, 34, 0.5, 0.5));
+            assertThrows(IllegalArgumentException.class, () -> escritor.truco(0, 31, 0, 0, 0.5, 0.5));
+            assertThrows(IllegalArgumentException.class, () -> escritor.truco(0, 0, 40, 0, 0.5, 0.5));
+            assertThrows(IllegalArgumentException.class, () -> escritor.truco(0, 0, 0, 3, 0.5, 0.5));
+        }
+    }
+
+    private static byte[] conEntero(byte[] bytes, int posicion, int valor) {
+        byte[] copia = bytes.clone();
+        ByteBuffer.wrap(copia).order(ByteOrder.LITTLE_ENDIAN).putInt(posicion, valor);
+        return copia;
+    }
+}
@@ -0,0 +1,139 @@
+package org.fabiano.tfg.engine.service.ia;
+
+import com.sun.net.httpserver.HttpServer;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.Palo;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.TipoCanto;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.service.JerarquiaLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrucoAIServiceTest {
+
+    private HeuristicaIA heuristica;
+    private Partida partida;
+    private Jugador jugador;
+
+    @BeforeEach
+    void setUp() {
+        JerarquiaLoader jerarquiaLoader = new JerarquiaLoader();
+        jerarquiaLoader.cargarJerarquia();
+        heuristica = new HeuristicaIA(jerarquiaLoader, Optional.empty());
+
+        jugador = new Jugador("Bot", false, false, false, false, false, false,
+                false, false, false, false, false, false, 0,
+                new ArrayList<>(List.of(new Carta(Palo.COPA, 4), new Carta(Palo.ORO, 5), new Carta(Palo.BASTO, 12))));
+        Jugador rival = new Jugador("Rival", false, false, false, false, false, false,
+                false, false, false, false, false, false, 0, new ArrayList<>());
+
+        partida = new Partida();
+        partida.setEquipos(List.of(new Equipo("Equipo1", List.of(jugador), 0), new Equipo("Equipo2", List.of(rival), 0)));
+        partida.setCartasJugadas(new ArrayList<>());
+        partida.setEstadoRonda(EstadoRonda.EN_CURSO);
+    }
+
+    @Test
+    void testSinClienteUsaLaHeuristica() {
+        TrucoAIService service = new TrucoAIService(Optional.empty(), heuristica, 100, 1000, 4, 10);
+
+        SugerenciaIA sugerencia = service.sugerir(partida, jugador).join();
+
+        assertFalse(sugerencia.delModelo());
+        assertEquals(heuristica.decidir(partida, jugador), sugerencia);
+    }
+
+    @Test
+    void testRespuestaDelModeloSeCachea() {
+        AtomicInteger llamadas = new AtomicInteger();
+        ClienteLLM cliente = prompt -> {
+            llamadas.incrementAndGet();
+            return CompletableFuture.completedFuture("ACCION: TRUCO\nFRASE: ¡Quiero ver esas cartas!");
+        };
+        TrucoAIService service = new TrucoAIService(Optional.of(cliente), heuristica, 500, 1000, 4, 10);
+
+        SugerenciaIA primera = service.sugerir(partida, jugador).join();
+        SugerenciaIA segunda = service.sugerir(partida, jugador).join();
+
+        assertTrue(primera.delModelo());
+        assertEquals(TipoCanto.TRUCO, primera.canto());
+        assertEquals("¡Quiero ver esas cartas!", primera.frase());
+        assertEquals(primera, segunda);
+        assertEquals(1, llamadas.get());
+    }
+
+    @Test
+    void testModeloLentoCaeEnLaHeuristicaDentroDelPlazo() {
+        CompletableFuture<String> nuncaResponde = new CompletableFuture<>();
+        TrucoAIService service = new TrucoAIService(Optional.of(prompt -> nuncaResponde), heuristica, 50, 1000, 4, 10);
+
+        long inicio = System.nanoTime();
+        SugerenciaIA sugerencia = service.sugerir(partida, jugador).join();
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertFalse(sugerencia.delModelo());
+        assertTrue(ms < 1000, "La heurística debe llegar cerca del plazo, tardó " + ms + " ms");
+    }
+
+    @Test
+    void testLimiteDeConsultasEnVuelo() {
+        AtomicInteger llamadas = new AtomicInteger();
+        TrucoAIService service = new TrucoAIService(Optional.of(prompt -> {
+            llamadas.incrementAndGet();
+            return new CompletableFuture<>();
+        }), heuristica, 10, 60_000, 1, 10);
+
+        service.sugerir(partida, jugador).join();
+        partida.setVuelta(2); // otra situación, otro prompt
+        SugerenciaIA sinPermiso = service.sugerir(partida, jugador).join();
+
+        assertEquals(1, llamadas.get());
+        assertFalse(sinPermiso.delModelo());
+    }
+
+    @Test
+    void testAccionInvalidaConservaLaDeLaHeuristica() {
+        TrucoAIService service = new TrucoAIService(Optional.empty(), heuristica, 100, 1000, 4, 10);
+        SugerenciaIA respaldo = heuristica.decidir(partida, jugador);
+
+        SugerenciaIA sugerencia = service.interpretar("ACCION: CARTA 7\nFRASE: Ahí te va", respaldo, 3);
+
+        assertEquals("Ahí te va", sugerencia.frase());
+        assertEquals(respaldo.indiceCarta(), sugerencia.indiceCarta());
+    }
+
+    @Test
+    void testClienteHttpContraServidorStub() throws Exception {
+        HttpServer servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/generar", exchange -> {
+            byte[] respuesta = "{\"respuesta\":\"ACCION: CARTA 1\\nFRASE: Tomá\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, respuesta.length);
+            exchange.getResponseBody().write(respuesta);
+            exchange.close();
+        });
+        servidor.start();
+        try {
+            String url = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/generar";
+            TrucoAIService service = new TrucoAIService(Optional.of(new ClienteLLMHttp(url)), heuristica, 5000, 10000, 4, 10);
+
+            SugerenciaIA sugerencia = service.sugerir(partida, jugador).join();
+
+            assertTrue(sugerencia.delModelo());
+            assertEquals(1, sugerencia.indiceCarta());
+            assertEquals("Tomá", sugerencia.frase());
+        } finally {
+            servidor.stop(0);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.fabiano.tfg.engine.service.replica;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dos bases H2 en memoria hacen de primaria y réplica; cada una dice quién
+ * es, así se ve a cuál fue cada lectura.
+ */
+class DataSourceRuteadoTest {
+
+    private JdbcTemplate primaria;
+    private JdbcTemplate replica;
+    private GuardiaReplica guardia;
+    private JdbcTemplate ruteado;
+    private TransactionTemplate lectura;
+    private TransactionTemplate escritura;
+
+    @BeforeEach
+    void preparar() {
+        DataSource basePrimaria = base("primaria");
+        DataSource baseReplica = base("replica");
+        primaria = new JdbcTemplate(basePrimaria);
+        replica = new JdbcTemplate(baseReplica);
+        for (JdbcTemplate jdbc : new JdbcTemplate[]{primaria, replica}) {
+            jdbc.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        }
+        primaria.update("INSERT INTO origen VALUES ('primaria')");
+        replica.update("INSERT INTO origen VALUES ('replica')");
+        replica.execute("CREATE TABLE retraso (ms BIGINT)");
+        replica.update("INSERT INTO retraso VALUES (0)");
+
+        guardia = new GuardiaReplica(Optional.of(baseReplica), "SELECT ms FROM retraso", 1000, 250, 500);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new DataSourceRuteado(basePrimaria, baseReplica, guardia));
+        ruteado = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transacciones = new DataSourceTransactionManager(dataSource);
+        lectura = new TransactionTemplate(transacciones);
+        lectura.setReadOnly(true);
+        escritura = new TransactionTemplate(transacciones);
+    }
+
+    @Test
+    void soloLasLecturasMarcadasEnTransaccionesDeLecturaVanALaReplica() {
+        guardia.medir();
+
+        assertEquals("replica", lectura.execute(s -> guardia.leer(this::origen)));
+        assertEquals("primaria", lectura.execute(s -> origen()));
+        assertEquals("primaria", escritura.execute(s -> guardia.leer(this::origen)));
+        assertEquals("primaria", guardia.leer(this::origen));
+    }
+
+    @Test
+    void despuesDeActuarElJugadorLeeDeLaPrimaria() {
+        guardia.medir();
+        guardia.registrarAccion("Ana");
+
+        assertEquals("primaria", lectura.execute(s -> guardia.leer("Ana", this::origen)));
+        assertEquals("replica", lectura.execute(s -> guardia.leer("Beto", this::origen)));
+    }
+
+    @Test
+    void conLaReplicaAtrasadaOCaidaSeLeeDeLaPrimaria() {
+        assertEquals("primaria", lectura.execute(s -> guardia.leer(this::origen)), "sin medir todavía");
+
+        replica.update("UPDATE retraso SET ms = 5000");
+        guardia.medir();
+        assertFalse(guardia.disponible());
+        assertEquals("primaria", lectura.execute(s -> guardia.leer(this::origen)));
+
+        replica.update("UPDATE retraso SET ms = 10");
+        guardia.medir();
+        assertEquals(10, guardia.getRetrasoMs());
+        assertEquals("replica", lectura.execute(s -> guardia.leer(this::origen)));
+
+        replica.execute("DROP TABLE retraso");
+        guardia.medir();
+        assertEquals("primaria", lectura.execute(s -> guardia.leer(this::origen)));
+    }
+
+    private String origen() {
+        return ruteado.queryForObject("SELECT nombre FROM origen", String.class);
+    }
+
+    private static DataSource base(String nombre) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + nombre + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+}
@@ -0,0 +1,63 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.Palo;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArenaEstadosTest {
+
+    @Test
+    void guardaLosCamposSinPisarseEntreBloques() {
+        ArenaEstados arena = new ArenaEstados(10, 4);
+        for (int i = 0; i < 10; i++) {
+            int estado = arena.reservar();
+            arena.mano(estado, 0, 0b111L << i);
+            arena.mano(estado, 1, 0b111L << (20 + i));
+            arena.turno(estado, i & 1);
+            arena.puntos(estado, 1, 200 + i);
+            arena.resultadoVuelta(estado, 2, 3);
+            arena.marcar(estado, ArenaEstados.ENVIDO_CANTADO);
+        }
+
+        int carta = CodigoCarta.indice(Palo.ESPADA, 2);
+        arena.jugar(5, 0, carta);
+        for (int i = 0; i < 10; i++) {
+            long esperada = i == 5 ? (0b111L << i) & ~(1L << carta) : 0b111L << i;
+            assertEquals(esperada, arena.mano(i, 0));
+            assertEquals(0b111L << (20 + i), arena.mano(i, 1));
+            assertEquals(i & 1, arena.turno(i));
+            assertEquals(200 + i, arena.puntos(i, 1));
+            assertEquals(0, arena.resultadoVuelta(i, 1));
+            assertEquals(3, arena.resultadoVuelta(i, 2));
+            assertTrue(arena.tieneBandera(i, ArenaEstados.ENVIDO_CANTADO));
+            assertFalse(arena.tieneBandera(i, ArenaEstados.TERMINADA));
+        }
+        assertEquals(1L << carta, arena.mesa(5));
+        assertThrows(IllegalStateException.class, arena::reservar);
+    }
+
+    @Test
+    void reiniciarDejaTodoEnCero() {
+        ArenaEstados arena = new ArenaEstados(8, 4);
+        for (int i = 0; i < 6; i++) {
+            int estado = arena.reservar();
+            arena.mesa(estado, -1L);
+            arena.marcar(estado, ArenaEstados.TERMINADA);
+        }
+        arena.copiar(0, 5);
+
+        arena.reiniciar();
+        assertEquals(0, arena.usados());
+        assertThrows(IndexOutOfBoundsException.class, () -> arena.mesa(0));
+        for (int i = 0; i < 6; i++) {
+            int estado = arena.reservar();
+            assertEquals(0L, arena.mesa(estado));
+            assertFalse(arena.tieneBandera(estado, ArenaEstados.TERMINADA));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.Palo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeneradorSelfPlayTest {
+
+    @TempDir
+    Path directorio;
+
+    private ResolutorVueltasLote resolutor;
+
+    @BeforeEach
+    void setUp() {
+        int[] tabla = new int[CodigoCarta.TOTAL_CARTAS];
+        for (int i = 0; i < tabla.length; i++) {
+            tabla[i] = CodigoCarta.valorJerarquico(i);
+        }
+        resolutor = new ResolutorVueltasLote(tabla);
+    }
+
+    @Test
+    void losSegmentosSeLeenIgualQueSeEscribieron() throws Exception {
+        GeneradorSelfPlay generador = new GeneradorSelfPlay(resolutor, 500);
+        long escritos = generador.generar(directorio, PoliticaBot.aleatoria(), PoliticaBot.aleatoria(), 3000, 3, 7L);
+
+        List<Path> segmentos = SegmentoRegistros.listar(directorio);
+        assertTrue(segmentos.size() > 3, "Los segmentos deberían rotar");
+
+        long leidos = 0;
+        for (Path archivo : segmentos) {
+            try (SegmentoRegistros segmento = SegmentoRegistros.abrir(archivo)) {
+                // numeroMano -> suma de resultados de cada jugador (mano, pie)
+                Map<Integer, int[]> porMano = new HashMap<>();
+                for (int i = 0; i < segmento.cantidad(); i++) {
+                    long legales = segmento.accionesLegales(i);
+                    assertTrue((legales & (1L << segmento.accion(i))) != 0);
+                    if (segmento.accion(i) < CodigoCarta.TOTAL_CARTAS) {
+                        assertTrue((segmento.manoPropia(i) & (1L << segmento.accion(i))) != 0);
+                    }
+                    int[] resultados = porMano.computeIfAbsent(segmento.numeroMano(i), k -> new int[]{0, 0, 0, 0});
+                    int jugador = segmento.jugador(i);
+                    resultados[jugador] = segmento.resultado(i);
+                    resultados[2 + jugador] = 1;
+                }
+                for (int[] resultados : porMano.values()) {
+                    if (resultados[2] == 1 && resultados[3] == 1) {
+                        assertEquals(0, resultados[0] + resultados[1]);
+                    }
+                }
+                leidos += segmento.cantidad();
+            }
+        }
+        assertEquals(escritos, leidos);
+    }
+
+    @Test
+    void trucoQueridoYDosVueltasGanadas() {
+        SimuladorMano simulador = new SimuladorMano(resolutor);
+        ArenaEstados arena = new ArenaEstados(1);
+        int estado = arena.reservar();
+        int anchoEspada = CodigoCarta.indice(Palo.ESPADA, 1);
+        int anchoBasto = CodigoCarta.indice(Palo.BASTO, 1);
+        int cuatroCopa = CodigoCarta.indice(Palo.COPA, 4);
+        int tresOro = CodigoCarta.indice(Palo.ORO, 3);
+        int cincoOro = CodigoCarta.indice(Palo.ORO, 5);
+        int seisOro = CodigoCarta.indice(Palo.ORO, 6);
+        arena.mano(estado, 0, (1L << anchoEspada) | (1L << anchoBasto) | (1L << cuatroCopa));
+        arena.mano(estado, 1, (1L << tresOro) | (1L << cincoOro) | (1L << seisOro));
+        arena.cartaPendiente(estado, -1);
+
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_TRUCO);
+        // Responde, sube a retruco o canta el envido, que va primero
+        assertEquals((1L << SimuladorMano.ACCION_QUIERO) | (1L << SimuladorMano.ACCION_NO_QUIERO)
+                        | (1L << SimuladorMano.ACCION_TRUCO) | (1L << SimuladorMano.ACCION_ENVIDO)
+                        | (1L << SimuladorMano.ACCION_REAL_ENVIDO) | (1L << SimuladorMano.ACCION_FALTA_ENVIDO),
+                simulador.accionesLegales(arena, estado));
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_QUIERO);
+        assertEquals(0, arena.turno(estado));
+        // Quien quiso tiene el quiero: el mano ya no puede subir
+        assertEquals(0, simulador.accionesLegales(arena, estado) & (1L << SimuladorMano.ACCION_TRUCO));
+
+        simulador.aplicar(arena, estado, anchoEspada);
+        simulador.aplicar(arena, estado, tresOro);
+        assertEquals(0, arena.turno(estado));
+        simulador.aplicar(arena, estado, anchoBasto);
+        simulador.aplicar(arena, estado, seisOro);
+
+        assertTrue(simulador.terminada(arena, estado));
+        assertEquals(2, simulador.diferencia(arena, estado, 0));
+    }
+}
@@ -0,0 +1,88 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.Palo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResolutorVueltasLoteTest {
+
+    private ResolutorVueltasLote resolutor;
+
+    @BeforeEach
+    void setUp() {
+        int[] tabla = new int[CodigoCarta.TOTAL_CARTAS];
+        for (int i = 0; i < tabla.length; i++) {
+            tabla[i] = CodigoCarta.valorJerarquico(i);
+        }
+        resolutor = new ResolutorVueltasLote(tabla);
+    }
+
+    @Test
+    void loteCoincideConLaVersionEscalar() {
+        Random rnd = new Random(42);
+        for (int asientos : new int[]{2, 4, 6}) {
+            int cantidad = 5000;
+            int[][] cartas = new int[asientos][cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                long usadas = 0L;
+                for (int asiento = 0; asiento < asientos; asiento++) {
+                    int carta;
+                    do {
+                        carta = rnd.nextInt(CodigoCarta.TOTAL_CARTAS);
+                    } while ((usadas & (1L << carta)) != 0);
+                    usadas |= 1L << carta;
+                    cartas[asiento][i] = carta;
+                }
+            }
+
+            int[] ganadores = new int[cantidad];
+            byte[] pardas = new byte[cantidad];
+            resolutor.resolver(cartas, cantidad, ganadores, pardas);
+
+            int[] vuelta = new int[asientos];
+            for (int i = 0; i < cantidad; i++) {
+                for (int asiento = 0; asiento < asientos; asiento++) {
+                    vuelta[asiento] = cartas[asiento][i];
+                }
+                assertEquals(resolutor.resolverVuelta(vuelta), ganadores[i]);
+                assertEquals(resolutor.esParda(vuelta), pardas[i] == 1);
+            }
+        }
+    }
+
+    @Test
+    void empateLoGanaElPrimeroYEsPardaSoloEntreEquipos() {
+        int tresOro = CodigoCarta.indice(Palo.ORO, 3);
+        int tresCopa = CodigoCarta.indice(Palo.COPA, 3);
+        int tresBasto = CodigoCarta.indice(Palo.BASTO, 3);
+        int cuatroOro = CodigoCarta.indice(Palo.ORO, 4);
+
+        assertEquals(0, resolutor.resolverVuelta(tresOro, tresCopa));
+        assertTrue(resolutor.esParda(tresOro, tresCopa));
+
+        // Asientos 1 y 3 son compañeros: el empate no es parda
+        assertEquals(1, resolutor.resolverVuelta(cuatroOro, tresOro, cuatroOro + 1, tresBasto));
+        assertFalse(resolutor.esParda(cuatroOro, tresOro, cuatroOro + 1, tresBasto));
+
+        int[] ganadores = new int[1];
+        byte[] pardas = new byte[1];
+        resolutor.resolver(new int[][]{{cuatroOro}, {tresOro}, {cuatroOro + 1}, {tresBasto}}, 1, ganadores, pardas);
+        assertEquals(1, ganadores[0]);
+        assertEquals(0, pardas[0]);
+    }
+
+    @Test
+    void anchoDeEspadaGanaATodo() {
+        int anchoEspada = CodigoCarta.indice(Palo.ESPADA, 1);
+        int anchoBasto = CodigoCarta.indice(Palo.BASTO, 1);
+        int sieteEspada = CodigoCarta.indice(Palo.ESPADA, 7);
+        assertEquals(2, resolutor.resolverVuelta(anchoBasto, sieteEspada, anchoEspada));
+    }
+}
@@ -0,0 +1,448 @@
+package org.fabiano.tfg.engine.service.simulacion;
+
+import org.fabiano.tfg.engine.dto.CrearPartidaRequest;
+import org.fabiano.tfg.engine.model.Carta;
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.model.EstadoRonda;
+import org.fabiano.tfg.engine.model.Palo;
+import org.fabiano.tfg.engine.model.Partida;
+import org.fabiano.tfg.engine.model.TipoCanto;
+import org.fabiano.tfg.engine.model.team.Equipo;
+import org.fabiano.tfg.engine.model.team.Jugador;
+import org.fabiano.tfg.engine.repository.CartaRepository;
+import org.fabiano.tfg.engine.repository.EventoPartidaRepository;
+import org.fabiano.tfg.engine.repository.PartidaRepository;
+import org.fabiano.tfg.engine.repository.SnapshotPartidaRepository;
+import org.fabiano.tfg.engine.service.AlmacenPartidasJpa;
+import org.fabiano.tfg.engine.service.CargaPartidas;
+import org.fabiano.tfg.engine.service.JerarquiaLoader;
+import org.fabiano.tfg.engine.service.MazoService;
+import org.fabiano.tfg.engine.service.PartidaService;
+import org.fabiano.tfg.engine.service.RegistroPartidas;
+import org.fabiano.tfg.engine.service.YamlRuleLoader;
+import org.fabiano.tfg.engine.service.bitacora.AlmacenEventosJpa;
+import org.fabiano.tfg.engine.service.bitacora.BitacoraPartidaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SimuladorManoTest {
+
+    private JerarquiaLoader jerarquiaLoader;
+    private SimuladorMano simulador;
+    private ArenaEstados arena;
+
+    @BeforeEach
+    void setUp() {
+        jerarquiaLoader = new JerarquiaLoader();
+        jerarquiaLoader.cargarJerarquia();
+        simulador = new SimuladorMano(new ResolutorVueltasLote(jerarquiaLoader));
+        arena = new ArenaEstados(1);
+    }
+
+    @Test
+    void laCadenaDelEnvidoSumaLoQueridoYNoQueridaValeLoAnterior() {
+        // Mano con 33, pie con 27
+        int estado = repartir(mano(Palo.ESPADA, 7, 6) | mano(Palo.ORO, 12), mano(Palo.ORO, 4, 3) | mano(Palo.COPA, 1), 30);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_ENVIDO);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_ENVIDO);
+        assertEquals(0, simulador.accionesLegales(arena, estado) & (1L << SimuladorMano.ACCION_ENVIDO));
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_REAL_ENVIDO);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_NO_QUIERO);
+
+        // Envido envido querido, el real no: 4 para quien cantó el real
+        assertEquals(4, arena.puntos(estado, 0));
+        assertEquals(0, arena.puntos(estado, 1));
+        // El turno vuelve al mano, que todavía no jugó
+        assertEquals(0, arena.turno(estado));
+        assertEquals(0, simulador.accionesLegales(arena, estado) & (1L << SimuladorMano.ACCION_ENVIDO));
+    }
+
+    @Test
+    void laFaltaEnvidoQueridaValeLoQueLeFaltaAlQueVaGanando() {
+        int estado = repartir(mano(Palo.ESPADA, 7, 6) | mano(Palo.ORO, 12), mano(Palo.ORO, 4, 3) | mano(Palo.COPA, 1), 11);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_REAL_ENVIDO);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_FALTA_ENVIDO);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_QUIERO);
+
+        assertEquals(11, arena.puntos(estado, 0));
+        assertEquals(0, arena.puntos(estado, 1));
+    }
+
+    @Test
+    void elEnvidoVaPrimeroQueElTruco() {
+        int estado = repartir(mano(Palo.ESPADA, 7, 6) | mano(Palo.ORO, 12), mano(Palo.ORO, 4, 3) | mano(Palo.COPA, 1), 30);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_TRUCO);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_ENVIDO);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_QUIERO);
+
+        assertEquals(2, arena.puntos(estado, 0));
+        // El pie todavía debe el truco, y ya no puede volver al envido
+        assertEquals(1, arena.turno(estado));
+        assertEquals((1L << SimuladorMano.ACCION_QUIERO) | (1L << SimuladorMano.ACCION_NO_QUIERO)
+                | (1L << SimuladorMano.ACCION_TRUCO), simulador.accionesLegales(arena, estado));
+
+        // Quiero retruco: queda querido el truco y el mano responde
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_TRUCO);
+        assertEquals(1, arena.nivelTruco(estado));
+        assertEquals(0, arena.turno(estado));
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_NO_QUIERO);
+        assertTrue(simulador.terminada(arena, estado));
+        assertEquals(2, arena.puntos(estado, 1));
+    }
+
+    @Test
+    void laFlorSinFlorEnfrenteSumaEnElActoYMataElEnvido() {
+        int estado = repartir(mano(Palo.ESPADA, 7, 6) | mano(Palo.ORO, 12), mano(Palo.ORO, 4, 5, 6), 30);
+        assertEquals(0, simulador.accionesLegales(arena, estado) & (1L << SimuladorMano.ACCION_FLOR));
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_ENVIDO);
+        assertNotEquals(0, simulador.accionesLegales(arena, estado) & (1L << SimuladorMano.ACCION_FLOR));
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_FLOR);
+
+        assertEquals(0, arena.puntos(estado, 0));
+        assertEquals(3, arena.puntos(estado, 1));
+        assertEquals(0, arena.turno(estado));
+        long legales = simulador.accionesLegales(arena, estado);
+        assertEquals(0, legales & ((1L << SimuladorMano.ACCION_ENVIDO) | (1L << SimuladorMano.ACCION_FLOR)));
+    }
+
+    @Test
+    void florContraFlorSeContestaConContraflorYLaGanaLaMejor() {
+        // Mano con flor de 33, pie con flor de 35
+        int estado = repartir(mano(Palo.ESPADA, 7, 6, 12), mano(Palo.ORO, 4, 5, 6), 30);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_FLOR);
+        assertEquals(1, arena.turno(estado));
+        // A la flor no se la quiere: se achica o se sube
+        assertEquals((1L << SimuladorMano.ACCION_NO_QUIERO) | (1L << SimuladorMano.ACCION_CONTRAFLOR)
+                | (1L << SimuladorMano.ACCION_CONTRAFLOR_AL_RESTO), simulador.accionesLegales(arena, estado));
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_CONTRAFLOR);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_CONTRAFLOR_AL_RESTO);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_QUIERO);
+
+        assertEquals(30, arena.puntos(estado, 1));
+        assertEquals(0, arena.puntos(estado, 0));
+        assertEquals(0, arena.turno(estado));
+    }
+
+    @Test
+    void conFlorMeAchicoDaCuatro() {
+        int estado = repartir(mano(Palo.ESPADA, 7, 6, 12), mano(Palo.ORO, 4, 5, 6), 30);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_FLOR);
+        simulador.aplicar(arena, estado, SimuladorMano.ACCION_NO_QUIERO);
+
+        assertEquals(4, arena.puntos(estado, 0));
+        assertEquals(0, arena.puntos(estado, 1));
+    }
+
+    /**
+     * Mismas manos en el simulador y en el motor, jugando cada uno sus cartas
+     * de menor a mayor código: el mismo equipo gana la mano y por lo mismo,
+     * también cuando hay pardas.
+     */
+    @Test
+    void lasManosSinCantosTerminanIgualQueEnElMotor() {
+        PartidaService partidaService = motor();
+        SplittableRandom rnd = new SplittableRandom(17);
+        int pardas = 0;
+        for (int i = 0; i < 200; i++) {
+            long[] manos = repartoAlAzar(rnd);
+            ArenaEstados arenaMano = new ArenaEstados(1);
+            int estado = arenaMano.reservar();
+            simulador.repartir(arenaMano, estado, manos[0], manos[1], 30);
+            while (!simulador.terminada(arenaMano, estado)) {
+                int jugador = arenaMano.turno(estado);
+                simulador.aplicar(arenaMano, estado, Long.numberOfTrailingZeros(arenaMano.mano(estado, jugador)));
+            }
+            if (huboParda(arenaMano, estado)) {
+                pardas++;
+            }
+
+            Partida partida = partidaConManos(partidaService, manos);
+            while (partida.getManoActual() == 1) {
+                Jugador jugador = partida.getJugadorActual();
+                Carta carta = jugador.getMano().stream()
+                        .min(Comparator.comparingInt(CodigoCarta::indice))
+                        .orElseThrow();
+                partidaService.registrarJugada(partida, jugador, carta);
+            }
+
+            assertEquals(arenaMano.puntos(estado, 0), partida.getEquipos().get(0).getPuntaje(), "Reparto " + i);
+            assertEquals(arenaMano.puntos(estado, 1), partida.getEquipos().get(1).getPuntaje(), "Reparto " + i);
+        }
+        assertTrue(pardas > 0, "Ningún reparto con pardas");
+    }
+
+    /**
+     * Mismas manos y mismas acciones, elegidas al azar entre las legales del
+     * simulador, con cantos de truco, envido y flor y pardas forzadas: en
+     * cada paso le toca al mismo jugador y al final los dos suman lo mismo.
+     */
+    @Test
+    void lasManosConCantosYPardasTerminanIgualQueEnElMotor() {
+        PartidaService partidaService = motor();
+        SplittableRandom rnd = new SplittableRandom(29);
+        int pardas = 0;
+        int cantos = 0;
+        for (int i = 0; i < 500; i++) {
+            long[] manos = repartoConPardaOFlor(rnd, i);
+            ArenaEstados arenaMano = new ArenaEstados(1);
+            int estado = arenaMano.reservar();
+            simulador.repartir(arenaMano, estado, manos[0], manos[1], 30);
+            Partida partida = partidaConManos(partidaService, manos);
+
+            while (!simulador.terminada(arenaMano, estado)) {
+                Jugador jugador = partida.getJugadorActual();
+                assertEquals(arenaMano.turno(estado), partida.getEquipos().get(0).getJugadores().contains(jugador) ? 0 : 1,
+                        "Reparto " + i);
+                long legales = simulador.accionesLegales(arenaMano, estado);
+                int accion = elegir(legales, rnd);
+                if (accion >= SimuladorMano.ACCION_TRUCO) {
+                    cantos++;
+                    partidaService.aplicarCanto(partida, jugador, canto(accion, partida));
+                } else {
+                    Carta carta = jugador.getMano().stream()
+                            .filter(c -> CodigoCarta.indice(c) == accion)
+                            .findFirst()
+                            .orElseThrow();
+                    partidaService.registrarJugada(partida, jugador, carta);
+                }
+                simulador.aplicar(arenaMano, estado, accion);
+            }
+            if (huboParda(arenaMano, estado)) {
+                pardas++;
+            }
+
+            assertEquals(arenaMano.puntos(estado, 0), partida.getEquipos().get(0).getPuntaje(), "Reparto " + i);
+            assertEquals(arenaMano.puntos(estado, 1), partida.getEquipos().get(1).getPuntaje(), "Reparto " + i);
+            assertTrue(partida.getManoActual() == 2 || partida.getEstadoRonda() == EstadoRonda.FINALIZADA,
+                    "Reparto " + i);
+        }
+        assertTrue(pardas > 20, "Pocos repartos con pardas: " + pardas);
+        assertTrue(cantos > 500, "Pocos cantos: " + cantos);
+    }
+
+    /**
+     * La regla de flor del motor y el simulador ofrecen la flor a las mismas manos.
+     */
+    @Test
+    void laFlorSeOfreceALasMismasManosQueEnElMotor() {
+        YamlRuleLoader reglas = new YamlRuleLoader(jerarquiaLoader);
+        SplittableRandom rnd = new SplittableRandom(23);
+        int conFlor = 0;
+        for (int i = 0; i < 30; i++) {
+            long[] manos = repartoAlAzar(rnd);
+            if (i % 2 == 0) {
+                // Forzar flor en la mitad de los repartos
+                int palo = rnd.nextInt(4);
+                manos[0] = 0b111L << (palo * 10 + rnd.nextInt(8));
+                manos[1] &= ~manos[0];
+                while (Long.bitCount(manos[1]) < 3) {
+                    long bit = 1L << rnd.nextInt(CodigoCarta.TOTAL_CARTAS);
+                    if ((manos[0] & bit) == 0) {
+                        manos[1] |= bit;
+                    }
+                }
+            }
+            ArenaEstados arenaMano = new ArenaEstados(1);
+            int estado = arenaMano.reservar();
+            simulador.repartir(arenaMano, estado, manos[0], manos[1], 30);
+            boolean simuladorOfrece = (simulador.accionesLegales(arenaMano, estado) & (1L << SimuladorMano.ACCION_FLOR)) != 0;
+
+            Jugador jugador = jugadorSinFlags("Ana", cartas(manos[0]));
+            Partida partida = new Partida();
+            partida.setEquipos(Arrays.asList(new Equipo("Equipo1", List.of(jugador), 0),
+                    new Equipo("Equipo2", List.of(jugadorSinFlags("Beto", cartas(manos[1]))), 0)));
+            partida.setOrdenDeTurno(new LinkedList<>(List.of(jugador)));
+            partida.setCartasJugadas(new ArrayList<>());
+            reglas.ejecutarTodas(jugador, partida);
+
+            assertEquals(jugador.isPuedeCantarFlor(), simuladorOfrece, "Reparto " + i);
+            if (simuladorOfrece) {
+                conFlor++;
+            }
+        }
+        assertTrue(conFlor >= 15);
+    }
+
+    private int repartir(long manoJugador0, long manoJugador1, int puntosFalta) {
+        int estado = arena.reservar();
+        simulador.repartir(arena, estado, manoJugador0, manoJugador1, puntosFalta);
+        return estado;
+    }
+
+    private static long mano(Palo palo, int... valores) {
+        long mascara = 0L;
+        for (int valor : valores) {
+            mascara |= 1L << CodigoCarta.indice(palo, valor);
+        }
+        return mascara;
+    }
+
+    private static long[] repartoAlAzar(SplittableRandom rnd) {
+        long[] manos = new long[2];
+        long usadas = 0L;
+        for (int jugador = 0; jugador < 2; jugador++) {
+            while (Long.bitCount(manos[jugador]) < 3) {
+                long bit = 1L << rnd.nextInt(CodigoCarta.TOTAL_CARTAS);
+                if ((usadas & bit) == 0) {
+                    usadas |= bit;
+                    manos[jugador] |= bit;
+                }
+            }
+        }
+        return manos;
+    }
+
+    /**
+     * Reparto al azar; en uno de cada tres se fuerza una parda posible (dos
+     * cartas comunes del mismo número) y en otro, flor para el mano y a veces
+     * para el pie.
+     */
+    private static long[] repartoConPardaOFlor(SplittableRandom rnd, int i) {
+        long[] manos = repartoAlAzar(rnd);
+        if (i % 3 == 0) {
+            int[] comunes = {4, 5, 6, 10, 11, 12};
+            int valor = comunes[rnd.nextInt(comunes.length)];
+            long deMano = 1L << CodigoCarta.indice(Palo.COPA, valor);
+            long dePie = 1L << CodigoCarta.indice(Palo.ORO, valor);
+            manos[0] &= ~dePie;
+            manos[1] &= ~deMano;
+            completar(manos, 0, deMano, rnd);
+            completar(manos, 1, dePie, rnd);
+        } else if (i % 3 == 1) {
+            manos[0] = 0b111L << (rnd.nextInt(4) * 10 + rnd.nextInt(8));
+            manos[1] = rnd.nextBoolean() ? (0b111L << (rnd.nextInt(4) * 10 + rnd.nextInt(8))) & ~manos[0] : 0L;
+            completar(manos, 1, 0L, rnd);
+        }
+        return manos;
+    }
+
+    // Pone la carta en la mano, saca una cualquiera si sobra y completa hasta tres
+    private static void completar(long[] manos, int jugador, long carta, SplittableRandom rnd) {
+        if ((manos[jugador] & carta) == 0 && carta != 0) {
+            if (Long.bitCount(manos[jugador]) == 3) {
+                manos[jugador] &= manos[jugador] - 1;
+            }
+            manos[jugador] |= carta;
+        }
+        while (Long.bitCount(manos[jugador]) < 3) {
+            long bit = 1L << rnd.nextInt(CodigoCarta.TOTAL_CARTAS);
+            if (((manos[0] | manos[1]) & bit) == 0) {
+                manos[jugador] |= bit;
+            }
+        }
+    }
+
+    private static int elegir(long legales, SplittableRandom rnd) {
+        int elegida = rnd.nextInt(Long.bitCount(legales));
+        long resto = legales;
+        for (int j = 0; j < elegida; j++) {
+            resto &= resto - 1;
+        }
+        return Long.numberOfTrailingZeros(resto);
+    }
+
+    private static TipoCanto canto(int accion, Partida partida) {
+        return switch (accion - SimuladorMano.ACCION_TRUCO) {
+            case 0 -> switch (partida.getValorTruco()) {
+                case 1 -> TipoCanto.TRUCO;
+                case 2 -> TipoCanto.RETRUCO;
+                default -> TipoCanto.VALE_CUATRO;
+            };
+            case 1 -> TipoCanto.ENVIDO;
+            case 2 -> TipoCanto.QUIERO;
+            case 3 -> TipoCanto.NO_QUIERO;
+            case 4 -> TipoCanto.AL_MAZO;
+            case 5 -> TipoCanto.REAL_ENVIDO;
+            case 6 -> TipoCanto.FALTA_ENVIDO;
+            case 7 -> TipoCanto.FLOR;
+            case 8 -> TipoCanto.CONTRAFLOR;
+            default -> TipoCanto.CONTRAFLOR_AL_RESTO;
+        };
+    }
+
+    private static boolean huboParda(ArenaEstados arena, int estado) {
+        for (int vuelta = 0; vuelta < 3; vuelta++) {
+            if (arena.resultadoVuelta(estado, vuelta) == 3) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Carta> cartas(long mascara) {
+        List<Carta> cartas = new ArrayList<>();
+        for (long resto = mascara; resto != 0; resto &= resto - 1) {
+            Carta carta = CodigoCarta.carta(Long.numberOfTrailingZeros(resto));
+            carta.setId((long) CodigoCarta.indice(carta) + 1);
+            cartas.add(carta);
+        }
+        return cartas;
+    }
+
+    private static Jugador jugadorSinFlags(String nombre, List<Carta> mano) {
+        return new Jugador(nombre, false, false, false, false, false, false,
+                false, false, false, false, false, false, 0, mano);
+    }
+
+    /**
+     * El motor sin base: repositorios simulados y sin bitácora.
+     */
+    private PartidaService motor() {
+        PartidaRepository partidaRepository = mock(PartidaRepository.class);
+        CartaRepository cartaRepository = mock(CartaRepository.class);
+        AtomicLong idsCartas = new AtomicLong(1000);
+        when(cartaRepository.saveAll(anyList())).thenAnswer(i -> {
+            List<Carta> cartas = i.getArgument(0);
+            cartas.forEach(carta -> carta.setId(idsCartas.incrementAndGet()));
+            return cartas;
+        });
+        when(partidaRepository.save(any(Partida.class))).thenAnswer(i -> {
+            Partida partida = i.getArgument(0);
+            if (partida.getId() == null) {
+                partida.setId(UUID.randomUUID());
+                partida.getEquipos().forEach(e -> e.setId(UUID.randomUUID()));
+            }
+            return partida;
+        });
+        ApplicationEventPublisher publicador = evento -> {
+        };
+        BitacoraPartidaService bitacora = new BitacoraPartidaService(
+                new AlmacenEventosJpa(mock(EventoPartidaRepository.class)), mock(SnapshotPartidaRepository.class));
+        RegistroPartidas registro = new RegistroPartidas(
+                new AlmacenPartidasJpa(partidaRepository, cartaRepository, new CargaPartidas(partidaRepository)), bitacora,
+                mock(PlatformTransactionManager.class), publicador, 50);
+        return new PartidaService(new MazoService(), mock(YamlRuleLoader.class), registro,
+                jerarquiaLoader, publicador, bitacora);
+    }
+
+    private static Partida partidaConManos(PartidaService partidaService, long[] manos) {
+        CrearPartidaRequest request = new CrearPartidaRequest();
+        request.setEquiposAleatorios(false);
+        request.setEquipos(List.of(
+                new CrearPartidaRequest.EquipoDTO("Equipo1", List.of("Ana")),
+                new CrearPartidaRequest.EquipoDTO("Equipo2", List.of("Beto"))));
+        Partida partida = partidaService.crearPartida(request);
+        for (int i = 0; i < 2; i++) {
+            Jugador jugador = partida.getEquipos().get(i).getJugadores().get(0);
+            jugador.setMano(cartas(manos[i]));
+        }
+        return partida;
+    }
+}
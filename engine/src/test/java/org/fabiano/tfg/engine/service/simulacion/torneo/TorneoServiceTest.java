@@ -0,0 +1,97 @@
+package org.fabiano.tfg.engine.service.simulacion.torneo;
+
+import org.fabiano.tfg.engine.model.CodigoCarta;
+import org.fabiano.tfg.engine.service.simulacion.PoliticaBot;
+import org.fabiano.tfg.engine.service.simulacion.ResolutorVueltasLote;
+import org.fabiano.tfg.engine.service.simulacion.SimuladorMano;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TorneoServiceTest {
+
+    private static final PoliticaBot SIEMPRE_AL_MAZO = (arena, estado, jugador, legales, rnd) -> {
+        if ((legales & (1L << SimuladorMano.ACCION_AL_MAZO)) != 0) {
+            return SimuladorMano.ACCION_AL_MAZO;
+        }
+        return SimuladorMano.ACCION_NO_QUIERO;
+    };
+
+    private TorneoService torneoService;
+
+    @BeforeEach
+    void setUp() {
+        int[] tabla = new int[CodigoCarta.TOTAL_CARTAS];
+        for (int i = 0; i < tabla.length; i++) {
+            tabla[i] = CodigoCarta.valorJerarquico(i);
+        }
+        torneoService = new TorneoService(new ResolutorVueltasLote(tabla));
+    }
+
+    @Test
+    void roundRobinJuegaTodosLosCrucesYPublicaCadaPartida() throws Exception {
+        ConfiguracionTorneo configuracion = new ConfiguracionTorneo(
+                List.of(new BotTorneo("azar", PoliticaBot.aleatoria()),
+                        new BotTorneo("azar2", PoliticaBot.aleatoria()),
+                        new BotTorneo("mazo", SIEMPRE_AL_MAZO)),
+                FormatoTorneo.ROUND_ROBIN, 20, 0, 15, 4, 1L);
+        ConcurrentLinkedQueue<ResultadoPartidaTorneo> resultados = new ConcurrentLinkedQueue<>();
+
+        List<ReporteBot> reporte = torneoService.iniciar(configuracion, resultados::add)
+                .alTerminar().get(30, TimeUnit.SECONDS);
+
+        assertEquals(60, resultados.size());
+        assertTrue(resultados.stream().allMatch(r -> Math.max(r.puntosA(), r.puntosB()) >= 15));
+        Map<String, ReporteBot> porNombre = reporte.stream().collect(Collectors.toMap(ReporteBot::nombre, r -> r));
+        ReporteBot mazo = porNombre.get("mazo");
+        assertEquals(40, mazo.partidas());
+        assertEquals(0, mazo.victorias());
+        assertTrue(mazo.puntosPorMano() < 0);
+        for (ReporteBot bot : reporte) {
+            assertTrue(bot.intervaloInferior() <= bot.tasaVictorias() && bot.tasaVictorias() <= bot.intervaloSuperior());
+            assertTrue(bot.decisiones() > 0);
+        }
+        assertEquals("mazo", reporte.get(reporte.size() - 1).nombre());
+    }
+
+    @Test
+    void suizoNoRepiteCrucesMientrasHayaAlternativa() throws Exception {
+        List<BotTorneo> bots = List.of(
+                new BotTorneo("a", PoliticaBot.aleatoria()),
+                new BotTorneo("b", PoliticaBot.aleatoria()),
+                new BotTorneo("c", PoliticaBot.aleatoria()),
+                new BotTorneo("d", PoliticaBot.aleatoria()));
+        ConfiguracionTorneo configuracion = new ConfiguracionTorneo(bots, FormatoTorneo.SUIZO, 2, 3, 15, 2, 9L);
+        ConcurrentLinkedQueue<ResultadoPartidaTorneo> resultados = new ConcurrentLinkedQueue<>();
+
+        torneoService.iniciar(configuracion, resultados::add).alTerminar().get(30, TimeUnit.SECONDS);
+
+        assertEquals(3 * 2 * 2, resultados.size());
+        Set<String> cruces = new HashSet<>();
+        for (ResultadoPartidaTorneo r : resultados) {
+            cruces.add(r.botA().compareTo(r.botB()) < 0 ? r.botA() + r.botB() : r.botB() + r.botA());
+        }
+        assertEquals(6, cruces.size());
+    }
+
+    @Test
+    void histogramaYWilson() {
+        for (long nanos : new long[]{1, 7, 8, 15, 1000, 123_456, 9_999_999_999L}) {
+            long inferior = EstadisticasBot.limiteInferior(EstadisticasBot.cubeta(nanos));
+            assertTrue(inferior <= nanos && nanos - inferior <= nanos / 8, "cubeta de " + nanos);
+        }
+        double[] intervalo = EstadisticasBot.wilson(50, 100);
+        assertEquals(0.404, intervalo[0], 0.001);
+        assertEquals(0.596, intervalo[1], 0.001);
+    }
+}